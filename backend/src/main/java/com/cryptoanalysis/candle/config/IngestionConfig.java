@@ -29,6 +29,26 @@ public class IngestionConfig {
      */
     private List<String> intervals = List.of("1m", "5m", "15m", "1h", "4h", "1d");
     
+    /**
+     * Persist closed klines from the live streams (exchange and trade-built) as they close
+     */
+    private boolean livePersistence = true;
+    
+    /**
+     * Milliseconds between writes of the closed klines collected from the live streams
+     */
+    private long livePersistenceFlushMs = 1000;
+    
+    /**
+     * Closed klines written per transaction
+     */
+    private int livePersistenceBatchSize = 500;
+    
+    /**
+     * Closed klines held for writing before new ones are dropped, e.g. while the database is down
+     */
+    private int livePersistenceMaxPending = 50000;
+    
     /**
      * Cron expressions
      */
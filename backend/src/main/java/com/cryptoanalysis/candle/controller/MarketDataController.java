@@ -3,6 +3,7 @@ package com.cryptoanalysis.candle.controller;
 import com.cryptoanalysis.candle.dto.*;
 import com.cryptoanalysis.candle.service.MarketDataService;
 import com.cryptoanalysis.common.ApiResponse;
+import com.cryptoanalysis.websocket.orderbook.OrderBookService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -22,6 +23,7 @@ import java.util.List;
 public class MarketDataController {
     
     private final MarketDataService marketDataService;
+    private final OrderBookService orderBookService;
     
     /**
      * Get 24hr ticker price change statistics
@@ -114,7 +116,7 @@ public class MarketDataController {
     @GetMapping("/orderbook/{symbol}")
     @Operation(
         summary = "Get order book",
-        description = "Get order book depth (bids and asks) for a symbol"
+        description = "Get order book depth (bids and asks) for a symbol, served from the locally maintained book once it is in sync"
     )
     public ResponseEntity<ApiResponse<OrderBookDTO>> getOrderBook(
             @Parameter(description = "Trading pair symbol (e.g., BTCUSDT)", required = true)
@@ -135,7 +137,9 @@ public class MarketDataController {
                         .body(ApiResponse.error("Limit must be between 1 and 5000"));
             }
             
-            OrderBookDTO orderBook = marketDataService.getOrderBook(symbol, limit);
+            // The first request for a symbol starts its local book; REST covers the gap until it syncs
+            OrderBookDTO orderBook = orderBookService.getOrderBook(symbol.toUpperCase(), limit)
+                    .orElseGet(() -> marketDataService.getOrderBook(symbol, limit));
             
             return ResponseEntity.ok(ApiResponse.success(orderBook, 
                     String.format("Order book retrieved: %d bids, %d asks", 
@@ -1,16 +1,33 @@
 package com.cryptoanalysis.candle.mapper;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 
 import com.cryptoanalysis.candle.dto.CandleDTO;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.KlineDto;
 import com.cryptoanalysis.websocket.model.Kline;
 
 @Component
 public class CandleMapper {
     
+    /**
+     * Intervals Binance publishes kline streams and REST klines for
+     */
+    private static final Set<String> EXCHANGE_INTERVALS = Set.of(
+        "1s", "1m", "3m", "5m", "15m", "30m", "1h", "2h", "4h", "6h", "8h", "12h", "1d", "3d", "1w", "1M"
+    );
+
+    /**
+     * Bounds of a custom interval: one second to one week
+     */
+    private static final long MIN_CUSTOM_INTERVAL_MILLIS = 1000L;
+    private static final long MAX_CUSTOM_INTERVAL_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+    
     /**
      * Convert DTO to Entity
      */
@@ -28,6 +45,27 @@ public class CandleMapper {
             .build();
     }
     
+    /**
+     * Convert a live kline, including trade count and taker-buy volume, to an entity
+     */
+    public Kline toEntity(KlineDto dto) {
+        return Kline.builder()
+            .symbol(dto.getSymbol())
+            .interval(dto.getInterval())
+            .openTime(dto.getOpenTime())
+            .closeTime(dto.getCloseTime())
+            .openPrice(toBigDecimal(dto.getOpen()))
+            .highPrice(toBigDecimal(dto.getHigh()))
+            .lowPrice(toBigDecimal(dto.getLow()))
+            .closePrice(toBigDecimal(dto.getClose()))
+            .volume(toBigDecimal(dto.getVolume()))
+            .quoteVolume(toBigDecimal(dto.getQuoteVolume()))
+            .tradesCount(dto.getTradesCount())
+            .takerBuyBaseVolume(toBigDecimal(dto.getTakerBuyVolume()))
+            .takerBuyQuoteVolume(toBigDecimal(dto.getTakerBuyQuoteVolume()))
+            .build();
+    }
+    
     /**
      * Convert Entity to DTO
      */
@@ -63,8 +101,14 @@ public class CandleMapper {
     /**
      * Helper: Convert interval string to milliseconds
      */
-    private long getIntervalMillis(String interval) {
+    public long getIntervalMillis(String interval) {
+        // "1M" (month) and "1m" (minute) only differ in case
+        if ("1M".equals(interval)) {
+            return 30 * 24 * 60 * 60 * 1000L;
+        }
+
         return switch (interval.toLowerCase()) {
+            case "1s" -> 1000L;
             case "1m" -> 60 * 1000L;
             case "3m" -> 3 * 60 * 1000L;
             case "5m" -> 5 * 60 * 1000L;
@@ -79,8 +123,47 @@ public class CandleMapper {
             case "1d" -> 24 * 60 * 60 * 1000L;
             case "3d" -> 3 * 24 * 60 * 60 * 1000L;
             case "1w" -> 7 * 24 * 60 * 60 * 1000L;
-            case "1M" -> 30 * 24 * 60 * 60 * 1000L;
+            default -> parseCustomInterval(interval);
+        };
+    }
+    
+    /**
+     * Helper: Whether Binance serves this interval itself; other valid intervals are built from trades
+     */
+    public boolean isExchangeInterval(String interval) {
+        return EXCHANGE_INTERVALS.contains(interval);
+    }
+    
+    /**
+     * Helper: Convert a custom interval such as "5s" or "10m" (built from trades) to milliseconds,
+     * between one second and one week
+     */
+    private long parseCustomInterval(String interval) {
+        if (interval.length() < 2) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+        
+        long unit = switch (interval.charAt(interval.length() - 1)) {
+            case 's' -> 1000L;
+            case 'm' -> 60 * 1000L;
+            case 'h' -> 60 * 60 * 1000L;
+            case 'd' -> 24 * 60 * 60 * 1000L;
+            case 'w' -> 7 * 24 * 60 * 60 * 1000L;
             default -> throw new IllegalArgumentException("Invalid interval: " + interval);
         };
+        
+        try {
+            long millis = Math.multiplyExact(Long.parseLong(interval.substring(0, interval.length() - 1)), unit);
+            if (millis < MIN_CUSTOM_INTERVAL_MILLIS || millis > MAX_CUSTOM_INTERVAL_MILLIS) {
+                throw new IllegalArgumentException("Interval out of range: " + interval);
+            }
+            return millis;
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid interval: " + interval);
+        }
+    }
+    
+    private static BigDecimal toBigDecimal(ScaledDecimal value) {
+        return value == null ? null : value.toBigDecimal();
     }
 }
@@ -0,0 +1,17 @@
+package com.cryptoanalysis.candle.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.cryptoanalysis.websocket.model.Symbol;
+
+@Repository
+public interface SymbolRepository extends JpaRepository<Symbol, Long> {
+
+        /**
+         * Find a symbol by its trading pair name (e.g. BTCUSDT)
+         */
+        Optional<Symbol> findBySymbol(String symbol);
+}
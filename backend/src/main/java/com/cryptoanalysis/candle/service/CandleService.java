@@ -16,7 +16,11 @@ import org.springframework.web.reactive.function.client.WebClient;
 import com.cryptoanalysis.candle.dto.CandleDTO;
 import com.cryptoanalysis.candle.mapper.CandleMapper;
 import com.cryptoanalysis.candle.repository.KlineRepository;
+import com.cryptoanalysis.core.concurrent.Bulkheads;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.KlineDto;
 import com.cryptoanalysis.websocket.model.Kline;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -33,6 +37,7 @@ public class CandleService {
   private final ObjectMapper objectMapper;
   private final KlineRepository klineRepository;
   private final CandleMapper candleMapper;
+  private final Bulkheads bulkheads;
 
   @Value("${binance.api.base-url:https://api.binance.com}")
   private String binanceApiUrl;
@@ -81,28 +86,56 @@ public class CandleService {
    * Fetch from Binance API (extracted method)
    */
   public List<CandleDTO> fetchFromBinanceAPI(String symbol, String interval, int limit) {
+    log.info("Fetching candles from Binance API: symbol={}, interval={}, limit={}",
+        symbol, interval, limit);
+
+    // Build Binance API URL
+    String url = String.format("%s/api/v3/klines?symbol=%s&interval=%s&limit=%d",
+        binanceApiUrl, symbol, interval, limit);
+
+    return fetchKlines(url);
+  }
+
+  /**
+   * Fetch candles whose open time lies in [startTime, endTime] (epoch millis),
+   * oldest first. Binance returns at most {@code limit} (max 1000) candles per call.
+   */
+  public List<CandleDTO> fetchFromBinanceAPI(String symbol, String interval, long startTime, long endTime,
+      int limit) {
+    log.info("Fetching candles from Binance API: symbol={}, interval={}, startTime={}, endTime={}, limit={}",
+        symbol, interval, startTime, endTime, limit);
+
+    String url = String.format("%s/api/v3/klines?symbol=%s&interval=%s&startTime=%d&endTime=%d&limit=%d",
+        binanceApiUrl, symbol, interval, startTime, endTime, limit);
+
+    return fetchKlines(url);
+  }
+
+  /**
+   * Like {@link #fetchFromBinanceAPI(String, String, long, long, int)}, but keeps
+   * every kline field (quote volume, trade count, taker-buy volumes) as exact
+   * decimals, for code that needs to match Binance's klines exactly.
+   */
+  public List<KlineDto> fetchExchangeKlines(String symbol, String interval, long startTime, long endTime,
+      int limit) {
+    log.debug("Fetching full klines from Binance API: symbol={}, interval={}, startTime={}, endTime={}, limit={}",
+        symbol, interval, startTime, endTime, limit);
+
+    String url = String.format("%s/api/v3/klines?symbol=%s&interval=%s&startTime=%d&endTime=%d&limit=%d",
+        binanceApiUrl, symbol, interval, startTime, endTime, limit);
+
     try {
-      log.info("Fetching candles from Binance API: symbol={}, interval={}, limit={}",
-          symbol, interval, limit);
-
-      // Build Binance API URL
-      String url = String.format("%s/api/v3/klines?symbol=%s&interval=%s&limit=%d",
-          binanceApiUrl, symbol, interval, limit);
-
-      // Call Binance API
-      WebClient webClient = webClientBuilder.build();
-      String response = webClient.get()
-          .uri(url)
-          .retrieve()
-          .bodyToMono(String.class)
-          .onErrorResume(e -> {
-            log.error("Error calling Binance API: ", e);
-            return Mono.just("[]");
-          })
-          .block();
+      return parseExchangeKlines(callBinance(url), symbol, interval);
+    } catch (Exception e) {
+      log.error("Error fetching from Binance API: ", e);
+      return new ArrayList<>();
+    }
+  }
 
+  private List<CandleDTO> fetchKlines(String url) {
+    try {
       // Parse response
-      return parseBinanceKlines(response);
+      return parseBinanceKlines(callBinance(url));
 
     } catch (Exception e) {
       log.error("Error fetching from Binance API: ", e);
@@ -110,6 +143,19 @@ public class CandleService {
     }
   }
 
+  private String callBinance(String url) {
+    WebClient webClient = webClientBuilder.build();
+    return bulkheads.get(Bulkheads.BINANCE_REST).call(() -> webClient.get()
+        .uri(url)
+        .retrieve()
+        .bodyToMono(String.class)
+        .onErrorResume(e -> {
+          log.error("Error calling Binance API: ", e);
+          return Mono.just("[]");
+        })
+        .block());
+  }
+
   /**
    * Save candles to database asynchronously
    */
@@ -182,4 +228,41 @@ public class CandleService {
 
     return candles;
   }
+
+  /**
+   * Parse Binance klines response keeping every field:
+   * [openTime, open, high, low, close, volume, closeTime, quoteVolume, trades,
+   * takerBuyBaseVolume, takerBuyQuoteVolume, ignore]
+   */
+  private List<KlineDto> parseExchangeKlines(String jsonResponse, String symbol, String interval)
+      throws JsonProcessingException {
+    List<KlineDto> klines = new ArrayList<>();
+    JsonNode rootNode = objectMapper.readTree(jsonResponse);
+    long now = System.currentTimeMillis();
+
+    for (JsonNode node : rootNode) {
+      if (!node.isArray() || node.size() < 11) {
+        continue;
+      }
+
+      klines.add(KlineDto.builder()
+          .symbol(symbol)
+          .interval(interval)
+          .openTime(node.get(0).asLong())
+          .open(ScaledDecimal.parse(node.get(1).asText()))
+          .high(ScaledDecimal.parse(node.get(2).asText()))
+          .low(ScaledDecimal.parse(node.get(3).asText()))
+          .close(ScaledDecimal.parse(node.get(4).asText()))
+          .volume(ScaledDecimal.parse(node.get(5).asText()))
+          .closeTime(node.get(6).asLong())
+          .quoteVolume(ScaledDecimal.parse(node.get(7).asText()))
+          .tradesCount(node.get(8).asInt())
+          .takerBuyVolume(ScaledDecimal.parse(node.get(9).asText()))
+          .takerBuyQuoteVolume(ScaledDecimal.parse(node.get(10).asText()))
+          .isClosed(node.get(6).asLong() < now)
+          .build());
+    }
+
+    return klines;
+  }
 }
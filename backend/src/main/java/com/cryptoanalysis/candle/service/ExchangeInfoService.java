@@ -2,10 +2,12 @@ package com.cryptoanalysis.candle.service;
 
 import com.cryptoanalysis.candle.dto.ExchangeInfoDTO;
 import com.cryptoanalysis.candle.dto.ExchangeStatusDTO;
+import com.cryptoanalysis.core.concurrent.Bulkheads;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -22,8 +24,10 @@ public class ExchangeInfoService {
     
     private final WebClient.Builder webClientBuilder;
     private final ObjectMapper objectMapper;
+    private final Bulkheads bulkheads;
     
-    private static final String BINANCE_API_BASE = "https://api.binance.com";
+    @Value("${binance.api.base-url:https://api.binance.com}")
+    private String binanceApiBase;
     
     /**
      * Get exchange trading rules and symbol information
@@ -33,12 +37,12 @@ public class ExchangeInfoService {
         log.info("Fetching exchange info");
         
         try {
-            String response = webClientBuilder.build()
+            String response = bulkheads.get(Bulkheads.BINANCE_REST).call(() -> webClientBuilder.build()
                     .get()
-                    .uri(BINANCE_API_BASE + "/api/v3/exchangeInfo")
+                    .uri(binanceApiBase + "/api/v3/exchangeInfo")
                     .retrieve()
                     .bodyToMono(String.class)
-                    .block();
+                    .block());
             
             JsonNode root = objectMapper.readTree(response);
             
@@ -141,12 +145,12 @@ public class ExchangeInfoService {
         log.info("Fetching exchange status");
         
         try {
-            String response = webClientBuilder.build()
+            String response = bulkheads.get(Bulkheads.BINANCE_REST).call(() -> webClientBuilder.build()
                     .get()
-                    .uri(BINANCE_API_BASE + "/api/v3/ping")
+                    .uri(binanceApiBase + "/api/v3/ping")
                     .retrieve()
                     .bodyToMono(String.class)
-                    .block();
+                    .block());
             
             // If ping succeeds, exchange is operational
             return ExchangeStatusDTO.builder()
@@ -0,0 +1,165 @@
+package com.cryptoanalysis.candle.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cryptoanalysis.candle.config.IngestionConfig;
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.candle.repository.KlineRepository;
+import com.cryptoanalysis.websocket.bus.MarketDataBus;
+import com.cryptoanalysis.websocket.bus.MarketDataConsumer;
+import com.cryptoanalysis.websocket.bus.MarketDataEvent;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+import com.cryptoanalysis.websocket.model.Kline;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores every closed kline that passes over the market-data bus, whether it
+ * came from an exchange kline stream, a REST gap fill or was built from trades.
+ * The bus consumer only collects them, keeping the latest version of each
+ * candle; a writer thread stores them in batches, one transaction each, so a
+ * slow database never holds up the bus. Candles a failed batch could not
+ * store are kept for the next write.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveKlinePersistenceService implements MarketDataConsumer {
+
+    private final IngestionConfig config;
+    private final KlineRepository klineRepository;
+    private final CandleMapper candleMapper;
+    private final MarketDataBus marketDataBus;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<CandleKey, KlineDto> pending = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private ScheduledExecutorService writer;
+
+    @PostConstruct
+    public void registerConsumer() {
+        if (config.isLivePersistence()) {
+            writer = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("kline-persistence-writer").daemon(true).factory());
+            writer.scheduleWithFixedDelay(this::flush, config.getLivePersistenceFlushMs(),
+                    config.getLivePersistenceFlushMs(), TimeUnit.MILLISECONDS);
+            marketDataBus.addConsumer(this);
+        }
+    }
+
+    @Override
+    public String getConsumerName() {
+        return "kline-persistence";
+    }
+
+    @Override
+    public void onEvent(MarketDataEvent event, long sequence) {
+        if (event.getType() != MarketDataEventType.KLINE) {
+            return;
+        }
+
+        KlineDto dto = event.getKline();
+        if (!Boolean.TRUE.equals(dto.getIsClosed()) || Boolean.TRUE.equals(dto.getPartial())) {
+            return;
+        }
+
+        CandleKey key = new CandleKey(dto.getSymbol(), dto.getInterval(), dto.getOpenTime());
+        if (pending.size() >= config.getLivePersistenceMaxPending() && !pending.containsKey(key)) {
+            log.warn("Dropped closed kline {} {} at {}: {} already waiting to be stored ({} dropped)",
+                    dto.getSymbol(), dto.getInterval(), dto.getOpenTime(), pending.size(),
+                    dropped.incrementAndGet());
+            return;
+        }
+
+        // A closed candle can be re-emitted with a late trade included; the latest wins
+        pending.put(key, dto);
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Store the collected klines in batches until none are left or a batch fails.
+     */
+    void flush() {
+        while (!pending.isEmpty()) {
+            List<KlineDto> batch = new ArrayList<>(config.getLivePersistenceBatchSize());
+            Iterator<Map.Entry<CandleKey, KlineDto>> entries = pending.entrySet().iterator();
+            while (entries.hasNext() && batch.size() < config.getLivePersistenceBatchSize()) {
+                Map.Entry<CandleKey, KlineDto> entry = entries.next();
+                // Skip a candle replaced meanwhile; its newer version stays for the next batch
+                if (pending.remove(entry.getKey(), entry.getValue())) {
+                    batch.add(entry.getValue());
+                }
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> batch.forEach(this::persist));
+                log.debug("Persisted {} closed klines", batch.size());
+            } catch (Exception e) {
+                log.error("Failed to persist {} closed klines, retrying later: {}", batch.size(), e.getMessage());
+                batch.forEach(dto -> pending.putIfAbsent(
+                        new CandleKey(dto.getSymbol(), dto.getInterval(), dto.getOpenTime()), dto));
+                return;
+            }
+        }
+    }
+
+    private void persist(KlineDto dto) {
+        Kline kline = candleMapper.toEntity(dto);
+
+        Optional<Kline> existing = klineRepository.findBySymbolAndIntervalAndOpenTime(
+                kline.getSymbol(), kline.getInterval(), kline.getOpenTime());
+
+        if (existing.isPresent()) {
+            Kline existingKline = existing.get();
+            existingKline.setOpenPrice(kline.getOpenPrice());
+            existingKline.setHighPrice(kline.getHighPrice());
+            existingKline.setLowPrice(kline.getLowPrice());
+            existingKline.setClosePrice(kline.getClosePrice());
+            existingKline.setVolume(kline.getVolume());
+            existingKline.setQuoteVolume(kline.getQuoteVolume());
+            existingKline.setTradesCount(kline.getTradesCount());
+            existingKline.setTakerBuyBaseVolume(kline.getTakerBuyBaseVolume());
+            existingKline.setTakerBuyQuoteVolume(kline.getTakerBuyQuoteVolume());
+            klineRepository.save(existingKline);
+        } else {
+            klineRepository.save(kline);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Store what the bus delivered since the last write
+        flush();
+    }
+
+    private record CandleKey(String symbol, String interval, long openTime) {
+    }
+}
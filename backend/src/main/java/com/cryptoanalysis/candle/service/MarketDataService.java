@@ -1,12 +1,14 @@
 package com.cryptoanalysis.candle.service;
 
 import com.cryptoanalysis.candle.dto.*;
+import com.cryptoanalysis.core.concurrent.Bulkheads;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -23,8 +25,10 @@ public class MarketDataService {
     
     private final WebClient.Builder webClientBuilder;
     private final ObjectMapper objectMapper;
+    private final Bulkheads bulkheads;
     
-    private static final String BINANCE_API_BASE = "https://api.binance.com";
+    @Value("${binance.api.base-url:https://api.binance.com}")
+    private String binanceApiBase;
     
     /**
      * Get 24hr ticker price change statistics
@@ -34,12 +38,12 @@ public class MarketDataService {
         log.info("Fetching 24hr ticker for {}", symbol);
         
         try {
-            String response = webClientBuilder.build()
+            String response = bulkheads.get(Bulkheads.BINANCE_REST).call(() -> webClientBuilder.build()
                     .get()
-                    .uri(BINANCE_API_BASE + "/api/v3/ticker/24hr?symbol=" + symbol.toUpperCase())
+                    .uri(binanceApiBase + "/api/v3/ticker/24hr?symbol=" + symbol.toUpperCase())
                     .retrieve()
                     .bodyToMono(String.class)
-                    .block();
+                    .block());
             
             JsonNode node = objectMapper.readTree(response);
             
@@ -82,15 +86,15 @@ public class MarketDataService {
         
         try {
             String url = symbol != null 
-                    ? BINANCE_API_BASE + "/api/v3/ticker/price?symbol=" + symbol.toUpperCase()
-                    : BINANCE_API_BASE + "/api/v3/ticker/price";
+                    ? binanceApiBase + "/api/v3/ticker/price?symbol=" + symbol.toUpperCase()
+                    : binanceApiBase + "/api/v3/ticker/price";
                     
-            String response = webClientBuilder.build()
+            String response = bulkheads.get(Bulkheads.BINANCE_REST).call(() -> webClientBuilder.build()
                     .get()
                     .uri(url)
                     .retrieve()
                     .bodyToMono(String.class)
-                    .block();
+                    .block());
             
             if (symbol != null) {
                 // Single symbol response
@@ -125,12 +129,12 @@ public class MarketDataService {
         log.info("Fetching all available symbols");
         
         try {
-            String response = webClientBuilder.build()
+            String response = bulkheads.get(Bulkheads.BINANCE_REST).call(() -> webClientBuilder.build()
                     .get()
-                    .uri(BINANCE_API_BASE + "/api/v3/exchangeInfo")
+                    .uri(binanceApiBase + "/api/v3/exchangeInfo")
                     .retrieve()
                     .bodyToMono(String.class)
-                    .block();
+                    .block());
             
             if (response == null || response.isEmpty()) {
                 throw new RuntimeException("Empty response from Binance API");
@@ -173,20 +177,25 @@ public class MarketDataService {
      */
     @Cacheable(value = "orderbook", key = "#symbol + '_' + #limit", unless = "#result == null")
     public OrderBookDTO getOrderBook(String symbol, Integer limit) {
+        return fetchOrderBook(symbol, limit);
+    }
+    
+    /**
+     * Fetch order book depth from Binance, bypassing the cache
+     */
+    public OrderBookDTO fetchOrderBook(String symbol, Integer limit) {
         log.info("Fetching order book for {} with limit {}", symbol, limit);
         
         try {
-            String url = BINANCE_API_BASE + "/api/v3/depth?symbol=" + symbol.toUpperCase();
-            if (limit != null) {
-                url += "&limit=" + limit;
-            }
+            String url = binanceApiBase + "/api/v3/depth?symbol=" + symbol.toUpperCase()
+                    + (limit != null ? "&limit=" + limit : "");
             
-            String response = webClientBuilder.build()
+            String response = bulkheads.get(Bulkheads.BINANCE_REST).call(() -> webClientBuilder.build()
                     .get()
                     .uri(url)
                     .retrieve()
                     .bodyToMono(String.class)
-                    .block();
+                    .block());
             
             JsonNode root = objectMapper.readTree(response);
             
@@ -226,17 +235,15 @@ public class MarketDataService {
         log.info("Fetching recent trades for {} with limit {}", symbol, limit);
         
         try {
-            String url = BINANCE_API_BASE + "/api/v3/trades?symbol=" + symbol.toUpperCase();
-            if (limit != null) {
-                url += "&limit=" + limit;
-            }
+            String url = binanceApiBase + "/api/v3/trades?symbol=" + symbol.toUpperCase()
+                    + (limit != null ? "&limit=" + limit : "");
             
-            String response = webClientBuilder.build()
+            String response = bulkheads.get(Bulkheads.BINANCE_REST).call(() -> webClientBuilder.build()
                     .get()
                     .uri(url)
                     .retrieve()
                     .bodyToMono(String.class)
-                    .block();
+                    .block());
             
             List<JsonNode> nodes = objectMapper.readValue(response, new TypeReference<List<JsonNode>>() {});
             
@@ -266,12 +273,12 @@ public class MarketDataService {
         log.info("Fetching average price for {}", symbol);
         
         try {
-            String response = webClientBuilder.build()
+            String response = bulkheads.get(Bulkheads.BINANCE_REST).call(() -> webClientBuilder.build()
                     .get()
-                    .uri(BINANCE_API_BASE + "/api/v3/avgPrice?symbol=" + symbol.toUpperCase())
+                    .uri(binanceApiBase + "/api/v3/avgPrice?symbol=" + symbol.toUpperCase())
                     .retrieve()
                     .bodyToMono(String.class)
-                    .block();
+                    .block());
             
             JsonNode node = objectMapper.readTree(response);
             
@@ -8,6 +8,9 @@ import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.ExchangeStrategies;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import com.cryptoanalysis.core.concurrent.Bulkhead;
+import com.cryptoanalysis.core.concurrent.Bulkheads;
+
 import reactor.netty.http.client.HttpClient;
 
 /**
@@ -18,10 +21,21 @@ public class AppConfig {
 
   /**
    * RestTemplate bean for HTTP requests (used by Causal Analysis Service)
+   * Every request runs within the ai-services bulkhead
    */
   @Bean
-  public RestTemplate restTemplate(RestTemplateBuilder builder) {
-    return builder.build();
+  public RestTemplate restTemplate(RestTemplateBuilder builder, Bulkheads bulkheads) {
+    Bulkhead bulkhead = bulkheads.get(Bulkheads.AI_SERVICES);
+    return builder
+        .additionalInterceptors((request, body, execution) -> {
+          bulkhead.acquire();
+          try {
+            return execution.execute(request, body);
+          } finally {
+            bulkhead.release();
+          }
+        })
+        .build();
   }
 
   /**
@@ -2,17 +2,30 @@ package com.cryptoanalysis.config;
 
 import java.util.concurrent.Executor;
 
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import com.cryptoanalysis.core.concurrent.Bulkheads;
+
 @Configuration
 @EnableAsync
 public class AsyncConfig {
     
+    /**
+     * With virtual threads every {@code @Async} call gets its own thread and
+     * waits in the async lane instead of being rejected by a full pool queue;
+     * only a call beyond the lane's waiting limit is rejected, on the caller's thread.
+     */
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
+    public Executor taskExecutor(Environment environment, Bulkheads bulkheads) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return bulkheads.virtualThreadExecutor(Bulkheads.ASYNC);
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(5);
         executor.setMaxPoolSize(10);
@@ -0,0 +1,43 @@
+package com.cryptoanalysis.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+/**
+ * Limits of the execution lanes. Virtual threads themselves are switched on
+ * with Spring Boot's {@code spring.threads.virtual.enabled}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "execution")
+@Data
+public class ExecutionConfig {
+
+    /**
+     * Limits per lane name; a lane that is not listed gets {@link Lane}'s defaults.
+     */
+    private Map<String, Lane> lanes = new HashMap<>();
+
+    @Data
+    public static class Lane {
+
+        /**
+         * Calls or tasks running at once.
+         */
+        private Integer maxConcurrent = 16;
+
+        /**
+         * Calls or tasks waiting for a slot before more are rejected.
+         */
+        private Integer maxQueued = 256;
+
+        /**
+         * Milliseconds a call waits for a slot before it is rejected; unused by the STOMP channel lanes.
+         */
+        private Long maxWait = 5000L;
+    }
+}
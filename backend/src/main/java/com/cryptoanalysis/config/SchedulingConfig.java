@@ -0,0 +1,26 @@
+package com.cryptoanalysis.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+
+@Configuration
+public class SchedulingConfig {
+
+    /**
+     * Runs {@code @Scheduled} jobs on virtual threads. Spring Boot would do this
+     * itself, but the STOMP broker's own scheduler stops it from creating one,
+     * and the jobs would otherwise share that scheduler's few platform threads.
+     * Named {@code taskScheduler} so it wins among several schedulers.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskScheduler taskScheduler() {
+        SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+        scheduler.setVirtualThreads(true);
+        scheduler.setThreadNamePrefix("scheduling-");
+        return scheduler;
+    }
+}
@@ -57,10 +57,13 @@ public class SecurityConfig {
                 "/api/sentiment/**",
                 "/api/websocket/**",
                 "/ws/**",
+                "/ws-stream",
+                "/simulator/**",
                 "/v3/api-docs/**",
                 "/swagger-ui/**",
                 "/swagger-ui.html",
-                "/actuator/**",
+                "/actuator/health/**",
+                "/actuator/info",
                 "/error")
             .permitAll()
             // Other admin endpoints require authentication
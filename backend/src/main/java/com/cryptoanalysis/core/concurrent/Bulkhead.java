@@ -0,0 +1,174 @@
+package com.cryptoanalysis.core.concurrent;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Semaphore bulkhead: at most {@code maxConcurrent} callers run at once, at
+ * most {@code maxQueued} more wait for a permit, and a waiter gives up after
+ * {@code maxWaitMillis}. Callers that cannot get in fail with
+ * {@link BulkheadFullException} instead of piling onto the downstream.
+ * <p>
+ * Cheap enough to sit in front of every blocking call, which is what makes
+ * it the limit once threads are virtual and a pool size no longer is.
+ */
+@Slf4j
+public class Bulkhead {
+
+    private final String name;
+    private final int maxQueued;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public Bulkhead(String name, int maxConcurrent, int maxQueued, long maxWaitMillis) {
+        this.name = name;
+        this.maxQueued = maxQueued;
+        this.maxWaitMillis = maxWaitMillis;
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public <T> T call(Supplier<T> action) {
+        acquire();
+        try {
+            return action.get();
+        } finally {
+            release();
+        }
+    }
+
+    public void run(Runnable action) {
+        acquire();
+        try {
+            action.run();
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Executor that hands each task to {@code threads} and runs it within this
+     * bulkhead. The submitting thread takes the task's permit, or its place
+     * among the waiters, so a task over the limit is rejected right there with
+     * a {@link BulkheadFullException}. A waiting task that then times out is
+     * logged and, if it is a {@link Future} such as Spring's {@code @Async}
+     * adapter submits, cancelled so its caller does not wait forever.
+     */
+    public Executor wrap(Executor threads) {
+        return task -> {
+            boolean permitted = reserve();
+            try {
+                threads.execute(() -> runReserved(task, permitted));
+            } catch (RuntimeException e) {
+                if (permitted) {
+                    permits.release();
+                } else {
+                    queued.decrementAndGet();
+                }
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Take a permit, waiting up to the bulkhead's limit. Every successful call
+     * must be paired with {@link #release()}.
+     *
+     * @throws BulkheadFullException when too many callers are already waiting or the wait times out
+     */
+    public void acquire() {
+        if (!reserve()) {
+            awaitReserved();
+        }
+        inFlight.incrementAndGet();
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+        permits.release();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Take a permit if one is free, or else a place among the waiters.
+     *
+     * @return whether a permit was taken
+     * @throws BulkheadFullException when too many callers are already waiting
+     */
+    private boolean reserve() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw reject("too many callers waiting");
+        }
+        return false;
+    }
+
+    /**
+     * Wait for a permit in the place {@link #reserve()} took, giving the place up either way.
+     */
+    private void awaitReserved() {
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                throw reject("no permit within " + maxWaitMillis + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("interrupted while waiting");
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private void runReserved(Runnable task, boolean permitted) {
+        if (!permitted) {
+            try {
+                awaitReserved();
+            } catch (BulkheadFullException e) {
+                log.warn("Dropped a task submitted to {}", name, e);
+                if (task instanceof Future<?> future) {
+                    future.cancel(false);
+                }
+                return;
+            }
+        }
+
+        inFlight.incrementAndGet();
+        try {
+            task.run();
+        } finally {
+            release();
+        }
+    }
+
+    private BulkheadFullException reject(String reason) {
+        rejected.incrementAndGet();
+        return new BulkheadFullException("Bulkhead " + name + " rejected a call: " + reason);
+    }
+}
@@ -0,0 +1,15 @@
+package com.cryptoanalysis.core.concurrent;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A {@link Bulkhead} turned a caller away. It is a
+ * {@link RejectedExecutionException}, so executors and {@code @Async}
+ * callers treat it like any other rejected task.
+ */
+public class BulkheadFullException extends RejectedExecutionException {
+
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,116 @@
+package com.cryptoanalysis.core.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.config.ExecutionConfig;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The application's execution lanes, each limited by
+ * {@link ExecutionConfig#getLanes()}. Calls to a downstream go through that
+ * downstream's {@link Bulkhead}. In virtual-thread mode the {@code @Async}
+ * executor and the STOMP channels become lanes too. Every lane reports
+ * {@code execution.lane.in.flight}, {@code execution.lane.queued} and
+ * {@code execution.lane.rejected}, tagged with its name.
+ */
+@Component
+@RequiredArgsConstructor
+public class Bulkheads {
+
+    /**
+     * Binance REST API calls.
+     */
+    public static final String BINANCE_REST = "binance-rest";
+
+    /**
+     * AI engine, signal service and Gemini calls made through the shared RestTemplate.
+     */
+    public static final String AI_SERVICES = "ai-services";
+
+    /**
+     * {@code @Async} methods in virtual-thread mode.
+     */
+    public static final String ASYNC = "async";
+
+    /**
+     * Stored candles loaded for kline subscriptions that ask for history.
+     */
+    public static final String KLINE_HISTORY = "kline-history";
+
+    public static final String STOMP_INBOUND = "stomp-inbound";
+
+    public static final String STOMP_OUTBOUND = "stomp-outbound";
+
+    private final ExecutionConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    public Bulkhead get(String lane) {
+        return bulkheads.computeIfAbsent(lane, this::create);
+    }
+
+    /**
+     * Executor that starts a virtual thread per task and runs at most the lane's limit at once.
+     */
+    public Executor virtualThreadExecutor(String lane) {
+        return get(lane).wrap(new VirtualThreadTaskExecutor(lane + "-"));
+    }
+
+    /**
+     * Pool of virtual threads for a STOMP channel, which has to be given a
+     * {@link ThreadPoolTaskExecutor}: the pool size caps concurrency and the
+     * queue takes the bursts, without either costing platform threads.
+     */
+    public ThreadPoolTaskExecutor virtualThreadPool(String lane) {
+        ExecutionConfig.Lane limits = limits(lane);
+        AtomicLong rejected = new AtomicLong();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(Thread.ofVirtual().name(lane + "-", 0).factory());
+        executor.setCorePoolSize(limits.getMaxConcurrent());
+        executor.setMaxPoolSize(limits.getMaxConcurrent());
+        executor.setQueueCapacity(limits.getMaxQueued());
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.incrementAndGet();
+            throw new RejectedExecutionException("Lane " + lane + " is full");
+        });
+
+        register(lane, executor::getActiveCount, executor::getQueueSize, rejected, AtomicLong::get);
+        return executor;
+    }
+
+    private Bulkhead create(String lane) {
+        ExecutionConfig.Lane limits = limits(lane);
+        Bulkhead bulkhead = new Bulkhead(lane, limits.getMaxConcurrent(), limits.getMaxQueued(),
+                limits.getMaxWait());
+
+        register(lane, bulkhead::getInFlight, bulkhead::getQueued, bulkhead, Bulkhead::getRejected);
+        return bulkhead;
+    }
+
+    private ExecutionConfig.Lane limits(String lane) {
+        return config.getLanes().getOrDefault(lane, new ExecutionConfig.Lane());
+    }
+
+    private <T> void register(String lane, Supplier<Number> inFlight, Supplier<Number> queued, T rejected,
+            ToDoubleFunction<T> rejectedCount) {
+        Gauge.builder("execution.lane.in.flight", inFlight).tag("lane", lane).register(meterRegistry);
+        Gauge.builder("execution.lane.queued", queued).tag("lane", lane).register(meterRegistry);
+        FunctionCounter.builder("execution.lane.rejected", rejected, rejectedCount).tag("lane", lane)
+                .register(meterRegistry);
+    }
+}
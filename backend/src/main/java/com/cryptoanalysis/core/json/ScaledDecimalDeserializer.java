@@ -0,0 +1,36 @@
+package com.cryptoanalysis.core.json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+/**
+ * Reads a {@link ScaledDecimal} from a JSON number or numeric string.
+ */
+public class ScaledDecimalDeserializer extends StdDeserializer<ScaledDecimal> {
+
+    public ScaledDecimalDeserializer() {
+        super(ScaledDecimal.class);
+    }
+
+    @Override
+    public ScaledDecimal deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+
+        if (token != JsonToken.VALUE_STRING && !token.isNumeric()) {
+            return (ScaledDecimal) context.handleUnexpectedToken(ScaledDecimal.class, parser);
+        }
+
+        try {
+            return ScaledDecimal.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(), 0);
+        } catch (NumberFormatException e) {
+            // Exponent notation such as 1E+3
+            return ScaledDecimal.valueOf(new BigDecimal(parser.getText()));
+        }
+    }
+}
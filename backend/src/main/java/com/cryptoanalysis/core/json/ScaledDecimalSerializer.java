@@ -0,0 +1,26 @@
+package com.cryptoanalysis.core.json;
+
+import java.io.IOException;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a {@link ScaledDecimal} as a plain JSON number, the same wire form a
+ * {@link java.math.BigDecimal} had, without going through BigDecimal or String.
+ */
+public class ScaledDecimalSerializer extends StdSerializer<ScaledDecimal> {
+
+    public ScaledDecimalSerializer() {
+        super(ScaledDecimal.class);
+    }
+
+    @Override
+    public void serialize(ScaledDecimal value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        char[] buffer = new char[ScaledDecimal.MAX_CHARS];
+        int start = value.writeTo(buffer);
+        gen.writeNumber(buffer, start, buffer.length - start);
+    }
+}
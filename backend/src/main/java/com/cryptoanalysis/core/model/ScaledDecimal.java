@@ -0,0 +1,321 @@
+package com.cryptoanalysis.core.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import com.cryptoanalysis.core.json.ScaledDecimalDeserializer;
+import com.cryptoanalysis.core.json.ScaledDecimalSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+/**
+ * Immutable fixed-point decimal: a {@code long} mantissa and a decimal scale,
+ * so {@code 43250.50} is {@code (4325050, 2)}.
+ *
+ * Used for prices and quantities on the real-time path, where Binance never
+ * sends more than 8 decimals. Values are parsed straight from character data
+ * and only become {@link BigDecimal} at REST/JPA boundaries. Arithmetic is exact
+ * and throws {@link ArithmeticException} on overflow instead of wrapping.
+ */
+@JsonSerialize(using = ScaledDecimalSerializer.class)
+@JsonDeserialize(using = ScaledDecimalDeserializer.class)
+public final class ScaledDecimal implements Comparable<ScaledDecimal> {
+
+    public static final int MAX_SCALE = 18;
+
+    /**
+     * Enough room for a sign, 19 digits, a decimal point and a leading zero.
+     */
+    public static final int MAX_CHARS = 24;
+
+    private static final long[] POWERS_OF_TEN = new long[MAX_SCALE + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    public static final ScaledDecimal ZERO = new ScaledDecimal(0, 0);
+
+    private final long mantissa;
+    private final int scale;
+
+    private ScaledDecimal(long mantissa, int scale) {
+        this.mantissa = mantissa;
+        this.scale = scale;
+    }
+
+    public static ScaledDecimal of(long mantissa, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale out of range: " + scale);
+        }
+        return new ScaledDecimal(mantissa, scale);
+    }
+
+    public static ScaledDecimal valueOf(BigDecimal value) {
+        BigDecimal normalized = value.scale() < 0 ? value.setScale(0) : value;
+
+        if (normalized.scale() > MAX_SCALE) {
+            normalized = normalized.stripTrailingZeros();
+            if (normalized.scale() > MAX_SCALE) {
+                normalized = normalized.setScale(MAX_SCALE, RoundingMode.HALF_UP);
+            }
+        }
+
+        return of(normalized.unscaledValue().longValueExact(), Math.max(normalized.scale(), 0));
+    }
+
+    public static ScaledDecimal parse(CharSequence text) {
+        String value = text.toString();
+        return parse(value.toCharArray(), 0, value.length(), 0);
+    }
+
+    /**
+     * Parse a plain decimal ("-123.4500") from a character buffer without
+     * allocating intermediate objects. The result is padded or trimmed of
+     * trailing zeros towards {@code preferredScale}, but never loses a
+     * significant digit unless the value has more than 18 fractional digits or
+     * would overflow the mantissa, in which case it is rounded half-up.
+     */
+    public static ScaledDecimal parse(char[] chars, int offset, int length, int preferredScale) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+        boolean fraction = false;
+        int firstDroppedDigit = -1;
+
+        for (; i < end; i++) {
+            char c = chars[i];
+
+            if (c == '.') {
+                if (fraction) {
+                    throw new NumberFormatException("Multiple decimal points: " + new String(chars, offset, length));
+                }
+                fraction = true;
+                continue;
+            }
+
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException("Invalid decimal: " + new String(chars, offset, length));
+            }
+
+            int digit = c - '0';
+            digits++;
+
+            if (!fraction) {
+                mantissa = Math.addExact(Math.multiplyExact(mantissa, 10), digit);
+            } else if (firstDroppedDigit < 0 && scale < MAX_SCALE && mantissa <= (Long.MAX_VALUE - digit) / 10) {
+                mantissa = mantissa * 10 + digit;
+                scale++;
+            } else if (firstDroppedDigit < 0) {
+                firstDroppedDigit = digit;
+            }
+        }
+
+        if (digits == 0) {
+            throw new NumberFormatException("Invalid decimal: " + new String(chars, offset, length));
+        }
+
+        if (firstDroppedDigit >= 5) {
+            mantissa = Math.addExact(mantissa, 1);
+        }
+
+        while (scale > preferredScale && mantissa % 10 == 0) {
+            mantissa /= 10;
+            scale--;
+        }
+
+        while (scale < preferredScale && scale < MAX_SCALE && mantissa <= Long.MAX_VALUE / 10) {
+            mantissa *= 10;
+            scale++;
+        }
+
+        return new ScaledDecimal(negative ? -mantissa : mantissa, scale);
+    }
+
+    public long mantissa() {
+        return mantissa;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    public ScaledDecimal add(ScaledDecimal other) {
+        if (scale == other.scale) {
+            return new ScaledDecimal(Math.addExact(mantissa, other.mantissa), scale);
+        }
+
+        int common = Math.max(scale, other.scale);
+        return new ScaledDecimal(Math.addExact(
+                rescaleMantissa(mantissa, scale, common),
+                rescaleMantissa(other.mantissa, other.scale, common)), common);
+    }
+
+    public ScaledDecimal subtract(ScaledDecimal other) {
+        return add(other.negate());
+    }
+
+    /**
+     * Product rounded half-up to {@code resultScale}, e.g. price * quantity at the quote scale.
+     */
+    public ScaledDecimal multiply(ScaledDecimal other, int resultScale) {
+        long product = Math.multiplyExact(mantissa, other.mantissa);
+        return new ScaledDecimal(rescaleMantissa(product, scale + other.scale, resultScale), resultScale);
+    }
+
+    public ScaledDecimal multiply(long factor) {
+        return new ScaledDecimal(Math.multiplyExact(mantissa, factor), scale);
+    }
+
+    /**
+     * Quotient rounded half-up to {@code resultScale}.
+     */
+    public ScaledDecimal divide(long divisor, int resultScale) {
+        return ScaledDecimal.valueOf(toBigDecimal().divide(BigDecimal.valueOf(divisor), resultScale,
+                RoundingMode.HALF_UP));
+    }
+
+    public ScaledDecimal setScale(int newScale) {
+        if (newScale < 0 || newScale > MAX_SCALE) {
+            throw new IllegalArgumentException("Scale out of range: " + newScale);
+        }
+        return newScale == scale ? this : new ScaledDecimal(rescaleMantissa(mantissa, scale, newScale), newScale);
+    }
+
+    public ScaledDecimal negate() {
+        return new ScaledDecimal(Math.negateExact(mantissa), scale);
+    }
+
+    public ScaledDecimal abs() {
+        return mantissa < 0 ? negate() : this;
+    }
+
+    public ScaledDecimal max(ScaledDecimal other) {
+        return compareTo(other) >= 0 ? this : other;
+    }
+
+    public ScaledDecimal min(ScaledDecimal other) {
+        return compareTo(other) <= 0 ? this : other;
+    }
+
+    public int signum() {
+        return Long.signum(mantissa);
+    }
+
+    public boolean isZero() {
+        return mantissa == 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(mantissa, scale);
+    }
+
+    public double doubleValue() {
+        return mantissa / (double) POWERS_OF_TEN[scale];
+    }
+
+    @Override
+    public int compareTo(ScaledDecimal other) {
+        if (scale == other.scale) {
+            return Long.compare(mantissa, other.mantissa);
+        }
+
+        try {
+            int common = Math.max(scale, other.scale);
+            return Long.compare(
+                    rescaleMantissa(mantissa, scale, common),
+                    rescaleMantissa(other.mantissa, other.scale, common));
+        } catch (ArithmeticException e) {
+            return toBigDecimal().compareTo(other.toBigDecimal());
+        }
+    }
+
+    /**
+     * Numeric equality: {@code 1.50} equals {@code 1.5}, unlike {@link BigDecimal#equals}.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof ScaledDecimal other && compareTo(other) == 0);
+    }
+
+    @Override
+    public int hashCode() {
+        long m = mantissa;
+        int s = scale;
+        while (m != 0 && m % 10 == 0) {
+            m /= 10;
+            s--;
+        }
+        return m == 0 ? 0 : 31 * Long.hashCode(m) + s;
+    }
+
+    /**
+     * Write the plain decimal form right-aligned into {@code buffer} (at least
+     * {@link #MAX_CHARS} long) and return the start offset.
+     */
+    public int writeTo(char[] buffer) {
+        int pos = buffer.length;
+        // Work in negative space so Long.MIN_VALUE needs no special case
+        long value = mantissa > 0 ? -mantissa : mantissa;
+        int written = 0;
+
+        while (value != 0 || written <= scale) {
+            buffer[--pos] = (char) ('0' - (value % 10));
+            value /= 10;
+            written++;
+
+            if (written == scale) {
+                buffer[--pos] = '.';
+            }
+        }
+
+        if (mantissa < 0) {
+            buffer[--pos] = '-';
+        }
+
+        return pos;
+    }
+
+    @Override
+    public String toString() {
+        char[] buffer = new char[MAX_CHARS];
+        int start = writeTo(buffer);
+        return new String(buffer, start, buffer.length - start);
+    }
+
+    private static long rescaleMantissa(long mantissa, int fromScale, int toScale) {
+        if (toScale >= fromScale) {
+            return Math.multiplyExact(mantissa, POWERS_OF_TEN[toScale - fromScale]);
+        }
+
+        int drop = fromScale - toScale;
+        if (drop > MAX_SCALE) {
+            // |mantissa| < 10^19, so anything beyond 19 dropped digits rounds to zero
+            return drop == MAX_SCALE + 1 && Math.abs(mantissa) >= 5_000_000_000_000_000_000L
+                    ? Long.signum(mantissa)
+                    : 0;
+        }
+
+        long divisor = POWERS_OF_TEN[drop];
+        long quotient = mantissa / divisor;
+        long remainder = Math.abs(mantissa % divisor);
+
+        if (remainder * 2 >= divisor) {
+            quotient += Long.signum(mantissa);
+        }
+
+        return quotient;
+    }
+}
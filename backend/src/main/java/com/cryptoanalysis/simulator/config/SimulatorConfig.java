@@ -0,0 +1,88 @@
+package com.cryptoanalysis.simulator.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import lombok.Data;
+
+@Configuration
+@Profile("simulator")
+@ConfigurationProperties(prefix = "simulator")
+@Data
+public class SimulatorConfig {
+
+    /**
+     * Number of synthetic USDT markets; the first few use well-known base assets.
+     */
+    private Integer symbolCount = 2000;
+
+    /**
+     * Seed for the random walks, so runs with the same settings are comparable.
+     */
+    private Long seed = 42L;
+
+    /**
+     * Milliseconds between random-walk steps of every market.
+     */
+    private Integer stepInterval = 100;
+
+    /**
+     * Standard deviation of the log price change per step.
+     */
+    private Double volatility = 0.0005;
+
+    /**
+     * Milliseconds between pushes on each @ticker stream (Binance: 1000).
+     */
+    private Integer tickerInterval = 1000;
+
+    /**
+     * Milliseconds between pushes on each @kline_ stream (Binance: 2000, 1000 for 1s).
+     */
+    private Integer klineInterval = 2000;
+
+    /**
+     * Milliseconds between pushes on !miniTicker@arr (Binance: 1000).
+     */
+    private Integer miniTickerInterval = 1000;
+
+    /**
+     * Milliseconds between pushes on each @depth@100ms stream (Binance: 100).
+     */
+    private Integer depthInterval = 100;
+
+    /**
+     * Milliseconds between pushes on each @aggTrade stream; Binance pushes
+     * each trade as it happens, here the trades since the last push are
+     * aggregated into one.
+     */
+    private Integer tradeInterval = 100;
+
+    /**
+     * Inbound messages per second per connection before the socket is dropped, as Binance does.
+     */
+    private Integer maxInboundMessagesPerSecond = 5;
+
+    private Integer maxStreamsPerConnection = 1024;
+
+    /**
+     * Expected random disconnects per connection per hour; 0 disables.
+     */
+    private Double disconnectsPerHour = 0.0;
+
+    /**
+     * Delay added to every REST response and to every WebSocket push.
+     */
+    private Integer latency = 0;
+
+    /**
+     * Uniform random extra delay on top of {@link #latency}.
+     */
+    private Integer latencyJitter = 0;
+
+    /**
+     * Fraction of REST requests answered with HTTP 429 and Binance error -1003.
+     */
+    private Double rateLimitProbability = 0.0;
+}
@@ -0,0 +1,27 @@
+package com.cryptoanalysis.simulator.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import com.cryptoanalysis.simulator.handler.SimulatorStreamHandler;
+
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@Profile("simulator")
+@EnableWebSocket
+@RequiredArgsConstructor
+public class SimulatorWebSocketConfig implements WebSocketConfigurer {
+
+    private final SimulatorStreamHandler streamHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Same path layout as Binance, so binance.websocket.base-url can point at /simulator/ws
+        registry.addHandler(streamHandler, "/simulator/stream")
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -0,0 +1,63 @@
+package com.cryptoanalysis.simulator.controller;
+
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cryptoanalysis.simulator.handler.SimulatorStreamHandler;
+import com.cryptoanalysis.simulator.service.FaultInjector;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@Profile("simulator")
+@RequestMapping("/simulator/faults")
+@RequiredArgsConstructor
+@Tag(name = "Binance Simulator", description = "Fault injection for soak tests")
+public class SimulatorFaultController {
+
+    private final FaultInjector faults;
+    private final SimulatorStreamHandler streamHandler;
+
+    @GetMapping
+    @Operation(summary = "Current fault settings", description = "Returns injected latency, disconnect and rate-limit settings and open simulator connections")
+    public ResponseEntity<Map<String, Object>> getFaults() {
+        Map<String, Object> state = faults.getState();
+        state.put("connections", streamHandler.getConnectionCount());
+        state.put("streams", streamHandler.getStreamCount());
+        return ResponseEntity.ok(state);
+    }
+
+    @PostMapping
+    @Operation(summary = "Change fault settings", description = "Updates only the parameters that are given")
+    public ResponseEntity<Map<String, Object>> updateFaults(
+            @RequestParam(required = false) Double disconnectsPerHour,
+            @RequestParam(required = false) Integer latency,
+            @RequestParam(required = false) Integer latencyJitter,
+            @RequestParam(required = false) Double rateLimitProbability) {
+
+        faults.update(disconnectsPerHour, latency, latencyJitter, rateLimitProbability);
+        return getFaults();
+    }
+
+    @PostMapping("/disconnect")
+    @Operation(summary = "Drop all connections", description = "Closes every simulator WebSocket connection abnormally")
+    public ResponseEntity<Map<String, Object>> disconnectAll() {
+        return ResponseEntity.ok(Map.of("disconnected", streamHandler.disconnectAll()));
+    }
+
+    @PostMapping("/silence")
+    @Operation(summary = "Stop pushing data", description = "Keeps connections open but sends no market data for the given number of seconds")
+    public ResponseEntity<Map<String, Object>> silence(@RequestParam(defaultValue = "30") int seconds) {
+        faults.silence(seconds * 1000L);
+        return ResponseEntity.ok(Map.of("silencedForSeconds", seconds));
+    }
+}
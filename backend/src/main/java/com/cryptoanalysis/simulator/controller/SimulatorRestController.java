@@ -0,0 +1,174 @@
+package com.cryptoanalysis.simulator.controller;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cryptoanalysis.simulator.service.FaultInjector;
+import com.cryptoanalysis.simulator.service.SimulatedMarket;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The subset of Binance's REST API the backend calls, served from the simulated markets.
+ */
+@RestController
+@Profile("simulator")
+@RequestMapping("/simulator/api/v3")
+@RequiredArgsConstructor
+@Tag(name = "Binance Simulator", description = "Binance-compatible REST endpoints backed by synthetic markets")
+public class SimulatorRestController {
+
+    private static final int MAX_KLINES = 1000;
+
+    private final SimulatedMarket market;
+    private final FaultInjector faults;
+    private final Random random = new Random();
+
+    @GetMapping("/ping")
+    public ResponseEntity<?> ping() {
+        return respond(Map::of);
+    }
+
+    @GetMapping("/time")
+    public ResponseEntity<?> time() {
+        return respond(() -> Map.of("serverTime", System.currentTimeMillis()));
+    }
+
+    @GetMapping("/klines")
+    @Operation(summary = "Kline/candlestick data", description = "Synthetic candles in Binance's array format")
+    public ResponseEntity<?> klines(
+            @RequestParam String symbol,
+            @RequestParam String interval,
+            @RequestParam(required = false) Long startTime,
+            @RequestParam(required = false) Long endTime,
+            @RequestParam(defaultValue = "500") int limit) {
+
+        SimulatedMarket.Market m = market.getMarket(symbol);
+        if (m == null) {
+            return invalidSymbol();
+        }
+
+        return respond(() -> market.historicalKlines(m, interval, startTime, endTime,
+                Math.max(1, Math.min(limit, MAX_KLINES))));
+    }
+
+    @GetMapping("/ticker/24hr")
+    @Operation(summary = "24hr ticker statistics", description = "One symbol, or every simulated symbol when none is given")
+    public ResponseEntity<?> ticker24hr(@RequestParam(required = false) String symbol) {
+        long now = System.currentTimeMillis();
+
+        if (symbol == null) {
+            return respond(() -> market.getMarkets().stream().map(m -> m.ticker24hr(now)).toList());
+        }
+
+        SimulatedMarket.Market m = market.getMarket(symbol);
+        return m == null ? invalidSymbol() : respond(() -> m.ticker24hr(now));
+    }
+
+    @GetMapping("/ticker/price")
+    public ResponseEntity<?> tickerPrice(@RequestParam(required = false) String symbol) {
+        if (symbol == null) {
+            return respond(() -> market.getMarkets().stream()
+                    .map(m -> Map.of("symbol", m.getSymbol(), "price", m.lastPrice()))
+                    .toList());
+        }
+
+        SimulatedMarket.Market m = market.getMarket(symbol);
+        return m == null ? invalidSymbol() : respond(() -> Map.of("symbol", m.getSymbol(), "price", m.lastPrice()));
+    }
+
+    @GetMapping("/avgPrice")
+    public ResponseEntity<?> avgPrice(@RequestParam String symbol) {
+        SimulatedMarket.Market m = market.getMarket(symbol);
+        return m == null ? invalidSymbol() : respond(() -> Map.of("mins", 5, "price", m.lastPrice()));
+    }
+
+    @GetMapping("/depth")
+    @Operation(summary = "Order book", description = "Synthetic levels one tick apart around the last price")
+    public ResponseEntity<?> depth(@RequestParam String symbol, @RequestParam(defaultValue = "100") int limit) {
+        SimulatedMarket.Market m = market.getMarket(symbol);
+        return m == null ? invalidSymbol() : respond(() -> m.depth(Math.max(1, Math.min(limit, 5000)), random));
+    }
+
+    @GetMapping("/exchangeInfo")
+    @Operation(summary = "Exchange information", description = "Every simulated symbol with Binance-shaped trading rules")
+    public ResponseEntity<?> exchangeInfo() {
+        return respond(() -> Map.of(
+                "timezone", "UTC",
+                "serverTime", System.currentTimeMillis(),
+                "rateLimits", List.of(Map.of(
+                        "rateLimitType", "REQUEST_WEIGHT",
+                        "interval", "MINUTE",
+                        "intervalNum", 1,
+                        "limit", 6000)),
+                "symbols", market.getMarkets().stream().map(this::symbolInfo).toList()));
+    }
+
+    private Map<String, Object> symbolInfo(SimulatedMarket.Market m) {
+        return Map.ofEntries(
+                Map.entry("symbol", m.getSymbol()),
+                Map.entry("status", "TRADING"),
+                Map.entry("baseAsset", m.getBaseAsset()),
+                Map.entry("baseAssetPrecision", 8),
+                Map.entry("quoteAsset", m.getQuoteAsset()),
+                Map.entry("quotePrecision", 8),
+                Map.entry("quoteAssetPrecision", 8),
+                Map.entry("orderTypes", List.of("LIMIT", "MARKET")),
+                Map.entry("icebergAllowed", false),
+                Map.entry("ocoAllowed", false),
+                Map.entry("quoteOrderQtyMarketAllowed", true),
+                Map.entry("allowTrailingStop", false),
+                Map.entry("cancelReplaceAllowed", false),
+                Map.entry("isSpotTradingAllowed", true),
+                Map.entry("isMarginTradingAllowed", false),
+                Map.entry("filters", List.of(
+                        Map.of("filterType", "PRICE_FILTER",
+                                "tickSize", tickSize(m.getPriceScale())),
+                        Map.of("filterType", "LOT_SIZE",
+                                "stepSize", tickSize(m.getQuantityScale())))),
+                Map.entry("permissions", List.of("SPOT")));
+    }
+
+    private static String tickSize(int scale) {
+        return scale == 0 ? "1" : "0." + "0".repeat(scale - 1) + "1";
+    }
+
+    /**
+     * Apply injected latency and rate limiting, then build the response.
+     */
+    private ResponseEntity<?> respond(Supplier<Object> body) {
+        long delay = faults.nextDelay();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (faults.shouldRateLimit()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .body(Map.of("code", -1003,
+                            "msg", "Too much request weight used; current limit is 6000 request weight per 1 MINUTE."));
+        }
+
+        return ResponseEntity.ok(body.get());
+    }
+
+    private static ResponseEntity<?> invalidSymbol() {
+        return ResponseEntity.badRequest().body(Map.of("code", -1121, "msg", "Invalid symbol."));
+    }
+}
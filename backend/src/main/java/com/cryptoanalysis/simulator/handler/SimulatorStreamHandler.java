@@ -0,0 +1,352 @@
+package com.cryptoanalysis.simulator.handler;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.simulator.config.SimulatorConfig;
+import com.cryptoanalysis.simulator.service.FaultInjector;
+import com.cryptoanalysis.simulator.service.SimulatedMarket;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves Binance's combined-stream endpoint ({@code /stream?streams=a/b}) for
+ * {@code <symbol>@kline_<interval>}, {@code <symbol>@ticker},
+ * {@code <symbol>@depth@100ms}, {@code <symbol>@aggTrade} and
+ * {@code !miniTicker@arr}, including SUBSCRIBE/UNSUBSCRIBE/LIST_SUBSCRIPTIONS
+ * control frames and the inbound message-rate limit.
+ */
+@Component
+@Profile("simulator")
+@RequiredArgsConstructor
+@Slf4j
+public class SimulatorStreamHandler extends TextWebSocketHandler {
+
+    private static final String MINI_TICKER_ALL = "!miniTicker@arr";
+
+    private static final String DEPTH_SUFFIX = "@depth@100ms";
+
+    private static final String AGG_TRADE_SUFFIX = "@aggTrade";
+
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+
+    private static final int SEND_BUFFER_LIMIT_BYTES = 8 * 1024 * 1024;
+
+    private static final long FAULT_CHECK_INTERVAL_MS = 1000;
+
+    private final SimulatorConfig config;
+    private final SimulatedMarket market;
+    private final FaultInjector faults;
+    private final CandleMapper candleMapper;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleAtFixedRate(this::stepMarket, config.getStepInterval(), config.getStepInterval(),
+                TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> push(s -> s.endsWith("@ticker"), this::tickerFrames),
+                config.getTickerInterval(), config.getTickerInterval(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> push(s -> s.contains("@kline_"), this::klineFrames),
+                config.getKlineInterval(), config.getKlineInterval(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> push(s -> s.endsWith(DEPTH_SUFFIX), this::depthFrames),
+                config.getDepthInterval(), config.getDepthInterval(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> push(s -> s.endsWith(AGG_TRADE_SUFFIX), this::aggTradeFrames),
+                config.getTradeInterval(), config.getTradeInterval(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(() -> push(MINI_TICKER_ALL::equals, this::miniTickerFrames),
+                config.getMiniTickerInterval(), config.getMiniTickerInterval(), TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::injectDisconnects, FAULT_CHECK_INTERVAL_MS, FAULT_CHECK_INTERVAL_MS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public int getConnectionCount() {
+        return clients.size();
+    }
+
+    public int getStreamCount() {
+        return clients.values().stream().mapToInt(c -> c.streams.size()).sum();
+    }
+
+    /**
+     * Drop every connection abnormally, as an exchange-side outage would.
+     */
+    public int disconnectAll() {
+        List<Client> dropped = new ArrayList<>(clients.values());
+        dropped.forEach(client -> close(client, CloseStatus.SERVER_ERROR));
+        return dropped.size();
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Client client = new Client(new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS,
+                SEND_BUFFER_LIMIT_BYTES));
+
+        String streams = session.getUri() == null ? null
+                : UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("streams");
+
+        if (streams != null) {
+            for (String stream : streams.split("/")) {
+                if (!stream.isBlank() && !addStream(client, stream)) {
+                    session.close(CloseStatus.BAD_DATA.withReason("Invalid stream: " + stream));
+                    return;
+                }
+            }
+        }
+
+        clients.put(session.getId(), client);
+        log.info("Simulator connection {} opened with {} streams", session.getId(), client.streams.size());
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        Client client = clients.get(session.getId());
+        if (client == null) {
+            return;
+        }
+
+        if (!client.allowInbound(System.currentTimeMillis(), config.getMaxInboundMessagesPerSecond())) {
+            log.warn("Simulator connection {} exceeded {} messages/s; disconnecting",
+                    session.getId(), config.getMaxInboundMessagesPerSecond());
+            close(client, CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+
+        JsonNode request = objectMapper.readTree(message.getPayload());
+        JsonNode id = request.path("id");
+        ObjectNode reply = objectMapper.createObjectNode();
+        reply.set("id", id);
+
+        switch (request.path("method").asText()) {
+            case "SUBSCRIBE" -> {
+                for (JsonNode param : request.path("params")) {
+                    if (!addStream(client, param.asText())) {
+                        reply.putObject("error").put("code", 2).put("msg", "Invalid request: " + param.asText());
+                        break;
+                    }
+                }
+                if (!reply.has("error")) {
+                    reply.putNull("result");
+                }
+            }
+            case "UNSUBSCRIBE" -> {
+                request.path("params").forEach(param -> client.streams.remove(param.asText()));
+                reply.putNull("result");
+            }
+            case "LIST_SUBSCRIPTIONS" -> {
+                var result = reply.putArray("result");
+                client.streams.forEach(result::add);
+            }
+            default -> reply.putObject("error").put("code", 1).put("msg", "Invalid method");
+        }
+
+        send(client, List.of(objectMapper.writeValueAsString(reply)));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        clients.remove(session.getId());
+        log.info("Simulator connection {} closed ({})", session.getId(), status);
+    }
+
+    private boolean addStream(Client client, String stream) {
+        if (!isValidStream(stream) || client.streams.size() >= config.getMaxStreamsPerConnection()) {
+            return false;
+        }
+        client.streams.add(stream);
+        return true;
+    }
+
+    private boolean isValidStream(String stream) {
+        if (MINI_TICKER_ALL.equals(stream)) {
+            return true;
+        }
+
+        int at = stream.indexOf('@');
+        if (at <= 0 || market.getMarket(stream.substring(0, at)) == null) {
+            return false;
+        }
+
+        String kind = stream.substring(at + 1);
+        if (kind.equals("ticker") || kind.equals(DEPTH_SUFFIX.substring(1))
+                || kind.equals(AGG_TRADE_SUFFIX.substring(1))) {
+            return true;
+        }
+        if (kind.startsWith("kline_")) {
+            return candleMapper.isExchangeInterval(kind.substring("kline_".length()));
+        }
+        return false;
+    }
+
+    private void stepMarket() {
+        try {
+            market.step();
+        } catch (Exception e) {
+            log.error("Simulator market step failed", e);
+        }
+    }
+
+    /**
+     * Render each subscribed stream matching {@code filter} once and send it to
+     * every connection that has it.
+     */
+    private void push(Predicate<String> filter, BiFunction<String, Long, List<String>> render) {
+        if (faults.isSilenced() || clients.isEmpty()) {
+            return;
+        }
+
+        try {
+            long now = System.currentTimeMillis();
+            Set<String> streams = new HashSet<>();
+            clients.values().forEach(client -> client.streams.stream().filter(filter).forEach(streams::add));
+
+            Map<String, List<String>> frames = new HashMap<>();
+            for (String stream : streams) {
+                frames.put(stream, render.apply(stream, now));
+            }
+
+            long delay = faults.nextDelay();
+            for (Client client : clients.values()) {
+                List<String> out = new ArrayList<>();
+                client.streams.forEach(stream -> {
+                    List<String> rendered = frames.get(stream);
+                    if (rendered != null) {
+                        out.addAll(rendered);
+                    }
+                });
+
+                if (!out.isEmpty()) {
+                    if (delay > 0) {
+                        scheduler.schedule(() -> send(client, out), delay, TimeUnit.MILLISECONDS);
+                    } else {
+                        send(client, out);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Simulator push failed", e);
+        }
+    }
+
+    private List<String> tickerFrames(String stream, long now) {
+        SimulatedMarket.Market m = market.getMarket(stream.substring(0, stream.indexOf('@')));
+        return List.of(envelope(stream, m.tickerEvent(now)));
+    }
+
+    private List<String> klineFrames(String stream, long now) {
+        SimulatedMarket.Market m = market.getMarket(stream.substring(0, stream.indexOf('@')));
+        String interval = stream.substring(stream.indexOf("@kline_") + "@kline_".length());
+
+        return m.klineEvents(interval, candleMapper.getIntervalMillis(interval), now).stream()
+                .map(event -> envelope(stream, event))
+                .toList();
+    }
+
+    private List<String> depthFrames(String stream, long now) {
+        SimulatedMarket.Market m = market.getMarket(stream.substring(0, stream.indexOf('@')));
+        String event = m.depthUpdateEvent(now, ThreadLocalRandom.current());
+        return event == null ? List.of() : List.of(envelope(stream, event));
+    }
+
+    private List<String> aggTradeFrames(String stream, long now) {
+        SimulatedMarket.Market m = market.getMarket(stream.substring(0, stream.indexOf('@')));
+        String event = m.aggTradeEvent(now);
+        return event == null ? List.of() : List.of(envelope(stream, event));
+    }
+
+    private List<String> miniTickerFrames(String stream, long now) {
+        StringBuilder data = new StringBuilder(market.getMarkets().size() * 200).append('[');
+        for (SimulatedMarket.Market m : market.getMarkets()) {
+            if (data.length() > 1) {
+                data.append(',');
+            }
+            data.append(m.miniTickerEvent(now));
+        }
+        return List.of(envelope(stream, data.append(']').toString()));
+    }
+
+    private static String envelope(String stream, String data) {
+        return "{\"stream\":\"" + stream + "\",\"data\":" + data + "}";
+    }
+
+    private void send(Client client, List<String> payloads) {
+        try {
+            for (String payload : payloads) {
+                client.session.sendMessage(new TextMessage(payload));
+            }
+        } catch (Exception e) {
+            log.debug("Simulator send to {} failed", client.session.getId(), e);
+            close(client, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private void injectDisconnects() {
+        for (Client client : clients.values()) {
+            if (faults.shouldDisconnect(FAULT_CHECK_INTERVAL_MS)) {
+                log.info("Injecting disconnect on simulator connection {}", client.session.getId());
+                close(client, CloseStatus.SERVER_ERROR);
+            }
+        }
+    }
+
+    private void close(Client client, CloseStatus status) {
+        clients.remove(client.session.getId());
+        try {
+            client.session.close(status);
+        } catch (Exception e) {
+            log.debug("Error closing simulator connection {}", client.session.getId(), e);
+        }
+    }
+
+    private static final class Client {
+        private final WebSocketSession session;
+        private final Set<String> streams = ConcurrentHashMap.newKeySet();
+        private final Deque<Long> inbound = new ArrayDeque<>();
+
+        private Client(WebSocketSession session) {
+            this.session = session;
+        }
+
+        synchronized boolean allowInbound(long now, int maxPerSecond) {
+            while (!inbound.isEmpty() && now - inbound.peekFirst() >= 1000) {
+                inbound.removeFirst();
+            }
+            inbound.addLast(now);
+            return inbound.size() <= maxPerSecond;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.cryptoanalysis.simulator.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.simulator.config.SimulatorConfig;
+
+/**
+ * Fault settings of the simulator. Starts from {@link SimulatorConfig} and can
+ * be changed at runtime through the simulator's fault endpoints.
+ */
+@Component
+@Profile("simulator")
+public class FaultInjector {
+
+    private volatile double disconnectsPerHour;
+    private volatile int latency;
+    private volatile int latencyJitter;
+    private volatile double rateLimitProbability;
+    private volatile long silencedUntil;
+
+    public FaultInjector(SimulatorConfig config) {
+        this.disconnectsPerHour = config.getDisconnectsPerHour();
+        this.latency = config.getLatency();
+        this.latencyJitter = config.getLatencyJitter();
+        this.rateLimitProbability = config.getRateLimitProbability();
+    }
+
+    /**
+     * Whether a connection should be dropped in a check covering {@code elapsedMillis}.
+     */
+    public boolean shouldDisconnect(long elapsedMillis) {
+        double expected = disconnectsPerHour * elapsedMillis / 3_600_000.0;
+        return expected > 0 && ThreadLocalRandom.current().nextDouble() < expected;
+    }
+
+    public long nextDelay() {
+        int jitter = latencyJitter;
+        return latency + (jitter > 0 ? ThreadLocalRandom.current().nextInt(jitter + 1) : 0);
+    }
+
+    public boolean shouldRateLimit() {
+        double probability = rateLimitProbability;
+        return probability > 0 && ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    /**
+     * Keep sockets open but stop pushing market data for a while.
+     */
+    public void silence(long millis) {
+        silencedUntil = System.currentTimeMillis() + millis;
+    }
+
+    public boolean isSilenced() {
+        return System.currentTimeMillis() < silencedUntil;
+    }
+
+    public void update(Double disconnectsPerHour, Integer latency, Integer latencyJitter,
+            Double rateLimitProbability) {
+        if (disconnectsPerHour != null) {
+            this.disconnectsPerHour = disconnectsPerHour;
+        }
+        if (latency != null) {
+            this.latency = latency;
+        }
+        if (latencyJitter != null) {
+            this.latencyJitter = latencyJitter;
+        }
+        if (rateLimitProbability != null) {
+            this.rateLimitProbability = rateLimitProbability;
+        }
+    }
+
+    public Map<String, Object> getState() {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("disconnectsPerHour", disconnectsPerHour);
+        state.put("latency", latency);
+        state.put("latencyJitter", latencyJitter);
+        state.put("rateLimitProbability", rateLimitProbability);
+        state.put("silencedForMs", Math.max(silencedUntil - System.currentTimeMillis(), 0));
+        return state;
+    }
+}
@@ -0,0 +1,551 @@
+package com.cryptoanalysis.simulator.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.simulator.config.SimulatorConfig;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Synthetic markets driven by a geometric random walk. Holds per-symbol 24h
+ * statistics and the in-progress candle of every interval someone asked for,
+ * and renders them in Binance's WebSocket and REST shapes.
+ */
+@Component
+@Profile("simulator")
+@RequiredArgsConstructor
+@Slf4j
+public class SimulatedMarket {
+
+    private static final String[] WELL_KNOWN_BASES = {
+            "BTC", "ETH", "BNB", "SOL", "XRP", "ADA", "DOGE", "AVAX", "DOT", "LINK",
+            "MATIC", "LTC", "TRX", "ATOM", "UNI", "XLM", "ETC", "FIL", "APT", "NEAR"
+    };
+
+    private static final String QUOTE_ASSET = "USDT";
+
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+
+    /**
+     * Levels per side refreshed by each diff-depth event.
+     */
+    private static final int DEPTH_UPDATE_LEVELS = 10;
+
+    /**
+     * Most levels a diff-depth event removes on the side the price moved through.
+     */
+    private static final int MAX_CLEARED_LEVELS = 50;
+
+    private final SimulatorConfig config;
+    private final CandleMapper candleMapper;
+    private final Map<String, Market> markets = new HashMap<>();
+    private final List<Market> marketList = new ArrayList<>();
+    private Random random;
+
+    @PostConstruct
+    public void init() {
+        random = new Random(config.getSeed());
+
+        for (int i = 0; i < config.getSymbolCount(); i++) {
+            String base = i < WELL_KNOWN_BASES.length ? WELL_KNOWN_BASES[i] : String.format("SIM%04d", i);
+            // Log-uniform starting prices between 0.001 and 50000
+            double price = Math.exp(Math.log(0.001) + random.nextDouble() * (Math.log(50000) - Math.log(0.001)));
+
+            Market market = new Market(base + QUOTE_ASSET, base, price);
+            markets.put(market.symbol, market);
+            marketList.add(market);
+        }
+
+        log.info("Simulating {} markets", marketList.size());
+    }
+
+    public List<Market> getMarkets() {
+        return Collections.unmodifiableList(marketList);
+    }
+
+    public Market getMarket(String symbol) {
+        return symbol == null ? null : markets.get(symbol.toUpperCase());
+    }
+
+    /**
+     * Advance every market by one random-walk step. Called from a single thread.
+     */
+    public void step() {
+        long now = System.currentTimeMillis();
+        for (Market market : marketList) {
+            market.step(random.nextGaussian() * config.getVolatility(), random.nextDouble(), now);
+        }
+    }
+
+    /**
+     * Closed candles followed by the in-progress one, oldest first, with open
+     * times in [startTime, endTime]. History before the live candle is a fresh
+     * walk backwards from its open, seeded by symbol and interval.
+     */
+    public List<Object[]> historicalKlines(Market market, String interval, Long startTime, Long endTime, int limit) {
+        long intervalMillis = candleMapper.getIntervalMillis(interval);
+        long liveOpenTime;
+        double liveOpen;
+        synchronized (market) {
+            Candle live = market.liveCandle(interval, intervalMillis, System.currentTimeMillis());
+            liveOpenTime = live.openTime;
+            liveOpen = live.open;
+        }
+
+        long last = liveOpenTime;
+        if (endTime != null) {
+            last = Math.min(last, endTime - Math.floorMod(endTime, intervalMillis));
+        }
+
+        long first = startTime != null
+                ? startTime + Math.floorMod(-startTime, intervalMillis)
+                : last - (limit - 1) * intervalMillis;
+        if ((last - first) / intervalMillis + 1 > limit) {
+            last = first + (limit - 1) * intervalMillis;
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        if (first > last) {
+            return rows;
+        }
+
+        Random walk = new Random(market.symbol.hashCode() * 31L + interval.hashCode());
+        double sigma = config.getVolatility() * Math.sqrt(Math.max(intervalMillis / config.getStepInterval(), 1));
+        double close = liveOpen;
+
+        // The walk is synthetic anyway, so a window far in the past starts from the live open
+        long walkStart = Math.min(liveOpenTime - intervalMillis, last);
+
+        for (long openTime = walkStart; openTime >= first; openTime -= intervalMillis) {
+            double open = close * Math.exp(-walk.nextGaussian() * sigma);
+            double high = Math.max(open, close) * (1 + Math.abs(walk.nextGaussian()) * sigma / 2);
+            double low = Math.min(open, close) * (1 - Math.abs(walk.nextGaussian()) * sigma / 2);
+            double volume = market.baseVolume * intervalMillis / DAY_MILLIS * (0.5 + walk.nextDouble());
+
+            rows.add(market.klineRow(openTime, intervalMillis, open, high, low, close, volume,
+                    (int) (volume / market.tradeSize) + 1));
+            close = open;
+        }
+
+        Collections.reverse(rows);
+        if (liveOpenTime >= first && liveOpenTime <= last) {
+            synchronized (market) {
+                Candle live = market.liveCandle(interval, intervalMillis, System.currentTimeMillis());
+                rows.add(market.klineRow(live.openTime, intervalMillis, live.open, live.high, live.low, live.close,
+                        live.volume, live.trades));
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Scale used to render a price, chosen from its magnitude like Binance tick sizes.
+     */
+    static int priceScale(double price) {
+        if (price >= 1000) {
+            return 2;
+        }
+        if (price >= 10) {
+            return 3;
+        }
+        if (price >= 0.1) {
+            return 5;
+        }
+        return 8;
+    }
+
+    static String format(double value, int scale) {
+        return ScaledDecimal.of(Math.round(value * Math.pow(10, scale)), scale).toString();
+    }
+
+    /**
+     * One synthetic market. Mutable state is guarded by the instance lock.
+     */
+    public static final class Market {
+        private final String symbol;
+        private final String baseAsset;
+        private final int priceScale;
+        private final int quantityScale;
+        private final double tradeSize;
+        private final double baseVolume;
+        private final Map<String, Candle> candles = new ConcurrentHashMap<>();
+        private double price;
+        private double dayOpen;
+        private double dayHigh;
+        private double dayLow;
+        private double dayVolume;
+        private double dayQuoteVolume;
+        private long dayOpenTime;
+        private long tradeCount;
+        private long lastUpdateId = 1;
+        private long depthUpdateId;
+        private long aggTradeId;
+        private long aggTradeCount;
+        private double aggTradePrice = Double.NaN;
+        private double depthBid = Double.NaN;
+        private double depthAsk = Double.NaN;
+
+        private Market(String symbol, String baseAsset, double price) {
+            this.symbol = symbol;
+            this.baseAsset = baseAsset;
+            this.priceScale = priceScale(price);
+            this.quantityScale = price >= 100 ? 5 : price >= 1 ? 2 : 0;
+            // Roughly 100 USDT per trade and 50M USDT of daily turnover
+            this.tradeSize = 100 / price;
+            this.baseVolume = 50_000_000 / price;
+            this.price = price;
+            this.dayOpen = price;
+            this.dayHigh = price;
+            this.dayLow = price;
+            this.dayOpenTime = System.currentTimeMillis();
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getBaseAsset() {
+            return baseAsset;
+        }
+
+        public String getQuoteAsset() {
+            return QUOTE_ASSET;
+        }
+
+        public int getPriceScale() {
+            return priceScale;
+        }
+
+        public int getQuantityScale() {
+            return quantityScale;
+        }
+
+        private synchronized void step(double logReturn, double activity, long now) {
+            price *= Math.exp(logReturn);
+
+            if (now - dayOpenTime >= DAY_MILLIS) {
+                dayOpen = price;
+                dayHigh = price;
+                dayLow = price;
+                dayVolume = 0;
+                dayQuoteVolume = 0;
+                dayOpenTime = now;
+            }
+
+            double quantity = tradeSize * activity * 4;
+            int trades = (int) (activity * 4);
+
+            dayHigh = Math.max(dayHigh, price);
+            dayLow = Math.min(dayLow, price);
+            dayVolume += quantity;
+            dayQuoteVolume += quantity * price;
+            tradeCount += trades;
+            lastUpdateId++;
+
+            for (Candle candle : candles.values()) {
+                candle.update(price, quantity, trades, now);
+            }
+        }
+
+        synchronized Candle liveCandle(String interval, long intervalMillis, long now) {
+            return candles.computeIfAbsent(interval, i -> new Candle(intervalMillis, price, now));
+        }
+
+        /**
+         * Binance "24hrTicker" event payload.
+         */
+        public synchronized String tickerEvent(long now) {
+            double change = price - dayOpen;
+            return "{\"e\":\"24hrTicker\",\"E\":" + now + ",\"s\":\"" + symbol + "\""
+                    + ",\"p\":\"" + format(change, priceScale) + "\""
+                    + ",\"P\":\"" + format(change / dayOpen * 100, 3) + "\""
+                    + ",\"w\":\"" + format(dayVolume == 0 ? price : dayQuoteVolume / dayVolume, priceScale) + "\""
+                    + ",\"c\":\"" + format(price, priceScale) + "\""
+                    + ",\"Q\":\"" + format(tradeSize, quantityScale) + "\""
+                    + ",\"b\":\"" + format(bid(), priceScale) + "\",\"B\":\"" + format(tradeSize, quantityScale) + "\""
+                    + ",\"a\":\"" + format(ask(), priceScale) + "\",\"A\":\"" + format(tradeSize, quantityScale) + "\""
+                    + ",\"o\":\"" + format(dayOpen, priceScale) + "\""
+                    + ",\"h\":\"" + format(dayHigh, priceScale) + "\""
+                    + ",\"l\":\"" + format(dayLow, priceScale) + "\""
+                    + ",\"v\":\"" + format(dayVolume, quantityScale) + "\""
+                    + ",\"q\":\"" + format(dayQuoteVolume, priceScale) + "\""
+                    + ",\"O\":" + dayOpenTime + ",\"C\":" + now + ",\"F\":0,\"L\":" + tradeCount
+                    + ",\"n\":" + tradeCount + "}";
+        }
+
+        /**
+         * Binance "24hrMiniTicker" event payload.
+         */
+        public synchronized String miniTickerEvent(long now) {
+            return "{\"e\":\"24hrMiniTicker\",\"E\":" + now + ",\"s\":\"" + symbol + "\""
+                    + ",\"c\":\"" + format(price, priceScale) + "\""
+                    + ",\"o\":\"" + format(dayOpen, priceScale) + "\""
+                    + ",\"h\":\"" + format(dayHigh, priceScale) + "\""
+                    + ",\"l\":\"" + format(dayLow, priceScale) + "\""
+                    + ",\"v\":\"" + format(dayVolume, quantityScale) + "\""
+                    + ",\"q\":\"" + format(dayQuoteVolume, priceScale) + "\"}";
+        }
+
+        /**
+         * Binance "kline" event payloads for the interval: the candle that
+         * closed since the last call (if any), then the one in progress.
+         */
+        public synchronized List<String> klineEvents(String interval, long intervalMillis, long now) {
+            Candle candle = liveCandle(interval, intervalMillis, now);
+            candle.update(price, 0, 0, now);
+
+            List<String> events = new ArrayList<>(2);
+            Candle closed = candle.takeClosed();
+            if (closed != null) {
+                events.add(klineEvent(interval, closed, true, now));
+            }
+            events.add(klineEvent(interval, candle, false, now));
+            return events;
+        }
+
+        private String klineEvent(String interval, Candle candle, boolean closed, long now) {
+            return "{\"e\":\"kline\",\"E\":" + now + ",\"s\":\"" + symbol + "\",\"k\":{"
+                    + "\"t\":" + candle.openTime + ",\"T\":" + (candle.openTime + candle.intervalMillis - 1)
+                    + ",\"s\":\"" + symbol + "\",\"i\":\"" + interval + "\",\"f\":0,\"L\":0"
+                    + ",\"o\":\"" + format(candle.open, priceScale) + "\""
+                    + ",\"c\":\"" + format(candle.close, priceScale) + "\""
+                    + ",\"h\":\"" + format(candle.high, priceScale) + "\""
+                    + ",\"l\":\"" + format(candle.low, priceScale) + "\""
+                    + ",\"v\":\"" + format(candle.volume, quantityScale) + "\""
+                    + ",\"n\":" + candle.trades + ",\"x\":" + closed
+                    + ",\"q\":\"" + format(candle.volume * candle.close, priceScale) + "\""
+                    + ",\"V\":\"0\",\"Q\":\"0\",\"B\":\"0\"}}";
+        }
+
+        private Object[] klineRow(long openTime, long intervalMillis, double open, double high, double low,
+                double close, double volume, int trades) {
+            return new Object[] {
+                    openTime,
+                    format(open, priceScale),
+                    format(high, priceScale),
+                    format(low, priceScale),
+                    format(close, priceScale),
+                    format(volume, quantityScale),
+                    openTime + intervalMillis - 1,
+                    format(volume * close, priceScale),
+                    trades,
+                    format(volume / 2, quantityScale),
+                    format(volume * close / 2, priceScale),
+                    "0"
+            };
+        }
+
+        /**
+         * REST /api/v3/ticker/24hr object.
+         */
+        public synchronized Map<String, Object> ticker24hr(long now) {
+            double change = price - dayOpen;
+            Map<String, Object> ticker = new LinkedHashMap<>();
+            ticker.put("symbol", symbol);
+            ticker.put("priceChange", format(change, priceScale));
+            ticker.put("priceChangePercent", format(change / dayOpen * 100, 3));
+            ticker.put("weightedAvgPrice", format(dayVolume == 0 ? price : dayQuoteVolume / dayVolume, priceScale));
+            ticker.put("prevClosePrice", format(dayOpen, priceScale));
+            ticker.put("lastPrice", format(price, priceScale));
+            ticker.put("lastQty", format(tradeSize, quantityScale));
+            ticker.put("bidPrice", format(bid(), priceScale));
+            ticker.put("bidQty", format(tradeSize, quantityScale));
+            ticker.put("askPrice", format(ask(), priceScale));
+            ticker.put("askQty", format(tradeSize, quantityScale));
+            ticker.put("openPrice", format(dayOpen, priceScale));
+            ticker.put("highPrice", format(dayHigh, priceScale));
+            ticker.put("lowPrice", format(dayLow, priceScale));
+            ticker.put("volume", format(dayVolume, quantityScale));
+            ticker.put("quoteVolume", format(dayQuoteVolume, priceScale));
+            ticker.put("openTime", dayOpenTime);
+            ticker.put("closeTime", now);
+            ticker.put("firstId", 0);
+            ticker.put("lastId", tradeCount);
+            ticker.put("count", tradeCount);
+            return ticker;
+        }
+
+        public synchronized String lastPrice() {
+            return format(price, priceScale);
+        }
+
+        /**
+         * REST /api/v3/depth object: {@code limit} levels a tick apart on each side.
+         */
+        public synchronized Map<String, Object> depth(int limit, Random random) {
+            double tick = Math.pow(10, -priceScale);
+            List<String[]> bids = new ArrayList<>(limit);
+            List<String[]> asks = new ArrayList<>(limit);
+
+            for (int i = 0; i < limit; i++) {
+                bids.add(new String[] { format(bid() - i * tick, priceScale),
+                        format(tradeSize * (1 + random.nextDouble() * 10), quantityScale) });
+                asks.add(new String[] { format(ask() + i * tick, priceScale),
+                        format(tradeSize * (1 + random.nextDouble() * 10), quantityScale) });
+            }
+
+            Map<String, Object> depth = new LinkedHashMap<>();
+            depth.put("lastUpdateId", lastUpdateId);
+            depth.put("bids", bids);
+            depth.put("asks", asks);
+            return depth;
+        }
+
+        /**
+         * Binance "aggTrade" event payload aggregating the trades since the
+         * previous one at the current price, or {@code null} if there were none.
+         */
+        public synchronized String aggTradeEvent(long now) {
+            if (aggTradeCount == tradeCount) {
+                return null;
+            }
+
+            long trades = tradeCount - aggTradeCount;
+            // Binance flags a trade whose buyer was the resting order; here, a trade at a falling price
+            boolean buyerMaker = price < aggTradePrice;
+            String event = "{\"e\":\"aggTrade\",\"E\":" + now + ",\"s\":\"" + symbol + "\""
+                    + ",\"a\":" + (++aggTradeId)
+                    + ",\"p\":\"" + format(price, priceScale) + "\""
+                    + ",\"q\":\"" + format(tradeSize * trades, quantityScale) + "\""
+                    + ",\"f\":" + (aggTradeCount + 1) + ",\"l\":" + tradeCount
+                    + ",\"T\":" + now + ",\"m\":" + buyerMaker + ",\"M\":true}";
+            aggTradeCount = tradeCount;
+            aggTradePrice = price;
+            return event;
+        }
+
+        /**
+         * Binance "depthUpdate" event payload covering the order book updates
+         * since the previous one, or {@code null} if there were none. It
+         * refreshes the levels around the price and removes the ones the
+         * price moved through, so a book built from a {@link #depth} snapshot
+         * plus these events stays uncrossed.
+         */
+        public synchronized String depthUpdateEvent(long now, Random random) {
+            if (depthUpdateId == lastUpdateId) {
+                return null;
+            }
+
+            double tick = Math.pow(10, -priceScale);
+            StringBuilder bids = new StringBuilder();
+            StringBuilder asks = new StringBuilder();
+
+            if (depthBid > bid()) {
+                long cleared = Math.min(Math.round((depthBid - bid()) / tick), MAX_CLEARED_LEVELS);
+                for (long i = 0; i < cleared; i++) {
+                    level(bids, depthBid - i * tick, 0);
+                }
+            }
+            if (depthAsk < ask()) {
+                long cleared = Math.min(Math.round((ask() - depthAsk) / tick), MAX_CLEARED_LEVELS);
+                for (long i = 0; i < cleared; i++) {
+                    level(asks, depthAsk + i * tick, 0);
+                }
+            }
+            for (int i = 0; i < DEPTH_UPDATE_LEVELS; i++) {
+                level(bids, bid() - i * tick, tradeSize * (1 + random.nextDouble() * 10));
+                level(asks, ask() + i * tick, tradeSize * (1 + random.nextDouble() * 10));
+            }
+
+            String event = "{\"e\":\"depthUpdate\",\"E\":" + now + ",\"s\":\"" + symbol + "\""
+                    + ",\"U\":" + (depthUpdateId + 1) + ",\"u\":" + lastUpdateId
+                    + ",\"b\":[" + bids + "],\"a\":[" + asks + "]}";
+            depthUpdateId = lastUpdateId;
+            depthBid = bid();
+            depthAsk = ask();
+            return event;
+        }
+
+        private void level(StringBuilder levels, double price, double quantity) {
+            if (!levels.isEmpty()) {
+                levels.append(',');
+            }
+            levels.append("[\"").append(format(price, priceScale)).append("\",\"")
+                    .append(format(quantity, quantityScale)).append("\"]");
+        }
+
+        private double bid() {
+            return price - Math.pow(10, -priceScale);
+        }
+
+        private double ask() {
+            return price + Math.pow(10, -priceScale);
+        }
+    }
+
+    /**
+     * In-progress candle of one interval; remembers the last closed candle until it is published.
+     */
+    static final class Candle {
+        private final long intervalMillis;
+        private long openTime;
+        private double open;
+        private double high;
+        private double low;
+        private double close;
+        private double volume;
+        private int trades;
+        private Candle closed;
+
+        private Candle(long intervalMillis, double price, long now) {
+            this.intervalMillis = intervalMillis;
+            reset(now - Math.floorMod(now, intervalMillis), price);
+        }
+
+        private void update(double price, double quantity, int newTrades, long now) {
+            if (now >= openTime + intervalMillis) {
+                closed = copy();
+                reset(now - Math.floorMod(now, intervalMillis), close);
+            }
+
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            close = price;
+            volume += quantity;
+            trades += newTrades;
+        }
+
+        private Candle takeClosed() {
+            Candle result = closed;
+            closed = null;
+            return result;
+        }
+
+        private void reset(long newOpenTime, double price) {
+            openTime = newOpenTime;
+            open = price;
+            high = price;
+            low = price;
+            close = price;
+            volume = 0;
+            trades = 0;
+        }
+
+        private Candle copy() {
+            Candle copy = new Candle(intervalMillis, close, openTime);
+            copy.openTime = openTime;
+            copy.open = open;
+            copy.high = high;
+            copy.low = low;
+            copy.close = close;
+            copy.volume = volume;
+            copy.trades = trades;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.cryptoanalysis.websocket.aggregation;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+
+/**
+ * Maintains one higher kline interval for one symbol from its 1m kline
+ * stream. The candle of the current bucket is the sum of the bucket's closed
+ * minutes plus the minute in progress, so every 1m update re-emits the rolled
+ * candle and the final minute's close emits it closed, with the same fields
+ * Binance computes for the interval itself. Buckets align like Binance's:
+ * to the epoch, weeks to Monday and months to the UTC calendar month.
+ * <p>
+ * The aggregator starts out seeding: live minutes are held until
+ * {@link #applySeed} supplies the bucket's closed history up to the first held
+ * minute. A missed closed minute (after a reconnect, say) puts it back into
+ * seeding, and the buckets that were left open are then closed from the
+ * exchange's own klines. Replayed closed minutes are ignored.
+ */
+class KlineRollupAggregator {
+
+    static final long MINUTE = 60_000L;
+
+    private static final long DAY = 24 * 60 * MINUTE;
+    private static final long WEEK = 7 * DAY;
+    /**
+     * 1970-01-01 was a Thursday, so Binance's weeks start four days after the epoch.
+     */
+    private static final long WEEK_OFFSET = 4 * DAY;
+
+    interface Sink {
+        void emit(KlineDto kline);
+    }
+
+    private final String symbol;
+    private final String interval;
+    private final long intervalMillis;
+    private final Sink sink;
+
+    private boolean seeding = true;
+    private final List<KlineDto> held = new ArrayList<>();
+    /**
+     * Open time of a bucket that had data but was not closed before the
+     * aggregator fell back to seeding, or {@code null}.
+     */
+    private Long unclosedBucketOpen;
+
+    private long bucketOpen = Long.MIN_VALUE;
+    private long bucketEnd = Long.MIN_VALUE;
+    private Accumulator closedMinutes;
+    private KlineDto live;
+    private long lastClosedMinuteOpen = Long.MIN_VALUE;
+    private boolean stopped;
+
+    private long updatesApplied;
+    private long duplicates;
+    private long lateUpdates;
+    private long seeds;
+    private long candlesClosed;
+
+    KlineRollupAggregator(String symbol, String interval, long intervalMillis, Sink sink) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.intervalMillis = intervalMillis;
+        this.sink = sink;
+    }
+
+    String getSymbol() {
+        return symbol;
+    }
+
+    String getInterval() {
+        return interval;
+    }
+
+    /**
+     * Apply a 1m kline update.
+     *
+     * @return whether the aggregator now needs a seed; true only once per seeding round
+     */
+    synchronized boolean onMinute(KlineDto minute) {
+        if (seeding) {
+            held.add(minute);
+            return held.size() == 1;
+        }
+
+        long openTime = minute.getOpenTime();
+        boolean closed = Boolean.TRUE.equals(minute.getIsClosed());
+
+        if (openTime <= lastClosedMinuteOpen || (!closed && live != null && openTime < live.getOpenTime())) {
+            if (closed) {
+                duplicates++;
+            } else {
+                lateUpdates++;
+            }
+            return false;
+        }
+
+        // A closed minute must follow the previous one directly, and an update
+        // can only run one minute ahead of the next close we are waiting for
+        long expected = lastClosedMinuteOpen + MINUTE;
+        if (openTime > (closed ? expected : expected + MINUTE)) {
+            startSeeding(minute);
+            return true;
+        }
+
+        if (closed) {
+            applyClosedMinute(minute);
+        } else {
+            live = minute;
+            if (openTime < bucketEnd) {
+                emit(false);
+            } else if (closedMinutes == null) {
+                // The previous bucket is done, so the update opens the next one
+                openBucket(openTime);
+                emit(false);
+            }
+            // Otherwise it waits for the current bucket's final minute to close
+        }
+
+        updatesApplied++;
+        return false;
+    }
+
+    /**
+     * Open time of the minute the seed has to reach, exclusive; {@code null} when not seeding.
+     */
+    synchronized Long seedCutoff() {
+        return seeding && !held.isEmpty() ? held.get(0).getOpenTime() : null;
+    }
+
+    synchronized Long unclosedBucketOpen() {
+        return unclosedBucketOpen;
+    }
+
+    /**
+     * Finish seeding: emit the buckets that were left unclosed, start the
+     * bucket containing {@code cutoff} from the closed klines (of any exchange
+     * interval) that cover it up to {@code cutoff}, then replay held minutes.
+     *
+     * @param cutoff       the {@link #seedCutoff()} the seed was fetched for
+     * @param history      closed klines tiling [bucket open, cutoff), oldest first
+     * @param missedCloses closed klines of this interval for the buckets left unclosed
+     * @return whether replaying the held minutes found a new gap, so another seed is needed
+     */
+    synchronized boolean applySeed(long cutoff, List<KlineDto> history, List<KlineDto> missedCloses) {
+        Long expected = seedCutoff();
+        if (expected == null || expected != cutoff) {
+            return false;
+        }
+
+        if (unclosedBucketOpen != null) {
+            for (KlineDto kline : missedCloses) {
+                if (kline.getOpenTime() >= unclosedBucketOpen && kline.getOpenTime() < alignedOpenTime(cutoff)) {
+                    candlesClosed++;
+                    emitIfRunning(kline);
+                }
+            }
+        }
+
+        openBucket(cutoff);
+        for (KlineDto kline : history) {
+            if (kline.getOpenTime() >= bucketOpen && kline.getOpenTime() < cutoff) {
+                add(kline);
+            }
+        }
+        lastClosedMinuteOpen = cutoff - MINUTE;
+        live = null;
+        seeding = false;
+        unclosedBucketOpen = null;
+        seeds++;
+
+        List<KlineDto> replay = new ArrayList<>(held);
+        held.clear();
+        for (int i = 0; i < replay.size(); i++) {
+            if (onMinute(replay.get(i))) {
+                // Keep the rest for the next seed, behind the minute that found the gap
+                held.addAll(replay.subList(i + 1, replay.size()));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Suppress further output, e.g. for a seed that completes after the interval was unsubscribed.
+     */
+    synchronized void stop() {
+        stopped = true;
+    }
+
+    synchronized RollupStats stats() {
+        return new RollupStats(seeding, updatesApplied, duplicates, lateUpdates, seeds, candlesClosed);
+    }
+
+    record RollupStats(boolean seeding, long updatesApplied, long duplicates, long lateUpdates, long seeds,
+            long candlesClosed) {
+    }
+
+    long alignedOpenTime(long time) {
+        if ("1M".equals(interval)) {
+            ZonedDateTime t = Instant.ofEpochMilli(time).atZone(ZoneOffset.UTC);
+            return t.toLocalDate().withDayOfMonth(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        }
+        if ("1w".equals(interval)) {
+            return Math.floorDiv(time - WEEK_OFFSET, WEEK) * WEEK + WEEK_OFFSET;
+        }
+        return Math.floorDiv(time, intervalMillis) * intervalMillis;
+    }
+
+    private long bucketEndTime(long openTime) {
+        if ("1M".equals(interval)) {
+            return Instant.ofEpochMilli(openTime).atZone(ZoneOffset.UTC).plusMonths(1).toInstant().toEpochMilli();
+        }
+        return openTime + ("1w".equals(interval) ? WEEK : intervalMillis);
+    }
+
+    private void applyClosedMinute(KlineDto minute) {
+        long openTime = minute.getOpenTime();
+
+        if (openTime >= bucketEnd) {
+            openBucket(openTime);
+        }
+
+        add(minute);
+        lastClosedMinuteOpen = openTime;
+        if (live != null && live.getOpenTime() <= openTime) {
+            live = null;
+        }
+
+        if (openTime + MINUTE >= bucketEnd) {
+            candlesClosed++;
+            emit(true);
+            closedMinutes = null;
+
+            if (live != null) {
+                openBucket(live.getOpenTime());
+                emit(false);
+            }
+        } else {
+            emit(false);
+        }
+    }
+
+    private void startSeeding(KlineDto minute) {
+        // closedMinutes is cleared once a bucket's close has been emitted
+        if (closedMinutes != null && alignedOpenTime(minute.getOpenTime()) > bucketOpen) {
+            unclosedBucketOpen = bucketOpen;
+        }
+
+        seeding = true;
+        closedMinutes = null;
+        live = null;
+        held.add(minute);
+    }
+
+    private void openBucket(long time) {
+        bucketOpen = alignedOpenTime(time);
+        bucketEnd = bucketEndTime(bucketOpen);
+        closedMinutes = new Accumulator();
+    }
+
+    private void add(KlineDto kline) {
+        if (closedMinutes == null) {
+            openBucket(kline.getOpenTime());
+        }
+        closedMinutes.add(kline);
+    }
+
+    private void emit(boolean closed) {
+        Accumulator candle = new Accumulator();
+        if (closedMinutes != null) {
+            candle.add(closedMinutes);
+        }
+        if (!closed && live != null && live.getOpenTime() >= bucketOpen && live.getOpenTime() < bucketEnd) {
+            candle.add(live);
+        }
+        if (candle.count == 0) {
+            return;
+        }
+
+        emitIfRunning(KlineDto.builder()
+                .symbol(symbol)
+                .interval(interval)
+                .openTime(bucketOpen)
+                .closeTime(bucketEnd - 1)
+                .open(candle.open)
+                .high(candle.high)
+                .low(candle.low)
+                .close(candle.close)
+                .volume(candle.volume)
+                .quoteVolume(candle.quoteVolume)
+                .tradesCount(candle.trades)
+                .takerBuyVolume(candle.takerBuyVolume)
+                .takerBuyQuoteVolume(candle.takerBuyQuoteVolume)
+                .isClosed(closed)
+                .build());
+    }
+
+    private void emitIfRunning(KlineDto kline) {
+        if (!stopped) {
+            sink.emit(kline);
+        }
+    }
+
+    /**
+     * Running sums of consecutive klines; exact, since every field is a
+     * first, last, extreme or sum of the exchange's own decimals.
+     */
+    private static final class Accumulator {
+        private int count;
+        private ScaledDecimal open;
+        private ScaledDecimal high;
+        private ScaledDecimal low;
+        private ScaledDecimal close;
+        private ScaledDecimal volume = ScaledDecimal.ZERO;
+        private ScaledDecimal quoteVolume = ScaledDecimal.ZERO;
+        private int trades;
+        private ScaledDecimal takerBuyVolume = ScaledDecimal.ZERO;
+        private ScaledDecimal takerBuyQuoteVolume = ScaledDecimal.ZERO;
+
+        private void add(KlineDto kline) {
+            merge(kline.getOpen(), kline.getHigh(), kline.getLow(), kline.getClose());
+            volume = volume.add(orZero(kline.getVolume()));
+            quoteVolume = quoteVolume.add(orZero(kline.getQuoteVolume()));
+            trades += kline.getTradesCount() == null ? 0 : kline.getTradesCount();
+            takerBuyVolume = takerBuyVolume.add(orZero(kline.getTakerBuyVolume()));
+            takerBuyQuoteVolume = takerBuyQuoteVolume.add(orZero(kline.getTakerBuyQuoteVolume()));
+        }
+
+        private void add(Accumulator other) {
+            if (other.count == 0) {
+                return;
+            }
+            merge(other.open, other.high, other.low, other.close);
+            count += other.count - 1;
+            volume = volume.add(other.volume);
+            quoteVolume = quoteVolume.add(other.quoteVolume);
+            trades += other.trades;
+            takerBuyVolume = takerBuyVolume.add(other.takerBuyVolume);
+            takerBuyQuoteVolume = takerBuyQuoteVolume.add(other.takerBuyQuoteVolume);
+        }
+
+        private void merge(ScaledDecimal o, ScaledDecimal h, ScaledDecimal l, ScaledDecimal c) {
+            if (count == 0) {
+                open = o;
+                high = h;
+                low = l;
+            } else {
+                high = high.max(h);
+                low = low.min(l);
+            }
+            close = c;
+            count++;
+        }
+
+        private static ScaledDecimal orZero(ScaledDecimal value) {
+            return value == null ? ScaledDecimal.ZERO : value;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.cryptoanalysis.websocket.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+
+import com.cryptoanalysis.candle.config.IngestionConfig;
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.candle.service.CandleService;
+import com.cryptoanalysis.websocket.bus.MarketDataBus;
+import com.cryptoanalysis.websocket.bus.MarketDataConsumer;
+import com.cryptoanalysis.websocket.bus.MarketDataEvent;
+import com.cryptoanalysis.websocket.config.FrameJournalConfig;
+import com.cryptoanalysis.websocket.config.KlineRollupConfig;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.KlineRollupStatsDto;
+import com.cryptoanalysis.websocket.enums.JournalMode;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+import com.cryptoanalysis.websocket.integration.BinanceWebSocketClient;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves the configured ingestion intervals above 1m by rolling them up from
+ * the symbol's 1m kline stream, so a symbol needs one upstream kline stream
+ * however many intervals are watched. Rolled candles, including in-progress
+ * updates, are published to the {@link MarketDataBus} as ordinary KLINE events
+ * on {@code <symbol>@kline_<interval>}. The service also owns the 1m stream
+ * itself, so relay subscribers to 1m share it with the rollups.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class KlineRollupService implements MarketDataConsumer {
+
+    private static final String MINUTE_INTERVAL = "1m";
+
+    /**
+     * Exchange intervals a seed is assembled from, largest first, so at most
+     * three REST calls cover even a monthly bucket.
+     */
+    private static final List<String> SEED_INTERVALS = List.of("1d", "1h", MINUTE_INTERVAL);
+
+    private static final int MAX_KLINES_PER_REQUEST = 1000;
+
+    private final KlineRollupConfig config;
+    private final IngestionConfig ingestionConfig;
+    private final FrameJournalConfig journalConfig;
+    private final BinanceWebSocketClient binanceWebSocketClient;
+    private final MarketDataBus marketDataBus;
+    private final CandleService candleService;
+    private final CandleMapper candleMapper;
+    /**
+     * Intervals using each symbol's 1m stream, "1m" itself included.
+     */
+    private final Map<String, Set<String>> minuteStreamUsers = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, KlineRollupAggregator>> rollups = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService seeder = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    public void init() {
+        marketDataBus.addConsumer(this);
+    }
+
+    @Override
+    public String getConsumerName() {
+        return "kline-rollup";
+    }
+
+    /**
+     * Whether {@code interval} is built from the 1m stream rather than subscribed upstream.
+     */
+    public boolean isRolledUp(String interval) {
+        return config.isEnabled()
+                && candleMapper.isExchangeInterval(interval)
+                && candleMapper.getIntervalMillis(interval) > KlineRollupAggregator.MINUTE
+                && ingestionConfig.getIntervals().contains(interval);
+    }
+
+    /**
+     * Whether {@code interval} is served through this service: 1m, or an interval rolled up from it.
+     */
+    public boolean usesMinuteStream(String interval) {
+        return config.isEnabled() && (MINUTE_INTERVAL.equals(interval) || isRolledUp(interval));
+    }
+
+    public synchronized void subscribe(String symbol, String interval) {
+        Set<String> users = minuteStreamUsers.computeIfAbsent(symbol, s -> ConcurrentHashMap.newKeySet());
+        if (!users.add(interval)) {
+            return;
+        }
+
+        if (!MINUTE_INTERVAL.equals(interval)) {
+            rollups.computeIfAbsent(symbol, s -> new ConcurrentHashMap<>())
+                    .put(interval, new KlineRollupAggregator(symbol, interval,
+                            candleMapper.getIntervalMillis(interval), kline -> publish(symbol, interval, kline)));
+            log.info("Rolling up {} {} candles from the 1m stream", symbol, interval);
+        }
+
+        if (users.size() == 1) {
+            binanceWebSocketClient.subscribeKline(symbol, MINUTE_INTERVAL);
+        }
+    }
+
+    public synchronized void unsubscribe(String symbol, String interval) {
+        Set<String> users = minuteStreamUsers.get(symbol);
+        if (users == null || !users.remove(interval)) {
+            return;
+        }
+
+        Map<String, KlineRollupAggregator> bySymbol = rollups.get(symbol);
+        KlineRollupAggregator aggregator = bySymbol == null ? null : bySymbol.remove(interval);
+        if (aggregator != null) {
+            aggregator.stop();
+            log.info("Stopped rolling up {} {} candles", symbol, interval);
+        }
+        if (bySymbol != null && bySymbol.isEmpty()) {
+            rollups.remove(symbol);
+        }
+
+        if (users.isEmpty()) {
+            minuteStreamUsers.remove(symbol);
+            binanceWebSocketClient.unsubscribe(symbol.toLowerCase() + "@kline_" + MINUTE_INTERVAL);
+        }
+    }
+
+    @Override
+    public void onEvent(MarketDataEvent event, long sequence) {
+        if (event.getType() != MarketDataEventType.KLINE
+                || !MINUTE_INTERVAL.equals(event.getKline().getInterval())) {
+            return;
+        }
+
+        KlineDto minute = event.getKline();
+        Map<String, KlineRollupAggregator> bySymbol = rollups.get(minute.getSymbol());
+        if (bySymbol == null) {
+            return;
+        }
+
+        for (KlineRollupAggregator aggregator : bySymbol.values()) {
+            if (aggregator.onMinute(minute)) {
+                seeder.execute(() -> seed(aggregator));
+            }
+        }
+    }
+
+    public List<KlineRollupStatsDto> getStats() {
+        List<KlineRollupStatsDto> stats = new ArrayList<>();
+
+        rollups.forEach((symbol, bySymbol) -> bySymbol.forEach((interval, aggregator) -> {
+            KlineRollupAggregator.RollupStats s = aggregator.stats();
+            stats.add(KlineRollupStatsDto.builder()
+                    .symbol(symbol)
+                    .interval(interval)
+                    .seeding(s.seeding())
+                    .updatesApplied(s.updatesApplied())
+                    .duplicates(s.duplicates())
+                    .lateUpdates(s.lateUpdates())
+                    .seeds(s.seeds())
+                    .candlesClosed(s.candlesClosed())
+                    .build());
+        }));
+
+        return stats;
+    }
+
+    /**
+     * Fetch the current bucket's closed history up to the aggregator's first
+     * held minute, plus the exchange's klines for buckets a gap left unclosed,
+     * and hand them over. Retried after a delay while REST is behind or failing.
+     * A replayed journal never reaches REST: the rollup starts from the first
+     * replayed minute, so its first bucket holds only what the journal has.
+     */
+    private void seed(KlineRollupAggregator aggregator) {
+        try {
+            Long cutoff = aggregator.seedCutoff();
+            if (cutoff == null) {
+                return;
+            }
+
+            String symbol = aggregator.getSymbol();
+            String interval = aggregator.getInterval();
+            long bucketOpen = aggregator.alignedOpenTime(cutoff);
+
+            if (journalConfig.getMode() == JournalMode.REPLAY) {
+                if (aggregator.applySeed(cutoff, List.of(), List.of())) {
+                    seeder.execute(() -> seed(aggregator));
+                }
+                return;
+            }
+
+            List<KlineDto> history = fetchHistory(symbol, bucketOpen, cutoff);
+            if (history == null) {
+                log.warn("Incomplete history for {} {} rollup; retrying seed", symbol, interval);
+                seeder.schedule(() -> seed(aggregator), config.getSeedRetryDelay(), TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            Long unclosed = aggregator.unclosedBucketOpen();
+            List<KlineDto> missedCloses = unclosed == null ? List.of()
+                    : candleService.fetchExchangeKlines(symbol, interval, unclosed, bucketOpen - 1,
+                            MAX_KLINES_PER_REQUEST);
+
+            if (aggregator.applySeed(cutoff, history, missedCloses)) {
+                seeder.execute(() -> seed(aggregator));
+            } else {
+                log.debug("Seeded {} {} rollup with {} klines up to {}", symbol, interval, history.size(), cutoff);
+            }
+        } catch (Exception e) {
+            log.error("Failed to seed {} {} rollup", aggregator.getSymbol(), aggregator.getInterval(), e);
+            seeder.schedule(() -> seed(aggregator), config.getSeedRetryDelay(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Closed klines tiling [bucketOpen, cutoff): whole days, then whole hours,
+     * then minutes. Returns {@code null} if a step came back short of
+     * {@code cutoff}, as when REST has not caught up with the last closed minute.
+     */
+    private List<KlineDto> fetchHistory(String symbol, long bucketOpen, long cutoff) {
+        List<KlineDto> history = new ArrayList<>();
+        long cursor = bucketOpen;
+
+        for (String step : SEED_INTERVALS) {
+            long stepMillis = candleMapper.getIntervalMillis(step);
+            long stepEnd = Math.floorDiv(cutoff, stepMillis) * stepMillis;
+            if (stepEnd <= cursor) {
+                continue;
+            }
+
+            List<KlineDto> klines = candleService.fetchExchangeKlines(symbol, step, cursor, stepEnd - 1,
+                    MAX_KLINES_PER_REQUEST);
+            if (klines.isEmpty() || klines.get(klines.size() - 1).getCloseTime() != stepEnd - 1) {
+                return null;
+            }
+
+            history.addAll(klines);
+            cursor = stepEnd;
+        }
+
+        return history;
+    }
+
+    private void publish(String symbol, String interval, KlineDto kline) {
+        marketDataBus.publish(MarketDataEventType.KLINE, symbol.toLowerCase() + "@kline_" + interval, kline);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        seeder.shutdownNow();
+    }
+}
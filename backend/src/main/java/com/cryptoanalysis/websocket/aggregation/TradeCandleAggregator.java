@@ -0,0 +1,226 @@
+package com.cryptoanalysis.websocket.aggregation;
+
+import java.math.RoundingMode;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+
+/**
+ * Builds candles of one interval for one symbol from its aggTrade stream.
+ * Candles are aligned to the epoch like Binance's, so a trade exactly on a
+ * boundary opens the next candle. A candle closes when a trade for a later
+ * interval arrives or, on a quiet market, once the exchange clock is
+ * {@code allowedLateness} past its end; intervals without trades close as flat
+ * candles at the previous close. A trade that arrives after its candle closed
+ * amends and re-emits that candle if it is the most recent closed one and is
+ * otherwise dropped and counted. Replayed trades (aggregate id not above the
+ * last one seen) are ignored.
+ */
+class TradeCandleAggregator {
+
+    /**
+     * Most empty candles emitted in one roll-forward, so a stream that was
+     * silent for days does not flood the bus.
+     */
+    private static final int MAX_EMPTY_CANDLES = 1000;
+
+    /**
+     * Quote volume is accumulated at Binance's quote asset precision.
+     */
+    private static final int QUOTE_SCALE = 8;
+
+    interface Sink {
+        void emit(KlineDto kline);
+    }
+
+    private final String symbol;
+    private final String interval;
+    private final long intervalMillis;
+    private final int quantityScale;
+    /**
+     * Exchange time when aggregation started; a candle opened before it misses earlier trades.
+     */
+    private final long startTime;
+    private final Sink sink;
+
+    private Bucket current;
+    private Bucket previous;
+    private ScaledDecimal lastClose;
+    private long lastAggTradeId = -1;
+    private long tradesApplied;
+    private long duplicates;
+    private long lateTrades;
+    private long amendments;
+    private long candlesClosed;
+
+    TradeCandleAggregator(String symbol, String interval, long intervalMillis, int quantityScale,
+            long startTime, Sink sink) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.intervalMillis = intervalMillis;
+        this.quantityScale = quantityScale;
+        this.startTime = startTime;
+        this.sink = sink;
+    }
+
+    String getInterval() {
+        return interval;
+    }
+
+    synchronized void onTrade(TradeDto trade) {
+        if (trade.getAggTradeId() <= lastAggTradeId) {
+            duplicates++;
+            return;
+        }
+        lastAggTradeId = trade.getAggTradeId();
+
+        long openTime = alignedOpenTime(trade.getTradeTime());
+
+        if (current == null) {
+            current = new Bucket(openTime);
+        } else if (openTime > current.openTime) {
+            rollTo(openTime);
+        } else if (openTime < current.openTime) {
+            if (previous != null && openTime == previous.openTime) {
+                previous.add(trade);
+                lastClose = previous.close;
+                amendments++;
+                sink.emit(toKline(previous, true));
+            } else {
+                lateTrades++;
+            }
+            return;
+        }
+
+        current.add(trade);
+        tradesApplied++;
+        sink.emit(toKline(current, false));
+    }
+
+    /**
+     * Close the current candle if the exchange clock has moved past it by more
+     * than the allowed lateness, and open the one that is now in progress.
+     */
+    synchronized void onTime(long exchangeNow, long allowedLateness) {
+        if (current == null) {
+            return;
+        }
+
+        long openTime = alignedOpenTime(exchangeNow - allowedLateness);
+        if (openTime > current.openTime) {
+            rollTo(openTime);
+            if (lastClose != null) {
+                sink.emit(toKline(current, false));
+            }
+        }
+    }
+
+    synchronized TradeCandleStats stats() {
+        return new TradeCandleStats(tradesApplied, duplicates, lateTrades, amendments, candlesClosed);
+    }
+
+    record TradeCandleStats(long tradesApplied, long duplicates, long lateTrades, long amendments,
+            long candlesClosed) {
+    }
+
+    private void rollTo(long openTime) {
+        close(current);
+
+        long next = current.openTime + intervalMillis;
+        if ((openTime - next) / intervalMillis > MAX_EMPTY_CANDLES) {
+            next = openTime - MAX_EMPTY_CANDLES * intervalMillis;
+        }
+
+        for (; next < openTime; next += intervalMillis) {
+            close(new Bucket(next));
+        }
+
+        current = new Bucket(openTime);
+    }
+
+    private void close(Bucket bucket) {
+        previous = bucket;
+
+        if (bucket.trades > 0) {
+            lastClose = bucket.close;
+        } else if (lastClose == null) {
+            // No price known yet, so there is nothing to draw
+            return;
+        }
+
+        candlesClosed++;
+        sink.emit(toKline(bucket, true));
+    }
+
+    private KlineDto toKline(Bucket bucket, boolean closed) {
+        boolean empty = bucket.trades == 0;
+
+        return KlineDto.builder()
+                .symbol(symbol)
+                .interval(interval)
+                .openTime(bucket.openTime)
+                .closeTime(bucket.openTime + intervalMillis - 1)
+                .open(empty ? lastClose : bucket.open)
+                .high(empty ? lastClose : bucket.high)
+                .low(empty ? lastClose : bucket.low)
+                .close(empty ? lastClose : bucket.close)
+                .volume(bucket.volume)
+                .quoteVolume(bucket.quoteVolume)
+                .takerBuyVolume(bucket.takerBuyVolume)
+                .takerBuyQuoteVolume(bucket.takerBuyQuoteVolume)
+                .tradesCount((int) bucket.trades)
+                .isClosed(closed)
+                .partial(bucket.openTime < startTime)
+                .build();
+    }
+
+    private long alignedOpenTime(long time) {
+        return Math.floorDiv(time, intervalMillis) * intervalMillis;
+    }
+
+    private final class Bucket {
+        private final long openTime;
+        private ScaledDecimal open;
+        private ScaledDecimal high;
+        private ScaledDecimal low;
+        private ScaledDecimal close;
+        private ScaledDecimal volume = ScaledDecimal.of(0, quantityScale);
+        private ScaledDecimal quoteVolume = ScaledDecimal.of(0, QUOTE_SCALE);
+        private ScaledDecimal takerBuyVolume = ScaledDecimal.of(0, quantityScale);
+        private ScaledDecimal takerBuyQuoteVolume = ScaledDecimal.of(0, QUOTE_SCALE);
+        private long trades;
+
+        private Bucket(long openTime) {
+            this.openTime = openTime;
+        }
+
+        private void add(TradeDto trade) {
+            ScaledDecimal price = trade.getPrice();
+            ScaledDecimal quantity = trade.getQuantity();
+
+            if (trades == 0) {
+                open = price;
+                high = price;
+                low = price;
+            } else {
+                high = high.max(price);
+                low = low.min(price);
+            }
+            close = price;
+
+            // price * quantity can exceed a long mantissa at 8 + 8 decimals, so multiply as BigDecimal
+            ScaledDecimal quote = ScaledDecimal.valueOf(price.toBigDecimal().multiply(quantity.toBigDecimal())
+                    .setScale(QUOTE_SCALE, RoundingMode.HALF_UP));
+
+            volume = volume.add(quantity);
+            quoteVolume = quoteVolume.add(quote);
+            trades += trade.getLastTradeId() - trade.getFirstTradeId() + 1;
+
+            if (!Boolean.TRUE.equals(trade.getBuyerMaker())) {
+                takerBuyVolume = takerBuyVolume.add(quantity);
+                takerBuyQuoteVolume = takerBuyQuoteVolume.add(quote);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.cryptoanalysis.websocket.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Service;
+
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.websocket.bus.MarketDataBus;
+import com.cryptoanalysis.websocket.bus.MarketDataConsumer;
+import com.cryptoanalysis.websocket.bus.MarketDataEvent;
+import com.cryptoanalysis.websocket.config.TradeCandleConfig;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.TradeCandleStatsDto;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+import com.cryptoanalysis.websocket.integration.BinanceWebSocketClient;
+import com.cryptoanalysis.websocket.service.SymbolPrecisionService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serves kline intervals Binance does not publish (e.g. 5s, 15s, 10m) by
+ * building them from the symbol's {@code @aggTrade} stream. The candles are
+ * published to the {@link MarketDataBus} as ordinary KLINE events on
+ * {@code <symbol>@kline_<interval>}, so the relay and persistence treat them
+ * exactly like exchange klines. One aggTrade stream per symbol feeds every
+ * custom interval of that symbol. Only the configured intervals are built, so
+ * clients cannot make the relay aggregate and store arbitrary ones.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TradeCandleService implements MarketDataConsumer {
+
+    private final TradeCandleConfig config;
+    private final BinanceWebSocketClient binanceWebSocketClient;
+    private final MarketDataBus marketDataBus;
+    private final SymbolPrecisionService precisionService;
+    private final CandleMapper candleMapper;
+    private final Map<String, Map<String, TradeCandleAggregator>> aggregators = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    /**
+     * Exchange event time minus local time, smoothed; includes delivery latency,
+     * so local time plus this offset tracks the newest event the stream can have sent.
+     */
+    private volatile long clockOffset;
+    private volatile boolean clockSynced;
+
+    @PostConstruct
+    public void init() {
+        for (String interval : config.getIntervals()) {
+            if (candleMapper.isExchangeInterval(interval)) {
+                throw new IllegalStateException("Trade-built interval " + interval + " is published by Binance");
+            }
+            // Rejects intervals outside the supported range
+            candleMapper.getIntervalMillis(interval);
+        }
+
+        marketDataBus.addConsumer(this);
+        scheduler.scheduleWithFixedDelay(this::closeDueCandles,
+                config.getTickInterval(), config.getTickInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String getConsumerName() {
+        return "trade-candles";
+    }
+
+    /**
+     * Whether {@code interval} is one of the configured intervals Binance does
+     * not publish, and so has to be built from trades.
+     */
+    public boolean isTradeBuilt(String interval) {
+        return config.getIntervals().contains(interval);
+    }
+
+    public synchronized void subscribe(String symbol, String interval) {
+        Map<String, TradeCandleAggregator> bySymbol = aggregators.computeIfAbsent(symbol,
+                s -> new ConcurrentHashMap<>());
+
+        if (bySymbol.containsKey(interval)) {
+            return;
+        }
+
+        bySymbol.put(interval, new TradeCandleAggregator(symbol, interval, candleMapper.getIntervalMillis(interval),
+                precisionService.getQuantityScale(symbol), exchangeNow(),
+                kline -> publish(symbol, interval, kline)));
+
+        log.info("Building {} {} candles from trades", symbol, interval);
+
+        if (bySymbol.size() == 1) {
+            binanceWebSocketClient.subscribeAggTrade(symbol);
+        }
+    }
+
+    public synchronized void unsubscribe(String symbol, String interval) {
+        Map<String, TradeCandleAggregator> bySymbol = aggregators.get(symbol);
+        if (bySymbol == null || bySymbol.remove(interval) == null) {
+            return;
+        }
+
+        log.info("Stopped building {} {} candles", symbol, interval);
+
+        if (bySymbol.isEmpty()) {
+            aggregators.remove(symbol);
+            binanceWebSocketClient.unsubscribe(symbol.toLowerCase() + "@aggTrade");
+        }
+    }
+
+    @Override
+    public void onEvent(MarketDataEvent event, long sequence) {
+        if (event.getType() != MarketDataEventType.TRADE) {
+            return;
+        }
+
+        TradeDto trade = event.getTrade();
+        updateClockOffset(trade.getEventTime());
+
+        Map<String, TradeCandleAggregator> bySymbol = aggregators.get(trade.getSymbol());
+        if (bySymbol != null) {
+            bySymbol.values().forEach(aggregator -> aggregator.onTrade(trade));
+        }
+    }
+
+    public List<TradeCandleStatsDto> getStats() {
+        List<TradeCandleStatsDto> stats = new ArrayList<>();
+
+        aggregators.forEach((symbol, bySymbol) -> bySymbol.forEach((interval, aggregator) -> {
+            TradeCandleAggregator.TradeCandleStats s = aggregator.stats();
+            stats.add(TradeCandleStatsDto.builder()
+                    .symbol(symbol)
+                    .interval(interval)
+                    .tradesApplied(s.tradesApplied())
+                    .duplicates(s.duplicates())
+                    .lateTrades(s.lateTrades())
+                    .amendments(s.amendments())
+                    .candlesClosed(s.candlesClosed())
+                    .build());
+        }));
+
+        return stats;
+    }
+
+    private void closeDueCandles() {
+        if (!clockSynced) {
+            return;
+        }
+
+        try {
+            long now = exchangeNow();
+            aggregators.values().forEach(bySymbol -> bySymbol.values()
+                    .forEach(aggregator -> aggregator.onTime(now, config.getAllowedLateness())));
+        } catch (Exception e) {
+            log.error("Failed to close due trade candles", e);
+        }
+    }
+
+    private void updateClockOffset(long eventTime) {
+        long sample = eventTime - System.currentTimeMillis();
+
+        if (!clockSynced) {
+            clockOffset = sample;
+            clockSynced = true;
+        } else {
+            clockOffset += (sample - clockOffset) / 8;
+        }
+    }
+
+    private long exchangeNow() {
+        return System.currentTimeMillis() + clockOffset;
+    }
+
+    private void publish(String symbol, String interval, KlineDto kline) {
+        marketDataBus.publish(MarketDataEventType.KLINE, symbol.toLowerCase() + "@kline_" + interval, kline);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,148 @@
+package com.cryptoanalysis.websocket.bus;
+
+import java.util.List;
+
+import com.cryptoanalysis.websocket.dto.DispatchLaneDto;
+import com.cryptoanalysis.websocket.dto.MarketDataBusDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs one {@link MarketDataConsumer} on its own thread, following the ring
+ * buffer with a private sequence. Counters are written only by that thread and
+ * read by the metrics endpoint. Given a {@link StreamDispatcher}, the thread
+ * only hands each event to its stream's lane, and the consumer runs there.
+ */
+@Slf4j
+class ConsumerProcessor implements Runnable {
+
+    private final MarketDataConsumer consumer;
+    private final MarketDataRingBuffer ringBuffer;
+    private final WaitStrategy waitStrategy;
+    private final String waitStrategyName;
+    private final StreamDispatcher dispatcher;
+    private final MarketDataEvent event = new MarketDataEvent();
+    private volatile boolean running = true;
+    private volatile long sequence;
+    private volatile long processed;
+    private volatile long lost;
+    private volatile long failed;
+    private volatile long lastLatencyNanos;
+    private volatile long maxLatencyNanos;
+    private Thread thread;
+
+    ConsumerProcessor(MarketDataConsumer consumer, MarketDataRingBuffer ringBuffer, String waitStrategyName) {
+        this(consumer, ringBuffer, waitStrategyName, null);
+    }
+
+    ConsumerProcessor(MarketDataConsumer consumer, MarketDataRingBuffer ringBuffer, String waitStrategyName,
+            StreamDispatcher dispatcher) {
+        this.consumer = consumer;
+        this.ringBuffer = ringBuffer;
+        this.waitStrategy = WaitStrategy.of(waitStrategyName);
+        this.waitStrategyName = waitStrategyName.toUpperCase();
+        this.dispatcher = dispatcher;
+        // Consumers start with the next event rather than replaying the buffer
+        this.sequence = ringBuffer.getCursor();
+        ringBuffer.addWaitStrategy(waitStrategy);
+    }
+
+    void start() {
+        thread = Thread.ofPlatform()
+                .name("market-data-" + consumer.getConsumerName())
+                .daemon(true)
+                .start(this);
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Override
+    public void run() {
+        int idleCount = 0;
+
+        while (running) {
+            long next = sequence + 1;
+
+            switch (ringBuffer.read(next, event)) {
+                case READ -> {
+                    idleCount = 0;
+                    deliver(next);
+                    sequence = next;
+                }
+                case OVERWRITTEN -> skipLappedEvents(next);
+                case NOT_PUBLISHED -> {
+                    try {
+                        waitStrategy.idle(idleCount++);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void deliver(long next) {
+        long latency = System.nanoTime() - event.getReceivedAt();
+        lastLatencyNanos = latency;
+        if (latency > maxLatencyNanos) {
+            maxLatencyNanos = latency;
+        }
+
+        try {
+            if (dispatcher != null) {
+                dispatcher.dispatch(event, next);
+            } else {
+                consumer.onEvent(event, next);
+            }
+            processed++;
+        } catch (Exception e) {
+            failed++;
+            log.error("Market data consumer {} failed on {} event for {}",
+                    consumer.getConsumerName(), event.getType(), event.getStream(), e);
+        }
+    }
+
+    /**
+     * Jump to the oldest event that is still in the buffer.
+     */
+    private void skipLappedEvents(long next) {
+        long oldest = ringBuffer.getCursor() - ringBuffer.getCapacity() + 1;
+        long skipped = Math.max(oldest - next, 1);
+
+        lost += skipped;
+        sequence = next + skipped - 1;
+
+        log.warn("Market data consumer {} fell a full buffer behind; skipped {} events",
+                consumer.getConsumerName(), skipped);
+    }
+
+    List<DispatchLaneDto> getLaneStats() {
+        return dispatcher == null ? List.of() : dispatcher.getLaneStats();
+    }
+
+    MarketDataBusDto.ConsumerStats toStats() {
+        long backlog = Math.max(ringBuffer.getCursor() - sequence, 0);
+
+        return MarketDataBusDto.ConsumerStats.builder()
+                .name(consumer.getConsumerName())
+                .waitStrategy(waitStrategyName)
+                .sequence(sequence)
+                .backlog(backlog)
+                .occupancy((double) backlog / ringBuffer.getCapacity())
+                .processed(processed)
+                .lost(lost)
+                .failed(failed)
+                .lastLatencyMs(lastLatencyNanos / 1_000_000.0)
+                .maxLatencyMs(maxLatencyNanos / 1_000_000.0)
+                .build();
+    }
+}
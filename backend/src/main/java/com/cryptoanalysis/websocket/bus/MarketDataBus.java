@@ -0,0 +1,90 @@
+package com.cryptoanalysis.websocket.bus;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.websocket.config.MarketDataBusConfig;
+import com.cryptoanalysis.websocket.dto.DispatchLaneDto;
+import com.cryptoanalysis.websocket.dto.MarketDataBusDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single hand-off point between market-data ingest and everything that reacts
+ * to it (relay, persistence, indicators, alerting). The ingest side publishes
+ * each decoded event once; every registered consumer sees every event, in
+ * publish order, on its own thread. Consumers configured as lane consumers
+ * are instead handed each stream's events on an ordered lane of their own, so
+ * their streams run in parallel.
+ */
+@Component
+@Slf4j
+public class MarketDataBus {
+
+    private final MarketDataBusConfig config;
+    private final MarketDataRingBuffer ringBuffer;
+    private final List<ConsumerProcessor> processors = new CopyOnWriteArrayList<>();
+
+    public MarketDataBus(MarketDataBusConfig config) {
+        this.config = config;
+        this.ringBuffer = new MarketDataRingBuffer(config.getBufferSize());
+    }
+
+    /**
+     * Register a consumer; it receives events published from now on.
+     */
+    public void addConsumer(MarketDataConsumer consumer) {
+        String waitStrategy = config.getConsumerWaitStrategies()
+                .getOrDefault(consumer.getConsumerName(), config.getWaitStrategy());
+
+        StreamDispatcher dispatcher = config.getLaneConsumers().contains(consumer.getConsumerName())
+                ? new StreamDispatcher(consumer, Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                        .name("market-data-" + consumer.getConsumerName() + "-lane-", 0).factory()),
+                        config.getDispatchQueueWarnDepth())
+                : null;
+        ConsumerProcessor processor = new ConsumerProcessor(consumer, ringBuffer, waitStrategy, dispatcher);
+        processors.add(processor);
+        processor.start();
+
+        log.info("Registered market data consumer {} ({} wait strategy{})", consumer.getConsumerName(), waitStrategy,
+                dispatcher != null ? ", per-stream lanes" : "");
+    }
+
+    public long publish(MarketDataEventType type, String stream, Object payload) {
+        return ringBuffer.publish(type, stream, System.nanoTime(), payload);
+    }
+
+    public MarketDataBusDto getStats() {
+        List<MarketDataBusDto.ConsumerStats> consumers = processors.stream()
+                .map(ConsumerProcessor::toStats)
+                .toList();
+
+        return MarketDataBusDto.builder()
+                .capacity(ringBuffer.getCapacity())
+                .cursor(ringBuffer.getCursor())
+                .occupancy(consumers.stream().mapToDouble(MarketDataBusDto.ConsumerStats::getOccupancy).max()
+                        .orElse(0.0))
+                .consumers(consumers)
+                .build();
+    }
+
+    /**
+     * Depth and lag of every lane of the lane consumers.
+     */
+    public List<DispatchLaneDto> getLaneStats() {
+        return processors.stream()
+                .flatMap(processor -> processor.getLaneStats().stream())
+                .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        processors.forEach(ConsumerProcessor::stop);
+        processors.clear();
+    }
+}
@@ -0,0 +1,15 @@
+package com.cryptoanalysis.websocket.bus;
+
+/**
+ * A consumer of the market-data ring buffer. Each consumer runs on its own
+ * thread with its own sequence, so a slow consumer only delays itself.
+ */
+public interface MarketDataConsumer {
+
+    /**
+     * Stable name used for metrics and the consumer thread.
+     */
+    String getConsumerName();
+
+    void onEvent(MarketDataEvent event, long sequence);
+}
@@ -0,0 +1,65 @@
+package com.cryptoanalysis.websocket.bus;
+
+import java.util.List;
+
+import com.cryptoanalysis.websocket.dto.DepthUpdateDto;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.TickerDto;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+
+import lombok.Getter;
+
+/**
+ * Preallocated, reused slot of the market-data ring buffer. Consumers receive
+ * their own copy of a slot and must not keep a reference to it past
+ * {@link MarketDataConsumer#onEvent}; the payload objects themselves are
+ * immutable once published and may be retained.
+ */
+@Getter
+public class MarketDataEvent {
+
+    /**
+     * Sequence this slot holds, {@code -(sequence + 2)} while it is being written, or -1 before first use.
+     */
+    volatile long sequence = -1;
+
+    private MarketDataEventType type;
+    private String stream;
+    /**
+     * {@link System#nanoTime()} at publish, for latency measurement only.
+     */
+    private long receivedAt;
+    private KlineDto kline;
+    private TickerDto ticker;
+    private List<TickerDto> tickers;
+    private DepthUpdateDto depth;
+    private TradeDto trade;
+
+    void set(MarketDataEventType type, String stream, long receivedAt, Object payload) {
+        this.type = type;
+        this.stream = stream;
+        this.receivedAt = receivedAt;
+        this.kline = type == MarketDataEventType.KLINE ? (KlineDto) payload : null;
+        this.ticker = type == MarketDataEventType.TICKER ? (TickerDto) payload : null;
+        this.tickers = type == MarketDataEventType.MINI_TICKER ? castTickers(payload) : null;
+        this.depth = type == MarketDataEventType.DEPTH ? (DepthUpdateDto) payload : null;
+        this.trade = type == MarketDataEventType.TRADE ? (TradeDto) payload : null;
+    }
+
+    void copyFrom(MarketDataEvent other) {
+        this.type = other.type;
+        this.stream = other.stream;
+        this.receivedAt = other.receivedAt;
+        this.kline = other.kline;
+        this.ticker = other.ticker;
+        this.tickers = other.tickers;
+        this.depth = other.depth;
+        this.trade = other.trade;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<TickerDto> castTickers(Object payload) {
+        return (List<TickerDto>) payload;
+    }
+}
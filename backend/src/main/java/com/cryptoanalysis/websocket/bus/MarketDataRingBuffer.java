@@ -0,0 +1,157 @@
+package com.cryptoanalysis.websocket.bus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+
+/**
+ * Fixed-size ring of preallocated {@link MarketDataEvent} slots in the style of
+ * the LMAX Disruptor. Publishing never waits for a consumer: the upstream
+ * socket threads must not stall behind a slow consumer, so a consumer that
+ * falls a full lap behind skips forward and counts the overwritten events as
+ * lost instead of applying back-pressure.
+ *
+ * Each slot is a small seqlock. The writer marks the slot as in progress
+ * ({@code -(sequence + 2)}), writes the fields and then publishes the sequence;
+ * a reader copies the fields and re-checks the sequence, so it never observes a
+ * half-written or recycled slot. A slot's sequence only moves forward, even
+ * when one publisher laps another that is still writing the same slot, so a
+ * sequence that reads as not yet published is always still to come.
+ */
+public class MarketDataRingBuffer {
+
+    private static final VarHandle SEQUENCE;
+
+    static {
+        try {
+            SEQUENCE = MethodHandles.lookup().findVarHandle(MarketDataEvent.class, "sequence", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MarketDataEvent[] slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile WaitStrategy[] waitStrategies = new WaitStrategy[0];
+
+    public MarketDataRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+
+        this.slots = new MarketDataEvent[capacity];
+        this.mask = capacity - 1;
+
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new MarketDataEvent();
+        }
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Highest sequence claimed by a publisher, or -1 before the first publish.
+     */
+    public long getCursor() {
+        return nextSequence.get() - 1;
+    }
+
+    /**
+     * Claim the next slot and publish an event into it. Safe to call from
+     * several socket threads at once; events are ordered by claim.
+     */
+    public long publish(MarketDataEventType type, String stream, long receivedAt, Object payload) {
+        long sequence = nextSequence.getAndIncrement();
+        write(sequence, type, stream, receivedAt, payload);
+
+        for (WaitStrategy waitStrategy : waitStrategies) {
+            waitStrategy.signalAll();
+        }
+
+        return sequence;
+    }
+
+    /**
+     * Write the event of a claimed sequence into its slot. An event whose slot
+     * a publisher a full lap ahead has already taken is dropped, as every
+     * consumer would skip it anyway.
+     */
+    void write(long sequence, MarketDataEventType type, String stream, long receivedAt, Object payload) {
+        MarketDataEvent slot = slots[(int) (sequence & mask)];
+
+        if (claim(slot, sequence)) {
+            slot.set(type, stream, receivedAt, payload);
+            slot.sequence = sequence;
+        }
+    }
+
+    /**
+     * Mark {@code slot} as being written for {@code sequence}. A publisher
+     * waits for one a lap behind that is still writing the slot, and gives up
+     * if one a lap ahead has claimed it first. Without this the slower of the
+     * two could set the slot back to the older sequence, and consumers waiting
+     * for the newer one would see it as not yet published for good.
+     *
+     * @return false if the slot already belongs to a later sequence
+     */
+    private static boolean claim(MarketDataEvent slot, long sequence) {
+        for (int spins = 0; ; spins++) {
+            long current = slot.sequence;
+            boolean writing = current < -1;
+            long owner = writing ? -current - 2 : current;
+
+            if (owner > sequence) {
+                return false;
+            }
+            if (!writing && SEQUENCE.compareAndSet(slot, current, -(sequence + 2))) {
+                return true;
+            }
+            if (spins < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Copy the event at {@code sequence} into {@code target}.
+     *
+     * @return {@link ReadResult#READ} on success, {@link ReadResult#NOT_PUBLISHED}
+     *         if the publisher has not finished it yet, {@link ReadResult#OVERWRITTEN}
+     *         if the slot has already been reused for a later lap
+     */
+    ReadResult read(long sequence, MarketDataEvent target) {
+        MarketDataEvent slot = slots[(int) (sequence & mask)];
+        long before = slot.sequence;
+
+        if (before != sequence) {
+            long owner = before < -1 ? -before - 2 : before;
+            return owner > sequence ? ReadResult.OVERWRITTEN : ReadResult.NOT_PUBLISHED;
+        }
+
+        target.copyFrom(slot);
+        VarHandle.acquireFence();
+
+        return slot.sequence == sequence ? ReadResult.READ : ReadResult.OVERWRITTEN;
+    }
+
+    synchronized void addWaitStrategy(WaitStrategy waitStrategy) {
+        WaitStrategy[] current = waitStrategies;
+        WaitStrategy[] updated = new WaitStrategy[current.length + 1];
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = waitStrategy;
+        waitStrategies = updated;
+    }
+
+    enum ReadResult {
+        READ,
+        NOT_PUBLISHED,
+        OVERWRITTEN
+    }
+}
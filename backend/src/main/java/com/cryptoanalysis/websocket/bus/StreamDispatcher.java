@@ -0,0 +1,166 @@
+package com.cryptoanalysis.websocket.bus;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cryptoanalysis.websocket.dto.DispatchLaneDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hands the events a {@link ConsumerProcessor} reads to one ordered lane per
+ * stream of its consumer. A lane is a queue drained by at most one task at a
+ * time, so events of a stream reach the consumer in publish order while
+ * different streams run in parallel on the executor, and a slow broadcast on
+ * one stream no longer holds up the others. Idle lanes hold no thread.
+ * <p>
+ * Only the processor's thread dispatches, which is what lets it drop lanes
+ * that have been idle for a while without racing a new event into them.
+ */
+@Slf4j
+class StreamDispatcher {
+
+    /**
+     * Events a lane processes before yielding its thread to other lanes.
+     */
+    private static final int DRAIN_BATCH = 64;
+    private static final long IDLE_LANE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final MarketDataConsumer consumer;
+    private final ExecutorService executor;
+    private final int warnDepth;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private long prunedAt = System.nanoTime();
+
+    StreamDispatcher(MarketDataConsumer consumer, ExecutorService executor, int warnDepth) {
+        this.consumer = consumer;
+        this.executor = executor;
+        this.warnDepth = warnDepth;
+    }
+
+    /**
+     * Queue a copy of {@code event}, a reused ring slot, on its stream's lane.
+     */
+    void dispatch(MarketDataEvent event, long sequence) {
+        MarketDataEvent copy = new MarketDataEvent();
+        copy.copyFrom(event);
+        lanes.computeIfAbsent(event.getStream(), Lane::new).enqueue(copy, sequence);
+
+        long now = System.nanoTime();
+        if (now - prunedAt >= IDLE_LANE_NANOS) {
+            prunedAt = now;
+            lanes.values().removeIf(lane -> lane.isIdleSince(now - IDLE_LANE_NANOS));
+        }
+    }
+
+    List<DispatchLaneDto> getLaneStats() {
+        return lanes.values().stream()
+                .map(Lane::toDto)
+                .sorted(Comparator.comparing(DispatchLaneDto::getStream))
+                .toList();
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    private record Pending(MarketDataEvent event, long sequence) {
+    }
+
+    private final class Lane implements Runnable {
+        private final String stream;
+        private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicLong enqueued = new AtomicLong();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile long enqueuedAt;
+        private volatile long lastLagNanos;
+        private volatile long maxLagNanos;
+
+        private Lane(String stream) {
+            this.stream = stream;
+        }
+
+        void enqueue(MarketDataEvent event, long sequence) {
+            queue.add(new Pending(event, sequence));
+            enqueued.incrementAndGet();
+            enqueuedAt = System.nanoTime();
+
+            if (depth.incrementAndGet() == warnDepth) {
+                log.warn("Dispatch lane for {} of {} has {} events queued; consumer is falling behind",
+                        stream, consumer.getConsumerName(), warnDepth);
+            }
+
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int budget = DRAIN_BATCH;
+            Pending pending;
+
+            while (budget-- > 0 && (pending = queue.poll()) != null) {
+                depth.decrementAndGet();
+
+                long lag = System.nanoTime() - pending.event().getReceivedAt();
+                lastLagNanos = lag;
+                if (lag > maxLagNanos) {
+                    maxLagNanos = lag;
+                }
+
+                try {
+                    consumer.onEvent(pending.event(), pending.sequence());
+                    processed.incrementAndGet();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                    log.error("Market data consumer {} failed on {} event for {}",
+                            consumer.getConsumerName(), pending.event().getType(), stream, e);
+                }
+            }
+
+            scheduled.set(false);
+
+            // An event may have arrived between the last poll and clearing the flag
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * Whether nothing has been queued since {@code since} and nothing is left to run.
+         */
+        boolean isIdleSince(long since) {
+            return enqueuedAt - since < 0 && !scheduled.get() && queue.isEmpty();
+        }
+
+        DispatchLaneDto toDto() {
+            Pending head = queue.peek();
+            long now = System.nanoTime();
+
+            return DispatchLaneDto.builder()
+                    .consumer(consumer.getConsumerName())
+                    .stream(stream)
+                    .queueDepth(depth.get())
+                    .enqueued(enqueued.get())
+                    .processed(processed.get())
+                    .failed(failed.get())
+                    .currentLagMs(head == null ? 0.0 : (now - head.event().getReceivedAt()) / 1_000_000.0)
+                    .lastLagMs(lastLagNanos / 1_000_000.0)
+                    .maxLagMs(maxLagNanos / 1_000_000.0)
+                    .build();
+        }
+    }
+}
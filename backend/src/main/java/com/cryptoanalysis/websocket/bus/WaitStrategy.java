@@ -0,0 +1,113 @@
+package com.cryptoanalysis.websocket.bus;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * How a consumer idles while no new event is available. The producer never
+ * waits; it only signals strategies that park on a lock.
+ */
+public interface WaitStrategy {
+
+    /**
+     * Called each time a consumer finds nothing to read.
+     *
+     * @param idleCount consecutive empty polls so far
+     */
+    void idle(int idleCount) throws InterruptedException;
+
+    /**
+     * Called by the producer after each publish.
+     */
+    default void signalAll() {
+    }
+
+    static WaitStrategy of(String name) {
+        return switch (name.toUpperCase()) {
+            case "BUSY_SPIN" -> new BusySpin();
+            case "YIELDING" -> new Yielding();
+            case "SLEEPING" -> new Sleeping();
+            case "BLOCKING" -> new Blocking();
+            default -> throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        };
+    }
+
+    /**
+     * Lowest latency, burns a core per consumer.
+     */
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public void idle(int idleCount) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Spins briefly, then yields the CPU.
+     */
+    final class Yielding implements WaitStrategy {
+        @Override
+        public void idle(int idleCount) {
+            if (idleCount < 100) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Spins, yields, then parks for short periods; a good default for market data.
+     */
+    final class Sleeping implements WaitStrategy {
+        @Override
+        public void idle(int idleCount) {
+            if (idleCount < 100) {
+                Thread.onSpinWait();
+            } else if (idleCount < 200) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(100_000);
+            }
+        }
+    }
+
+    /**
+     * Parks on a condition until the producer signals; lowest CPU use, highest wake-up latency.
+     */
+    final class Blocking implements WaitStrategy {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition available = lock.newCondition();
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        @Override
+        public void idle(int idleCount) throws InterruptedException {
+            lock.lock();
+            try {
+                waiters.incrementAndGet();
+                // Timed so a publish racing with this call costs at most one period
+                available.await(1, TimeUnit.MILLISECONDS);
+            } finally {
+                waiters.decrementAndGet();
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            if (waiters.get() == 0) {
+                return;
+            }
+
+            lock.lock();
+            try {
+                available.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.cryptoanalysis.websocket.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * The shared state {@link ClusteredUpstream} coordinates through: expiring
+ * leases with a single owner, per-member interest marks, and a broadcast
+ * channel. Expiry is the store's business, so nodes never compare clocks.
+ */
+public interface ClusterStore {
+
+    /**
+     * Take {@code key} for {@code owner} if nobody holds it.
+     */
+    boolean tryAcquire(String key, String owner, long ttlMillis);
+
+    /**
+     * Extend the lease if {@code owner} still holds it.
+     */
+    boolean renew(String key, String owner, long ttlMillis);
+
+    /**
+     * Give up the lease if {@code owner} still holds it.
+     */
+    void release(String key, String owner);
+
+    /**
+     * Mark {@code member} as interested in {@code key} for the next {@code ttlMillis}.
+     */
+    void touchInterest(String key, String member, long ttlMillis);
+
+    void dropInterest(String key, String member);
+
+    /**
+     * Members whose interest in {@code key} has not expired.
+     */
+    int countInterest(String key);
+
+    void publish(String channel, String message);
+
+    void subscribe(String channel, Consumer<String> listener);
+}
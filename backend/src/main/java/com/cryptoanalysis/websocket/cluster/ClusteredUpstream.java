@@ -0,0 +1,348 @@
+package com.cryptoanalysis.websocket.cluster;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.websocket.config.RelayClusterConfig;
+import com.cryptoanalysis.websocket.dto.ClusterStatsDto;
+import com.cryptoanalysis.websocket.dto.DepthUpdateDto;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.TickerDto;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Clustered relay mode: one node per upstream stream reads it from Binance,
+ * every other node gets its decoded events over the cluster channel and
+ * publishes them to its own market-data bus, so each node still fans out to
+ * its own STOMP clients.
+ * <p>
+ * A node marks its interest in every stream its subscribers need and tries to
+ * take the stream's lease; the holder opens the stream. The holder keeps the
+ * stream, renewing the lease, while any node is interested, and closes it and
+ * gives the lease up once none is. A node that dies stops renewing, and the
+ * next heartbeat of an interested node takes the lapsed lease over. During a
+ * takeover both nodes may deliver the same update, which the relay's
+ * duplicate handling absorbs; a node that finds its lease gone closes its copy.
+ * <p>
+ * {@link #want} and {@link #unwant} only record the change; the store round
+ * trips and the resulting open or close run afterwards on the heartbeat
+ * thread, in call order, so callers holding their own locks never wait on the
+ * store.
+ */
+@Component
+@Slf4j
+public class ClusteredUpstream {
+
+    /**
+     * The node's own upstream, which the coordinator opens and closes streams
+     * on and hands remote events to.
+     */
+    public interface LocalUpstream {
+        void open(String stream);
+
+        void close(String stream);
+
+        void deliver(String stream, MarketDataEventType type, Object event);
+    }
+
+    /**
+     * Events travel as origin, type and stream lines followed by the payload
+     * JSON, which is read straight into its DTO so decimals never pass
+     * through a double.
+     */
+    private static final String SEPARATOR = "\n";
+
+    private static final TypeReference<List<TickerDto>> TICKER_LIST = new TypeReference<>() {
+    };
+
+    private final RelayClusterConfig config;
+    private final ClusterStore store;
+    private final ObjectMapper objectMapper;
+    private final String nodeId;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Concurrent, so events can be filtered and interest recorded without the lock.
+     */
+    private final Set<String> wanted = ConcurrentHashMap.newKeySet();
+    /**
+     * Streams whose lease this node holds; read without the lock on every event.
+     */
+    private volatile Set<String> owned = Set.of();
+    private LocalUpstream upstream;
+
+    private final AtomicLong eventsForwarded = new AtomicLong();
+    private final AtomicLong eventsReceived = new AtomicLong();
+    private long takeovers;
+    private long leasesLost;
+
+    public ClusteredUpstream(RelayClusterConfig config, ClusterStore store, ObjectMapper objectMapper) {
+        this.config = config;
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.nodeId = config.getNodeId() == null || config.getNodeId().isBlank()
+                ? UUID.randomUUID().toString()
+                : config.getNodeId();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        store.subscribe(eventsChannel(), this::onMessage);
+        scheduler.scheduleWithFixedDelay(this::heartbeat, config.getHeartbeatInterval(),
+                config.getHeartbeatInterval(), TimeUnit.MILLISECONDS);
+        log.info("Clustered relay enabled as node {}", nodeId);
+    }
+
+    public boolean isEnabled() {
+        return config.getEnabled();
+    }
+
+    public synchronized void attach(LocalUpstream upstream) {
+        this.upstream = upstream;
+    }
+
+    /**
+     * This node's subscribers need {@code stream}. Marking the interest and
+     * trying for the lease happen afterwards.
+     *
+     * @return false if they already did
+     */
+    public boolean want(String stream) {
+        if (!wanted.add(stream)) {
+            return false;
+        }
+
+        scheduler.execute(() -> join(stream));
+        return true;
+    }
+
+    /**
+     * This node's subscribers no longer need {@code stream}. If this node
+     * owns it, it keeps the stream for as long as another node is interested.
+     */
+    public void unwant(String stream) {
+        if (!wanted.remove(stream)) {
+            return;
+        }
+
+        scheduler.execute(() -> leave(stream));
+    }
+
+    /**
+     * Send an event this node read from Binance to the other nodes, if this
+     * node owns its stream.
+     */
+    public void forward(String stream, MarketDataEventType type, Object event) {
+        if (!owned.contains(stream)) {
+            return;
+        }
+
+        try {
+            String message = String.join(SEPARATOR, nodeId, type.name(), stream,
+                    objectMapper.writeValueAsString(event));
+
+            store.publish(eventsChannel(), message);
+            eventsForwarded.incrementAndGet();
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Failed to forward {} event of stream {} to the cluster", type, stream, e);
+        }
+    }
+
+    /**
+     * Renew owned leases, refresh interest marks, take over lapsed leases of
+     * wanted streams, and close owned streams nobody needs any more.
+     */
+    synchronized void heartbeat() {
+        try {
+            for (String stream : wanted) {
+                store.touchInterest(interestKey(stream), nodeId, config.getLeaseTtl());
+            }
+
+            for (String stream : Set.copyOf(owned)) {
+                if (!store.renew(leaseKey(stream), nodeId, config.getLeaseTtl())) {
+                    leasesLost++;
+                    log.warn("Lease on stream {} was lost to another node", stream);
+                    closeOwned(stream);
+                } else if (!wanted.contains(stream) && store.countInterest(interestKey(stream)) == 0) {
+                    giveUp(stream);
+                }
+            }
+
+            for (String stream : wanted) {
+                if (!owned.contains(stream) && tryTakeLease(stream)) {
+                    takeovers++;
+                    log.info("Took over stream {} after its lease lapsed", stream);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Cluster heartbeat failed", e);
+        }
+    }
+
+    public synchronized ClusterStatsDto getStats() {
+        return ClusterStatsDto.builder()
+                .enabled(isEnabled())
+                .nodeId(nodeId)
+                .wantedStreams(wanted.stream().sorted().toList())
+                .ownedStreams(owned.stream().sorted().toList())
+                .eventsForwarded(eventsForwarded.get())
+                .eventsReceived(eventsReceived.get())
+                .takeovers(takeovers)
+                .leasesLost(leasesLost)
+                .build();
+    }
+
+    /**
+     * Hand every lease over at once instead of letting the others wait out the TTL.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        scheduler.shutdownNow();
+        if (!isEnabled()) {
+            return;
+        }
+
+        try {
+            for (String stream : wanted) {
+                store.dropInterest(interestKey(stream), nodeId);
+            }
+            for (String stream : owned) {
+                store.release(leaseKey(stream), nodeId);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not release cluster leases on shutdown", e);
+        }
+        wanted.clear();
+        owned = Set.of();
+    }
+
+    void onMessage(String message) {
+        try {
+            String[] parts = message.split(SEPARATOR, 4);
+            if (nodeId.equals(parts[0]) || !wanted.contains(parts[2])) {
+                return;
+            }
+
+            String stream = parts[2];
+            MarketDataEventType type = MarketDataEventType.valueOf(parts[1]);
+            Object event = decode(type, parts[3]);
+
+            eventsReceived.incrementAndGet();
+            upstream.deliver(stream, type, event);
+        } catch (Exception e) {
+            log.error("Failed to handle cluster event", e);
+        }
+    }
+
+    private Object decode(MarketDataEventType type, String payload) throws JsonProcessingException {
+        return switch (type) {
+            case KLINE -> objectMapper.readValue(payload, KlineDto.class);
+            case TICKER -> objectMapper.readValue(payload, TickerDto.class);
+            case MINI_TICKER -> objectMapper.readValue(payload, TICKER_LIST);
+            case DEPTH -> objectMapper.readValue(payload, DepthUpdateDto.class);
+            case TRADE -> objectMapper.readValue(payload, TradeDto.class);
+        };
+    }
+
+    /**
+     * Wait until the store work queued by earlier {@link #want} and
+     * {@link #unwant} calls has run.
+     */
+    void awaitQueued() throws InterruptedException, ExecutionException {
+        scheduler.submit(() -> {
+        }).get();
+    }
+
+    private synchronized void join(String stream) {
+        // Unwanted again before this ran
+        if (!wanted.contains(stream)) {
+            return;
+        }
+
+        try {
+            store.touchInterest(interestKey(stream), nodeId, config.getLeaseTtl());
+            if (!owned.contains(stream)) {
+                tryTakeLease(stream);
+            }
+        } catch (RuntimeException e) {
+            // The next heartbeat tries again
+            log.warn("Could not reach the cluster store for stream {}", stream, e);
+        }
+    }
+
+    private synchronized void leave(String stream) {
+        // Wanted again before this ran; the join queued behind it refreshes the interest
+        if (wanted.contains(stream)) {
+            return;
+        }
+
+        try {
+            store.dropInterest(interestKey(stream), nodeId);
+            if (owned.contains(stream) && store.countInterest(interestKey(stream)) == 0) {
+                giveUp(stream);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not reach the cluster store for stream {}", stream, e);
+        }
+    }
+
+    private boolean tryTakeLease(String stream) {
+        if (!store.tryAcquire(leaseKey(stream), nodeId, config.getLeaseTtl())) {
+            return false;
+        }
+
+        Set<String> next = new HashSet<>(owned);
+        next.add(stream);
+        owned = Set.copyOf(next);
+        upstream.open(stream);
+        log.info("Node {} owns upstream stream {}", nodeId, stream);
+        return true;
+    }
+
+    private void giveUp(String stream) {
+        store.release(leaseKey(stream), nodeId);
+        closeOwned(stream);
+        log.info("Node {} released upstream stream {}; no node needs it", nodeId, stream);
+    }
+
+    private void closeOwned(String stream) {
+        Set<String> next = new HashSet<>(owned);
+        next.remove(stream);
+        owned = Set.copyOf(next);
+        upstream.close(stream);
+    }
+
+    private String leaseKey(String stream) {
+        return config.getKeyPrefix() + "lease:" + stream;
+    }
+
+    private String interestKey(String stream) {
+        return config.getKeyPrefix() + "interest:" + stream;
+    }
+
+    private String eventsChannel() {
+        return config.getKeyPrefix() + "events";
+    }
+}
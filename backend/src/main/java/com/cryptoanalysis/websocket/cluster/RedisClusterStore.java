@@ -0,0 +1,141 @@
+package com.cryptoanalysis.websocket.cluster;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link ClusterStore} on the application's Redis. A lease is a string key
+ * holding its owner, set with NX and a TTL and only renewed or deleted by a
+ * script that checks the owner. Interest is a set of members plus one
+ * expiring key per member, so a member that dies drops out on its own. A
+ * member key hash-tags its set's key, so on Redis Cluster both live in one
+ * slot and the counting script can declare them all.
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisClusterStore implements ClusterStore {
+
+    private static final RedisScript<Long> RENEW = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    private static final RedisScript<Long> RELEASE = RedisScript.of("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then
+                return redis.call('DEL', KEYS[1])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * KEYS[1] is the set, KEYS[i + 1] the mark of member ARGV[i].
+     */
+    private static final RedisScript<Long> COUNT_INTEREST = RedisScript.of("""
+            local live = 0
+            for i, member in ipairs(ARGV) do
+                if redis.call('EXISTS', KEYS[i + 1]) == 1 then
+                    live = live + 1
+                else
+                    redis.call('SREM', KEYS[1], member)
+                end
+            end
+            return live
+            """, Long.class);
+
+    private final StringRedisTemplate redis;
+    private final RedisConnectionFactory connectionFactory;
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Override
+    public boolean tryAcquire(String key, String owner, long ttlMillis) {
+        return Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(key, owner, Duration.ofMillis(ttlMillis)));
+    }
+
+    @Override
+    public boolean renew(String key, String owner, long ttlMillis) {
+        Long renewed = redis.execute(RENEW, List.of(key), owner, String.valueOf(ttlMillis));
+        return renewed != null && renewed == 1;
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        redis.execute(RELEASE, List.of(key), owner);
+    }
+
+    @Override
+    public void touchInterest(String key, String member, long ttlMillis) {
+        redis.opsForSet().add(key, member);
+        redis.opsForValue().set(memberKey(key, member), "1", ttlMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void dropInterest(String key, String member) {
+        redis.opsForSet().remove(key, member);
+        redis.delete(memberKey(key, member));
+    }
+
+    /**
+     * A member that joins after the set is read is not counted; it is seen on the next count.
+     */
+    @Override
+    public int countInterest(String key) {
+        Set<String> members = redis.opsForSet().members(key);
+        if (members == null || members.isEmpty()) {
+            return 0;
+        }
+
+        List<String> memberList = List.copyOf(members);
+        List<String> keys = new ArrayList<>(memberList.size() + 1);
+        keys.add(key);
+        memberList.forEach(member -> keys.add(memberKey(key, member)));
+
+        Long live = redis.execute(COUNT_INTEREST, keys, memberList.toArray());
+        return live == null ? 0 : live.intValue();
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        redis.convertAndSend(channel, message);
+    }
+
+    @Override
+    public synchronized void subscribe(String channel, Consumer<String> listener) {
+        if (listenerContainer == null) {
+            listenerContainer = new RedisMessageListenerContainer();
+            listenerContainer.setConnectionFactory(connectionFactory);
+            listenerContainer.afterPropertiesSet();
+            listenerContainer.start();
+        }
+
+        listenerContainer.addMessageListener(
+                (message, pattern) -> listener.accept(redis.getStringSerializer().deserialize(message.getBody())),
+                new ChannelTopic(channel));
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    private static String memberKey(String key, String member) {
+        return "{" + key + "}:" + member;
+    }
+}
@@ -12,5 +12,61 @@ public class BinanceWebSocketConfig {
     private String baseUrl = "wss://stream.binance.com:9443/ws";
     private Integer reconnectDelay = 5000;
     private Integer maxReconnectAttempts = 10;
+    /**
+     * Milliseconds between keep-alive pings on an otherwise idle upstream connection.
+     */
     private Integer pingInterval = 180000;
+
+    /**
+     * A connection whose ping is unanswered for this long is reconnected.
+     */
+    private Integer pongTimeout = 10000;
+
+    /**
+     * A stream is stale after this many of its expected message intervals pass without data.
+     */
+    private Double staleCadenceMultiple = 5.0;
+
+    /**
+     * Floor for the staleness threshold, so bursty streams are not flagged between bursts.
+     */
+    private Integer minStaleThreshold = 10000;
+
+    /**
+     * Milliseconds between staleness checks.
+     */
+    private Integer watchdogInterval = 1000;
+
+    /**
+     * Binance accepts at most 5 inbound messages (control frames, pings, pongs)
+     * per second on a single connection.
+     */
+    private Integer maxControlMessagesPerSecond = 5;
+
+    /**
+     * Binance allows up to 1024 streams on one connection.
+     */
+    private Integer maxStreamsPerConnection = 1024;
+
+    /**
+     * Expected messages/sec a shared connection may carry before a new one is opened.
+     */
+    private Double maxMessageRatePerConnection = 50.0;
+
+    /**
+     * Expected-load gap (messages/sec) between shared connections that triggers moving streams.
+     */
+    private Double rebalanceThreshold = 10.0;
+
+    /**
+     * Combined-stream endpoint derived from the raw-stream base URL
+     * (e.g. wss://host:9443/ws -> wss://host:9443/stream).
+     */
+    public String getCombinedStreamUrl() {
+        String url = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        if (url.endsWith("/ws")) {
+            url = url.substring(0, url.length() - 3);
+        }
+        return url + "/stream";
+    }
 }
@@ -0,0 +1,33 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import com.cryptoanalysis.websocket.enums.JournalMode;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "binance.websocket.journal")
+@Data
+public class FrameJournalConfig {
+
+    /**
+     * OFF, RECORD (journal every inbound frame) or REPLAY (feed a journal back
+     * through the frame handler instead of connecting to Binance).
+     */
+    private JournalMode mode = JournalMode.OFF;
+
+    private String directory = "journal";
+
+    /**
+     * Bytes per memory-mapped segment file.
+     */
+    private Integer segmentSize = 256 * 1024 * 1024;
+
+    /**
+     * Replay pace relative to capture time: 1.0 is real time, 10.0 ten times
+     * faster, 0 or less as fast as the handler accepts frames.
+     */
+    private Double replaySpeed = 1.0;
+}
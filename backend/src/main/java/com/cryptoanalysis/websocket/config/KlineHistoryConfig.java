@@ -0,0 +1,29 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "websocket.relay.history")
+@Data
+public class KlineHistoryConfig {
+
+    /**
+     * Let a kline subscription ask for the closed candles before it, sent
+     * ahead of its first live candle.
+     */
+    private Boolean enabled = true;
+
+    /**
+     * Most closed candles a single subscription may ask for.
+     */
+    private Integer maxCandles = 5000;
+
+    /**
+     * Candles per history frame, so a long history is written as several
+     * frames that other sessions' messages can pass between.
+     */
+    private Integer chunkSize = 500;
+}
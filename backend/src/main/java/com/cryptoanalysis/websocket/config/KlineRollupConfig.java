@@ -0,0 +1,23 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "market-data.rollup")
+@Data
+public class KlineRollupConfig {
+
+    /**
+     * Build the configured ingestion intervals above 1m from each symbol's 1m
+     * stream instead of subscribing to every interval upstream.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Milliseconds before retrying a seed whose REST history was missing or incomplete.
+     */
+    private Integer seedRetryDelay = 2000;
+}
@@ -0,0 +1,18 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "websocket.relay.last-value")
+@Data
+public class LastValueConfig {
+
+    /**
+     * Send the latest kline or ticker of a topic to a session as soon as it
+     * subscribes, instead of leaving it to wait for the next exchange event.
+     */
+    private Boolean enabled = true;
+}
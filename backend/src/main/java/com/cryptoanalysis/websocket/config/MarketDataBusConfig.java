@@ -0,0 +1,44 @@
+package com.cryptoanalysis.websocket.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "market-data.bus")
+@Data
+public class MarketDataBusConfig {
+
+    /**
+     * Number of preallocated event slots; must be a power of two.
+     */
+    private Integer bufferSize = 8192;
+
+    /**
+     * Default idle strategy for consumers: BUSY_SPIN, YIELDING, SLEEPING or BLOCKING.
+     */
+    private String waitStrategy = "SLEEPING";
+
+    /**
+     * Per-consumer overrides of the wait strategy, keyed by consumer name.
+     */
+    private Map<String, String> consumerWaitStrategies = new HashMap<>();
+
+    /**
+     * Consumers, by name, that get one ordered lane per stream instead of
+     * running on their processor thread, so a slow broadcast on one stream
+     * does not delay the others. Their handling must be safe across streams.
+     */
+    private List<String> laneConsumers = new ArrayList<>(List.of("relay", "orderbook"));
+
+    /**
+     * Queued events on a single stream's dispatch lane before a slow-consumer warning is logged.
+     */
+    private Integer dispatchQueueWarnDepth = 1000;
+}
@@ -0,0 +1,48 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "market-data.order-book")
+@Data
+public class OrderBookConfig {
+
+    /**
+     * Levels requested in the REST snapshot; 1000 costs 50 request weight, 5000 costs 250.
+     */
+    private Integer snapshotDepth = 1000;
+
+    /**
+     * Levels kept per side; the farthest levels are dropped beyond this.
+     */
+    private Integer maxLevels = 5000;
+
+    /**
+     * Diff events buffered while a snapshot is in flight before the book gives up and resyncs.
+     */
+    private Integer maxBufferedEvents = 10000;
+
+    /**
+     * Milliseconds to wait before fetching another snapshot after a failed or outdated one;
+     * doubled for each further one in a row.
+     */
+    private Integer resyncDelay = 1000;
+
+    /**
+     * Upper bound of the doubling snapshot retry delay, in milliseconds.
+     */
+    private Integer maxResyncDelay = 60000;
+
+    /**
+     * Books kept at once; requests for further symbols are served from REST until one is dropped.
+     */
+    private Integer maxBooks = 50;
+
+    /**
+     * Milliseconds a book with no STOMP subscribers is kept after its last REST read.
+     */
+    private Integer idleTimeout = 300000;
+}
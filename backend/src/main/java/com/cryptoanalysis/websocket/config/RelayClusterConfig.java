@@ -0,0 +1,41 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "market-data.cluster")
+@Data
+public class RelayClusterConfig {
+
+    /**
+     * When enabled, each upstream stream is opened by one node, elected with
+     * a Redis lease, and its decoded events reach the other nodes over Redis
+     * pub/sub. When disabled every node opens the streams its clients need.
+     */
+    private Boolean enabled = false;
+
+    /**
+     * This node's identity in leases and events; a random id when blank.
+     */
+    private String nodeId = "";
+
+    /**
+     * Milliseconds a lease or interest mark lives without renewal, which bounds
+     * how long a stream stays dark after its owner dies.
+     */
+    private Integer leaseTtl = 10000;
+
+    /**
+     * Milliseconds between lease renewals, interest marks and takeover attempts;
+     * well under the lease TTL.
+     */
+    private Integer heartbeatInterval = 3000;
+
+    /**
+     * Prefix of every Redis key and channel the cluster uses.
+     */
+    private String keyPrefix = "market-data:";
+}
@@ -0,0 +1,53 @@
+package com.cryptoanalysis.websocket.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "websocket.relay.conflation")
+@Data
+public class RelayConflationConfig {
+
+    /**
+     * When disabled every upstream update is broadcast as it arrives.
+     */
+    private Boolean enabled = true;
+
+    /**
+     * Minimum milliseconds between broadcasts on one kline destination; closed candles bypass it.
+     */
+    private Integer klineInterval = 500;
+
+    /**
+     * Minimum milliseconds between broadcasts on one ticker destination.
+     */
+    private Integer tickerInterval = 1000;
+
+    /**
+     * Minimum milliseconds between broadcasts of the all-symbols ticker list.
+     */
+    private Integer tickerAllInterval = 1000;
+
+    /**
+     * Per-destination overrides, e.g. {@code "[/topic/kline/btcusdt/1m]": 250}.
+     */
+    private Map<String, Integer> destinationIntervals = new HashMap<>();
+
+    /**
+     * Milliseconds between scans for pending updates that have become due.
+     */
+    private Integer flushTick = 50;
+
+    /**
+     * Intervals in milliseconds, fastest first, of the throttled streams a
+     * subscription can ask for with {@code max-rate}; each is conflated once
+     * for all of its subscribers, even when conflation is otherwise disabled.
+     */
+    private List<Integer> rateClasses = List.of(1000, 5000, 15000);
+}
@@ -0,0 +1,31 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "websocket.relay.subscriptions")
+@Data
+public class RelaySubscriptionConfig {
+
+    /**
+     * Milliseconds an upstream stream stays open after its last subscriber
+     * leaves, so a reloading or reconnecting client picks it up again without
+     * an unsubscribe/subscribe round trip to Binance.
+     */
+    private Integer gracePeriod = 30000;
+
+    /**
+     * Disconnected session ids remembered, so a subscribe message processed
+     * after its session's disconnect event is ignored instead of leaking.
+     */
+    private Integer closedSessionMemory = 10000;
+
+    /**
+     * Most destinations a subscription pattern may spell out with
+     * {@code {a,b}} alternatives; each kline or ticker one opens a stream.
+     */
+    private Integer maxPatternDestinations = 64;
+}
@@ -0,0 +1,25 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "websocket.relay.replay")
+@Data
+public class ReplayConfig {
+
+    /**
+     * Number relayed messages per destination and let a reconnecting client
+     * resume from the last number it saw.
+     */
+    private Boolean enabled = true;
+
+    /**
+     * Messages kept per kline or single-symbol ticker destination for resuming
+     * clients; a client further behind gets the latest message flagged as a
+     * gap instead. Batched and delta topics keep none.
+     */
+    private Integer capacity = 256;
+}
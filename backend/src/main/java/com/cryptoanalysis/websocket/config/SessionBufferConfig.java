@@ -0,0 +1,56 @@
+package com.cryptoanalysis.websocket.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import com.cryptoanalysis.websocket.enums.OverflowPolicy;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "websocket.session-buffer")
+@Data
+public class SessionBufferConfig {
+
+    /**
+     * Frames a session may have waiting to be written before it counts as over its limit.
+     */
+    private Integer maxMessages = 1000;
+
+    /**
+     * Bytes a session may have waiting to be written before it counts as over its limit.
+     */
+    private Integer maxBytes = 1024 * 1024;
+
+    /**
+     * CONFLATE keeps only the latest waiting frame per market-data destination;
+     * DISCONNECT keeps every frame. Either way a session that stays over its
+     * limit for the send time limit is disconnected.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.CONFLATE;
+
+    /**
+     * Milliseconds a session may stay over its limit, and the time limit for
+     * a single write on the socket.
+     */
+    private Integer sendTimeLimit = 10000;
+
+    /**
+     * Destinations whose waiting frames may be replaced by a newer one. Topics
+     * clients apply in sequence, such as order book and ticker deltas, are
+     * left out; their sequence numbers already reveal a gap.
+     */
+    private List<String> conflatablePrefixes = new ArrayList<>(List.of("/topic/kline/", "/topic/ticker/",
+            "/topic/bin/"));
+
+    /**
+     * Destinations under a conflatable prefix whose frames only carry what
+     * changed, such as the merged all-symbols ticker batches; replacing one
+     * would lose the symbols only it carried, so they are never conflated.
+     */
+    private List<String> partialDestinations = new ArrayList<>(List.of("/topic/ticker/all",
+            "/topic/bin/ticker/all"));
+}
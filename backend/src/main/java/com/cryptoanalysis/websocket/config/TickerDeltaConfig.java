@@ -0,0 +1,18 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "websocket.relay.ticker-delta")
+@Data
+public class TickerDeltaConfig {
+
+    /**
+     * Milliseconds between full keyframes on the delta topic, bounding how
+     * long a client that missed a frame stays wrong if it never asks for a snapshot.
+     */
+    private Integer keyframeInterval = 30000;
+}
@@ -0,0 +1,31 @@
+package com.cryptoanalysis.websocket.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "market-data.trade-candles")
+@Data
+public class TradeCandleConfig {
+
+    /**
+     * Milliseconds past a candle's end, on the exchange clock, before it is closed without a newer trade.
+     */
+    private Integer allowedLateness = 500;
+
+    /**
+     * Intervals Binance does not publish that clients may ask for; each is
+     * built from the symbol's aggTrade stream and stored like any other.
+     */
+    private List<String> intervals = new ArrayList<>(List.of("5s", "10s", "15s", "30s", "2m", "10m", "20m", "45m"));
+
+    /**
+     * Milliseconds between checks for candles that are due to close.
+     */
+    private Integer tickInterval = 100;
+}
@@ -1,25 +1,108 @@
 package com.cryptoanalysis.websocket.config;
 
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.web.socket.WebSocketExtension;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
+
+import com.cryptoanalysis.core.concurrent.Bulkheads;
+import com.cryptoanalysis.websocket.session.SessionBuffers;
+import com.cryptoanalysis.websocket.wire.WireFormatInterceptor;
+
+import lombok.RequiredArgsConstructor;
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebsocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    private final WireFormatConfig wireFormatConfig;
+    private final WireFormatInterceptor wireFormatInterceptor;
+    private final SessionBufferConfig sessionBufferConfig;
+    private final SessionBuffers sessionBuffers;
+    private final Bulkheads bulkheads;
+    private final Environment environment;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         config.enableSimpleBroker("/topic", "/queue");
         config.setApplicationDestinationPrefixes("/app");
+        // A subscriber's last-value frame must not overtake the broadcasts that follow it
+        config.setPreservePublishOrder(true);
+    }
+
+    /**
+     * With virtual threads the STOMP channels run on pools of virtual threads,
+     * so a handler that blocks (on a REST call, say) does not hold a platform thread.
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(wireFormatInterceptor);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            registration.taskExecutor(bulkheads.virtualThreadPool(Bulkheads.STOMP_INBOUND));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            registration.taskExecutor(bulkheads.virtualThreadPool(Bulkheads.STOMP_OUTBOUND));
+        }
+    }
+
+    /**
+     * Every session gets its own bounded, conflating buffer in front of
+     * Spring's per-session send buffer, which then only backs it up.
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(sessionBuffers::decorate)
+                .setSendTimeLimit(sessionBufferConfig.getSendTimeLimit())
+                .setSendBufferSizeLimit(sessionBufferConfig.getMaxBytes());
     }
 
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws")
+                .setHandshakeHandler(handshakeHandler())
                 .setAllowedOriginPatterns("*") // Allow all origins (configure properly in production)
                 .withSockJS(); // Enable SockJS fallback for browsers without WebSocket support
+
+        // Plain WebSocket endpoint; SockJS cannot carry the binary wire format
+        registry.addEndpoint("/ws-stream")
+                .setHandshakeHandler(handshakeHandler())
+                .setAllowedOriginPatterns("*");
+    }
+
+    /**
+     * The container offers permessage-deflate on its own; this only takes it
+     * away when compression is disabled.
+     */
+    private DefaultHandshakeHandler handshakeHandler() {
+        return new DefaultHandshakeHandler() {
+            @Override
+            protected List<WebSocketExtension> filterRequestedExtensions(ServerHttpRequest request,
+                    List<WebSocketExtension> requested, List<WebSocketExtension> supported) {
+                List<WebSocketExtension> accepted = super.filterRequestedExtensions(request, requested, supported);
+                if (wireFormatConfig.getPerMessageDeflate()) {
+                    return accepted;
+                }
+                return accepted.stream()
+                        .filter(extension -> !PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName()))
+                        .toList();
+            }
+        };
     }
 }
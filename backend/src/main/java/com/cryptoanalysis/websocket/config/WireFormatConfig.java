@@ -0,0 +1,22 @@
+package com.cryptoanalysis.websocket.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.Data;
+
+@Configuration
+@ConfigurationProperties(prefix = "websocket.wire")
+@Data
+public class WireFormatConfig {
+
+    /**
+     * Honour {@code x-wire-format: binary} on SUBSCRIBE; otherwise every subscription gets JSON.
+     */
+    private Boolean binaryEnabled = true;
+
+    /**
+     * Accept the permessage-deflate extension when a client offers it.
+     */
+    private Boolean perMessageDeflate = true;
+}
@@ -1,10 +1,15 @@
 package com.cryptoanalysis.websocket.controller;
 
+import com.cryptoanalysis.websocket.dto.TickerDeltaMessage;
+import com.cryptoanalysis.websocket.orderbook.OrderBookService;
 import com.cryptoanalysis.websocket.service.WebSocketRelayService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
 @Controller
@@ -12,44 +17,88 @@ import org.springframework.stereotype.Controller;
 @Slf4j
 public class WebSocketController {
     private final WebSocketRelayService relayService;
+    private final OrderBookService orderBookService;
 
     @MessageMapping("/subscribe/kline/{symbol}/{interval}")
     public void onKlineSubscribe(
+            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
             @DestinationVariable String symbol,
             @DestinationVariable String interval) {
         log.info("Client subscribed to kline: {} {}", symbol, interval);
-        relayService.subscribeKline(symbol.toUpperCase(), interval);
+        relayService.subscribeKline(sessionId, symbol.toUpperCase(), interval);
     }
 
     @MessageMapping("/unsubscribe/kline/{symbol}/{interval}")
     public void onKlineUnsubscribe(
+            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
             @DestinationVariable String symbol,
             @DestinationVariable String interval) {
         log.info("Client unsubscribed from kline: {} {}", symbol, interval);
-        relayService.unsubscribeKline(symbol.toUpperCase(), interval);
+        relayService.unsubscribeKline(sessionId, symbol.toUpperCase(), interval);
     }
 
     @MessageMapping("/subscribe/ticker/{symbol}")
-    public void onTickerSubscribe(@DestinationVariable String symbol) {
+    public void onTickerSubscribe(@Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+            @DestinationVariable String symbol) {
         log.info("Client subscribed to ticker: {}", symbol);
-        relayService.subscribeTicker(symbol.toUpperCase());
+        relayService.subscribeTicker(sessionId, symbol.toUpperCase());
     }
 
     @MessageMapping("/unsubscribe/ticker/{symbol}")
-    public void onTickerUnsubscribe(@DestinationVariable String symbol) {
+    public void onTickerUnsubscribe(@Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+            @DestinationVariable String symbol) {
         log.info("Client unsubscribed from ticker: {}", symbol);
-        relayService.unsubscribeTicker(symbol.toUpperCase());
+        relayService.unsubscribeTicker(sessionId, symbol.toUpperCase());
     }
 
     @MessageMapping("/subscribe/ticker/all")
-    public void onMiniTickerSubscribe() {
+    public void onMiniTickerSubscribe(@Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
         log.info("Client subscribed to mini ticker (all symbols)");
-        relayService.subscribeMiniTicker();
+        relayService.subscribeMiniTicker(sessionId);
     }
 
     @MessageMapping("/unsubscribe/ticker/all")
-    public void onMiniTickerUnsubscribe() {
+    public void onMiniTickerUnsubscribe(@Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
         log.info("Client unsubscribed from mini ticker");
-        relayService.unsubscribeMiniTicker();
+        relayService.unsubscribeMiniTicker(sessionId);
+    }
+
+    /**
+     * Subscribe to {@code /topic/ticker-delta}; the snapshot to start from is
+     * sent to this session only, on {@code /user/queue/ticker-delta}.
+     */
+    @MessageMapping("/subscribe/ticker/delta")
+    @SendToUser(destinations = "/queue/ticker-delta", broadcast = false)
+    public TickerDeltaMessage onTickerDeltaSubscribe(
+            @Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        log.info("Client subscribed to ticker deltas");
+        return relayService.subscribeTickerDelta(sessionId);
+    }
+
+    @MessageMapping("/snapshot/ticker/delta")
+    @SendToUser(destinations = "/queue/ticker-delta", broadcast = false)
+    public TickerDeltaMessage onTickerDeltaSnapshot() {
+        log.debug("Client requested a ticker delta snapshot");
+        return relayService.getTickerDeltaSnapshot();
+    }
+
+    @MessageMapping("/unsubscribe/ticker/delta")
+    public void onTickerDeltaUnsubscribe(@Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId) {
+        log.info("Client unsubscribed from ticker deltas");
+        relayService.unsubscribeTickerDelta(sessionId);
+    }
+
+    @MessageMapping("/subscribe/orderbook/{symbol}")
+    public void onOrderBookSubscribe(@Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+            @DestinationVariable String symbol) {
+        log.info("Client subscribed to order book: {}", symbol);
+        orderBookService.subscribe(sessionId, symbol.toUpperCase());
+    }
+
+    @MessageMapping("/unsubscribe/orderbook/{symbol}")
+    public void onOrderBookUnsubscribe(@Header(SimpMessageHeaderAccessor.SESSION_ID_HEADER) String sessionId,
+            @DestinationVariable String symbol) {
+        log.info("Client unsubscribed from order book: {}", symbol);
+        orderBookService.unsubscribe(sessionId, symbol.toUpperCase());
     }
 }
\ No newline at end of file
@@ -31,6 +31,7 @@ public class WebSocketDocumentationController {
                                 "intervals",
                                 List.of("1m", "3m", "5m", "15m", "30m", "1h", "2h", "4h", "6h", "8h", "12h", "1d", "3d",
                                         "1w", "1M"),
+                                "customIntervals", "The intervals configured under market-data.trade-candles.intervals (by default 5s, 10s, 15s, 30s, 2m, 10m, 20m, 45m) are built from the aggTrade stream",
                                 "messageFormat", Map.of(
                                         "symbol", "string",
                                         "interval", "string",
@@ -52,7 +53,8 @@ public class WebSocketDocumentationController {
                                         "low", "43200.00",
                                         "close", "43280.75",
                                         "volume", "150.5",
-                                        "isClosed", true)),
+                                        "isClosed", true),
+                                "note", "A new subscription first receives the latest candle, in progress or closed, if the stream is open"),
                         Map.of(
                                 "destination", "/topic/ticker/{symbol}",
                                 "description", "24-hour ticker statistics for individual symbol",
@@ -76,13 +78,37 @@ public class WebSocketDocumentationController {
                                         "low", "2250.00",
                                         "volume", "50000.5",
                                         "quoteVolume", "115000000.00",
-                                        "timestamp", 1704967200000L)),
+                                        "timestamp", 1704967200000L),
+                                "note", "A new subscription first receives the latest ticker, if the stream is open"),
                         Map.of(
                                 "destination", "/topic/ticker/all",
                                 "description", "Mini ticker for all symbols (array of ticker data)",
                                 "example", "/topic/ticker/all",
                                 "messageFormat", "Array of TickerMessage objects",
-                                "note", "Returns array of all trading pairs, updated every second")),
+                                "note", "Returns array of all trading pairs, updated every second"),
+                        Map.of(
+                                "destination", "/topic/ticker-delta",
+                                "description", "All symbols ticker, sending only the symbols and fields that changed",
+                                "example", "/topic/ticker-delta",
+                                "messageFormat", Map.of(
+                                        "type", "string (snapshot, keyframe or delta)",
+                                        "sequence", "number (consecutive per frame on the topic)",
+                                        "timestamp", "number (timestamp)",
+                                        "tickers", "array of {symbol, changed ticker fields..., timestamp}"),
+                                "note", "Send /app/subscribe/ticker/delta; the snapshot arrives on /user/queue/ticker-delta. Apply frames numbered after it, replace the table on a keyframe, and send /app/snapshot/ticker/delta after a gap in sequence"),
+                        Map.of(
+                                "destination", "/topic/orderbook/{symbol}",
+                                "description", "Order book deltas from the locally maintained book",
+                                "example", "/topic/orderbook/btcusdt",
+                                "messageFormat", Map.of(
+                                        "symbol", "string",
+                                        "snapshot", "boolean (true: bids/asks replace the whole book)",
+                                        "firstUpdateId", "number",
+                                        "lastUpdateId", "number",
+                                        "eventTime", "number (timestamp)",
+                                        "bids", "array of [price, quantity]; quantity 0 removes the level",
+                                        "asks", "array of [price, quantity]; quantity 0 removes the level"),
+                                "note", "Send /app/subscribe/orderbook/{symbol} first; fetch /api/market/orderbook/{symbol} and apply deltas whose firstUpdateId is its lastUpdateId + 1")),
                 "connectionExample", Map.of(
                         "javascript", """
                                 const client = new StompJs.Client({
@@ -102,6 +128,10 @@ public class WebSocketDocumentationController {
                         "Timestamps are in milliseconds since Unix epoch",
                         "Symbol names should be lowercase in topic destinations",
                         "Messages are sent in real-time as data arrives from Binance",
+                        "Add a max-rate header (updates per second) to a kline or ticker SUBSCRIBE to get a throttled stream at the nearest slower rate class",
+                        "SUBSCRIBE to a pattern such as /topic/kline/*/1m or /topic/ticker/{btc,eth,sol}usdt to get every matching topic; {a,b} alternatives of kline and ticker topics also open their streams",
+                        "Topic messages carry seq and seq-epoch headers; after a reconnect, SUBSCRIBE with resume-seq and resume-epoch to get only the missed messages (resume: replay), or the latest one (resume: gap) if too far behind",
+                        "SUBSCRIBE to /app/subscribe/kline/{symbol}/{interval}?history=500 (or add a history: 500 header to a kline SUBSCRIBE) to get the last 500 closed candles as JSON arrays (history: chunk, then history: end), then the candle in progress, then live candles, with no gap or overlap",
                         "Use monitoring endpoints to check active subscriptions")));
     }
 
@@ -120,7 +150,15 @@ public class WebSocketDocumentationController {
                 Map.of(
                         "pattern", "/topic/ticker/all",
                         "description", "All symbols mini ticker",
-                        "example", "/topic/ticker/all")));
+                        "example", "/topic/ticker/all"),
+                Map.of(
+                        "pattern", "/topic/ticker-delta",
+                        "description", "All symbols ticker deltas",
+                        "example", "/topic/ticker-delta"),
+                Map.of(
+                        "pattern", "/topic/orderbook/{symbol}",
+                        "description", "Order book deltas",
+                        "example", "/topic/orderbook/btcusdt")));
     }
 
     @GetMapping("/connection-info")
@@ -1,12 +1,35 @@
 package com.cryptoanalysis.websocket.controller;
 
+import com.cryptoanalysis.websocket.aggregation.KlineRollupService;
+import com.cryptoanalysis.websocket.aggregation.TradeCandleService;
+import com.cryptoanalysis.websocket.bus.MarketDataBus;
+import com.cryptoanalysis.websocket.cluster.ClusteredUpstream;
+import com.cryptoanalysis.websocket.dto.ClusterStatsDto;
+import com.cryptoanalysis.websocket.dto.ConflationStatsDto;
+import com.cryptoanalysis.websocket.dto.DispatchLaneDto;
+import com.cryptoanalysis.websocket.dto.FrameJournalDto;
+import com.cryptoanalysis.websocket.dto.KlineRollupStatsDto;
+import com.cryptoanalysis.websocket.dto.MarketDataBusDto;
+import com.cryptoanalysis.websocket.dto.OrderBookStatsDto;
+import com.cryptoanalysis.websocket.dto.SessionBufferDto;
+import com.cryptoanalysis.websocket.dto.StreamFreshnessDto;
+import com.cryptoanalysis.websocket.dto.TradeCandleStatsDto;
+import com.cryptoanalysis.websocket.dto.UpstreamConnectionDto;
+import com.cryptoanalysis.websocket.dto.WireStatsDto;
+import com.cryptoanalysis.websocket.integration.BinanceWebSocketClient;
+import com.cryptoanalysis.websocket.orderbook.OrderBookService;
+import com.cryptoanalysis.websocket.service.ConflatingBroadcaster;
+import com.cryptoanalysis.websocket.service.TopicPublisher;
+import com.cryptoanalysis.websocket.session.SessionBuffers;
 import com.cryptoanalysis.websocket.service.WebSocketRelayService;
+import com.cryptoanalysis.websocket.wire.SymbolIdRegistry;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -16,6 +39,16 @@ import java.util.Map;
 public class WebSocketMonitoringController {
 
     private final WebSocketRelayService relayService;
+    private final BinanceWebSocketClient binanceWebSocketClient;
+    private final MarketDataBus marketDataBus;
+    private final ConflatingBroadcaster conflatingBroadcaster;
+    private final OrderBookService orderBookService;
+    private final TradeCandleService tradeCandleService;
+    private final KlineRollupService klineRollupService;
+    private final ClusteredUpstream clusteredUpstream;
+    private final SessionBuffers sessionBuffers;
+    private final TopicPublisher topicPublisher;
+    private final SymbolIdRegistry symbolIdRegistry;
 
     @GetMapping("/subscriptions")
     @Operation(summary = "Get all active subscriptions", description = "Returns a map of all active stream subscriptions and their subscriber counts")
@@ -40,13 +73,91 @@ public class WebSocketMonitoringController {
     }
 
     @GetMapping("/health")
-    @Operation(summary = "WebSocket health check", description = "Returns the health status of WebSocket connections")
+    @Operation(summary = "WebSocket health check", description = "Returns per-stream freshness of the upstream Binance streams: time since the last message against each stream's expected cadence")
     public ResponseEntity<Map<String, Object>> getHealth() {
-        Map<String, Integer> subscriptions = relayService.getAllSubscriptions();
+        List<StreamFreshnessDto> streams = binanceWebSocketClient.getStreamFreshness();
+        long staleStreams = streams.stream().filter(StreamFreshnessDto::getStale).count();
+
+        String status = streams.isEmpty() ? "IDLE" : staleStreams > 0 ? "DEGRADED" : "HEALTHY";
 
         return ResponseEntity.ok(Map.of(
-                "status", subscriptions.isEmpty() ? "IDLE" : "ACTIVE",
-                "totalStreams", subscriptions.size(),
-                "totalSubscribers", subscriptions.values().stream().mapToInt(Integer::intValue).sum()));
+                "status", status,
+                "totalStreams", streams.size(),
+                "staleStreams", staleStreams,
+                "streams", streams,
+                "gapFillsStarted", binanceWebSocketClient.getGapFillsStarted(),
+                "candlesGapFilled", binanceWebSocketClient.getCandlesGapFilled()));
+    }
+
+    @GetMapping("/connections")
+    @Operation(summary = "Get upstream Binance connections", description = "Returns per-connection stream counts, message rates and reconnect history for the upstream connection pool")
+    public ResponseEntity<List<UpstreamConnectionDto>> getUpstreamConnections() {
+        return ResponseEntity.ok(binanceWebSocketClient.getConnectionStats());
+    }
+
+    @GetMapping("/lanes")
+    @Operation(summary = "Get dispatch lane metrics", description = "Returns queue depth and publish-to-callback lag for each stream's ordered dispatch lane of the lane consumers")
+    public ResponseEntity<List<DispatchLaneDto>> getDispatchLanes() {
+        return ResponseEntity.ok(marketDataBus.getLaneStats());
+    }
+
+    @GetMapping("/bus")
+    @Operation(summary = "Get market data bus metrics", description = "Returns ring buffer occupancy and each consumer's sequence, backlog, lost events and latency")
+    public ResponseEntity<MarketDataBusDto> getMarketDataBus() {
+        return ResponseEntity.ok(marketDataBus.getStats());
+    }
+
+    @GetMapping("/conflation")
+    @Operation(summary = "Get relay conflation metrics", description = "Returns received, published, collapsed and duplicate update counts per topic class and the collapsed-update ratio")
+    public ResponseEntity<ConflationStatsDto> getConflation() {
+        return ResponseEntity.ok(conflatingBroadcaster.getStats());
+    }
+
+    @GetMapping("/orderbooks")
+    @Operation(summary = "Get local order book status", description = "Returns sync state, depth, applied updates and resync count of every locally maintained order book")
+    public ResponseEntity<List<OrderBookStatsDto>> getOrderBooks() {
+        return ResponseEntity.ok(orderBookService.getStats());
+    }
+
+    @GetMapping("/trade-candles")
+    @Operation(summary = "Get trade-built candle metrics", description = "Returns applied, duplicate and late trade counts and amended candles for every interval built from aggTrade streams")
+    public ResponseEntity<List<TradeCandleStatsDto>> getTradeCandles() {
+        return ResponseEntity.ok(tradeCandleService.getStats());
+    }
+
+    @GetMapping("/rollups")
+    @Operation(summary = "Get kline rollup metrics", description = "Returns seeding state, applied and duplicate 1m updates and closed candles for every interval rolled up from a 1m stream")
+    public ResponseEntity<List<KlineRollupStatsDto>> getRollups() {
+        return ResponseEntity.ok(klineRollupService.getStats());
+    }
+
+    @GetMapping("/sessions")
+    @Operation(summary = "Get per-session send buffers", description = "Returns queued frames and bytes, frames sent and frames conflated for every connected WebSocket session, deepest queue first")
+    public ResponseEntity<List<SessionBufferDto>> getSessionBuffers() {
+        return ResponseEntity.ok(sessionBuffers.getStats());
+    }
+
+    @GetMapping("/cluster")
+    @Operation(summary = "Get clustered relay state", description = "Returns this node's id, the upstream streams its clients need and those it owns, and event and failover counters")
+    public ResponseEntity<ClusterStatsDto> getClusterStats() {
+        return ResponseEntity.ok(clusteredUpstream.getStats());
+    }
+
+    @GetMapping("/wire")
+    @Operation(summary = "Get wire format metrics", description = "Returns messages encoded and bytes sent per topic and wire format (JSON or binary), before permessage-deflate")
+    public ResponseEntity<WireStatsDto> getWireStats() {
+        return ResponseEntity.ok(topicPublisher.getStats());
+    }
+
+    @GetMapping("/wire/symbols")
+    @Operation(summary = "Get binary symbol ids", description = "Returns the symbol id table binary frames refer to; refetch it when a frame carries an unknown id")
+    public ResponseEntity<Map<Integer, String>> getSymbolIds() {
+        return ResponseEntity.ok(symbolIdRegistry.getSymbols());
+    }
+
+    @GetMapping("/journal")
+    @Operation(summary = "Get frame journal status", description = "Returns capture counters in RECORD mode and progress and throughput of the replay in REPLAY mode")
+    public ResponseEntity<FrameJournalDto> getFrameJournal() {
+        return ResponseEntity.ok(binanceWebSocketClient.getJournalStats());
     }
 }
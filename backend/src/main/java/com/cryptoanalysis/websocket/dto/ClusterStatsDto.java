@@ -0,0 +1,35 @@
+package com.cryptoanalysis.websocket.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterStatsDto {
+    private Boolean enabled;
+    private String nodeId;
+    /**
+     * Upstream streams this node's own subscribers need
+     */
+    private List<String> wantedStreams;
+    /**
+     * Upstream streams this node holds the lease for and reads from Binance
+     */
+    private List<String> ownedStreams;
+    private Long eventsForwarded;
+    private Long eventsReceived;
+    /**
+     * Leases taken over after another owner's lapsed
+     */
+    private Long takeovers;
+    /**
+     * Leases this node found taken by another node when renewing
+     */
+    private Long leasesLost;
+}
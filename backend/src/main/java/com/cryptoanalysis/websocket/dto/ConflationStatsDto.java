@@ -0,0 +1,46 @@
+package com.cryptoanalysis.websocket.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConflationStatsDto {
+    private Boolean enabled;
+    /**
+     * Destinations holding an update that has not been broadcast yet
+     */
+    private Integer pendingDestinations;
+    private List<TopicStats> topics;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TopicStats {
+        /**
+         * kline, ticker or ticker_all
+         */
+        private String topic;
+        private Long received;
+        private Long published;
+        /**
+         * Updates replaced by a newer one before they were broadcast
+         */
+        private Long collapsed;
+        /**
+         * Updates identical to the last broadcast or pending value
+         */
+        private Long duplicates;
+        /**
+         * (collapsed + duplicates) / received
+         */
+        private Double collapsedRatio;
+    }
+}
@@ -0,0 +1,28 @@
+package com.cryptoanalysis.websocket.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One {@code depthUpdate} event from a {@code <symbol>@depth@100ms} stream.
+ * Levels are kept as flattened (price, quantity) mantissa pairs at
+ * {@link #priceScale}/{@link #quantityScale}; a zero quantity removes the level.
+ */
+@Data
+@NoArgsConstructor
+public class DepthUpdateDto {
+    private String symbol;
+    private long eventTime;
+    /**
+     * First update id in this event ("U")
+     */
+    private long firstUpdateId;
+    /**
+     * Final update id in this event ("u")
+     */
+    private long finalUpdateId;
+    private int priceScale;
+    private int quantityScale;
+    private long[] bids;
+    private long[] asks;
+}
@@ -0,0 +1,28 @@
+package com.cryptoanalysis.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DispatchLaneDto {
+    private String consumer;
+    private String stream;
+    private Integer queueDepth;
+    private Long enqueued;
+    private Long processed;
+    private Long failed;
+    /**
+     * Age of the oldest event still waiting in the lane
+     */
+    private Double currentLagMs;
+    /**
+     * Publish-to-callback delay of the most recently processed event
+     */
+    private Double lastLagMs;
+    private Double maxLagMs;
+}
@@ -0,0 +1,30 @@
+package com.cryptoanalysis.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FrameJournalDto {
+    /**
+     * OFF, RECORD or REPLAY
+     */
+    private String mode;
+    private String directory;
+    private String currentSegment;
+    private Long framesWritten;
+    private Long bytesWritten;
+    /**
+     * Frames too large to fit in a segment
+     */
+    private Long framesDropped;
+    private Long framesReplayed;
+    private Double replaySpeed;
+    private Long replayElapsedMs;
+    private Double replayFramesPerSecond;
+    private Boolean replayFinished;
+}
@@ -1,6 +1,6 @@
 package com.cryptoanalysis.websocket.dto;
 
-import java.math.BigDecimal;
+import com.cryptoanalysis.core.model.ScaledDecimal;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,12 +20,19 @@ public class KlineDto {
     private String interval;
     private Long openTime;
     private Long closeTime;
-    private BigDecimal open;
-    private BigDecimal close;
-    private BigDecimal high;
-    private BigDecimal low;
-    private BigDecimal volume;
-    private BigDecimal quoteVolume;
+    private ScaledDecimal open;
+    private ScaledDecimal close;
+    private ScaledDecimal high;
+    private ScaledDecimal low;
+    private ScaledDecimal volume;
+    private ScaledDecimal quoteVolume;
     private Integer tradesCount;
+    private ScaledDecimal takerBuyVolume;
+    private ScaledDecimal takerBuyQuoteVolume;
     private Boolean isClosed;
+    /**
+     * True for a candle built from trades that started mid-interval and so
+     * misses the interval's earlier trades; such candles are not persisted.
+     */
+    private Boolean partial;
 }
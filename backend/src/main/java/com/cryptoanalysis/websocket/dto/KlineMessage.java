@@ -1,6 +1,6 @@
 package com.cryptoanalysis.websocket.dto;
 
-import java.math.BigDecimal;
+import com.cryptoanalysis.core.model.ScaledDecimal;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -20,10 +20,10 @@ public class KlineMessage {
     private String interval;
     private Long openTime;
     private Long closeTime;
-    private BigDecimal open;
-    private BigDecimal high;
-    private BigDecimal low;
-    private BigDecimal close;
-    private BigDecimal volume;
+    private ScaledDecimal open;
+    private ScaledDecimal high;
+    private ScaledDecimal low;
+    private ScaledDecimal close;
+    private ScaledDecimal volume;
     private Boolean isClosed;
 }
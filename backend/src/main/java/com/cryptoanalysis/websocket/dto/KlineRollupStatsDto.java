@@ -0,0 +1,24 @@
+package com.cryptoanalysis.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KlineRollupStatsDto {
+    private String symbol;
+    private String interval;
+    /**
+     * True while live minutes are held waiting for REST history
+     */
+    private Boolean seeding;
+    private Long updatesApplied;
+    private Long duplicates;
+    private Long lateUpdates;
+    private Long seeds;
+    private Long candlesClosed;
+}
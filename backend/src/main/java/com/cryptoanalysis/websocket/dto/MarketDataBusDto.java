@@ -0,0 +1,48 @@
+package com.cryptoanalysis.websocket.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MarketDataBusDto {
+    private Integer capacity;
+    /**
+     * Sequence of the most recently published event
+     */
+    private Long cursor;
+    /**
+     * Backlog of the slowest consumer as a fraction of capacity
+     */
+    private Double occupancy;
+    private List<ConsumerStats> consumers;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConsumerStats {
+        private String name;
+        private String waitStrategy;
+        private Long sequence;
+        private Long backlog;
+        private Double occupancy;
+        private Long processed;
+        /**
+         * Events overwritten before this consumer read them
+         */
+        private Long lost;
+        private Long failed;
+        /**
+         * Publish-to-consume delay of the most recently processed event
+         */
+        private Double lastLatencyMs;
+        private Double maxLatencyMs;
+    }
+}
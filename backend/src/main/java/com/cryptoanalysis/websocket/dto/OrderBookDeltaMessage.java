@@ -0,0 +1,35 @@
+package com.cryptoanalysis.websocket.dto;
+
+import java.util.List;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBookDeltaMessage {
+    private String symbol;
+    /**
+     * True when the book was (re)synchronised: bids and asks hold the full
+     * top of book and replace anything the client has.
+     */
+    private Boolean snapshot;
+    /**
+     * A delta applies to a book whose lastUpdateId is firstUpdateId - 1;
+     * anything else means the client missed a message and should refetch.
+     */
+    private Long firstUpdateId;
+    private Long lastUpdateId;
+    private Long eventTime;
+    /**
+     * [price, quantity] pairs; quantity 0 removes the level
+     */
+    private List<ScaledDecimal[]> bids;
+    private List<ScaledDecimal[]> asks;
+}
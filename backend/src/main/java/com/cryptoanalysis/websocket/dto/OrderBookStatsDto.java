@@ -0,0 +1,26 @@
+package com.cryptoanalysis.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBookStatsDto {
+    private String symbol;
+    private Boolean synced;
+    private Long lastUpdateId;
+    private Integer bidLevels;
+    private Integer askLevels;
+    /**
+     * Diff events held while waiting for a REST snapshot
+     */
+    private Integer bufferedEvents;
+    private Long updatesApplied;
+    private Long resyncs;
+    private Integer subscribers;
+    private Long lastEventTime;
+}
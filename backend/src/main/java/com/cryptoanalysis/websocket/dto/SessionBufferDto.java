@@ -0,0 +1,28 @@
+package com.cryptoanalysis.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionBufferDto {
+    private String sessionId;
+    /**
+     * Frames waiting to be written to the socket
+     */
+    private Integer queuedMessages;
+    private Long queuedBytes;
+    private Long sent;
+    /**
+     * Waiting frames replaced by a newer frame for the same destination
+     */
+    private Long conflated;
+    /**
+     * Milliseconds the session has been over its limit, 0 when it is not
+     */
+    private Long overLimitMillis;
+}
@@ -0,0 +1,37 @@
+package com.cryptoanalysis.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StreamFreshnessDto {
+    private String stream;
+    private Integer connectionId;
+    /**
+     * Documented gap between messages for the stream's type
+     */
+    private Long expectedIntervalMs;
+    /**
+     * Moving average of the observed gap between messages
+     */
+    private Double observedIntervalMs;
+    /**
+     * Silence after which the stream is flagged; null for event-driven streams, which never are
+     */
+    private Long staleThresholdMs;
+    /**
+     * Time since the last message, or since subscribing if none arrived yet
+     */
+    private Long lastMessageAgeMs;
+    private Long messages;
+    private Boolean stale;
+    /**
+     * Times the stream was found stale and recovery was attempted
+     */
+    private Long staleCount;
+}
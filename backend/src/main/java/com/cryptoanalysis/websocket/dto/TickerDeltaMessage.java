@@ -0,0 +1,32 @@
+package com.cryptoanalysis.websocket.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TickerDeltaMessage {
+    /**
+     * snapshot (sent to one session), keyframe (full table on the topic) or delta
+     */
+    private String type;
+    /**
+     * Topic frames are numbered consecutively; a snapshot carries the number
+     * of the last frame it already includes. A client that sees a number other
+     * than the previous one + 1 has missed a frame and should request a snapshot.
+     */
+    private Long sequence;
+    private Long timestamp;
+    /**
+     * One entry per symbol: its symbol and, in a delta, only the fields that
+     * changed since the previous frame
+     */
+    private List<Map<String, Object>> tickers;
+}
@@ -1,6 +1,6 @@
 package com.cryptoanalysis.websocket.dto;
 
-import java.math.BigDecimal;
+import com.cryptoanalysis.core.model.ScaledDecimal;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -13,13 +13,13 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class TickerDto {
     private String symbol;
-    private BigDecimal price;
-    private BigDecimal priceChange;
-    private BigDecimal priceChangePercent;
-    private BigDecimal open;
-    private BigDecimal high;
-    private BigDecimal low;
-    private BigDecimal volume;
-    private BigDecimal quoteVolume;
+    private ScaledDecimal price;
+    private ScaledDecimal priceChange;
+    private ScaledDecimal priceChangePercent;
+    private ScaledDecimal open;
+    private ScaledDecimal high;
+    private ScaledDecimal low;
+    private ScaledDecimal volume;
+    private ScaledDecimal quoteVolume;
     private Long timestamp;
 }
@@ -4,7 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import java.math.BigDecimal;
+import com.cryptoanalysis.core.model.ScaledDecimal;
 
 @Data
 @Builder
@@ -12,12 +12,12 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class TickerMessage {
     private String symbol;
-    private BigDecimal price;
-    private BigDecimal priceChange;
-    private BigDecimal priceChangePercent;
-    private BigDecimal high;
-    private BigDecimal low;
-    private BigDecimal volume;
-    private BigDecimal quoteVolume;
+    private ScaledDecimal price;
+    private ScaledDecimal priceChange;
+    private ScaledDecimal priceChangePercent;
+    private ScaledDecimal high;
+    private ScaledDecimal low;
+    private ScaledDecimal volume;
+    private ScaledDecimal quoteVolume;
     private Long timestamp;
 }
\ No newline at end of file
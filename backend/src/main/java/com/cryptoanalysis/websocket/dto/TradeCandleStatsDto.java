@@ -0,0 +1,29 @@
+package com.cryptoanalysis.websocket.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeCandleStatsDto {
+    private String symbol;
+    private String interval;
+    private Long tradesApplied;
+    /**
+     * Trades seen again after a reconnect or stream hand-over
+     */
+    private Long duplicates;
+    /**
+     * Trades that arrived after their candle and the one after it had closed
+     */
+    private Long lateTrades;
+    /**
+     * Closed candles re-emitted with a late trade included
+     */
+    private Long amendments;
+    private Long candlesClosed;
+}
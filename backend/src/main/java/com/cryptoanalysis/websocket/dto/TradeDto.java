@@ -0,0 +1,30 @@
+package com.cryptoanalysis.websocket.dto;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One {@code aggTrade} event: all fills of one taker order at one price.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeDto {
+    private String symbol;
+    private Long aggTradeId;
+    private ScaledDecimal price;
+    private ScaledDecimal quantity;
+    private Long firstTradeId;
+    private Long lastTradeId;
+    private Long tradeTime;
+    private Long eventTime;
+    /**
+     * True when the buyer was the maker, i.e. the taker sold
+     */
+    private Boolean buyerMaker;
+}
@@ -0,0 +1,38 @@
+package com.cryptoanalysis.websocket.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UpstreamConnectionDto {
+    private Integer id;
+    private Boolean dedicated;
+    private Boolean open;
+    private Integer streamCount;
+    private List<String> streams;
+    private Double expectedMessageRate;
+    private Double messageRate;
+    private Long messagesReceived;
+    private Integer reconnectCount;
+    private List<ConnectionEvent> history;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ConnectionEvent {
+        private Long timestamp;
+        /**
+         * CONNECTED, DISCONNECTED, CONNECT_FAILED, RECONNECT_SCHEDULED, STALE or GAVE_UP
+         */
+        private String type;
+        private String detail;
+    }
+}
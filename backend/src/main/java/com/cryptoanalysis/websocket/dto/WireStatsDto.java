@@ -0,0 +1,57 @@
+package com.cryptoanalysis.websocket.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WireStatsDto {
+    private Boolean binaryEnabled;
+    private Boolean perMessageDeflate;
+    private List<TopicBytes> topics;
+    /**
+     * Destinations with a last value to hand new subscribers
+     */
+    private Integer lastValueDestinations;
+    /**
+     * Last values sent to sessions as they subscribed
+     */
+    private Long lastValuesDelivered;
+    /**
+     * Resubscriptions sent the messages they missed
+     */
+    private Long resumesReplayed;
+    /**
+     * Resubscriptions too far behind, sent the latest message as a gap
+     */
+    private Long resumeGaps;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TopicBytes {
+        /**
+         * kline, ticker or ticker_all
+         */
+        private String topic;
+        /**
+         * json or binary
+         */
+        private String format;
+        /**
+         * Messages encoded, once per broadcast regardless of the number of subscribers
+         */
+        private Long messagesEncoded;
+        /**
+         * Payload bytes times subscribers, before any permessage-deflate compression
+         */
+        private Long bytesSent;
+    }
+}
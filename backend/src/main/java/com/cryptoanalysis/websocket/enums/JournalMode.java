@@ -0,0 +1,7 @@
+package com.cryptoanalysis.websocket.enums;
+
+public enum JournalMode {
+    OFF,
+    RECORD,
+    REPLAY
+}
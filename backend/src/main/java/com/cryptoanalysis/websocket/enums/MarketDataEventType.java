@@ -0,0 +1,9 @@
+package com.cryptoanalysis.websocket.enums;
+
+public enum MarketDataEventType {
+    KLINE,
+    TICKER,
+    MINI_TICKER,
+    TRADE,
+    DEPTH
+}
@@ -0,0 +1,6 @@
+package com.cryptoanalysis.websocket.enums;
+
+public enum OverflowPolicy {
+    CONFLATE,
+    DISCONNECT
+}
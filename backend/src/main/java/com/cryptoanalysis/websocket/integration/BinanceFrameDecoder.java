@@ -0,0 +1,384 @@
+package com.cryptoanalysis.websocket.integration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.DepthUpdateDto;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.TickerDto;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+import com.cryptoanalysis.websocket.service.SymbolPrecisionService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Token-streaming decoder for Binance combined-stream frames.
+ * Fills {@link KlineDto}/{@link TickerDto}/{@link DepthUpdateDto}/{@link TradeDto} straight from the parser instead of
+ * building a JsonNode tree, reads prices and quantities from the parser's char
+ * buffer into {@link ScaledDecimal}s at the symbol's precision, and interns
+ * symbol, interval and stream names so steady-state frames allocate only the
+ * DTOs and their values.
+ */
+class BinanceFrameDecoder {
+
+    private static final int NAME_CACHE_SIZE = 8192;
+
+    /**
+     * Percent changes are not prices; keep Binance's usual two decimals as the floor.
+     */
+    private static final int PERCENT_SCALE = 2;
+
+    private final JsonFactory jsonFactory;
+    private final SymbolPrecisionService precisionService;
+    private final String[] nameCache = new String[NAME_CACHE_SIZE];
+
+    BinanceFrameDecoder(JsonFactory jsonFactory, SymbolPrecisionService precisionService) {
+        this.jsonFactory = jsonFactory;
+        this.precisionService = precisionService;
+    }
+
+    /**
+     * A decoded frame: either a stream event or the reply to a control request.
+     */
+    static final class Frame {
+        private final String stream;
+        private final Object event;
+        private final String error;
+
+        private Frame(String stream, Object event, String error) {
+            this.stream = stream;
+            this.event = event;
+            this.error = error;
+        }
+
+        String getStream() {
+            return stream;
+        }
+
+        /**
+         * {@link KlineDto}, {@link TickerDto}, {@link DepthUpdateDto}, {@link TradeDto} or
+         * {@code List<TickerDto>}; null for control replies.
+         */
+        Object getEvent() {
+            return event;
+        }
+
+        String getError() {
+            return error;
+        }
+
+        boolean isControlReply() {
+            return stream == null;
+        }
+    }
+
+    Frame decode(String payload) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected JSON object frame");
+            }
+
+            String stream = null;
+            Object event = null;
+            String error = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+
+                switch (field) {
+                    case "stream" -> stream = internText(parser);
+                    case "data" -> event = token == JsonToken.START_ARRAY
+                            ? decodeMiniTickers(parser)
+                            : decodeEvent(parser);
+                    case "error" -> error = decodeError(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+
+            return new Frame(stream, event, error);
+        }
+    }
+
+    private List<TickerDto> decodeMiniTickers(JsonParser parser) throws IOException {
+        List<TickerDto> tickers = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            Object event = decodeEvent(parser);
+            if (event instanceof TickerDto ticker) {
+                tickers.add(ticker);
+            }
+        }
+
+        return tickers;
+    }
+
+    /**
+     * Decode one event object. Tickers and depth updates are filled in whatever
+     * order their fields arrive, since the event type in "e" is only needed once
+     * the object is complete. Trades reuse letters those events give another
+     * meaning ("p", "q", "a", "l"), so a trade is handed to its own branch as soon
+     * as its "e" is read; Binance sends "e" first. Binance also sends "s" before
+     * the numeric fields; if it did not, values would simply keep the default scale.
+     */
+    private Object decodeEvent(JsonParser parser) throws IOException {
+        String eventType = null;
+        String symbol = null;
+        int priceScale = SymbolPrecisionService.DEFAULT_SCALE;
+        int quantityScale = SymbolPrecisionService.DEFAULT_SCALE;
+        long eventTime = 0;
+        KlineDto kline = null;
+        ScaledDecimal close = null;
+        ScaledDecimal priceChange = null;
+        ScaledDecimal priceChangePercent = null;
+        ScaledDecimal open = null;
+        ScaledDecimal high = null;
+        ScaledDecimal low = null;
+        ScaledDecimal volume = null;
+        ScaledDecimal quoteVolume = null;
+        long firstUpdateId = 0;
+        long finalUpdateId = 0;
+        long[] bids = null;
+        long[] asks = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "e" -> {
+                    eventType = internText(parser);
+                    if ("aggTrade".equals(eventType)) {
+                        return decodeAggTrade(parser, eventTime);
+                    }
+                }
+                case "E" -> eventTime = parser.getLongValue();
+                case "s" -> {
+                    symbol = internText(parser);
+                    priceScale = precisionService.getPriceScale(symbol);
+                    quantityScale = precisionService.getQuantityScale(symbol);
+                }
+                case "k" -> kline = decodeKline(parser);
+                case "c" -> close = decimal(parser, priceScale);
+                case "p" -> priceChange = decimal(parser, priceScale);
+                case "P" -> priceChangePercent = decimal(parser, PERCENT_SCALE);
+                case "o" -> open = decimal(parser, priceScale);
+                case "h" -> high = decimal(parser, priceScale);
+                case "l" -> low = decimal(parser, priceScale);
+                case "v" -> volume = decimal(parser, quantityScale);
+                case "q" -> quoteVolume = decimal(parser, priceScale);
+                case "U" -> firstUpdateId = parser.getLongValue();
+                case "u" -> finalUpdateId = parser.getLongValue();
+                // Tickers use "b"/"a" for best bid/ask strings; only depth updates send arrays
+                case "b" -> bids = levels(parser, priceScale, quantityScale);
+                case "a" -> asks = levels(parser, priceScale, quantityScale);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (eventType == null) {
+            return null;
+        }
+
+        return switch (eventType) {
+            case "kline" -> kline;
+            case "24hrTicker", "24hrMiniTicker" -> {
+                TickerDto ticker = new TickerDto();
+                ticker.setSymbol(symbol);
+                ticker.setPrice(close);
+                ticker.setPriceChange(priceChange);
+                ticker.setPriceChangePercent(priceChangePercent);
+                ticker.setOpen(open);
+                ticker.setHigh(high);
+                ticker.setLow(low);
+                ticker.setVolume(volume);
+                ticker.setQuoteVolume(quoteVolume);
+                ticker.setTimestamp(eventTime);
+                yield ticker;
+            }
+            case "depthUpdate" -> {
+                DepthUpdateDto depth = new DepthUpdateDto();
+                depth.setSymbol(symbol);
+                depth.setEventTime(eventTime);
+                depth.setFirstUpdateId(firstUpdateId);
+                depth.setFinalUpdateId(finalUpdateId);
+                depth.setPriceScale(priceScale);
+                depth.setQuantityScale(quantityScale);
+                depth.setBids(bids != null ? bids : new long[0]);
+                depth.setAsks(asks != null ? asks : new long[0]);
+                yield depth;
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * Decode the rest of an aggTrade event, where "p" and "q" are price and
+     * quantity rather than price change and quote volume.
+     */
+    private TradeDto decodeAggTrade(JsonParser parser, long eventTime) throws IOException {
+        TradeDto trade = new TradeDto();
+        trade.setEventTime(eventTime);
+        int priceScale = SymbolPrecisionService.DEFAULT_SCALE;
+        int quantityScale = SymbolPrecisionService.DEFAULT_SCALE;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "E" -> trade.setEventTime(parser.getLongValue());
+                case "s" -> {
+                    trade.setSymbol(internText(parser));
+                    priceScale = precisionService.getPriceScale(trade.getSymbol());
+                    quantityScale = precisionService.getQuantityScale(trade.getSymbol());
+                }
+                case "a" -> trade.setAggTradeId(parser.getLongValue());
+                case "p" -> trade.setPrice(decimal(parser, priceScale));
+                case "q" -> trade.setQuantity(decimal(parser, quantityScale));
+                case "f" -> trade.setFirstTradeId(parser.getLongValue());
+                case "l" -> trade.setLastTradeId(parser.getLongValue());
+                case "T" -> trade.setTradeTime(parser.getLongValue());
+                case "m" -> trade.setBuyerMaker(parser.getBooleanValue());
+                default -> parser.skipChildren();
+            }
+        }
+
+        return trade;
+    }
+
+    private KlineDto decodeKline(JsonParser parser) throws IOException {
+        KlineDto kline = new KlineDto();
+        int priceScale = SymbolPrecisionService.DEFAULT_SCALE;
+        int quantityScale = SymbolPrecisionService.DEFAULT_SCALE;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "s" -> {
+                    kline.setSymbol(internText(parser));
+                    priceScale = precisionService.getPriceScale(kline.getSymbol());
+                    quantityScale = precisionService.getQuantityScale(kline.getSymbol());
+                }
+                case "i" -> kline.setInterval(internText(parser));
+                case "t" -> kline.setOpenTime(parser.getLongValue());
+                case "T" -> kline.setCloseTime(parser.getLongValue());
+                case "o" -> kline.setOpen(decimal(parser, priceScale));
+                case "c" -> kline.setClose(decimal(parser, priceScale));
+                case "h" -> kline.setHigh(decimal(parser, priceScale));
+                case "l" -> kline.setLow(decimal(parser, priceScale));
+                case "v" -> kline.setVolume(decimal(parser, quantityScale));
+                case "q" -> kline.setQuoteVolume(decimal(parser, priceScale));
+                case "n" -> kline.setTradesCount(parser.getIntValue());
+                case "V" -> kline.setTakerBuyVolume(decimal(parser, quantityScale));
+                case "Q" -> kline.setTakerBuyQuoteVolume(decimal(parser, priceScale));
+                case "x" -> kline.setIsClosed(parser.getBooleanValue());
+                default -> parser.skipChildren();
+            }
+        }
+
+        return kline;
+    }
+
+    /**
+     * Read {@code [["price", "qty"], ...]} into flattened (price, quantity)
+     * mantissa pairs at the given scales. Returns null for anything but an array.
+     */
+    private long[] levels(JsonParser parser, int priceScale, int quantityScale) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+
+        long[] levels = new long[32];
+        int size = 0;
+
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            parser.nextToken();
+            long price = decimal(parser, priceScale).setScale(priceScale).mantissa();
+            parser.nextToken();
+            long quantity = decimal(parser, quantityScale).setScale(quantityScale).mantissa();
+
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+
+            if (size + 2 > levels.length) {
+                levels = Arrays.copyOf(levels, levels.length * 2);
+            }
+            levels[size++] = price;
+            levels[size++] = quantity;
+        }
+
+        return Arrays.copyOf(levels, size);
+    }
+
+    private String decodeError(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return parser.getValueAsString();
+        }
+
+        String code = null;
+        String message = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "code" -> code = parser.getValueAsString();
+                case "msg" -> message = parser.getValueAsString();
+                default -> parser.skipChildren();
+            }
+        }
+
+        return code + ": " + message;
+    }
+
+    /**
+     * Binance sends prices and quantities as JSON strings; parse them without
+     * materialising an intermediate String or BigDecimal.
+     */
+    private static ScaledDecimal decimal(JsonParser parser, int scale) throws IOException {
+        return ScaledDecimal.parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(), scale);
+    }
+
+    /**
+     * Return a cached String for short, highly repetitive values (symbols,
+     * intervals, stream names). Slots are overwritten on collision; a racing
+     * write between socket threads only costs a cache miss.
+     */
+    private String internText(JsonParser parser) throws IOException {
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+
+        int slot = (hash ^ (hash >>> 16)) & (NAME_CACHE_SIZE - 1);
+        String cached = nameCache[slot];
+
+        if (cached != null && cached.length() == length) {
+            boolean match = true;
+            for (int i = 0; i < length && match; i++) {
+                match = cached.charAt(i) == chars[offset + i];
+            }
+            if (match) {
+                return cached;
+            }
+        }
+
+        String value = new String(chars, offset, length);
+        nameCache[slot] = value;
+        return value;
+    }
+}
@@ -0,0 +1,480 @@
+package com.cryptoanalysis.websocket.integration;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import com.cryptoanalysis.websocket.config.BinanceWebSocketConfig;
+import com.cryptoanalysis.websocket.dto.UpstreamConnectionDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One upstream socket to Binance's combined-stream endpoint.
+ * Streams are added and removed on the live socket with SUBSCRIBE/UNSUBSCRIBE
+ * control frames, which are batched and sent no faster than the exchange's
+ * inbound message-rate limit. Idle ticks of the same budget carry keep-alive
+ * pings; a ping left unanswered forces a reconnect.
+ */
+@Slf4j
+class BinanceStreamConnection {
+
+    /**
+     * Streams placed in the connect URL; the remainder are subscribed with
+     * control frames once the socket is open.
+     */
+    private static final int MAX_STREAMS_IN_URL = 100;
+
+    private static final int MAX_HISTORY_EVENTS = 20;
+
+    interface Listener {
+        void onFrame(BinanceStreamConnection connection, String payload);
+
+        /**
+         * The socket is open again with {@code streams}; events sent while it was down are lost.
+         */
+        void onConnected(BinanceStreamConnection connection, Set<String> streams);
+
+        void onConnectionLost(BinanceStreamConnection connection, Set<String> streams);
+    }
+
+    private final int id;
+    private final boolean dedicated;
+    private final BinanceWebSocketConfig config;
+    private final ObjectMapper objectMapper;
+    private final WebSocketClient webSocketClient;
+    private final ScheduledExecutorService scheduler;
+    private final Listener listener;
+
+    private final Set<String> streams = new LinkedHashSet<>();
+    private final Set<String> pendingSubscribe = new LinkedHashSet<>();
+    private final Set<String> pendingUnsubscribe = new LinkedHashSet<>();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final AtomicBoolean connecting = new AtomicBoolean();
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private final Deque<UpstreamConnectionDto.ConnectionEvent> history = new ArrayDeque<>();
+    private final ScheduledFuture<?> controlTask;
+    private volatile WebSocketSession session;
+    private volatile boolean shutdown;
+    private volatile double messageRate;
+    private volatile long lastPingSentAt;
+    private volatile long lastPongAt;
+    private long lastSampleCount;
+    private long lastSampleTime = System.currentTimeMillis();
+    private int reconnectCount;
+
+    BinanceStreamConnection(int id, boolean dedicated, BinanceWebSocketConfig config, ObjectMapper objectMapper,
+            WebSocketClient webSocketClient, ScheduledExecutorService scheduler, Listener listener) {
+        this.id = id;
+        this.dedicated = dedicated;
+        this.config = config;
+        this.objectMapper = objectMapper;
+        this.webSocketClient = webSocketClient;
+        this.scheduler = scheduler;
+        this.listener = listener;
+
+        // One control frame per tick keeps us under the per-connection inbound limit
+        long period = (long) Math.ceil(1000.0 / config.getMaxControlMessagesPerSecond());
+        this.controlTask = scheduler.scheduleWithFixedDelay(
+                this::flushControlFrame, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    boolean isDedicated() {
+        return dedicated;
+    }
+
+    synchronized Set<String> getStreams() {
+        return Set.copyOf(streams);
+    }
+
+    synchronized int getStreamCount() {
+        return streams.size();
+    }
+
+    synchronized boolean contains(String streamName) {
+        return streams.contains(streamName);
+    }
+
+    /**
+     * Sum of the documented message rates of every stream on this socket.
+     */
+    synchronized double getExpectedLoad() {
+        return streams.stream()
+                .mapToDouble(s -> BinanceStreamType.of(s).getExpectedMessagesPerSecond())
+                .sum();
+    }
+
+    /**
+     * Turn the received-message counter into a rate over the time since the last sample.
+     */
+    synchronized void sampleMessageRate() {
+        long now = System.currentTimeMillis();
+        long count = messagesReceived.get();
+        long elapsed = now - lastSampleTime;
+
+        if (elapsed > 0) {
+            messageRate = (count - lastSampleCount) * 1000.0 / elapsed;
+        }
+
+        lastSampleCount = count;
+        lastSampleTime = now;
+    }
+
+    synchronized UpstreamConnectionDto toDto() {
+        return UpstreamConnectionDto.builder()
+                .id(id)
+                .dedicated(dedicated)
+                .open(isOpen())
+                .streamCount(streams.size())
+                .streams(List.copyOf(streams))
+                .expectedMessageRate(getExpectedLoad())
+                .messageRate(messageRate)
+                .messagesReceived(messagesReceived.get())
+                .reconnectCount(reconnectCount)
+                .history(List.copyOf(history))
+                .build();
+    }
+
+    private synchronized void recordEvent(String type, String detail) {
+        if (history.size() == MAX_HISTORY_EVENTS) {
+            history.removeFirst();
+        }
+
+        history.addLast(UpstreamConnectionDto.ConnectionEvent.builder()
+                .timestamp(System.currentTimeMillis())
+                .type(type)
+                .detail(detail)
+                .build());
+    }
+
+    boolean isOpen() {
+        WebSocketSession current = session;
+        return current != null && current.isOpen();
+    }
+
+    synchronized void subscribe(String streamName) {
+        if (!streams.add(streamName)) {
+            return;
+        }
+
+        pendingUnsubscribe.remove(streamName);
+
+        if (isOpen()) {
+            pendingSubscribe.add(streamName);
+        } else {
+            scheduleConnect(0, 0);
+        }
+    }
+
+    synchronized void unsubscribe(String streamName) {
+        if (!streams.remove(streamName)) {
+            return;
+        }
+
+        pendingSubscribe.remove(streamName);
+
+        if (streams.isEmpty()) {
+            // Closing an idle socket is cheaper than keeping it open with nothing on it
+            pendingUnsubscribe.clear();
+            closeSession();
+        } else if (isOpen()) {
+            pendingUnsubscribe.add(streamName);
+        }
+    }
+
+    /**
+     * Ask Binance for a stream again on the live socket, e.g. after it went
+     * quiet while the rest of the connection kept flowing.
+     */
+    synchronized void resubscribe(String streamName) {
+        if (streams.contains(streamName) && isOpen()) {
+            pendingUnsubscribe.remove(streamName);
+            pendingSubscribe.add(streamName);
+        }
+    }
+
+    /**
+     * Drop a socket that is no longer delivering and connect again. A
+     * connection left without a socket, e.g. one the exchange closed normally,
+     * connects again unless a reconnect is already scheduled.
+     */
+    void forceReconnect(String reason) {
+        WebSocketSession current;
+        synchronized (this) {
+            current = session;
+            session = null;
+        }
+
+        log.warn("Forcing reconnect of upstream connection #{}: {}", id, reason);
+        recordEvent("STALE", reason);
+
+        if (current == null) {
+            scheduleConnect(0, 0);
+            return;
+        }
+
+        try {
+            current.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (Exception e) {
+            log.debug("Error closing stale upstream connection #{}", id, e);
+        }
+
+        scheduleReconnect(0);
+    }
+
+    void close() {
+        shutdown = true;
+        controlTask.cancel(false);
+        closeSession();
+    }
+
+    private void closeSession() {
+        WebSocketSession current = session;
+        session = null;
+
+        if (current != null && current.isOpen()) {
+            try {
+                current.close(CloseStatus.NORMAL);
+                log.info("Closed upstream connection #{}", id);
+            } catch (Exception e) {
+                log.error("Error closing upstream connection #{}", id, e);
+            }
+        }
+    }
+
+    private void scheduleConnect(int attempt, long delay) {
+        if (shutdown || !connecting.compareAndSet(false, true)) {
+            return;
+        }
+
+        scheduler.schedule(() -> connect(attempt), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void connect(int attempt) {
+        List<String> initialStreams;
+        synchronized (this) {
+            initialStreams = streams.stream().limit(MAX_STREAMS_IN_URL).toList();
+        }
+
+        if (shutdown || initialStreams.isEmpty() || isOpen()) {
+            connecting.set(false);
+            return;
+        }
+
+        String url = config.getCombinedStreamUrl() + "?streams=" + String.join("/", initialStreams);
+
+        try {
+            log.info("Connecting upstream connection #{} with {} streams (attempt {})",
+                    id, initialStreams.size(), attempt + 1);
+
+            WebSocketSession newSession = webSocketClient.execute(
+                    new ConnectionHandler(),
+                    url).get(10, TimeUnit.SECONDS);
+
+            Set<String> current;
+            synchronized (this) {
+                session = newSession;
+                current = Set.copyOf(streams);
+                lastPingSentAt = 0;
+
+                // Reconcile anything that changed while the handshake was in flight
+                Set<String> connected = new HashSet<>(initialStreams);
+                pendingSubscribe.clear();
+                pendingUnsubscribe.clear();
+                streams.stream().filter(s -> !connected.contains(s)).forEach(pendingSubscribe::add);
+                connected.stream().filter(s -> !streams.contains(s)).forEach(pendingUnsubscribe::add);
+
+                if (streams.isEmpty()) {
+                    closeSession();
+                }
+            }
+
+            connecting.set(false);
+            recordEvent("CONNECTED", initialStreams.size() + " streams");
+            log.info("Upstream connection #{} established with {} streams", id, initialStreams.size());
+            listener.onConnected(this, current);
+
+        } catch (Exception e) {
+            log.error("Failed to connect upstream connection #{}", id, e);
+            recordEvent("CONNECT_FAILED", e.getMessage());
+            connecting.set(false);
+            scheduleReconnect(attempt + 1);
+        }
+    }
+
+    private void scheduleReconnect(int attempt) {
+        if (attempt >= config.getMaxReconnectAttempts()) {
+            log.error("Max reconnect attempts reached for upstream connection #{}", id);
+
+            Set<String> lost;
+            synchronized (this) {
+                lost = Set.copyOf(streams);
+                streams.clear();
+                pendingSubscribe.clear();
+                pendingUnsubscribe.clear();
+            }
+
+            recordEvent("GAVE_UP", lost.size() + " streams dropped");
+            listener.onConnectionLost(this, lost);
+            return;
+        }
+
+        long delay = Math.min(config.getReconnectDelay() * (long) Math.pow(2, attempt), 60000);
+
+        synchronized (this) {
+            reconnectCount++;
+        }
+        recordEvent("RECONNECT_SCHEDULED", "attempt " + (attempt + 1) + " in " + delay + "ms");
+
+        log.info("Scheduling reconnect for upstream connection #{} in {}ms (attempt {})",
+                id, delay, attempt + 1);
+
+        scheduleConnect(attempt, delay);
+    }
+
+    private void flushControlFrame() {
+        WebSocketSession current = session;
+        if (current == null || !current.isOpen()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (lastPingSentAt > lastPongAt && now - lastPingSentAt > config.getPongTimeout()) {
+            forceReconnect("no pong within " + config.getPongTimeout() + "ms");
+            return;
+        }
+
+        String method;
+        List<String> params;
+
+        synchronized (this) {
+            if (!pendingUnsubscribe.isEmpty()) {
+                method = "UNSUBSCRIBE";
+                params = List.copyOf(pendingUnsubscribe);
+                pendingUnsubscribe.clear();
+            } else if (!pendingSubscribe.isEmpty()) {
+                method = "SUBSCRIBE";
+                params = List.copyOf(pendingSubscribe);
+                pendingSubscribe.clear();
+            } else {
+                method = null;
+                params = List.of();
+            }
+        }
+
+        if (method == null) {
+            // Pings share the control-frame budget, so only send one on an otherwise idle tick
+            if (now - lastPingSentAt >= config.getPingInterval()) {
+                sendPing(current, now);
+            }
+            return;
+        }
+
+        try {
+            ObjectNode frame = objectMapper.createObjectNode();
+            frame.put("method", method);
+            ArrayNode paramsNode = frame.putArray("params");
+            params.forEach(paramsNode::add);
+            frame.put("id", requestIds.incrementAndGet());
+
+            synchronized (current) {
+                current.sendMessage(new TextMessage(objectMapper.writeValueAsString(frame)));
+            }
+
+            log.info("Sent {} for {} streams on upstream connection #{}", method, params.size(), id);
+
+        } catch (Exception e) {
+            log.error("Failed to send {} on upstream connection #{}", method, id, e);
+
+            // Requeue whatever still reflects the desired state
+            synchronized (this) {
+                for (String stream : params) {
+                    if (method.equals("SUBSCRIBE") && streams.contains(stream)) {
+                        pendingSubscribe.add(stream);
+                    } else if (method.equals("UNSUBSCRIBE") && !streams.contains(stream)) {
+                        pendingUnsubscribe.add(stream);
+                    }
+                }
+            }
+        }
+    }
+
+    private void sendPing(WebSocketSession current, long now) {
+        try {
+            synchronized (current) {
+                current.sendMessage(new PingMessage());
+            }
+            lastPingSentAt = now;
+        } catch (Exception e) {
+            log.warn("Failed to ping upstream connection #{}", id, e);
+        }
+    }
+
+    private class ConnectionHandler extends TextWebSocketHandler {
+
+        @Override
+        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+            log.info("WebSocket connection established: upstream #{}", id);
+        }
+
+        @Override
+        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+            messagesReceived.incrementAndGet();
+            listener.onFrame(BinanceStreamConnection.this, message.getPayload());
+        }
+
+        @Override
+        protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+            lastPongAt = System.currentTimeMillis();
+        }
+
+        @Override
+        public void afterConnectionClosed(WebSocketSession closedSession, CloseStatus status) throws Exception {
+            log.info("WebSocket connection closed: upstream #{} ({})", id, status);
+            recordEvent("DISCONNECTED", status.toString());
+
+            boolean wasCurrent;
+            boolean hasStreams;
+            synchronized (BinanceStreamConnection.this) {
+                // A session we already replaced (forced reconnect) needs no further action
+                wasCurrent = session == closedSession;
+                if (wasCurrent) {
+                    session = null;
+                }
+                hasStreams = !streams.isEmpty();
+            }
+
+            if (wasCurrent && !status.equals(CloseStatus.NORMAL) && hasStreams) {
+                scheduleReconnect(0);
+            }
+        }
+
+        @Override
+        public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+            log.error("WebSocket transport error: upstream #{}", id, exception);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.cryptoanalysis.websocket.integration;
+
+/**
+ * Upstream stream families with the message rate Binance documents for each.
+ * The rate drives connection assignment; dedicated streams never share a socket.
+ * Event-driven streams only send when the market moves, so for an illiquid
+ * symbol their rate is an upper bound and silence says nothing about the socket.
+ */
+public enum BinanceStreamType {
+    KLINE(0.5, false, false),
+    TICKER(1.0, false, false),
+    MINI_TICKER_ALL(1.0, true, false),
+    DEPTH(10.0, false, true),
+    AGG_TRADE(10.0, false, true),
+    UNKNOWN(1.0, false, false);
+
+    private final double expectedMessagesPerSecond;
+    private final boolean dedicated;
+    private final boolean eventDriven;
+
+    BinanceStreamType(double expectedMessagesPerSecond, boolean dedicated, boolean eventDriven) {
+        this.expectedMessagesPerSecond = expectedMessagesPerSecond;
+        this.dedicated = dedicated;
+        this.eventDriven = eventDriven;
+    }
+
+    public double getExpectedMessagesPerSecond() {
+        return expectedMessagesPerSecond;
+    }
+
+    /**
+     * Expected gap between two messages on one stream of this type.
+     */
+    public long getExpectedIntervalMillis() {
+        return (long) (1000 / expectedMessagesPerSecond);
+    }
+
+    public boolean isDedicated() {
+        return dedicated;
+    }
+
+    public boolean isEventDriven() {
+        return eventDriven;
+    }
+
+    public static BinanceStreamType of(String streamName) {
+        if (streamName.startsWith("!miniTicker")) {
+            return MINI_TICKER_ALL;
+        }
+        if (streamName.contains("@kline_")) {
+            return KLINE;
+        }
+        if (streamName.endsWith("@ticker")) {
+            return TICKER;
+        }
+        if (streamName.contains("@depth")) {
+            return DEPTH;
+        }
+        if (streamName.endsWith("@aggTrade")) {
+            return AGG_TRADE;
+        }
+        return UNKNOWN;
+    }
+}
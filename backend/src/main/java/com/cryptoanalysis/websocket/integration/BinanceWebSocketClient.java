@@ -1,29 +1,45 @@
 package com.cryptoanalysis.websocket.integration;
 
-import java.math.BigDecimal;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
-import org.springframework.web.socket.CloseStatus;
-import org.springframework.web.socket.TextMessage;
-import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.client.WebSocketClient;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
 
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.candle.service.CandleService;
+import com.cryptoanalysis.websocket.bus.MarketDataBus;
+import com.cryptoanalysis.websocket.cluster.ClusteredUpstream;
 import com.cryptoanalysis.websocket.config.BinanceWebSocketConfig;
+import com.cryptoanalysis.websocket.config.FrameJournalConfig;
+import com.cryptoanalysis.websocket.dto.DepthUpdateDto;
+import com.cryptoanalysis.websocket.dto.FrameJournalDto;
 import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.StreamFreshnessDto;
 import com.cryptoanalysis.websocket.dto.TickerDto;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+import com.cryptoanalysis.websocket.dto.UpstreamConnectionDto;
+import com.cryptoanalysis.websocket.enums.JournalMode;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+import com.cryptoanalysis.websocket.service.SymbolPrecisionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -33,210 +49,470 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class BinanceWebSocketClient {
 
+    private static final int RATE_SAMPLE_SECONDS = 5;
+
+    private static final int MAX_REBALANCE_MOVES = 10;
+
     private final BinanceWebSocketConfig config;
+    private final FrameJournalConfig journalConfig;
     private final ObjectMapper objectMapper;
-    private final Map<String, WebSocketSession> activeSessions = new ConcurrentHashMap<>();
-    private final Map<String, Consumer<?>> callbacks = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+    private final SymbolPrecisionService precisionService;
+    private final MarketDataBus marketDataBus;
+    private final CandleService candleService;
+    private final CandleMapper candleMapper;
+    private final ClusteredUpstream clusteredUpstream;
+    private final List<BinanceStreamConnection> connections = new CopyOnWriteArrayList<>();
+    private final Map<String, BinanceStreamConnection> assignments = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionIds = new AtomicInteger();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
     private final WebSocketClient webSocketClient = new StandardWebSocketClient();
+    private final Set<String> replayStreams = ConcurrentHashMap.newKeySet();
+    private BinanceFrameDecoder frameDecoder;
+    private KlineGapFiller gapFiller;
+    private StreamWatchdog watchdog;
+    private FrameJournal journal;
+    private FrameReplayer replayer;
+    private Thread replayThread;
+
+    @PostConstruct
+    public void init() {
+        frameDecoder = new BinanceFrameDecoder(objectMapper.getFactory(), precisionService);
+        gapFiller = new KlineGapFiller(candleService, candleMapper, Executors.newVirtualThreadPerTaskExecutor(),
+                this::emit);
+        watchdog = new StreamWatchdog(config);
+        scheduler.scheduleAtFixedRate(() -> connections.forEach(BinanceStreamConnection::sampleMessageRate),
+                RATE_SAMPLE_SECONDS, RATE_SAMPLE_SECONDS, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::checkStaleness,
+                config.getWatchdogInterval(), config.getWatchdogInterval(), TimeUnit.MILLISECONDS);
+
+        clusteredUpstream.attach(new ClusterListener());
+
+        if (journalConfig.getMode() == JournalMode.RECORD) {
+            try {
+                journal = new FrameJournal(Path.of(journalConfig.getDirectory()), journalConfig.getSegmentSize());
+            } catch (IOException e) {
+                log.error("Could not open frame journal in {}; continuing without capture",
+                        journalConfig.getDirectory(), e);
+            }
+        }
+    }
+
+    /**
+     * In replay mode, start feeding the journal once every bus consumer has registered.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReplay() {
+        if (journalConfig.getMode() != JournalMode.REPLAY) {
+            return;
+        }
+
+        log.info("Replaying frame journal from {} at speed {}",
+                journalConfig.getDirectory(), journalConfig.getReplaySpeed());
 
-    public void subscribeKline(String symbol, String interval, Consumer<KlineDto> callback) {
+        replayer = new FrameReplayer(Path.of(journalConfig.getDirectory()), journalConfig.getReplaySpeed(),
+                this::handleFrame);
+        replayThread = Thread.ofPlatform()
+                .name("binance-replay")
+                .daemon(true)
+                .start(replayer);
+    }
 
+    /**
+     * Open the kline stream upstream; its events are published to the {@link MarketDataBus}.
+     */
+    public void subscribeKline(String symbol, String interval) {
         String streamName = BinanceStreamBuilder.kline(symbol, interval);
-        String url = config.getBaseUrl() + "/" + streamName;
 
-        if (activeSessions.containsKey(streamName)) {
+        if (!open(streamName)) {
             log.info("Already subscribed to kline stream: {}", streamName);
-            return;
         }
-
-        callbacks.put(streamName, callback);
-        connectToStream(streamName, url);
     }
 
-    public void subscribeIndividualTicker(String symbol, Consumer<TickerDto> callback) {
+    public void subscribeIndividualTicker(String symbol) {
         String streamName = BinanceStreamBuilder.ticker(symbol);
-        String url = config.getBaseUrl() + "/" + streamName;
 
-        if (activeSessions.containsKey(streamName)) {
+        if (!open(streamName)) {
             log.info("Already subscribed to individual ticker stream: {}", streamName);
-            return;
         }
-
-        callbacks.put(streamName, callback);
-        connectToStream(streamName, url);
     }
 
-    public void subscribeMiniTicker(Consumer<List<TickerDto>> callback) {
+    public void subscribeMiniTicker() {
         String streamName = BinanceStreamBuilder.miniTickerAll();
-        String url = config.getBaseUrl() + "/" + streamName;
 
-        if (activeSessions.containsKey(streamName)) {
+        if (!open(streamName)) {
             log.info("Already subscribed to mini ticker stream: {}", streamName);
-            return;
         }
+    }
+
+    /**
+     * Open the 100 ms diff-depth stream; its events are published to the {@link MarketDataBus}.
+     */
+    public void subscribeDepth(String symbol) {
+        String streamName = BinanceStreamBuilder.depth(symbol);
 
-        callbacks.put(streamName, callback);
-        connectToStream(streamName, url);
+        if (!open(streamName)) {
+            log.info("Already subscribed to depth stream: {}", streamName);
+        }
     }
 
-    public void unsubscribe(String streamName) {
-        WebSocketSession session = activeSessions.remove(streamName);
-        callbacks.remove(streamName);
+    /**
+     * Open the aggregate trade stream; its events are published to the {@link MarketDataBus}.
+     */
+    public void subscribeAggTrade(String symbol) {
+        String streamName = BinanceStreamBuilder.aggTrade(symbol);
 
-        if (session != null && session.isOpen()) {
-            try {
-                session.close(CloseStatus.NORMAL);
-                log.info("Successfully unsubscribed from Binance stream: {}", streamName);
-            } catch (Exception e) {
-                log.error("Failed to unsubscribe from Binance stream: {}", streamName, e);
-            }
+        if (!open(streamName)) {
+            log.info("Already subscribed to aggregate trade stream: {}", streamName);
+        }
+    }
+
+    public void unsubscribe(String streamName) {
+        if (clusteredUpstream.isEnabled()) {
+            clusteredUpstream.unwant(streamName);
+            return;
         }
 
+        closeUpstream(streamName);
     }
 
-    private void connectToStream(String streamName, String url) {
-        try {
-            log.info("Connecting to Binance stream: {} at {}", streamName, url);
+    public List<UpstreamConnectionDto> getConnectionStats() {
+        return connections.stream()
+                .map(BinanceStreamConnection::toDto)
+                .toList();
+    }
 
-            WebSocketSession session = webSocketClient.execute(
-                    new BinanceWebSocketHandler(streamName),
-                    url).get(10, TimeUnit.SECONDS);
+    public FrameJournalDto getJournalStats() {
+        FrameJournalDto.FrameJournalDtoBuilder stats = FrameJournalDto.builder()
+                .mode(journalConfig.getMode().name())
+                .directory(journalConfig.getDirectory());
 
-            activeSessions.put(streamName, session);
+        if (journal != null) {
+            stats.currentSegment(journal.getCurrentSegment())
+                    .framesWritten(journal.getFramesWritten())
+                    .bytesWritten(journal.getBytesWritten())
+                    .framesDropped(journal.getFramesDropped());
+        }
 
-            log.info("Successfully connected to Binance stream: {} at {}", streamName, url);
+        if (replayer != null) {
+            stats.framesReplayed(replayer.getFramesReplayed())
+                    .replaySpeed(journalConfig.getReplaySpeed())
+                    .replayElapsedMs(replayer.getElapsedMillis())
+                    .replayFramesPerSecond(replayer.getFramesPerSecond())
+                    .replayFinished(replayer.isFinished());
+        }
 
-        } catch (Exception e) {
-            log.error("Failed to connect to Binance stream: {} at {}", streamName, url, e);
+        return stats.build();
+    }
+
+    public List<StreamFreshnessDto> getStreamFreshness() {
+        return watchdog.getFreshness(stream -> {
+            BinanceStreamConnection connection = assignments.get(stream);
+            return connection == null ? -1 : connection.getId();
+        });
+    }
+
+    public long getGapFillsStarted() {
+        return gapFiller.getFillsStarted();
+    }
+
+    public long getCandlesGapFilled() {
+        return gapFiller.getCandlesFilled();
+    }
 
-            scheduleReconnect(streamName, url, 0);
+    /**
+     * Make a stream's events available on the bus: in clustered mode through
+     * whichever node owns it, otherwise by reading it here.
+     *
+     * @return false if the stream was already open
+     */
+    private boolean open(String streamName) {
+        if (clusteredUpstream.isEnabled()) {
+            // Outside this client's lock; the cluster calls back into assign
+            return clusteredUpstream.want(streamName);
         }
+        return assign(streamName);
     }
 
-    private void processMessage(String streamName, JsonNode data) {
-        String evenType = data.path("e").asText();
+    private void closeUpstream(String streamName) {
+        if (!release(streamName)) {
+            return;
+        }
+
+        gapFiller.remove(streamName);
+        watchdog.remove(streamName);
+        log.info("Successfully unsubscribed from Binance stream: {}", streamName);
+    }
+
+    /**
+     * Place a stream on the least-loaded shared connection with room for it,
+     * opening a new socket when none has capacity. Dedicated streams such as
+     * !miniTicker@arr always get a socket of their own.
+     *
+     * @return false if the stream was already assigned
+     */
+    private synchronized boolean assign(String streamName) {
+        if (journalConfig.getMode() == JournalMode.REPLAY) {
+            // Frames come from the journal; never touch the network
+            return replayStreams.add(streamName);
+        }
+
+        if (assignments.containsKey(streamName)) {
+            return false;
+        }
+
+        BinanceStreamType type = BinanceStreamType.of(streamName);
+        double rate = type.getExpectedMessagesPerSecond();
+
+        BinanceStreamConnection target = null;
+
+        if (!type.isDedicated()) {
+            target = connections.stream()
+                    .filter(c -> !c.isDedicated())
+                    .filter(c -> c.getStreamCount() < config.getMaxStreamsPerConnection())
+                    .filter(c -> c.getExpectedLoad() + rate <= config.getMaxMessageRatePerConnection())
+                    .min(Comparator.comparingDouble(BinanceStreamConnection::getExpectedLoad))
+                    .orElse(null);
+        }
+
+        if (target == null) {
+            target = openConnection(type.isDedicated());
+        }
+
+        assignments.put(streamName, target);
+        watchdog.register(streamName);
+        target.subscribe(streamName);
+
+        log.info("Assigned stream {} to upstream connection #{} (expected load {} msg/s)",
+                streamName, target.getId(), target.getExpectedLoad());
 
-        switch (evenType) {
-            case "kline" -> processKlineMessage(streamName, data);
-            case "24hrTicker" -> processTickerMessage(streamName, data);
-            case "24hrMiniTicker" -> processMiniTickerMessage(streamName, data);
-            default -> log.warn("Unknown event type: {} for stream: {}", evenType, streamName);
+        if (!type.isDedicated()) {
+            rebalance();
         }
+
+        return true;
     }
 
-    @SuppressWarnings("unchecked")
-    private void processKlineMessage(String streamName, JsonNode data) {
-        JsonNode k = data.path("k");
-
-        KlineDto kline = KlineDto.builder()
-                .symbol(k.path("s").asText())
-                .interval(k.path("i").asText())
-                .openTime(k.path("t").asLong())
-                .closeTime(k.path("T").asLong())
-                .open(new BigDecimal(k.path("o").asText()))
-                .high(new BigDecimal(k.path("h").asText()))
-                .low(new BigDecimal(k.path("l").asText()))
-                .close(new BigDecimal(k.path("c").asText()))
-                .volume(new BigDecimal(k.path("v").asText()))
-                .quoteVolume(new BigDecimal(k.path("q").asText()))
-                .tradesCount(k.path("n").asInt())
-                .isClosed(k.path("x").asBoolean())
-                .build();
-
-        Consumer<KlineDto> callback = (Consumer<KlineDto>) callbacks.get(streamName);
-        if (callback != null) {
-            callback.accept(kline);
+    private synchronized boolean release(String streamName) {
+        if (journalConfig.getMode() == JournalMode.REPLAY) {
+            return replayStreams.remove(streamName);
+        }
+
+        BinanceStreamConnection connection = assignments.remove(streamName);
+        if (connection == null) {
+            return false;
+        }
+
+        connection.unsubscribe(streamName);
+
+        if (connection.getStreamCount() == 0) {
+            connections.remove(connection);
+            connection.close();
+            log.info("Retired idle upstream connection #{}", connection.getId());
         }
+
+        return true;
+    }
+
+    private synchronized void retire(BinanceStreamConnection connection, Set<String> lostStreams) {
+        lostStreams.forEach(streamName -> {
+            assignments.remove(streamName, connection);
+            gapFiller.remove(streamName);
+            watchdog.remove(streamName);
+        });
+
+        connections.remove(connection);
+        connection.close();
+    }
+
+    private BinanceStreamConnection openConnection(boolean dedicated) {
+        BinanceStreamConnection connection = new BinanceStreamConnection(connectionIds.incrementAndGet(), dedicated,
+                config, objectMapper, webSocketClient, scheduler, new ConnectionListener());
+        connections.add(connection);
+
+        log.info("Opened upstream connection #{} ({}, pool size {})",
+                connection.getId(), dedicated ? "dedicated" : "shared", connections.size());
+        return connection;
     }
 
-    @SuppressWarnings("unchecked")
-    private void processTickerMessage(String streamName, JsonNode data) {
-        TickerDto ticker = TickerDto.builder()
-                .symbol(data.path("s").asText())
-                .price(new BigDecimal(data.path("c").asText()))
-                .priceChange(new BigDecimal(data.path("p").asText()))
-                .priceChangePercent(new BigDecimal(data.path("P").asText()))
-                .open(new BigDecimal(data.path("o").asText()))
-                .high(new BigDecimal(data.path("h").asText()))
-                .low(new BigDecimal(data.path("l").asText()))
-                .volume(new BigDecimal(data.path("v").asText()))
-                .quoteVolume(new BigDecimal(data.path("q").asText()))
-                .timestamp(data.path("E").asLong())
-                .build();
-
-        Consumer<TickerDto> callback = (Consumer<TickerDto>) callbacks.get(streamName);
-        if (callback != null) {
-            callback.accept(ticker);
+    /**
+     * Even out expected load across shared connections by moving streams from the
+     * busiest socket to the quietest. Each move subscribes on the target before
+     * unsubscribing on the source, so a moved stream may deliver a duplicate
+     * update during the hand-over but never misses one.
+     */
+    private void rebalance() {
+        List<BinanceStreamConnection> shared = connections.stream()
+                .filter(c -> !c.isDedicated())
+                .toList();
+
+        if (shared.size() < 2) {
+            return;
+        }
+
+        for (int moves = 0; moves < MAX_REBALANCE_MOVES; moves++) {
+            BinanceStreamConnection busiest = shared.stream()
+                    .max(Comparator.comparingDouble(BinanceStreamConnection::getExpectedLoad))
+                    .orElseThrow();
+            BinanceStreamConnection quietest = shared.stream()
+                    .min(Comparator.comparingDouble(BinanceStreamConnection::getExpectedLoad))
+                    .orElseThrow();
+
+            double gap = busiest.getExpectedLoad() - quietest.getExpectedLoad();
+            if (gap <= config.getRebalanceThreshold()
+                    || quietest.getStreamCount() >= config.getMaxStreamsPerConnection()) {
+                return;
+            }
+
+            // Only move a stream that narrows the gap rather than flipping it
+            String candidate = busiest.getStreams().stream()
+                    .filter(s -> BinanceStreamType.of(s).getExpectedMessagesPerSecond() * 2 <= gap)
+                    .findFirst()
+                    .orElse(null);
+
+            if (candidate == null) {
+                return;
+            }
+
+            quietest.subscribe(candidate);
+            assignments.put(candidate, quietest);
+            busiest.unsubscribe(candidate);
+
+            log.info("Rebalanced stream {} from upstream connection #{} to #{}",
+                    candidate, busiest.getId(), quietest.getId());
         }
     }
 
-    @SuppressWarnings("unchecked")
-    private void processMiniTickerMessage(String streamName, JsonNode data) {
-        List<TickerDto> tickers = new ArrayList<>();
-
-        if (data.isArray()) {
-            for (JsonNode item : data) {
-                TickerDto ticker = TickerDto.builder()
-                        .symbol(item.path("s").asText())
-                        .price(new BigDecimal(item.path("c").asText()))
-                        .open(new BigDecimal(item.path("o").asText()))
-                        .high(new BigDecimal(item.path("h").asText()))
-                        .low(new BigDecimal(item.path("l").asText()))
-                        .volume(new BigDecimal(item.path("v").asText()))
-                        .quoteVolume(new BigDecimal(item.path("q").asText()))
-                        .timestamp(item.path("E").asLong())
-                        .build();
-
-                tickers.add(ticker);
+    /**
+     * Recover streams that went silent. A connection that is closed, or whose
+     * streams are all stale, is reconnected; otherwise only the quiet streams
+     * are subscribed again on the live socket.
+     */
+    private void checkStaleness() {
+        try {
+            List<String> stale = watchdog.collectStale();
+            if (stale.isEmpty()) {
+                return;
             }
 
-            Consumer<List<TickerDto>> callback = (Consumer<List<TickerDto>>) callbacks.get(streamName);
-            if (callback != null) {
-                callback.accept(tickers);
+            Map<BinanceStreamConnection, List<String>> byConnection = new HashMap<>();
+            for (String stream : stale) {
+                BinanceStreamConnection connection = assignments.get(stream);
+                if (connection != null) {
+                    byConnection.computeIfAbsent(connection, c -> new ArrayList<>()).add(stream);
+                }
             }
+
+            byConnection.forEach((connection, streams) -> {
+                if (!connection.isOpen()) {
+                    // Closed without a reconnect on the way, e.g. a normal close from the exchange
+                    connection.forceReconnect("closed with " + streams.size() + " streams silent");
+                } else if (streams.size() == connection.getStreamCount()) {
+                    connection.forceReconnect("all " + streams.size() + " streams silent");
+                } else {
+                    log.warn("Resubscribing silent streams {} on upstream connection #{}", streams, connection.getId());
+                    streams.forEach(connection::resubscribe);
+                }
+            });
+        } catch (Exception e) {
+            log.error("Staleness check failed", e);
         }
     }
 
-    private class BinanceWebSocketHandler extends TextWebSocketHandler {
-        private final String streamName;
+    /**
+     * Decode a combined-stream frame and emit its event; kline events go through
+     * the gap filler first.
+     * Frames without a stream field are replies to our SUBSCRIBE/UNSUBSCRIBE requests.
+     * Runs on the socket reader thread; consumers run on their own bus threads.
+     */
+    private void handleFrame(String payload) {
+        try {
+            BinanceFrameDecoder.Frame frame = frameDecoder.decode(payload);
+
+            if (frame.isControlReply()) {
+                if (frame.getError() != null) {
+                    log.error("Binance rejected control request: {}", frame.getError());
+                } else {
+                    log.debug("Binance acknowledged control request");
+                }
+                return;
+            }
+
+            watchdog.onMessage(frame.getStream());
+
+            if (frame.getEvent() == null) {
+                log.warn("Unknown event type for stream: {}", frame.getStream());
+                return;
+            }
 
-        public BinanceWebSocketHandler(String streamName) {
-            this.streamName = streamName;
+            if (frame.getEvent() instanceof KlineDto kline && journalConfig.getMode() != JournalMode.REPLAY) {
+                // Kline streams pass through the gap filler so REST back-fill stays in order;
+                // a replayed journal is played as recorded, gaps included
+                gapFiller.onKline(frame.getStream(), kline);
+            } else {
+                emit(frame.getStream(), frame.getEvent());
+            }
+        } catch (Exception e) {
+            log.error("Error processing combined stream frame", e);
         }
+    }
 
-        @Override
-        public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-            log.info("WebSocket connection established: {}", streamName);
+    /**
+     * Publish an event read from Binance locally and, in clustered mode, to the other nodes.
+     */
+    private void emit(String stream, Object event) {
+        MarketDataEventType type = event instanceof KlineDto ? MarketDataEventType.KLINE
+                : event instanceof TickerDto ? MarketDataEventType.TICKER
+                : event instanceof DepthUpdateDto ? MarketDataEventType.DEPTH
+                : event instanceof TradeDto ? MarketDataEventType.TRADE
+                : MarketDataEventType.MINI_TICKER;
+        publish(stream, type, event);
+
+        if (clusteredUpstream.isEnabled()) {
+            clusteredUpstream.forward(stream, type, event);
         }
+    }
 
-        @Override
-        protected void handleTextMessage(WebSocketSession session, TextMessage message) {
-            try {
-                String payload = message.getPayload();
-                JsonNode data = objectMapper.readTree(payload);
+    private void publish(String stream, MarketDataEventType type, Object event) {
+        marketDataBus.publish(type, stream, event);
+    }
+
+    private class ConnectionListener implements BinanceStreamConnection.Listener {
 
-                processMessage(streamName, data);
-            } catch (Exception e) {
-                log.error("Error processing message for stream: {}", streamName, e);
+        @Override
+        public void onFrame(BinanceStreamConnection source, String payload) {
+            if (journal != null) {
+                journal.append(source.getId(), payload);
             }
+            handleFrame(payload);
+        }
+
+        @Override
+        public void onConnected(BinanceStreamConnection source, Set<String> streams) {
+            watchdog.onConnected(streams);
+            streams.forEach(gapFiller::onReconnected);
         }
 
         @Override
-        public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-            log.info("WebSocket connection closed: {}", streamName);
+        public void onConnectionLost(BinanceStreamConnection source, Set<String> streams) {
+            retire(source, streams);
+        }
+    }
 
-            activeSessions.remove(streamName);
+    private class ClusterListener implements ClusteredUpstream.LocalUpstream {
 
-            if (!status.equals(CloseStatus.NORMAL)) {
-                String url = config.getBaseUrl() + "/" + streamName;
-                scheduleReconnect(streamName, url, 0);
-            }
+        @Override
+        public void open(String stream) {
+            assign(stream);
         }
 
         @Override
-        public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
-            log.error("WebSocket transport error: {}", streamName, exception);
+        public void close(String stream) {
+            closeUpstream(stream);
+        }
+
+        @Override
+        public void deliver(String stream, MarketDataEventType type, Object event) {
+            publish(stream, type, event);
         }
     }
 
@@ -249,49 +525,39 @@ public class BinanceWebSocketClient {
             return symbol.toLowerCase() + "@ticker";
         }
 
-        public static String miniTickerAll() {
-            return "!miniTicker@arr";
+        public static String depth(String symbol) {
+            return symbol.toLowerCase() + "@depth@100ms";
         }
-    }
 
-    private void scheduleReconnect(String streamName, String url, int attempt) {
-        if (attempt >= config.getMaxReconnectAttempts()) {
-            log.error("Max reconnect attempts reached for stream: {}", streamName);
-            callbacks.remove(streamName);
-            return;
+        public static String aggTrade(String symbol) {
+            return symbol.toLowerCase() + "@aggTrade";
         }
 
-        long delay = Math.min(config.getReconnectDelay() * (long) Math.pow(2, attempt), 60000);
-
-        log.info("Scheduling reconnect for stream: {} in {}ms (attempt {})",
-                streamName, delay, attempt + 1);
-
-        scheduler.schedule(() -> {
-            if (callbacks.containsKey(streamName)) {
-                log.info("Attempting to reconnect to stream: {} (attempt {})",
-                        streamName, attempt + 1);
-                connectToStream(streamName, url);
-            }
-        }, delay, TimeUnit.MILLISECONDS);
+        public static String miniTickerAll() {
+            return "!miniTicker@arr";
+        }
     }
 
     @PreDestroy
     public void cleanup() {
         log.info("Shutting down BinanceWebSocketClient...");
 
-        activeSessions.forEach((streamName, session) -> {
+        connections.forEach(BinanceStreamConnection::close);
+        connections.clear();
+        assignments.clear();
+        gapFiller.shutdown();
+
+        if (replayThread != null) {
+            replayThread.interrupt();
+        }
+
+        if (journal != null) {
             try {
-                if (session.isOpen()) {
-                    session.close();
-                    log.info("Closed WebSocket session for stream: {}", streamName);
-                }
-            } catch (Exception e) {
-                log.error("Error closing WebSocket session for stream: {}", streamName, e);
+                journal.close();
+            } catch (IOException e) {
+                log.error("Error closing frame journal", e);
             }
-        });
-
-        activeSessions.clear();
-        callbacks.clear();
+        }
 
         scheduler.shutdown();
         try {
@@ -0,0 +1,144 @@
+package com.cryptoanalysis.websocket.integration;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of raw inbound frames in memory-mapped segment files.
+ *
+ * A segment starts with {@link #MAGIC} and a version, followed by records of
+ * {@code [int length][long receivedAtMicros][int connectionId][UTF-8 payload]}.
+ * The length is written last, so a zero length marks the end of the data in a
+ * segment. Segments are named so that lexical order is capture order.
+ */
+@Slf4j
+class FrameJournal implements Closeable {
+
+    static final int MAGIC = 0x424E4A31;
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 16;
+    static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long baseEpochMicros = System.currentTimeMillis() * 1000;
+    private final long baseNanos = System.nanoTime();
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private int segmentIndex;
+    private Path segmentPath;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long framesWritten;
+    private long bytesWritten;
+    private long framesDropped;
+
+    FrameJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        openSegment();
+    }
+
+    /**
+     * Journal one frame. Called from every socket reader thread; the lock is
+     * held only for the copy into the mapped buffer.
+     */
+    synchronized void append(int connectionId, String payload) {
+        long receivedAtMicros = baseEpochMicros + (System.nanoTime() - baseNanos) / 1000;
+        // Worst case for UTF-8 is three bytes per UTF-16 char
+        int maxRecordSize = RECORD_HEADER_SIZE + payload.length() * 3;
+
+        if (maxRecordSize > segmentSize - SEGMENT_HEADER_SIZE - 4) {
+            framesDropped++;
+            log.warn("Frame of {} chars does not fit in a {} byte journal segment", payload.length(), segmentSize);
+            return;
+        }
+
+        try {
+            // Keep 4 spare bytes so the terminating zero length always fits
+            if (buffer.remaining() < maxRecordSize + 4) {
+                rollSegment();
+            }
+
+            int start = buffer.position();
+            buffer.position(start + RECORD_HEADER_SIZE);
+
+            encoder.reset();
+            CoderResult result = encoder.encode(CharBuffer.wrap(payload), buffer, true);
+            if (result.isError()) {
+                result.throwException();
+            }
+            encoder.flush(buffer);
+
+            int length = buffer.position() - start - RECORD_HEADER_SIZE;
+            buffer.putLong(start + 4, receivedAtMicros);
+            buffer.putInt(start + 12, connectionId);
+            buffer.putInt(start, length);
+
+            framesWritten++;
+            bytesWritten += length + RECORD_HEADER_SIZE;
+
+        } catch (IOException e) {
+            framesDropped++;
+            log.error("Failed to journal frame", e);
+        }
+    }
+
+    synchronized String getCurrentSegment() {
+        return segmentPath == null ? null : segmentPath.getFileName().toString();
+    }
+
+    synchronized long getFramesWritten() {
+        return framesWritten;
+    }
+
+    synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    synchronized long getFramesDropped() {
+        return framesDropped;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+            buffer = null;
+        }
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        close();
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        segmentPath = directory.resolve(String.format("frames-%d-%05d%s",
+                baseEpochMicros / 1000, segmentIndex++, SEGMENT_SUFFIX));
+
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+
+        log.info("Opened frame journal segment {}", segmentPath);
+    }
+}
@@ -0,0 +1,137 @@
+package com.cryptoanalysis.websocket.integration;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Feeds frames captured by {@link FrameJournal} back into a frame handler,
+ * preserving the captured spacing scaled by {@code speed}, or as fast as the
+ * handler accepts them when {@code speed <= 0}.
+ */
+@Slf4j
+class FrameReplayer implements Runnable {
+
+    private final Path directory;
+    private final double speed;
+    private final Consumer<String> sink;
+    private byte[] scratch = new byte[64 * 1024];
+    private volatile long framesReplayed;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+
+    FrameReplayer(Path directory, double speed, Consumer<String> sink) {
+        this.directory = directory;
+        this.speed = speed;
+        this.sink = sink;
+    }
+
+    @Override
+    public void run() {
+        startedAt = System.nanoTime();
+        long firstCapturedAt = -1;
+
+        try {
+            for (Path segment : listSegments()) {
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+                    if (buffer.remaining() < FrameJournal.SEGMENT_HEADER_SIZE
+                            || buffer.getInt() != FrameJournal.MAGIC
+                            || buffer.getInt() != FrameJournal.VERSION) {
+                        log.warn("Skipping {}: not a frame journal segment", segment);
+                        continue;
+                    }
+
+                    while (buffer.remaining() >= FrameJournal.RECORD_HEADER_SIZE) {
+                        int length = buffer.getInt();
+                        if (length <= 0 || length > buffer.remaining() - (FrameJournal.RECORD_HEADER_SIZE - 4)
+                                || Thread.currentThread().isInterrupted()) {
+                            break;
+                        }
+
+                        long capturedAt = buffer.getLong();
+                        buffer.getInt(); // connection id, informational only
+
+                        if (firstCapturedAt < 0) {
+                            firstCapturedAt = capturedAt;
+                        }
+                        pace(capturedAt - firstCapturedAt);
+
+                        sink.accept(readPayload(buffer, length));
+                        framesReplayed++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("Frame replay from {} failed", directory, e);
+        } finally {
+            finishedAt = System.nanoTime();
+            log.info("Replayed {} frames in {}ms ({} frames/s)",
+                    framesReplayed, getElapsedMillis(), String.format("%.0f", getFramesPerSecond()));
+        }
+    }
+
+    long getFramesReplayed() {
+        return framesReplayed;
+    }
+
+    boolean isFinished() {
+        return finishedAt != 0;
+    }
+
+    long getElapsedMillis() {
+        if (startedAt == 0) {
+            return 0;
+        }
+        return ((finishedAt != 0 ? finishedAt : System.nanoTime()) - startedAt) / 1_000_000;
+    }
+
+    double getFramesPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed == 0 ? 0.0 : framesReplayed * 1000.0 / elapsed;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> p.getFileName().toString().endsWith(FrameJournal.SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Wait until {@code offsetMicros} of capture time, scaled by speed, has
+     * elapsed since the replay started.
+     */
+    private void pace(long offsetMicros) {
+        if (speed <= 0) {
+            return;
+        }
+
+        long due = startedAt + (long) (offsetMicros * 1000 / speed);
+        long wait;
+        while ((wait = due - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private String readPayload(MappedByteBuffer buffer, int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,191 @@
+package com.cryptoanalysis.websocket.integration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.candle.service.CandleService;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps kline streams contiguous across upstream outages. Remembers the last
+ * open time seen on each kline stream; when a socket reconnects after a candle
+ * boundary has passed, or a live candle arrives more than one interval after
+ * the previous one, the missing candles are fetched over REST and emitted in
+ * order. Live candles for that stream are held back until the fill is done, so
+ * downstream consumers never see a candle out of order.
+ */
+@Slf4j
+class KlineGapFiller {
+
+    /**
+     * Binance's maximum page size for /api/v3/klines.
+     */
+    private static final int MAX_CANDLES_PER_REQUEST = 1000;
+
+    /**
+     * Upper bound on REST pages per fill, so a stream that was down for weeks
+     * cannot monopolise the request weight budget.
+     */
+    private static final int MAX_PAGES_PER_FILL = 10;
+
+    interface Sink {
+        void emit(String stream, KlineDto kline);
+    }
+
+    private final CandleService candleService;
+    private final CandleMapper candleMapper;
+    private final ExecutorService executor;
+    private final Sink sink;
+    private final Map<String, StreamState> states = new ConcurrentHashMap<>();
+    private final AtomicLong candlesFilled = new AtomicLong();
+    private final AtomicLong fillsStarted = new AtomicLong();
+
+    KlineGapFiller(CandleService candleService, CandleMapper candleMapper, ExecutorService executor, Sink sink) {
+        this.candleService = candleService;
+        this.candleMapper = candleMapper;
+        this.executor = executor;
+        this.sink = sink;
+    }
+
+    /**
+     * Live path: emit the candle now, or hold it while a fill for its stream is running.
+     */
+    void onKline(String stream, KlineDto kline) {
+        StreamState state = states.computeIfAbsent(stream, s -> new StreamState(kline.getSymbol(),
+                kline.getInterval(), candleMapper.getIntervalMillis(kline.getInterval())));
+
+        synchronized (state) {
+            if (state.filling) {
+                state.held.add(kline);
+                return;
+            }
+
+            if (state.lastOpenTime > 0 && kline.getOpenTime() > state.lastOpenTime + state.intervalMillis) {
+                log.warn("Gap on {}: last candle {} then {}", stream, state.lastOpenTime, kline.getOpenTime());
+                state.held.add(kline);
+                startFill(stream, state, kline.getOpenTime() - 1);
+                return;
+            }
+
+            emit(stream, state, kline);
+        }
+    }
+
+    /**
+     * A socket carrying {@code stream} has (re)connected; fill the outage if a candle boundary passed.
+     */
+    void onReconnected(String stream) {
+        StreamState state = states.get(stream);
+        if (state == null) {
+            return;
+        }
+
+        synchronized (state) {
+            long now = System.currentTimeMillis();
+
+            if (!state.filling && state.lastOpenTime > 0 && now >= state.lastOpenTime + state.intervalMillis) {
+                log.info("Reconnected {} after a candle boundary; filling from {}", stream, state.lastOpenTime);
+                startFill(stream, state, now);
+            }
+        }
+    }
+
+    void remove(String stream) {
+        states.remove(stream);
+    }
+
+    long getCandlesFilled() {
+        return candlesFilled.get();
+    }
+
+    long getFillsStarted() {
+        return fillsStarted.get();
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void startFill(String stream, StreamState state, long endTime) {
+        state.filling = true;
+        fillsStarted.incrementAndGet();
+
+        long startTime = state.lastOpenTime;
+        executor.execute(() -> fill(stream, state, startTime, endTime));
+    }
+
+    private void fill(String stream, StreamState state, long startTime, long endTime) {
+        List<KlineDto> klines = new ArrayList<>();
+
+        try {
+            long from = startTime;
+
+            for (int page = 0; page < MAX_PAGES_PER_FILL && from <= endTime; page++) {
+                List<KlineDto> batch = candleService.fetchExchangeKlines(state.symbol, state.interval, from,
+                        endTime, MAX_CANDLES_PER_REQUEST);
+                klines.addAll(batch);
+
+                if (batch.size() < MAX_CANDLES_PER_REQUEST) {
+                    break;
+                }
+                from = batch.get(batch.size() - 1).getOpenTime() + state.intervalMillis;
+            }
+        } catch (Exception e) {
+            log.error("Gap fill failed for {}; releasing held live candles", stream, e);
+        }
+
+        synchronized (state) {
+            long firstHeld = state.held.isEmpty() ? Long.MAX_VALUE : state.held.get(0).getOpenTime();
+            int filled = 0;
+
+            for (KlineDto kline : klines) {
+                // Re-emit the last seen candle only if its closing update was missed
+                boolean missed = kline.getOpenTime() > state.lastOpenTime
+                        || (kline.getOpenTime() == state.lastOpenTime && !state.lastClosed);
+
+                if (missed && kline.getOpenTime() < firstHeld) {
+                    emit(stream, state, kline);
+                    filled++;
+                }
+            }
+
+            state.held.forEach(kline -> emit(stream, state, kline));
+            state.held.clear();
+            state.filling = false;
+
+            candlesFilled.addAndGet(filled);
+            log.info("Filled {} candles on {} between {} and {}", filled, stream, startTime, endTime);
+        }
+    }
+
+    private void emit(String stream, StreamState state, KlineDto kline) {
+        if (kline.getOpenTime() >= state.lastOpenTime) {
+            state.lastOpenTime = kline.getOpenTime();
+            state.lastClosed = Boolean.TRUE.equals(kline.getIsClosed());
+        }
+        sink.emit(stream, kline);
+    }
+
+    private static final class StreamState {
+        private final String symbol;
+        private final String interval;
+        private final long intervalMillis;
+        private final List<KlineDto> held = new ArrayList<>();
+        private long lastOpenTime;
+        private boolean lastClosed;
+        private boolean filling;
+
+        private StreamState(String symbol, String interval, long intervalMillis) {
+            this.symbol = symbol;
+            this.interval = interval;
+            this.intervalMillis = intervalMillis;
+        }
+    }
+}
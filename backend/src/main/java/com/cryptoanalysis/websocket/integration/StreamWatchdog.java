@@ -0,0 +1,152 @@
+package com.cryptoanalysis.websocket.integration;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+import com.cryptoanalysis.websocket.config.BinanceWebSocketConfig;
+import com.cryptoanalysis.websocket.dto.StreamFreshnessDto;
+
+/**
+ * Tracks when each upstream stream last delivered a message and flags streams
+ * that have been silent for a multiple of their expected cadence. A socket can
+ * stay open while Binance stops sending on it, which neither the close handler
+ * nor the reconnect backoff would ever notice.
+ * <p>
+ * Event-driven streams (depth, aggTrade) are tracked but never flagged: an
+ * illiquid symbol can go quiet for minutes on a healthy socket, and the
+ * connection's ping/pong already catches a dead one.
+ */
+class StreamWatchdog {
+
+    /**
+     * Weight of the newest sample in the observed-interval moving average.
+     */
+    private static final double EWMA_ALPHA = 0.1;
+
+    private final BinanceWebSocketConfig config;
+    private final Map<String, StreamHealth> streams = new ConcurrentHashMap<>();
+
+    StreamWatchdog(BinanceWebSocketConfig config) {
+        this.config = config;
+    }
+
+    void register(String stream) {
+        streams.computeIfAbsent(stream, s -> new StreamHealth(s,
+                BinanceStreamType.of(s).isEventDriven() ? null : staleThreshold(s)));
+    }
+
+    void remove(String stream) {
+        streams.remove(stream);
+    }
+
+    /**
+     * Hot path, called for every decoded frame.
+     */
+    void onMessage(String stream) {
+        StreamHealth health = streams.get(stream);
+        if (health != null) {
+            health.record(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Restart the silence clock for streams on a freshly (re)connected socket.
+     */
+    void onConnected(Iterable<String> connected) {
+        long now = System.currentTimeMillis();
+        for (String stream : connected) {
+            StreamHealth health = streams.get(stream);
+            if (health != null) {
+                health.lastMessageAt = now;
+            }
+        }
+    }
+
+    /**
+     * Streams that are stale and have not had a recovery attempt within the
+     * last threshold period. Each returned stream is counted as a stale episode.
+     */
+    List<String> collectStale() {
+        long now = System.currentTimeMillis();
+        List<String> stale = new ArrayList<>();
+
+        for (StreamHealth health : streams.values()) {
+            if (health.isStale(now) && now - health.lastRecoveryAt > health.staleThreshold) {
+                health.lastRecoveryAt = now;
+                health.staleCount++;
+                stale.add(health.stream);
+            }
+        }
+
+        return stale;
+    }
+
+    List<StreamFreshnessDto> getFreshness(ToIntFunction<String> connectionIdLookup) {
+        long now = System.currentTimeMillis();
+
+        return streams.values().stream()
+                .map(health -> health.toDto(now, connectionIdLookup.applyAsInt(health.stream)))
+                .sorted(Comparator.comparing(StreamFreshnessDto::getStream))
+                .toList();
+    }
+
+    private long staleThreshold(String stream) {
+        long expected = BinanceStreamType.of(stream).getExpectedIntervalMillis();
+        return Math.max((long) (expected * config.getStaleCadenceMultiple()), config.getMinStaleThreshold());
+    }
+
+    private static final class StreamHealth {
+        private final String stream;
+        /**
+         * {@code null} for a stream that is never checked for silence.
+         */
+        private final Long staleThreshold;
+        private volatile long lastMessageAt = System.currentTimeMillis();
+        private volatile double observedInterval;
+        private volatile long messages;
+        private volatile long lastRecoveryAt;
+        private volatile long staleCount;
+
+        private StreamHealth(String stream, Long staleThreshold) {
+            this.stream = stream;
+            this.staleThreshold = staleThreshold;
+        }
+
+        /**
+         * Frames of one stream arrive on a single socket thread (two only for the
+         * moment of a rebalance hand-over), so plain read-modify-write of the
+         * volatile fields is good enough for statistics.
+         */
+        void record(long now) {
+            if (messages > 0) {
+                long gap = now - lastMessageAt;
+                observedInterval = observedInterval == 0 ? gap
+                        : observedInterval + EWMA_ALPHA * (gap - observedInterval);
+            }
+            lastMessageAt = now;
+            messages++;
+        }
+
+        boolean isStale(long now) {
+            return staleThreshold != null && now - lastMessageAt > staleThreshold;
+        }
+
+        StreamFreshnessDto toDto(long now, int connectionId) {
+            return StreamFreshnessDto.builder()
+                    .stream(stream)
+                    .connectionId(connectionId)
+                    .expectedIntervalMs(BinanceStreamType.of(stream).getExpectedIntervalMillis())
+                    .observedIntervalMs(observedInterval)
+                    .staleThresholdMs(staleThreshold)
+                    .lastMessageAgeMs(now - lastMessageAt)
+                    .messages(messages)
+                    .stale(isStale(now))
+                    .staleCount(staleCount)
+                    .build();
+        }
+    }
+}
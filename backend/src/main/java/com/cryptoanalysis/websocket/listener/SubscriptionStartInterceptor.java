@@ -0,0 +1,236 @@
+package com.cryptoanalysis.websocket.listener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.core.concurrent.Bulkhead;
+import com.cryptoanalysis.core.concurrent.Bulkheads;
+import com.cryptoanalysis.websocket.service.KlineHistory;
+import com.cryptoanalysis.websocket.service.LastValueCache;
+import com.cryptoanalysis.websocket.service.ReplayBuffer;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sends a new topic subscription what it starts from, right after the broker
+ * has registered it: the messages it missed when it resumes (see
+ * {@link ReplayBuffer}), or else its topic's last value. Broadcasts to the
+ * topic wait from just before the registration until this is sent, so the
+ * subscription's first broadcast follows on without a gap. A kline
+ * subscription that asks for history gets its stored candles before the
+ * registration and the rest of them, then the candle in progress, in place
+ * of the last value (see {@link KlineHistory}). Stored candles take a
+ * database query and possibly exchange requests, so they are loaded on the
+ * {@value Bulkheads#KLINE_HISTORY} lane rather than the inbound channel's
+ * threads, and the SUBSCRIBE is handed to the broker from there once they
+ * have been sent. An UNSUBSCRIBE or DISCONNECT that overtakes it cancels it.
+ */
+@Component
+@Slf4j
+public class SubscriptionStartInterceptor implements ExecutorChannelInterceptor {
+
+    private static final String TOPIC_PREFIX = "/topic/";
+    /**
+     * Open time of the last stored candle sent, carried from the history lane to {@link #start}.
+     */
+    private static final String HISTORY_SENT_HEADER = "historySent";
+
+    private final AbstractSubscribableChannel clientInboundChannel;
+    private final ReplayBuffer replay;
+    private final LastValueCache lastValueCache;
+    private final KlineHistory history;
+    private final Bulkhead historyBulkhead;
+    private final Executor historyLoader = new VirtualThreadTaskExecutor(Bulkheads.KLINE_HISTORY + "-");
+    /**
+     * SUBSCRIBEs waiting for their history, by session and subscription id.
+     */
+    private final Map<String, PendingSubscribe> pending = new ConcurrentHashMap<>();
+
+    public SubscriptionStartInterceptor(
+            @Qualifier("clientInboundChannel") AbstractSubscribableChannel clientInboundChannel,
+            ReplayBuffer replay, LastValueCache lastValueCache, KlineHistory history, Bulkheads bulkheads) {
+        this.clientInboundChannel = clientInboundChannel;
+        this.replay = replay;
+        this.lastValueCache = lastValueCache;
+        this.history = history;
+        this.historyBulkhead = bulkheads.get(Bulkheads.KLINE_HISTORY);
+    }
+
+    @PostConstruct
+    public void register() {
+        clientInboundChannel.addInterceptor(this);
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        cancelOvertaken(message, handler);
+
+        String destination = subscribedTopic(message, handler);
+        if (destination == null) {
+            return message;
+        }
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        if (accessor.getFirstNativeHeader(ReplayBuffer.RESUME_SEQ_HEADER) == null
+                && accessor.getFirstNativeHeader(KlineHistory.HEADER) != null) {
+            PendingSubscribe subscribe = new PendingSubscribe(accessor.getSessionId());
+            pending.put(key(accessor.getSessionId(), accessor.getSubscriptionId()), subscribe);
+            historyLoader.execute(() -> subscribeAfterHistory(message, destination, handler, subscribe));
+            // The broker gets it once the history has been sent
+            return null;
+        }
+
+        replay.beginSubscribe(destination);
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+            Exception ex) {
+        String destination = subscribedTopic(message, handler);
+        if (destination == null) {
+            return;
+        }
+
+        try {
+            if (ex == null) {
+                start(message, destination);
+            }
+        } catch (Exception e) {
+            log.error("Failed to start subscription to {}", destination, e);
+        } finally {
+            replay.endSubscribe(destination);
+        }
+    }
+
+    /**
+     * Send a subscription its stored candles, then register it with the broker
+     * and start it as {@link #afterMessageHandled} would, unless it was
+     * cancelled meanwhile. Runs on the history lane.
+     */
+    private void subscribeAfterHistory(Message<?> message, String destination, MessageHandler handler,
+            PendingSubscribe subscribe) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        Message<?> result = message;
+        try {
+            long sent = historyBulkhead.call(() -> history.sendStored(accessor.getSessionId(),
+                    accessor.getSubscriptionId(), destination, accessor.getFirstNativeHeader(KlineHistory.HEADER)));
+            if (sent != KlineHistory.NOT_REQUESTED) {
+                result = MessageBuilder.fromMessage(message).setHeader(HISTORY_SENT_HEADER, sent).build();
+            }
+        } catch (Exception e) {
+            log.error("Failed to send the history of {}", destination, e);
+        }
+
+        synchronized (subscribe) {
+            pending.remove(key(accessor.getSessionId(), accessor.getSubscriptionId()), subscribe);
+            if (subscribe.cancelled) {
+                log.debug("Subscription {} of session {} ended before its history was sent",
+                        accessor.getSubscriptionId(), accessor.getSessionId());
+                return;
+            }
+
+            replay.beginSubscribe(destination);
+            try {
+                handler.handleMessage(result);
+                start(result, destination);
+            } catch (Exception e) {
+                log.error("Failed to start subscription to {}", destination, e);
+            } finally {
+                replay.endSubscribe(destination);
+            }
+        }
+    }
+
+    /**
+     * Cancel the pending SUBSCRIBEs an UNSUBSCRIBE or DISCONNECT on its way to
+     * the broker ends. One already being registered finishes first, so the
+     * broker then removes it as usual.
+     */
+    private void cancelOvertaken(Message<?> message, MessageHandler handler) {
+        if (pending.isEmpty() || !(handler instanceof SimpleBrokerMessageHandler)) {
+            return;
+        }
+
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(message.getHeaders());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        if (type == SimpMessageType.UNSUBSCRIBE) {
+            PendingSubscribe subscribe = pending.get(
+                    key(sessionId, SimpMessageHeaderAccessor.getSubscriptionId(message.getHeaders())));
+            if (subscribe != null) {
+                subscribe.cancel();
+            }
+        } else if (type == SimpMessageType.DISCONNECT) {
+            pending.values().stream()
+                    .filter(subscribe -> subscribe.sessionId.equals(sessionId))
+                    .forEach(PendingSubscribe::cancel);
+        }
+    }
+
+    private static String key(String sessionId, String subscriptionId) {
+        return sessionId + ":" + subscriptionId;
+    }
+
+    private void start(Message<?> message, String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+
+        String resumeSeq = accessor.getFirstNativeHeader(ReplayBuffer.RESUME_SEQ_HEADER);
+        if (resumeSeq != null && replay.resume(sessionId, subscriptionId, destination, resumeSeq,
+                accessor.getFirstNativeHeader(ReplayBuffer.RESUME_EPOCH_HEADER))) {
+            log.debug("Resumed session {} on {} after {}", sessionId, destination, resumeSeq);
+            return;
+        }
+
+        if (message.getHeaders().get(HISTORY_SENT_HEADER) instanceof Long sent) {
+            history.sendRecent(sessionId, subscriptionId, destination, sent);
+            return;
+        }
+
+        if (lastValueCache.deliver(sessionId, subscriptionId, destination)) {
+            log.debug("Sent last value of {} to session {}", destination, sessionId);
+        }
+    }
+
+    /**
+     * The topic {@code message} subscribes to, if it is a SUBSCRIBE on its way through the broker.
+     */
+    private static String subscribedTopic(Message<?> message, MessageHandler handler) {
+        if (!(handler instanceof SimpleBrokerMessageHandler)
+                || SimpMessageType.SUBSCRIBE != SimpMessageHeaderAccessor.getMessageType(message.getHeaders())) {
+            return null;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        return destination != null && destination.startsWith(TOPIC_PREFIX) ? destination : null;
+    }
+
+    private static final class PendingSubscribe {
+        private final String sessionId;
+        private boolean cancelled;
+
+        private PendingSubscribe(String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+        }
+    }
+}
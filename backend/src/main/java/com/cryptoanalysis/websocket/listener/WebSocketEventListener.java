@@ -1,5 +1,8 @@
 package com.cryptoanalysis.websocket.listener;
 
+import com.cryptoanalysis.websocket.routing.TopicPattern;
+import com.cryptoanalysis.websocket.service.KlineHistory;
+import com.cryptoanalysis.websocket.service.SubscriptionRegistry;
 import com.cryptoanalysis.websocket.service.WebSocketRelayService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -7,23 +10,50 @@ import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 
+/**
+ * STOMP SUBSCRIBE and UNSUBSCRIBE frames are tracked by
+ * {@link com.cryptoanalysis.websocket.wire.WireFormatInterceptor}, which also
+ * decides their final destination; once a SUBSCRIBE to a pattern has gone
+ * through, the streams it spells out are opened here, as is the stream of a
+ * kline subscription that asked for history. What a subscription
+ * starts from is sent by {@link SubscriptionStartInterceptor}. Disconnects
+ * arrive here too, including those of sessions that went away without a
+ * DISCONNECT frame.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class WebSocketEventListener {
 
+    private final SubscriptionRegistry subscriptionRegistry;
     private final WebSocketRelayService relayService;
 
+    @EventListener
+    public void handleWebSocketSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String sessionId = accessor.getSessionId();
+        String subscriptionId = accessor.getSubscriptionId();
+
+        // The event carries the frame as the client sent it, before any binary rewrite
+        String destination = subscriptionRegistry.getStompDestination(sessionId, subscriptionId);
+        if (destination == null) {
+            destination = accessor.getDestination();
+        }
+
+        if (destination != null && (TopicPattern.isPattern(destination) || KlineHistory.isRequested(accessor))) {
+            int subscribed = relayService.subscribePattern(sessionId, destination);
+            log.debug("Session {} subscribed to {} destinations of {}", sessionId, subscribed, destination);
+        }
+    }
+
     @EventListener
     public void handleWebSocketDisconnect(SessionDisconnectEvent event) {
-        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(event.getMessage());
-        String sessionId = headerAccessor.getSessionId();
+        String sessionId = event.getSessionId();
 
         log.info("WebSocket session disconnected: {}", sessionId);
 
-        // Note: In a production system, you would track which subscriptions
-        // belong to which session and clean them up here
-        // For now, we rely on explicit unsubscribe messages from the client
+        subscriptionRegistry.releaseSession(sessionId);
     }
 }
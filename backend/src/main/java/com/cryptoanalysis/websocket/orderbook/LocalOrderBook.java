@@ -0,0 +1,325 @@
+package com.cryptoanalysis.websocket.orderbook;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.cryptoanalysis.candle.dto.OrderBookDTO;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.DepthUpdateDto;
+import com.cryptoanalysis.websocket.dto.OrderBookDeltaMessage;
+import com.cryptoanalysis.websocket.dto.OrderBookStatsDto;
+
+/**
+ * In-memory book for one symbol, kept in step with Binance's diff-depth stream
+ * using the documented snapshot sync:
+ * <ol>
+ * <li>buffer diff events while a REST snapshot is fetched</li>
+ * <li>refetch if the snapshot is older than the first buffered event</li>
+ * <li>drop buffered events already covered by the snapshot; the first one
+ * applied must straddle {@code lastUpdateId + 1}</li>
+ * <li>from then on every event must start at the previous event's final id + 1</li>
+ * </ol>
+ * Any break in the sequence clears the book and starts over from step 1.
+ * Prices and quantities are mantissas at the book's fixed scales. All methods
+ * are synchronized; the bus consumer and snapshot loader share an instance.
+ */
+class LocalOrderBook {
+
+    enum UpdateResult {
+        /**
+         * Held until a snapshot arrives
+         */
+        BUFFERED,
+        /**
+         * Already covered by the book
+         */
+        IGNORED,
+        APPLIED,
+        /**
+         * Out of sequence; the book is now unsynced and needs a new snapshot
+         */
+        GAP
+    }
+
+    enum SnapshotResult {
+        SYNCED,
+        /**
+         * Older than the buffered events; fetch another
+         */
+        TOO_OLD,
+        /**
+         * Buffered events did not follow on from the snapshot; fetch another
+         */
+        GAP
+    }
+
+    private final String symbol;
+    private final int priceScale;
+    private final int quantityScale;
+    private final int maxLevels;
+    private final int maxBuffered;
+    private final PriceLevels bids = new PriceLevels(true);
+    private final PriceLevels asks = new PriceLevels(false);
+    private final ArrayDeque<DepthUpdateDto> buffered = new ArrayDeque<>();
+    private boolean synced;
+    private boolean awaitingFirstUpdate;
+    private boolean snapshotPending;
+    private int snapshotFailures;
+    private long lastUpdateId;
+    private long lastEventTime;
+    private long updatesApplied;
+    private long resyncs;
+    private int subscribers;
+    private long lastAccess = System.currentTimeMillis();
+
+    LocalOrderBook(String symbol, int priceScale, int quantityScale, int maxLevels, int maxBuffered) {
+        this.symbol = symbol;
+        this.priceScale = priceScale;
+        this.quantityScale = quantityScale;
+        this.maxLevels = maxLevels;
+        this.maxBuffered = maxBuffered;
+    }
+
+    String getSymbol() {
+        return symbol;
+    }
+
+    int getPriceScale() {
+        return priceScale;
+    }
+
+    int getQuantityScale() {
+        return quantityScale;
+    }
+
+    synchronized UpdateResult apply(DepthUpdateDto update) {
+        if (!synced) {
+            if (buffered.size() >= maxBuffered) {
+                // The snapshot will now look too old and be refetched
+                buffered.pollFirst();
+            }
+            buffered.addLast(update);
+            return UpdateResult.BUFFERED;
+        }
+
+        return applyInSequence(update);
+    }
+
+    /**
+     * Install a REST snapshot given as flattened (price, quantity) mantissa
+     * pairs and replay the buffered events on top of it.
+     */
+    synchronized SnapshotResult loadSnapshot(long snapshotUpdateId, long[] bidLevels, long[] askLevels) {
+        if (synced) {
+            return SnapshotResult.SYNCED;
+        }
+
+        DepthUpdateDto first = buffered.peekFirst();
+        if (first != null && first.getFirstUpdateId() > snapshotUpdateId + 1) {
+            return SnapshotResult.TOO_OLD;
+        }
+
+        bids.clear();
+        asks.clear();
+        for (int i = 0; i < bidLevels.length; i += 2) {
+            bids.set(bidLevels[i], bidLevels[i + 1]);
+        }
+        for (int i = 0; i < askLevels.length; i += 2) {
+            asks.set(askLevels[i], askLevels[i + 1]);
+        }
+
+        lastUpdateId = snapshotUpdateId;
+        synced = true;
+        awaitingFirstUpdate = true;
+
+        while (!buffered.isEmpty()) {
+            if (applyInSequence(buffered.pollFirst()) == UpdateResult.GAP) {
+                return SnapshotResult.GAP;
+            }
+        }
+
+        bids.truncate(maxLevels);
+        asks.truncate(maxLevels);
+        snapshotFailures = 0;
+        return SnapshotResult.SYNCED;
+    }
+
+    /**
+     * @return false if a snapshot is already being fetched
+     */
+    synchronized boolean beginSnapshot() {
+        if (snapshotPending) {
+            return false;
+        }
+        snapshotPending = true;
+        return true;
+    }
+
+    synchronized void endSnapshot() {
+        snapshotPending = false;
+    }
+
+    /**
+     * Count a snapshot that failed or could not be used.
+     *
+     * @return such snapshots in a row since the book was last synced, this one included
+     */
+    synchronized int snapshotFailed() {
+        return ++snapshotFailures;
+    }
+
+    synchronized boolean isSynced() {
+        return synced;
+    }
+
+    synchronized long getLastUpdateId() {
+        return lastUpdateId;
+    }
+
+    synchronized void addSubscriber() {
+        subscribers++;
+    }
+
+    synchronized void removeSubscriber() {
+        subscribers = Math.max(0, subscribers - 1);
+        lastAccess = System.currentTimeMillis();
+    }
+
+    synchronized void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    synchronized boolean isIdle(long now, long idleTimeout) {
+        return subscribers == 0 && now - lastAccess > idleTimeout;
+    }
+
+    /**
+     * Top {@code limit} levels per side, or null while the book is not synced.
+     */
+    synchronized OrderBookDTO toDto(int limit) {
+        if (!synced) {
+            return null;
+        }
+
+        return OrderBookDTO.builder()
+                .lastUpdateId(lastUpdateId)
+                .bids(entries(bids, limit))
+                .asks(entries(asks, limit))
+                .build();
+    }
+
+    /**
+     * Top {@code limit} levels per side as a STOMP snapshot message.
+     */
+    synchronized OrderBookDeltaMessage toSnapshotMessage(int limit) {
+        return OrderBookDeltaMessage.builder()
+                .symbol(symbol)
+                .snapshot(true)
+                .lastUpdateId(lastUpdateId)
+                .eventTime(lastEventTime)
+                .bids(levels(bids, limit))
+                .asks(levels(asks, limit))
+                .build();
+    }
+
+    synchronized OrderBookStatsDto toStats() {
+        return OrderBookStatsDto.builder()
+                .symbol(symbol)
+                .synced(synced)
+                .lastUpdateId(lastUpdateId)
+                .bidLevels(bids.size())
+                .askLevels(asks.size())
+                .bufferedEvents(buffered.size())
+                .updatesApplied(updatesApplied)
+                .resyncs(resyncs)
+                .subscribers(subscribers)
+                .lastEventTime(lastEventTime)
+                .build();
+    }
+
+    private UpdateResult applyInSequence(DepthUpdateDto update) {
+        if (update.getFinalUpdateId() <= lastUpdateId) {
+            return UpdateResult.IGNORED;
+        }
+
+        long next = lastUpdateId + 1;
+        boolean inSequence = awaitingFirstUpdate
+                ? update.getFirstUpdateId() <= next
+                : update.getFirstUpdateId() == next;
+
+        if (!inSequence) {
+            desync(update);
+            return UpdateResult.GAP;
+        }
+
+        applyLevels(bids, update.getBids(), update);
+        applyLevels(asks, update.getAsks(), update);
+        bids.truncate(maxLevels);
+        asks.truncate(maxLevels);
+
+        lastUpdateId = update.getFinalUpdateId();
+        lastEventTime = update.getEventTime();
+        awaitingFirstUpdate = false;
+        updatesApplied++;
+        return UpdateResult.APPLIED;
+    }
+
+    /**
+     * Drop the book and start buffering again from the event that broke the sequence.
+     */
+    private void desync(DepthUpdateDto update) {
+        synced = false;
+        awaitingFirstUpdate = false;
+        resyncs++;
+        bids.clear();
+        asks.clear();
+        buffered.clear();
+        buffered.addLast(update);
+    }
+
+    private void applyLevels(PriceLevels side, long[] levels, DepthUpdateDto update) {
+        if (levels == null) {
+            return;
+        }
+
+        boolean rescale = update.getPriceScale() != priceScale || update.getQuantityScale() != quantityScale;
+
+        for (int i = 0; i < levels.length; i += 2) {
+            if (rescale) {
+                side.set(ScaledDecimal.of(levels[i], update.getPriceScale()).setScale(priceScale).mantissa(),
+                        ScaledDecimal.of(levels[i + 1], update.getQuantityScale()).setScale(quantityScale).mantissa());
+            } else {
+                side.set(levels[i], levels[i + 1]);
+            }
+        }
+    }
+
+    private List<OrderBookDTO.OrderBookEntry> entries(PriceLevels side, int limit) {
+        int count = Math.min(limit, side.size());
+        List<OrderBookDTO.OrderBookEntry> entries = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            entries.add(OrderBookDTO.OrderBookEntry.builder()
+                    .price(BigDecimal.valueOf(side.priceAt(i), priceScale))
+                    .qty(BigDecimal.valueOf(side.quantityAt(i), quantityScale))
+                    .build());
+        }
+
+        return entries;
+    }
+
+    private List<ScaledDecimal[]> levels(PriceLevels side, int limit) {
+        int count = Math.min(limit, side.size());
+        List<ScaledDecimal[]> levels = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            levels.add(new ScaledDecimal[] {
+                    ScaledDecimal.of(side.priceAt(i), priceScale),
+                    ScaledDecimal.of(side.quantityAt(i), quantityScale) });
+        }
+
+        return levels;
+    }
+}
@@ -0,0 +1,312 @@
+package com.cryptoanalysis.websocket.orderbook;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import com.cryptoanalysis.candle.dto.ExchangeInfoDTO;
+import com.cryptoanalysis.candle.dto.OrderBookDTO;
+import com.cryptoanalysis.candle.service.ExchangeInfoService;
+import com.cryptoanalysis.candle.service.MarketDataService;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.bus.MarketDataBus;
+import com.cryptoanalysis.websocket.bus.MarketDataConsumer;
+import com.cryptoanalysis.websocket.bus.MarketDataEvent;
+import com.cryptoanalysis.websocket.config.FrameJournalConfig;
+import com.cryptoanalysis.websocket.config.OrderBookConfig;
+import com.cryptoanalysis.websocket.dto.DepthUpdateDto;
+import com.cryptoanalysis.websocket.dto.OrderBookDeltaMessage;
+import com.cryptoanalysis.websocket.dto.OrderBookStatsDto;
+import com.cryptoanalysis.websocket.enums.JournalMode;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+import com.cryptoanalysis.websocket.integration.BinanceWebSocketClient;
+import com.cryptoanalysis.websocket.service.SubscriptionRegistry;
+import com.cryptoanalysis.websocket.service.SymbolPrecisionService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps local order books for the symbols clients are interested in. A book is
+ * started by the first STOMP subscriber or REST read of a symbol trading on the
+ * exchange, up to {@code max-books} at once, synchronised from a REST snapshot
+ * plus the {@code @depth@100ms} diff stream, and dropped once it has had no
+ * subscribers and no reads for the idle timeout. Starting and dropping a book,
+ * with its depth stream, happen under the map's lock for that symbol, so a
+ * read or subscriber never lands on a book being dropped. Every applied diff is
+ * pushed to {@code /topic/orderbook/<symbol>}; a full snapshot message follows
+ * each (re)sync. No books are kept while a frame journal is replayed, as the
+ * snapshots and exchange info they need come from REST.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderBookService implements MarketDataConsumer {
+
+    private static final long EVICTION_INTERVAL_SECONDS = 60;
+
+    private final OrderBookConfig config;
+    private final FrameJournalConfig journalConfig;
+    private final BinanceWebSocketClient binanceWebSocketClient;
+    private final MarketDataService marketDataService;
+    private final ExchangeInfoService exchangeInfoService;
+    private final MarketDataBus marketDataBus;
+    private final SymbolPrecisionService precisionService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final Map<String, LocalOrderBook> books = new ConcurrentHashMap<>();
+    private final AtomicInteger bookCount = new AtomicInteger();
+    private final ExecutorService snapshotExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    public void init() {
+        marketDataBus.addConsumer(this);
+        scheduler.scheduleWithFixedDelay(this::evictIdle,
+                EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public String getConsumerName() {
+        return "orderbook";
+    }
+
+    @Override
+    public void onEvent(MarketDataEvent event, long sequence) {
+        if (event.getType() != MarketDataEventType.DEPTH) {
+            return;
+        }
+
+        DepthUpdateDto update = event.getDepth();
+        LocalOrderBook book = books.get(update.getSymbol());
+        if (book == null) {
+            return;
+        }
+
+        switch (book.apply(update)) {
+            case APPLIED -> messagingTemplate.convertAndSend(destination(book.getSymbol()), toDelta(update));
+            case GAP -> {
+                log.warn("Order book {} lost sequence at update {}; resyncing", book.getSymbol(),
+                        update.getFirstUpdateId());
+                requestSnapshot(book, 0);
+            }
+            default -> {
+            }
+        }
+    }
+
+    public void subscribe(String sessionId, String symbol) {
+        LocalOrderBook[] tracked = new LocalOrderBook[1];
+        subscriptionRegistry.acquire(sessionId, "orderbook_" + symbol, destination(symbol),
+                () -> tracked[0] = track(symbol, LocalOrderBook::addSubscriber),
+                () -> {
+                    if (tracked[0] != null) {
+                        tracked[0].removeSubscriber();
+                    }
+                });
+    }
+
+    public void unsubscribe(String sessionId, String symbol) {
+        subscriptionRegistry.release(sessionId, "orderbook_" + symbol);
+    }
+
+    /**
+     * The in-memory book, or empty while it is still synchronising or when no
+     * book is kept for the symbol. The first call for a symbol starts tracking it.
+     */
+    public Optional<OrderBookDTO> getOrderBook(String symbol, int limit) {
+        LocalOrderBook book = track(symbol, LocalOrderBook::touch);
+        return book == null ? Optional.empty() : Optional.ofNullable(book.toDto(limit));
+    }
+
+    public List<OrderBookStatsDto> getStats() {
+        return books.values().stream()
+                .map(LocalOrderBook::toStats)
+                .toList();
+    }
+
+    /**
+     * The symbol's book, started if need be, after applying {@code use} to it
+     * under the symbol's lock.
+     *
+     * @return null if the symbol is not trading, {@code max-books} are already
+     *         kept or a journal is being replayed
+     */
+    private LocalOrderBook track(String symbol, Consumer<LocalOrderBook> use) {
+        if (journalConfig.getMode() == JournalMode.REPLAY) {
+            return null;
+        }
+
+        if (!books.containsKey(symbol) && !isTrading(symbol)) {
+            log.debug("Not keeping an order book for unknown symbol {}", symbol);
+            return null;
+        }
+
+        boolean[] started = new boolean[1];
+        LocalOrderBook book = books.compute(symbol, (key, existing) -> {
+            LocalOrderBook current = existing != null ? existing : start(symbol);
+            if (current != null) {
+                use.accept(current);
+                started[0] = existing == null;
+            }
+            return current;
+        });
+
+        if (started[0]) {
+            // Let the stream buffer a few events first so the snapshot lands inside them
+            requestSnapshot(book, config.getResyncDelay());
+        }
+        return book;
+    }
+
+    /**
+     * Create a book and open its depth stream. Runs under the symbol's lock.
+     */
+    private LocalOrderBook start(String symbol) {
+        if (bookCount.incrementAndGet() > config.getMaxBooks()) {
+            bookCount.decrementAndGet();
+            log.warn("Not starting an order book for {}: {} books already kept", symbol, config.getMaxBooks());
+            return null;
+        }
+
+        log.info("Starting local order book for {}", symbol);
+        LocalOrderBook book = new LocalOrderBook(symbol, precisionService.getPriceScale(symbol),
+                precisionService.getQuantityScale(symbol), config.getMaxLevels(), config.getMaxBufferedEvents());
+        binanceWebSocketClient.subscribeDepth(symbol);
+        return book;
+    }
+
+    private boolean isTrading(String symbol) {
+        try {
+            ExchangeInfoDTO exchangeInfo = exchangeInfoService.getExchangeInfo();
+            return exchangeInfo.getSymbols().stream()
+                    .anyMatch(s -> s.getSymbol().equals(symbol) && "TRADING".equals(s.getStatus()));
+        } catch (Exception e) {
+            log.warn("Could not check {} against exchange info: {}", symbol, e.getMessage());
+            return false;
+        }
+    }
+
+    private void requestSnapshot(LocalOrderBook book, long delayMillis) {
+        if (!book.beginSnapshot()) {
+            return;
+        }
+
+        scheduler.schedule(() -> snapshotExecutor.execute(() -> loadSnapshot(book)),
+                delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void loadSnapshot(LocalOrderBook book) {
+        if (books.get(book.getSymbol()) != book) {
+            book.endSnapshot();
+            return;
+        }
+
+        LocalOrderBook.SnapshotResult result;
+        try {
+            OrderBookDTO snapshot = marketDataService.fetchOrderBook(book.getSymbol(), config.getSnapshotDepth());
+            result = book.loadSnapshot(snapshot.getLastUpdateId(),
+                    toLevels(snapshot.getBids(), book), toLevels(snapshot.getAsks(), book));
+        } catch (Exception e) {
+            log.warn("Order book snapshot for {} failed: {}", book.getSymbol(), e.getMessage());
+            book.endSnapshot();
+            requestSnapshot(book, retryDelay(book));
+            return;
+        }
+
+        book.endSnapshot();
+
+        if (result == LocalOrderBook.SnapshotResult.SYNCED) {
+            log.info("Order book {} synced at update {}", book.getSymbol(), book.getLastUpdateId());
+            messagingTemplate.convertAndSend(destination(book.getSymbol()), book.toSnapshotMessage(config.getSnapshotDepth()));
+        } else {
+            log.info("Order book snapshot for {} unusable ({}); fetching another", book.getSymbol(), result);
+            requestSnapshot(book, retryDelay(book));
+        }
+    }
+
+    /**
+     * Delay before the next snapshot after one that failed or could not be
+     * used: the resync delay, doubled for each such snapshot in a row.
+     */
+    private long retryDelay(LocalOrderBook book) {
+        int failures = Math.min(book.snapshotFailed(), 31);
+        return Math.min((long) config.getResyncDelay() << (failures - 1), config.getMaxResyncDelay());
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+
+        for (String symbol : books.keySet()) {
+            books.computeIfPresent(symbol, (key, book) -> {
+                if (!book.isIdle(now, config.getIdleTimeout())) {
+                    return book;
+                }
+
+                binanceWebSocketClient.unsubscribe(symbol.toLowerCase() + "@depth@100ms");
+                bookCount.decrementAndGet();
+                log.info("Stopped idle local order book for {}", symbol);
+                return null;
+            });
+        }
+    }
+
+    private long[] toLevels(List<OrderBookDTO.OrderBookEntry> entries, LocalOrderBook book) {
+        long[] levels = new long[entries.size() * 2];
+        int i = 0;
+
+        for (OrderBookDTO.OrderBookEntry entry : entries) {
+            levels[i++] = ScaledDecimal.valueOf(entry.getPrice()).setScale(book.getPriceScale()).mantissa();
+            levels[i++] = ScaledDecimal.valueOf(entry.getQty()).setScale(book.getQuantityScale()).mantissa();
+        }
+
+        return levels;
+    }
+
+    private OrderBookDeltaMessage toDelta(DepthUpdateDto update) {
+        return OrderBookDeltaMessage.builder()
+                .symbol(update.getSymbol())
+                .snapshot(false)
+                .firstUpdateId(update.getFirstUpdateId())
+                .lastUpdateId(update.getFinalUpdateId())
+                .eventTime(update.getEventTime())
+                .bids(toDecimals(update.getBids(), update))
+                .asks(toDecimals(update.getAsks(), update))
+                .build();
+    }
+
+    private List<ScaledDecimal[]> toDecimals(long[] levels, DepthUpdateDto update) {
+        List<ScaledDecimal[]> decimals = new ArrayList<>(levels.length / 2);
+
+        for (int i = 0; i < levels.length; i += 2) {
+            decimals.add(new ScaledDecimal[] {
+                    ScaledDecimal.of(levels[i], update.getPriceScale()),
+                    ScaledDecimal.of(levels[i + 1], update.getQuantityScale()) });
+        }
+
+        return decimals;
+    }
+
+    private String destination(String symbol) {
+        return "/topic/orderbook/" + symbol.toLowerCase();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        snapshotExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,116 @@
+package com.cryptoanalysis.websocket.orderbook;
+
+import java.util.Arrays;
+
+/**
+ * One side of an order book as two parallel primitive arrays sorted by price,
+ * with the best level at the end: ascending prices for bids, descending for
+ * asks. Almost all diff-depth traffic lands near the top of the book, so
+ * inserting or removing a level there moves only a handful of elements, and
+ * lookups are a binary search over a flat {@code long[]} with no boxing.
+ */
+class PriceLevels {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final boolean bids;
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private long[] quantities = new long[INITIAL_CAPACITY];
+    private int size;
+
+    PriceLevels(boolean bids) {
+        this.bids = bids;
+    }
+
+    /**
+     * Set the quantity at {@code price}; zero removes the level.
+     */
+    void set(long price, long quantity) {
+        int index = find(price);
+
+        if (index >= 0) {
+            if (quantity == 0) {
+                System.arraycopy(prices, index + 1, prices, index, size - index - 1);
+                System.arraycopy(quantities, index + 1, quantities, index, size - index - 1);
+                size--;
+            } else {
+                quantities[index] = quantity;
+            }
+            return;
+        }
+
+        if (quantity == 0) {
+            return;
+        }
+
+        int insertAt = -index - 1;
+        if (size == prices.length) {
+            prices = Arrays.copyOf(prices, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+
+        System.arraycopy(prices, insertAt, prices, insertAt + 1, size - insertAt);
+        System.arraycopy(quantities, insertAt, quantities, insertAt + 1, size - insertAt);
+        prices[insertAt] = price;
+        quantities[insertAt] = quantity;
+        size++;
+    }
+
+    /**
+     * Drop the levels farthest from the top so at most {@code maxLevels} remain.
+     */
+    void truncate(int maxLevels) {
+        int excess = size - maxLevels;
+        if (excess <= 0) {
+            return;
+        }
+
+        System.arraycopy(prices, excess, prices, 0, maxLevels);
+        System.arraycopy(quantities, excess, quantities, 0, maxLevels);
+        size = maxLevels;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Price of the level {@code depth} steps from the top; 0 is the best bid or ask.
+     */
+    long priceAt(int depth) {
+        return prices[size - 1 - depth];
+    }
+
+    long quantityAt(int depth) {
+        return quantities[size - 1 - depth];
+    }
+
+    /**
+     * Binary search in storage order, which is ascending for bids and descending for asks.
+     *
+     * @return the index of {@code price}, or {@code -(insertion point) - 1}
+     */
+    private int find(long price) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = bids ? Long.compare(prices[mid], price) : Long.compare(price, prices[mid]);
+
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,97 @@
+package com.cryptoanalysis.websocket.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Destination patterns a STOMP subscription may name instead of a single
+ * destination. A {@code *} segment matches any one segment and a trailing
+ * {@code **} any number of them; {@code {a,b,c}} spells out alternatives,
+ * within a segment or across several, as in
+ * {@code /topic/ticker/{btc,eth,sol}usdt} or {@code /topic/kline/*}{@code /1m}.
+ * Anything else, including a {@code *} inside a segment, is literal.
+ */
+public final class TopicPattern {
+
+    public static final String ANY = "*";
+
+    public static final String ANY_REMAINING = "**";
+
+    private TopicPattern() {
+    }
+
+    public static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    /**
+     * Whether {@code pattern} has wildcard segments, so its destinations cannot be listed.
+     */
+    public static boolean hasWildcard(String pattern) {
+        return pattern.indexOf('*') >= 0;
+    }
+
+    /**
+     * The brace-free patterns {@code pattern} stands for.
+     *
+     * @return at most {@code limit} patterns, or an empty list if there would be more
+     */
+    public static List<String> expand(String pattern, int limit) {
+        List<String> expanded = new ArrayList<>();
+        return expand(pattern, limit, expanded) ? expanded : List.of();
+    }
+
+    public static boolean matches(String pattern, String destination) {
+        int open = pattern.indexOf('{');
+        int close = open < 0 ? -1 : pattern.indexOf('}', open);
+        if (close < 0) {
+            return matches(segments(pattern), segments(destination));
+        }
+
+        String head = pattern.substring(0, open);
+        String tail = pattern.substring(close + 1);
+        for (String alternative : pattern.substring(open + 1, close).split(",", -1)) {
+            if (matches(head + alternative + tail, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String[] segments(String destination) {
+        return destination.split("/", -1);
+    }
+
+    private static boolean expand(String pattern, int limit, List<String> expanded) {
+        int open = pattern.indexOf('{');
+        int close = open < 0 ? -1 : pattern.indexOf('}', open);
+        if (close < 0) {
+            if (expanded.size() >= limit) {
+                return false;
+            }
+            expanded.add(pattern);
+            return true;
+        }
+
+        String head = pattern.substring(0, open);
+        String tail = pattern.substring(close + 1);
+        for (String alternative : pattern.substring(open + 1, close).split(",", -1)) {
+            if (!expand(head + alternative + tail, limit, expanded)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String[] pattern, String[] destination) {
+        for (int i = 0; i < pattern.length; i++) {
+            if (ANY_REMAINING.equals(pattern[i])) {
+                return i == pattern.length - 1;
+            }
+            if (i >= destination.length || !(ANY.equals(pattern[i]) || pattern[i].equals(destination[i]))) {
+                return false;
+            }
+        }
+        return pattern.length == destination.length;
+    }
+}
@@ -0,0 +1,90 @@
+package com.cryptoanalysis.websocket.routing;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Values indexed by the segments of brace-free {@link TopicPattern}s. The
+ * values matching a destination are found by walking the destination's
+ * segments, following the literal branch and any {@code *} branch at each
+ * level and collecting {@code **} branches on the way, so a lookup costs the
+ * same however many values are stored.
+ * <p>
+ * Changes are serialized and prune the branches they empty; lookups take no
+ * lock.
+ */
+public class TopicTrie<T> {
+
+    private final Node<T> root = new Node<>();
+
+    public synchronized void add(String pattern, T value) {
+        Node<T> node = root;
+        for (String segment : TopicPattern.segments(pattern)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node<>());
+        }
+        node.values.add(value);
+    }
+
+    public synchronized boolean remove(String pattern, T value) {
+        return remove(root, TopicPattern.segments(pattern), 0, value);
+    }
+
+    /**
+     * Values whose pattern matches {@code destination}, each once.
+     */
+    public Set<T> match(String destination) {
+        Set<T> matches = new LinkedHashSet<>();
+        collect(root, TopicPattern.segments(destination), 0, matches);
+        return matches;
+    }
+
+    public boolean isEmpty() {
+        return root.isEmpty();
+    }
+
+    private boolean remove(Node<T> node, String[] segments, int depth, T value) {
+        if (depth == segments.length) {
+            return node.values.remove(value);
+        }
+
+        Node<T> child = node.children.get(segments[depth]);
+        if (child == null || !remove(child, segments, depth + 1, value)) {
+            return false;
+        }
+        if (child.isEmpty()) {
+            node.children.remove(segments[depth]);
+        }
+        return true;
+    }
+
+    private void collect(Node<T> node, String[] segments, int depth, Set<T> matches) {
+        Node<T> remaining = node.children.get(TopicPattern.ANY_REMAINING);
+        if (remaining != null) {
+            matches.addAll(remaining.values);
+        }
+        if (depth == segments.length) {
+            matches.addAll(node.values);
+            return;
+        }
+
+        Node<T> literal = node.children.get(segments[depth]);
+        if (literal != null) {
+            collect(literal, segments, depth + 1, matches);
+        }
+        Node<T> any = node.children.get(TopicPattern.ANY);
+        if (any != null && any != literal) {
+            collect(any, segments, depth + 1, matches);
+        }
+    }
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> children = new ConcurrentHashMap<>();
+        private final Set<T> values = ConcurrentHashMap.newKeySet();
+
+        private boolean isEmpty() {
+            return children.isEmpty() && values.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.cryptoanalysis.websocket.routing;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import com.cryptoanalysis.websocket.config.RelaySubscriptionConfig;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The simple broker's subscription registry, installed on it at startup.
+ * Subscriptions live in a {@link TopicTrie}, so routing a message walks its
+ * destination's segments instead of testing every subscription, and a
+ * subscription may name a {@link TopicPattern} to get every matching
+ * destination's messages, each under its own destination.
+ */
+@Component
+@Slf4j
+public class TopicTrieRegistry extends AbstractSubscriptionRegistry implements SmartInitializingSingleton {
+
+    private final ObjectProvider<SimpleBrokerMessageHandler> broker;
+    private final RelaySubscriptionConfig config;
+    private final TopicTrie<Subscription> trie = new TopicTrie<>();
+    /**
+     * Destination of each subscription, by session and subscription id.
+     */
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    public TopicTrieRegistry(ObjectProvider<SimpleBrokerMessageHandler> broker, RelaySubscriptionConfig config,
+            MeterRegistry meterRegistry) {
+        this.broker = broker;
+        this.config = config;
+
+        Gauge.builder("websocket.broker.subscriptions", sessions,
+                s -> s.values().stream().mapToInt(Map::size).sum()).register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        broker.ifAvailable(handler -> {
+            handler.setSubscriptionRegistry(this);
+            log.info("Routing broker subscriptions through the topic trie");
+        });
+    }
+
+    /**
+     * Subscriptions that a message to {@code destination} would reach.
+     */
+    public int countSubscriptions(String destination) {
+        return trie.match(destination).size();
+    }
+
+    @Override
+    protected synchronized void addSubscriptionInternal(String sessionId, String subscriptionId, String destination,
+            Message<?> message) {
+        List<String> patterns = TopicPattern.expand(destination, config.getMaxPatternDestinations());
+        if (patterns.isEmpty()) {
+            log.warn("Ignoring subscription {} of session {} to {}: more than {} alternatives", subscriptionId,
+                    sessionId, destination, config.getMaxPatternDestinations());
+            return;
+        }
+
+        String previous = sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>())
+                .put(subscriptionId, destination);
+        Subscription subscription = new Subscription(sessionId, subscriptionId);
+        if (previous != null) {
+            removeFromTrie(previous, subscription);
+        }
+        patterns.forEach(pattern -> trie.add(pattern, subscription));
+    }
+
+    @Override
+    protected synchronized void removeSubscriptionInternal(String sessionId, String subscriptionId,
+            Message<?> message) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        String destination = subscriptions == null ? null : subscriptions.remove(subscriptionId);
+        if (destination == null) {
+            return;
+        }
+
+        removeFromTrie(destination, new Subscription(sessionId, subscriptionId));
+        if (subscriptions.isEmpty()) {
+            sessions.remove(sessionId);
+        }
+    }
+
+    @Override
+    public synchronized void unregisterAllSubscriptions(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) -> removeFromTrie(destination,
+                    new Subscription(sessionId, subscriptionId)));
+        }
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+        MultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+        for (Subscription subscription : trie.match(destination)) {
+            result.add(subscription.sessionId(), subscription.subscriptionId());
+        }
+        return result;
+    }
+
+    private void removeFromTrie(String destination, Subscription subscription) {
+        for (String pattern : TopicPattern.expand(destination, config.getMaxPatternDestinations())) {
+            trie.remove(pattern, subscription);
+        }
+    }
+
+    private record Subscription(String sessionId, String subscriptionId) {
+    }
+}
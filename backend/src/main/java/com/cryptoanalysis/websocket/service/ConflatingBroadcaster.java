@@ -0,0 +1,342 @@
+package com.cryptoanalysis.websocket.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.websocket.config.RelayConflationConfig;
+import com.cryptoanalysis.websocket.dto.ConflationStatsDto;
+import com.cryptoanalysis.websocket.wire.UpdateRate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conflation stage in front of the STOMP broker. Keeps only the latest value
+ * per destination and broadcasts it at most once per destination interval:
+ * the first update after a quiet period goes out at once, later ones replace
+ * each other until the interval has passed. Updates equal to the last
+ * broadcast (or pending) value are dropped, and urgent updates such as closed
+ * candles are sent immediately.
+ * <p>
+ * Throttled streams (see {@link UpdateRate}) are further destinations fed
+ * from the same updates at their rate class's interval, so a class costs one
+ * conflation and one encode however many sessions subscribe to it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConflatingBroadcaster {
+
+    private final TopicPublisher publisher;
+    private final RelayConflationConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Destination> destinations = new ConcurrentHashMap<>();
+    private final Map<String, TopicCounters> counters = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @PostConstruct
+    public void init() {
+        scheduler.scheduleWithFixedDelay(this::flushDue, config.getFlushTick(), config.getFlushTick(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Broadcast {@code message}, conflated with other updates to the same
+     * destination, and to each of the destination's throttled streams that
+     * has subscribers.
+     *
+     * @param contentKey value whose equality identifies duplicate updates
+     * @param urgent     send now, replacing anything pending
+     */
+    public void publish(String destination, String topic, int intervalMillis, Object message, Object contentKey,
+            boolean urgent) {
+        publish(destination, topic, intervalMillis, message, contentKey, urgent, config.getEnabled());
+
+        for (Integer rateInterval : rateClasses(destination)) {
+            String throttled = UpdateRate.throttledDestination(destination, rateInterval);
+            if (isWanted(throttled)) {
+                publish(throttled, throttledTopic(topic, rateInterval), rateInterval, message, contentKey, urgent,
+                        true);
+            }
+        }
+    }
+
+    /**
+     * Merge keyed items into the list pending for {@code destination}, keeping
+     * the latest item per key, and broadcast the list once the interval allows.
+     * Throttled streams of the destination get the same items at their own pace.
+     */
+    public <T> void publishMerged(String destination, String topic, int intervalMillis, List<T> items,
+            Function<T, String> key, Function<T, Object> contentKey) {
+        publishMerged(destination, topic, intervalMillis, items, key, contentKey, config.getEnabled());
+
+        for (Integer rateInterval : rateClasses(destination)) {
+            String throttled = UpdateRate.throttledDestination(destination, rateInterval);
+            if (isWanted(throttled)) {
+                publishMerged(throttled, throttledTopic(topic, rateInterval), rateInterval, items, key, contentKey,
+                        true);
+            }
+        }
+    }
+
+    /**
+     * Forget a destination once nobody is subscribed to it.
+     */
+    public void remove(String destination) {
+        destinations.remove(destination);
+        publisher.forget(destination);
+        for (Integer rateInterval : rateClasses(destination)) {
+            String throttled = UpdateRate.throttledDestination(destination, rateInterval);
+            destinations.remove(throttled);
+            publisher.forget(throttled);
+        }
+    }
+
+    public ConflationStatsDto getStats() {
+        List<ConflationStatsDto.TopicStats> topics = counters.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> entry.getValue().toDto(entry.getKey()))
+                .toList();
+
+        int pending = (int) destinations.values().stream()
+                .filter(Destination::hasPending)
+                .count();
+
+        return ConflationStatsDto.builder()
+                .enabled(config.getEnabled())
+                .pendingDestinations(pending)
+                .topics(topics)
+                .build();
+    }
+
+    void flushDue() {
+        long now = System.currentTimeMillis();
+
+        destinations.forEach((destination, state) -> {
+            try {
+                synchronized (state) {
+                    if (now - state.sentAt < state.intervalMillis) {
+                        return;
+                    }
+
+                    if (state.pending != null) {
+                        Object message = state.pending;
+                        state.sentKey = state.pendingKey;
+                        state.pending = null;
+                        state.pendingKey = null;
+                        state.sentAt = now;
+                        send(destination, state.topic, message, counters(state.topic));
+                    } else if (!state.pendingItems.isEmpty()) {
+                        flushMerged(destination, state, now);
+                    }
+                }
+            } catch (Exception e) {
+                log.error("Failed to flush conflated update for {}", destination, e);
+            }
+        });
+    }
+
+    private void publish(String destination, String topic, int intervalMillis, Object message, Object contentKey,
+            boolean urgent, boolean conflate) {
+        TopicCounters topicCounters = counters(topic);
+        topicCounters.received.incrementAndGet();
+
+        if (!conflate) {
+            send(destination, topic, message, topicCounters);
+            return;
+        }
+
+        Destination state = destination(destination, topic, intervalMillis);
+        long now = System.currentTimeMillis();
+
+        synchronized (state) {
+            Object lastKey = state.pending != null ? state.pendingKey : state.sentKey;
+            if (contentKey.equals(lastKey)) {
+                topicCounters.duplicates.incrementAndGet();
+                return;
+            }
+
+            if (urgent || (state.pending == null && now - state.sentAt >= state.intervalMillis)) {
+                state.pending = null;
+                state.pendingKey = null;
+                state.sentKey = contentKey;
+                state.sentAt = now;
+                send(destination, topic, message, topicCounters);
+                return;
+            }
+
+            if (state.pending != null) {
+                topicCounters.collapsed.incrementAndGet();
+            }
+            state.pending = message;
+            state.pendingKey = contentKey;
+        }
+    }
+
+    private <T> void publishMerged(String destination, String topic, int intervalMillis, List<T> items,
+            Function<T, String> key, Function<T, Object> contentKey, boolean conflate) {
+        TopicCounters topicCounters = counters(topic);
+        topicCounters.received.addAndGet(items.size());
+
+        if (!conflate) {
+            send(destination, topic, items, topicCounters);
+            return;
+        }
+
+        Destination state = destination(destination, topic, intervalMillis);
+        long now = System.currentTimeMillis();
+
+        synchronized (state) {
+            for (T item : items) {
+                String itemKey = key.apply(item);
+                Object itemContent = contentKey.apply(item);
+
+                Object pendingItem = state.pendingItems.get(itemKey);
+                Object lastContent = pendingItem != null ? state.pendingItemKeys.get(itemKey)
+                        : state.sentItemKeys.get(itemKey);
+
+                if (itemContent.equals(lastContent)) {
+                    topicCounters.duplicates.incrementAndGet();
+                    continue;
+                }
+
+                if (pendingItem != null) {
+                    topicCounters.collapsed.incrementAndGet();
+                }
+                state.pendingItems.put(itemKey, item);
+                state.pendingItemKeys.put(itemKey, itemContent);
+            }
+
+            if (!state.pendingItems.isEmpty() && now - state.sentAt >= state.intervalMillis) {
+                flushMerged(destination, state, now);
+            }
+        }
+    }
+
+    /**
+     * Whether a throttled stream has subscribers; once it has none, its
+     * conflation state and last value are dropped.
+     */
+    private boolean isWanted(String throttled) {
+        if (publisher.hasSubscribers(throttled)) {
+            return true;
+        }
+        if (destinations.remove(throttled) != null) {
+            publisher.forget(throttled);
+        }
+        return false;
+    }
+
+    private List<Integer> rateClasses(String destination) {
+        return UpdateRate.supportsThrottling(destination) ? config.getRateClasses() : List.of();
+    }
+
+    private static String throttledTopic(String topic, int rateInterval) {
+        return topic + "@" + rateInterval + "ms";
+    }
+
+    private void flushMerged(String destination, Destination state, long now) {
+        List<Object> batch = new ArrayList<>(state.pendingItems.values());
+        state.sentItemKeys.putAll(state.pendingItemKeys);
+        state.pendingItems.clear();
+        state.pendingItemKeys.clear();
+        state.sentAt = now;
+        send(destination, state.topic, batch, counters(state.topic));
+    }
+
+    private void send(String destination, String topic, Object payload, TopicCounters topicCounters) {
+        publisher.send(destination, topic, payload);
+        topicCounters.published.incrementAndGet();
+    }
+
+    private Destination destination(String destination, String topic, int defaultInterval) {
+        return destinations.computeIfAbsent(destination, d -> new Destination(topic,
+                config.getDestinationIntervals().getOrDefault(d, defaultInterval)));
+    }
+
+    private TopicCounters counters(String topic) {
+        return counters.computeIfAbsent(topic, this::registerCounters);
+    }
+
+    private TopicCounters registerCounters(String topic) {
+        TopicCounters topicCounters = new TopicCounters();
+
+        FunctionCounter.builder("websocket.relay.conflation.received", topicCounters.received, AtomicLong::get)
+                .tag("topic", topic).register(meterRegistry);
+        FunctionCounter.builder("websocket.relay.conflation.published", topicCounters.published, AtomicLong::get)
+                .tag("topic", topic).register(meterRegistry);
+        FunctionCounter.builder("websocket.relay.conflation.collapsed", topicCounters.collapsed, AtomicLong::get)
+                .tag("topic", topic).register(meterRegistry);
+        FunctionCounter.builder("websocket.relay.conflation.duplicates", topicCounters.duplicates, AtomicLong::get)
+                .tag("topic", topic).register(meterRegistry);
+        Gauge.builder("websocket.relay.conflation.collapsed.ratio", topicCounters, TopicCounters::collapsedRatio)
+                .tag("topic", topic).register(meterRegistry);
+
+        return topicCounters;
+    }
+
+    private static final class Destination {
+        private final String topic;
+        private final int intervalMillis;
+        private long sentAt;
+        private Object sentKey;
+        private Object pending;
+        private Object pendingKey;
+        private final Map<String, Object> pendingItems = new LinkedHashMap<>();
+        private final Map<String, Object> pendingItemKeys = new HashMap<>();
+        private final Map<String, Object> sentItemKeys = new HashMap<>();
+
+        private Destination(String topic, int intervalMillis) {
+            this.topic = topic;
+            this.intervalMillis = intervalMillis;
+        }
+
+        synchronized boolean hasPending() {
+            return pending != null || !pendingItems.isEmpty();
+        }
+    }
+
+    private static final class TopicCounters {
+        private final AtomicLong received = new AtomicLong();
+        private final AtomicLong published = new AtomicLong();
+        private final AtomicLong collapsed = new AtomicLong();
+        private final AtomicLong duplicates = new AtomicLong();
+
+        double collapsedRatio() {
+            long total = received.get();
+            return total == 0 ? 0.0 : (double) (collapsed.get() + duplicates.get()) / total;
+        }
+
+        ConflationStatsDto.TopicStats toDto(String topic) {
+            return ConflationStatsDto.TopicStats.builder()
+                    .topic(topic)
+                    .received(received.get())
+                    .published(published.get())
+                    .collapsed(collapsed.get())
+                    .duplicates(duplicates.get())
+                    .collapsedRatio(collapsedRatio())
+                    .build();
+        }
+    }
+}
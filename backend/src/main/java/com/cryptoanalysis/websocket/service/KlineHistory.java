@@ -0,0 +1,304 @@
+package com.cryptoanalysis.websocket.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.candle.repository.KlineRepository;
+import com.cryptoanalysis.candle.service.CandleService;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.config.KlineHistoryConfig;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.KlineMessage;
+import com.cryptoanalysis.websocket.model.Kline;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Closed candles a kline subscription asks for with a {@value #HEADER}
+ * header, or by subscribing to
+ * {@code /app/subscribe/kline/{symbol}/{interval}?history=N}, sent to that
+ * subscription before anything live. The stored part comes from the database,
+ * topped up from the exchange where the database is behind, and goes out
+ * before the broker registers the subscription, as JSON arrays of at most
+ * {@code chunk-size} candles marked {@value #HEADER}: {@value #CHUNK}. Once
+ * the subscription is registered, with broadcasts to its topic held back,
+ * the candles that closed since come from the {@link ReplayBuffer} in a last
+ * array marked {@value #END}, followed by the candle in progress from the
+ * {@link LastValueCache}; the first broadcast follows on from that. History
+ * frames are JSON whatever the subscription's wire format.
+ */
+@Component
+@Slf4j
+public class KlineHistory {
+
+    public static final String HEADER = "history";
+    public static final String SUBSCRIBE_PREFIX = "/app/subscribe/kline/";
+
+    static final String CHUNK = "chunk";
+    static final String END = "end";
+
+    /**
+     * Returned by {@link #sendStored} when the subscription did not ask for history.
+     */
+    public static final long NOT_REQUESTED = -1;
+
+    /**
+     * Binance's maximum page size for /api/v3/klines.
+     */
+    private static final int MAX_CANDLES_PER_REQUEST = 1000;
+
+    private static final Pattern KLINE_TOPIC = Pattern.compile("/topic/kline/([^/]+)/([^/]+)");
+    private static final Pattern SUBSCRIBE_DESTINATION = Pattern
+            .compile("/app/subscribe/kline/([^/?]+)/([^/?]+)(?:\\?history=(\\d+))?");
+
+    private final MessageChannel clientOutboundChannel;
+    private final KlineRepository klineRepository;
+    private final CandleService candleService;
+    private final CandleMapper candleMapper;
+    private final ReplayBuffer replay;
+    private final LastValueCache lastValueCache;
+    private final ObjectMapper objectMapper;
+    private final KlineHistoryConfig config;
+    private final AtomicLong candlesSent = new AtomicLong();
+
+    public KlineHistory(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            KlineRepository klineRepository, CandleService candleService, CandleMapper candleMapper,
+            ReplayBuffer replay, LastValueCache lastValueCache, ObjectMapper objectMapper,
+            KlineHistoryConfig config, MeterRegistry meterRegistry) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.klineRepository = klineRepository;
+        this.candleService = candleService;
+        this.candleMapper = candleMapper;
+        this.replay = replay;
+        this.lastValueCache = lastValueCache;
+        this.objectMapper = objectMapper;
+        this.config = config;
+
+        FunctionCounter.builder("websocket.relay.history.candles", candlesSent, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A SUBSCRIBE to {@code /app/subscribe/kline/{symbol}/{interval}?history=N},
+     * as the kline topic it stands for and the number of candles it asks for.
+     *
+     * @return {@code null} if {@code destination} is not such a request
+     */
+    public static Request parseSubscribe(String destination) {
+        Matcher matcher = SUBSCRIBE_DESTINATION.matcher(destination);
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Request("/topic/kline/" + matcher.group(1).toLowerCase() + "/" + matcher.group(2),
+                matcher.group(3));
+    }
+
+    /**
+     * Whether a SUBSCRIBE, as sent by the client or as rewritten on its way in, asks for history.
+     */
+    public static boolean isRequested(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        return accessor.getFirstNativeHeader(HEADER) != null
+                || (destination != null && destination.startsWith(SUBSCRIBE_PREFIX));
+    }
+
+    /**
+     * Send one subscription the stored closed candles it asked for.
+     *
+     * @param destination the subscription's destination, a kline topic in any wire format or update rate
+     * @param requested   the subscription's {@value #HEADER} header
+     * @return open time of the last candle sent, 0 if none, or {@link #NOT_REQUESTED}
+     */
+    public long sendStored(String sessionId, String subscriptionId, String destination, String requested) {
+        if (!config.getEnabled() || requested == null) {
+            return NOT_REQUESTED;
+        }
+
+        Matcher kline = KLINE_TOPIC.matcher(SubscriptionRegistry.topicOf(destination));
+        int count = parseCount(requested);
+        if (!kline.matches() || count < 0) {
+            return NOT_REQUESTED;
+        }
+
+        List<KlineMessage> candles = count == 0 ? List.of()
+                : load(kline.group(1).toUpperCase(), kline.group(2), Math.min(count, config.getMaxCandles()));
+        int chunkSize = Math.max(config.getChunkSize(), 1);
+        for (int from = 0; from < candles.size(); from += chunkSize) {
+            send(sessionId, subscriptionId, destination, candles.subList(from,
+                    Math.min(from + chunkSize, candles.size())), CHUNK);
+        }
+        log.debug("Sent {} stored candles of {} to session {}", candles.size(), destination, sessionId);
+        return candles.isEmpty() ? 0 : candles.get(candles.size() - 1).getOpenTime();
+    }
+
+    /**
+     * Finish a subscription's history with the candles that closed after
+     * {@code after}, then send it the candle in progress. Called while
+     * broadcasts to its topic are held back.
+     */
+    public void sendRecent(String sessionId, String subscriptionId, String destination, long after) {
+        String topic = SubscriptionRegistry.topicOf(destination);
+        List<KlineMessage> closed = new ArrayList<>();
+        long last = after;
+        for (Object payload : replay.held(topic)) {
+            if (payload instanceof KlineMessage candle && Boolean.TRUE.equals(candle.getIsClosed())
+                    && candle.getOpenTime() > last) {
+                closed.add(candle);
+                last = candle.getOpenTime();
+            }
+        }
+
+        boolean inProgress = false;
+        if (lastValueCache.get(topic) instanceof KlineMessage candle && candle.getOpenTime() > last) {
+            if (Boolean.TRUE.equals(candle.getIsClosed())) {
+                closed.add(candle);
+            } else {
+                inProgress = true;
+            }
+        }
+
+        send(sessionId, subscriptionId, destination, closed, END);
+        if (inProgress) {
+            lastValueCache.deliver(sessionId, subscriptionId, destination);
+        }
+    }
+
+    public long getCandlesSent() {
+        return candlesSent.get();
+    }
+
+    /**
+     * The last {@code count} closed candles, oldest first.
+     */
+    private List<KlineMessage> load(String symbol, String interval, int count) {
+        long now = System.currentTimeMillis();
+        NavigableMap<Long, KlineMessage> candles = new TreeMap<>();
+        // One more than asked for, as the newest row may be the candle in progress
+        for (Kline kline : klineRepository.findLatestCandles(symbol, interval, PageRequest.of(0, count + 1))) {
+            if (kline.getCloseTime() < now) {
+                candles.put(kline.getOpenTime(), toMessage(kline));
+            }
+        }
+
+        long intervalMillis = candleMapper.getIntervalMillis(interval);
+        if (candleMapper.isExchangeInterval(interval)) {
+            if (candles.size() < count) {
+                fetch(symbol, interval, now - (count + 1) * intervalMillis, now, candles);
+            } else if (candles.lastKey() + 2 * intervalMillis <= now) {
+                fetch(symbol, interval, candles.lastKey() + 1, now, candles);
+            }
+        }
+
+        List<KlineMessage> result = new ArrayList<>(candles.values());
+        return result.size() > count ? result.subList(result.size() - count, result.size()) : result;
+    }
+
+    /**
+     * Add the exchange's closed candles opened in [startTime, endTime] to {@code candles}.
+     */
+    private void fetch(String symbol, String interval, long startTime, long endTime,
+            NavigableMap<Long, KlineMessage> candles) {
+        int pages = config.getMaxCandles() / MAX_CANDLES_PER_REQUEST + 1;
+        long from = startTime;
+        for (int page = 0; page < pages && from <= endTime; page++) {
+            List<KlineDto> klines = candleService.fetchExchangeKlines(symbol, interval, from, endTime,
+                    MAX_CANDLES_PER_REQUEST);
+            for (KlineDto kline : klines) {
+                if (Boolean.TRUE.equals(kline.getIsClosed())) {
+                    candles.putIfAbsent(kline.getOpenTime(), toMessage(kline));
+                }
+            }
+            if (klines.size() < MAX_CANDLES_PER_REQUEST) {
+                return;
+            }
+            from = klines.get(klines.size() - 1).getOpenTime() + 1;
+        }
+    }
+
+    private void send(String sessionId, String subscriptionId, String destination, List<KlineMessage> candles,
+            String part) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(candles);
+        } catch (JsonProcessingException e) {
+            log.error("Failed to encode history of {}", destination, e);
+            return;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(HEADER, part);
+        accessor.setLeaveMutable(true);
+        clientOutboundChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        candlesSent.addAndGet(candles.size());
+    }
+
+    private static KlineMessage toMessage(Kline kline) {
+        return KlineMessage.builder()
+                .symbol(kline.getSymbol())
+                .interval(kline.getInterval())
+                .openTime(kline.getOpenTime())
+                .closeTime(kline.getCloseTime())
+                .open(ScaledDecimal.valueOf(kline.getOpenPrice()))
+                .high(ScaledDecimal.valueOf(kline.getHighPrice()))
+                .low(ScaledDecimal.valueOf(kline.getLowPrice()))
+                .close(ScaledDecimal.valueOf(kline.getClosePrice()))
+                .volume(ScaledDecimal.valueOf(kline.getVolume()))
+                .isClosed(true)
+                .build();
+    }
+
+    private static KlineMessage toMessage(KlineDto kline) {
+        return KlineMessage.builder()
+                .symbol(kline.getSymbol())
+                .interval(kline.getInterval())
+                .openTime(kline.getOpenTime())
+                .closeTime(kline.getCloseTime())
+                .open(kline.getOpen())
+                .high(kline.getHigh())
+                .low(kline.getLow())
+                .close(kline.getClose())
+                .volume(kline.getVolume())
+                .isClosed(true)
+                .build();
+    }
+
+    private static int parseCount(String count) {
+        try {
+            return Integer.parseInt(count.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid {} header: {}", HEADER, count);
+            return -1;
+        }
+    }
+
+    /**
+     * A SUBSCRIBE to {@code /app/subscribe/kline/...}: its kline topic and
+     * requested candle count, {@code null} without a {@code history} parameter.
+     */
+    public record Request(String topic, String count) {
+    }
+}
@@ -0,0 +1,188 @@
+package com.cryptoanalysis.websocket.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import com.cryptoanalysis.websocket.config.LastValueConfig;
+import com.cryptoanalysis.websocket.dto.KlineMessage;
+import com.cryptoanalysis.websocket.dto.TickerMessage;
+import com.cryptoanalysis.websocket.routing.TopicPattern;
+import com.cryptoanalysis.websocket.wire.BinaryMarketDataEncoder;
+import com.cryptoanalysis.websocket.wire.UpdateRate;
+import com.cryptoanalysis.websocket.wire.WireFormat;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Latest broadcast value per destination, for topics whose every message is
+ * the whole state: a kline (including the candle in progress) or a single
+ * symbol's ticker. A new STOMP subscription gets that value at once, sent to
+ * its own session and subscription id only, so a chart can render before the
+ * exchange's next event. Delta topics and the batched all-tickers topic are
+ * not cached; their messages mean nothing on their own. A throttled
+ * subscription gets its rate class's last value, or the topic's own until the
+ * class has sent one. A pattern subscription gets the value of every cached
+ * topic it matches, each under that topic's own destination.
+ * <p>
+ * Recording a value and broadcasting it happen under the destination's lock,
+ * as does delivering it, so a session never gets the cached value after a
+ * newer broadcast.
+ */
+@Component
+public class LastValueCache {
+
+    private final MessageChannel clientOutboundChannel;
+    private final BinaryMarketDataEncoder binaryEncoder;
+    private final LastValueConfig config;
+    private final Map<String, Entry> values = new ConcurrentHashMap<>();
+    private final AtomicLong delivered = new AtomicLong();
+
+    public LastValueCache(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            BinaryMarketDataEncoder binaryEncoder, LastValueConfig config, MeterRegistry meterRegistry) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.binaryEncoder = binaryEncoder;
+        this.config = config;
+
+        Gauge.builder("websocket.relay.last.value.destinations", values, Map::size).register(meterRegistry);
+        FunctionCounter.builder("websocket.relay.last.value.delivered", delivered, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run {@code broadcast} of {@code payload} to {@code destination},
+     * remembering the payload if it is a whole value.
+     *
+     * @param json the payload's JSON encoding, as broadcast
+     */
+    public void publish(String destination, Object payload, byte[] json, Runnable broadcast) {
+        if (!config.getEnabled() || !(payload instanceof KlineMessage || payload instanceof TickerMessage)) {
+            broadcast.run();
+            return;
+        }
+
+        Entry entry = values.computeIfAbsent(destination, d -> new Entry());
+        synchronized (entry) {
+            entry.payload = payload;
+            entry.json = json;
+            broadcast.run();
+        }
+    }
+
+    /**
+     * Send the cached value of {@code destination}, a JSON or binary topic or
+     * topic pattern, to one subscription of one session.
+     *
+     * @return whether there was a value to send
+     */
+    public boolean deliver(String sessionId, String subscriptionId, String destination) {
+        String canonical = WireFormat.canonicalDestination(destination);
+        if (!TopicPattern.isPattern(canonical)) {
+            return deliverValue(sessionId, subscriptionId, destination, canonical);
+        }
+
+        String pattern = UpdateRate.baseDestination(canonical);
+        boolean sent = false;
+        for (String topic : List.copyOf(values.keySet())) {
+            if (UpdateRate.isThrottled(topic) || !TopicPattern.matches(pattern, topic)) {
+                continue;
+            }
+
+            // The destination the broker would send this topic's updates to the subscription on
+            String matched = UpdateRate.isThrottled(canonical)
+                    ? UpdateRate.throttledDestination(topic, UpdateRate.intervalOf(canonical))
+                    : topic;
+            String formatted = canonical.equals(destination) ? matched : WireFormat.binaryDestination(matched);
+            sent |= deliverValue(sessionId, subscriptionId, formatted, matched);
+        }
+        return sent;
+    }
+
+    /**
+     * The cached value of a JSON topic, or {@code null}.
+     */
+    public Object get(String destination) {
+        Entry entry = values.get(destination);
+        if (entry == null) {
+            return null;
+        }
+        synchronized (entry) {
+            return entry.payload;
+        }
+    }
+
+    /**
+     * Forget a destination's value once its stream has closed, so a later
+     * subscriber is not handed a stale one.
+     */
+    public void remove(String destination) {
+        values.remove(destination);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    private boolean deliverValue(String sessionId, String subscriptionId, String destination, String canonical) {
+        Entry entry = values.get(canonical);
+        if (entry == null && UpdateRate.isThrottled(canonical)) {
+            // First subscriber of a rate class: nothing has been sent on it yet
+            entry = values.get(UpdateRate.baseDestination(canonical));
+        }
+        if (entry == null) {
+            return false;
+        }
+
+        synchronized (entry) {
+            if (entry.payload == null) {
+                return false;
+            }
+
+            if (canonical.equals(destination)) {
+                clientOutboundChannel.send(message(sessionId, subscriptionId, destination, entry.json,
+                        MimeTypeUtils.APPLICATION_JSON));
+            } else if (binaryEncoder.supports(entry.payload)) {
+                clientOutboundChannel.send(message(sessionId, subscriptionId, destination,
+                        binaryEncoder.encode(entry.payload), MimeTypeUtils.APPLICATION_OCTET_STREAM));
+            } else {
+                return false;
+            }
+        }
+
+        delivered.incrementAndGet();
+        return true;
+    }
+
+    private static Message<byte[]> message(String sessionId, String subscriptionId, String destination,
+            byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(contentType);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static final class Entry {
+        private Object payload;
+        private byte[] json;
+    }
+}
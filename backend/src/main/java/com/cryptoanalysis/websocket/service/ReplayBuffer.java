@@ -0,0 +1,323 @@
+package com.cryptoanalysis.websocket.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import com.cryptoanalysis.websocket.config.ReplayConfig;
+import com.cryptoanalysis.websocket.dto.KlineMessage;
+import com.cryptoanalysis.websocket.dto.TickerMessage;
+import com.cryptoanalysis.websocket.wire.BinaryMarketDataEncoder;
+import com.cryptoanalysis.websocket.wire.WireFormat;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Numbers the messages broadcast on each destination and keeps the latest of
+ * them in a ring per destination. Every MESSAGE carries its number in the
+ * {@value #SEQ_HEADER} header and this relay instance's {@value #EPOCH_HEADER}.
+ * A client that lost its connection resubscribes with both as
+ * {@value #RESUME_SEQ_HEADER} and {@value #RESUME_EPOCH_HEADER}, and gets only
+ * the messages after that number, each marked {@value #RESUME_HEADER}:
+ * {@value #REPLAY}. If the ring no longer reaches back that far, or the epoch
+ * is another relay's, it gets the latest message marked {@value #GAP} and has
+ * to reload whatever that message does not replace on its own.
+ * <p>
+ * Only topics whose every message is the whole state, a kline or a single
+ * symbol's ticker, keep a ring. Batched all-tickers and delta topics are
+ * numbered but hold nothing: a single message of theirs means nothing on its
+ * own, so they are never resumed, and a client finds a gap in their numbers
+ * and reloads a snapshot instead, such as {@link TickerDeltaFeed#snapshot()}.
+ * <p>
+ * Numbers are consecutive per destination, except where a slow session's
+ * buffer conflated whole values. They keep counting when a destination's
+ * stream closes and reopens; only the ring is emptied.
+ */
+@Component
+@Slf4j
+public class ReplayBuffer {
+
+    public static final String SEQ_HEADER = "seq";
+    public static final String EPOCH_HEADER = "seq-epoch";
+    public static final String RESUME_SEQ_HEADER = "resume-seq";
+    public static final String RESUME_EPOCH_HEADER = "resume-epoch";
+    public static final String RESUME_HEADER = "resume";
+
+    static final String REPLAY = "replay";
+    static final String GAP = "gap";
+
+    /**
+     * Passed to a broadcast while numbering is disabled.
+     */
+    public static final long NO_SEQUENCE = 0;
+
+    private final MessageChannel clientOutboundChannel;
+    private final BinaryMarketDataEncoder binaryEncoder;
+    private final ReplayConfig config;
+    private final String epoch = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong gaps = new AtomicLong();
+
+    public ReplayBuffer(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+            BinaryMarketDataEncoder binaryEncoder, ReplayConfig config, MeterRegistry meterRegistry) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.binaryEncoder = binaryEncoder;
+        this.config = config;
+
+        Gauge.builder("websocket.relay.replay.destinations", rings, Map::size).register(meterRegistry);
+        FunctionCounter.builder("websocket.relay.replay.resumed", replayed, AtomicLong::get)
+                .tag("outcome", REPLAY).register(meterRegistry);
+        FunctionCounter.builder("websocket.relay.replay.resumed", gaps, AtomicLong::get)
+                .tag("outcome", GAP).register(meterRegistry);
+    }
+
+    /**
+     * Number {@code payload}, remember it and run {@code broadcast} with its
+     * number, all under the destination's lock.
+     *
+     * @param json the payload's JSON encoding, as broadcast
+     */
+    public void publish(String destination, Object payload, byte[] json, LongConsumer broadcast) {
+        if (!config.getEnabled()) {
+            broadcast.accept(NO_SEQUENCE);
+            return;
+        }
+
+        Ring ring = rings.computeIfAbsent(destination,
+                d -> new Ring(isWholeValue(payload) ? Math.max(config.getCapacity(), 1) : 0));
+        ring.lock.lock();
+        try {
+            broadcast.accept(ring.add(payload, json));
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    /**
+     * Set the numbering headers of a message broadcast as {@code sequence}.
+     */
+    public void stamp(SimpMessageHeaderAccessor accessor, long sequence) {
+        if (sequence != NO_SEQUENCE) {
+            accessor.setNativeHeader(SEQ_HEADER, Long.toString(sequence));
+            accessor.setNativeHeader(EPOCH_HEADER, epoch);
+        }
+    }
+
+    /**
+     * Hold back broadcasts to {@code destination}, a JSON or binary topic,
+     * while a subscription to it is registered, until
+     * {@link #endSubscribe}. What the subscription is sent in between then
+     * meets its first broadcast without a gap or an overlap.
+     */
+    public void beginSubscribe(String destination) {
+        Ring ring = rings.get(WireFormat.canonicalDestination(destination));
+        if (ring != null) {
+            ring.lock.lock();
+        }
+    }
+
+    public void endSubscribe(String destination) {
+        Ring ring = rings.get(WireFormat.canonicalDestination(destination));
+        if (ring != null && ring.lock.isHeldByCurrentThread()) {
+            ring.lock.unlock();
+        }
+    }
+
+    /**
+     * Payloads of the messages of {@code destination}, a JSON topic, still
+     * held in its ring, oldest first. Between {@link #beginSubscribe} and
+     * {@link #endSubscribe} no newer one can be broadcast.
+     */
+    public List<Object> held(String destination) {
+        Ring ring = rings.get(destination);
+        if (ring == null) {
+            return List.of();
+        }
+
+        ring.lock.lock();
+        try {
+            List<Object> payloads = new ArrayList<>();
+            if (!ring.isEmpty()) {
+                for (long sequence = ring.first; sequence <= ring.last; sequence++) {
+                    payloads.add(ring.get(sequence).payload());
+                }
+            }
+            return payloads;
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    /**
+     * Send one subscription of one session the messages of
+     * {@code destination} numbered after {@code fromSequence}, or the latest
+     * one as a gap.
+     *
+     * @return whether the destination has messages to resume from
+     */
+    public boolean resume(String sessionId, String subscriptionId, String destination, String fromSequence,
+            String fromEpoch) {
+        String canonical = WireFormat.canonicalDestination(destination);
+        Ring ring = rings.get(canonical);
+        if (ring == null) {
+            return false;
+        }
+
+        ring.lock.lock();
+        try {
+            if (ring.isEmpty()) {
+                return false;
+            }
+
+            long from = parseSequence(fromSequence);
+            if (epoch.equals(fromEpoch) && from >= ring.first - 1 && from <= ring.last) {
+                for (long sequence = from + 1; sequence <= ring.last; sequence++) {
+                    send(sessionId, subscriptionId, destination, canonical, ring.get(sequence), REPLAY);
+                }
+                replayed.incrementAndGet();
+            } else {
+                send(sessionId, subscriptionId, destination, canonical, ring.get(ring.last), GAP);
+                gaps.incrementAndGet();
+            }
+            return true;
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    /**
+     * Drop a destination's messages once its stream has closed; its numbering carries on.
+     */
+    public void forget(String destination) {
+        Ring ring = rings.get(destination);
+        if (ring == null) {
+            return;
+        }
+
+        ring.lock.lock();
+        try {
+            ring.clear();
+        } finally {
+            ring.lock.unlock();
+        }
+    }
+
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    public long getGaps() {
+        return gaps.get();
+    }
+
+    private static boolean isWholeValue(Object payload) {
+        return payload instanceof KlineMessage || payload instanceof TickerMessage;
+    }
+
+    private void send(String sessionId, String subscriptionId, String destination, String canonical, Entry entry,
+            String resume) {
+        byte[] payload;
+        MimeType contentType;
+        if (canonical.equals(destination)) {
+            payload = entry.json();
+            contentType = MimeTypeUtils.APPLICATION_JSON;
+        } else if (binaryEncoder.supports(entry.payload())) {
+            payload = binaryEncoder.encode(entry.payload());
+            contentType = MimeTypeUtils.APPLICATION_OCTET_STREAM;
+        } else {
+            return;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(contentType);
+        stamp(accessor, entry.sequence());
+        accessor.setNativeHeader(RESUME_HEADER, resume);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+        clientOutboundChannel.send(message);
+    }
+
+    private static long parseSequence(String sequence) {
+        try {
+            return Long.parseLong(sequence.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid {} header: {}", RESUME_SEQ_HEADER, sequence);
+            return -1;
+        }
+    }
+
+    private record Entry(long sequence, Object payload, byte[] json) {
+    }
+
+    /**
+     * The last {@code capacity} messages of a destination, by sequence number;
+     * with no capacity it only counts them.
+     */
+    private static final class Ring {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Entry[] entries;
+        /**
+         * Oldest sequence number held, 0 while empty.
+         */
+        private long first;
+        private long last;
+
+        private Ring(int capacity) {
+            entries = new Entry[capacity];
+        }
+
+        private long add(Object payload, byte[] json) {
+            last++;
+            if (entries.length == 0) {
+                return last;
+            }
+            entries[index(last)] = new Entry(last, payload, json);
+            if (first == 0) {
+                first = last;
+            } else if (last - first >= entries.length) {
+                first = last - entries.length + 1;
+            }
+            return last;
+        }
+
+        private Entry get(long sequence) {
+            return entries[index(sequence)];
+        }
+
+        private boolean isEmpty() {
+            return first == 0;
+        }
+
+        private void clear() {
+            Arrays.fill(entries, null);
+            first = 0;
+        }
+
+        private int index(long sequence) {
+            return (int) ((sequence - 1) % entries.length);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.cryptoanalysis.websocket.service;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.websocket.config.RelaySubscriptionConfig;
+import com.cryptoanalysis.websocket.routing.TopicPattern;
+import com.cryptoanalysis.websocket.wire.UpdateRate;
+import com.cryptoanalysis.websocket.wire.WireFormat;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reference counts upstream streams by the STOMP sessions using them. Each
+ * session holds a stream at most once, so repeated subscribe or unsubscribe
+ * messages are harmless, and everything a session holds is released when it
+ * disconnects or STOMP-unsubscribes from the stream's destination. A stream
+ * is opened by its first holder and closed a grace period after its last one
+ * leaves, unless someone picks it up again in between. A STOMP subscription
+ * in another wire format or at a throttled rate counts for the destination
+ * it was negotiated from, and a pattern subscription for every destination it
+ * matches.
+ * All counting happens under one lock, and open and close actions run under
+ * it too, so they never interleave for a stream.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SubscriptionRegistry {
+
+    private final RelaySubscriptionConfig config;
+    /**
+     * Written under the lock; concurrent so {@link #isOpen} can be read from the broadcast path without it.
+     */
+    private final Map<String, Stream> streams = new ConcurrentHashMap<>();
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final Map<String, Boolean> closedSessions = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > config.getClosedSessionMemory();
+        }
+    };
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Take a reference on {@code streamKey} for {@code sessionId}, running
+     * {@code open} if nobody held it and it was not waiting out its grace period.
+     *
+     * @param destination STOMP destination the stream is broadcast on
+     * @param close       run once the stream has been unused for the grace period
+     * @return whether the session did not already hold the stream
+     */
+    public synchronized boolean acquire(String sessionId, String streamKey, String destination, Runnable open,
+            Runnable close) {
+        if (closedSessions.containsKey(sessionId)) {
+            log.debug("Ignoring subscription to {} from closed session {}", streamKey, sessionId);
+            return false;
+        }
+
+        Session session = sessions.computeIfAbsent(sessionId, id -> new Session());
+        if (!session.streams.add(streamKey)) {
+            return false;
+        }
+
+        Stream stream = streams.get(streamKey);
+        if (stream == null) {
+            stream = new Stream(destination, close);
+            try {
+                open.run();
+            } catch (RuntimeException e) {
+                session.streams.remove(streamKey);
+                throw e;
+            }
+            streams.put(streamKey, stream);
+            log.info("Opened stream {} for session {}", streamKey, sessionId);
+        } else if (stream.pendingClose != null) {
+            stream.pendingClose.cancel(false);
+            stream.pendingClose = null;
+            log.info("Stream {} picked up again within its grace period", streamKey);
+        }
+
+        stream.refs++;
+        return true;
+    }
+
+    /**
+     * Drop {@code sessionId}'s reference on {@code streamKey}, if it holds one.
+     */
+    public synchronized boolean release(String sessionId, String streamKey) {
+        Session session = sessions.get(sessionId);
+        if (session == null || !session.streams.remove(streamKey)) {
+            return false;
+        }
+
+        if (session.isEmpty()) {
+            sessions.remove(sessionId);
+        }
+        unref(streamKey);
+        return true;
+    }
+
+    /**
+     * Record a STOMP SUBSCRIBE frame, so a later UNSUBSCRIBE can be mapped back to its destination.
+     */
+    public synchronized void trackStompSubscription(String sessionId, String subscriptionId, String destination) {
+        if (sessionId == null || subscriptionId == null || destination == null
+                || closedSessions.containsKey(sessionId)) {
+            return;
+        }
+        sessions.computeIfAbsent(sessionId, id -> new Session()).stompSubscriptions.put(subscriptionId, destination);
+    }
+
+    /**
+     * Handle a STOMP UNSUBSCRIBE frame: release each stream the session holds
+     * for the destination, or for any destination the pattern matches, that
+     * none of its remaining STOMP subscriptions covers.
+     */
+    public synchronized void releaseStompSubscription(String sessionId, String subscriptionId) {
+        Session session = sessions.get(sessionId);
+        if (session == null) {
+            return;
+        }
+
+        String destination = session.stompSubscriptions.remove(subscriptionId);
+        if (destination != null) {
+            String topic = topicOf(destination);
+            for (String streamKey : List.copyOf(session.streams)) {
+                String streamTopic = streams.get(streamKey).destination;
+                if (TopicPattern.matches(topic, streamTopic) && session.stompSubscriptions.values().stream()
+                        .noneMatch(other -> TopicPattern.matches(topicOf(other), streamTopic))) {
+                    session.streams.remove(streamKey);
+                    unref(streamKey);
+                }
+            }
+        }
+
+        if (session.isEmpty()) {
+            sessions.remove(sessionId);
+        }
+    }
+
+    /**
+     * Destination a tracked STOMP subscription ended up on, after wire format negotiation; {@code null} if unknown.
+     */
+    public synchronized String getStompDestination(String sessionId, String subscriptionId) {
+        Session session = sessions.get(sessionId);
+        return session == null ? null : session.stompSubscriptions.get(subscriptionId);
+    }
+
+    /**
+     * Release everything a disconnected session held. Safe to call more than once.
+     */
+    public synchronized void releaseSession(String sessionId) {
+        closedSessions.put(sessionId, Boolean.TRUE);
+
+        Session session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+
+        session.streams.forEach(this::unref);
+        log.info("Released {} streams of disconnected session {}", session.streams.size(), sessionId);
+    }
+
+    /**
+     * Number of sessions holding {@code streamKey}.
+     */
+    public synchronized int getCount(String streamKey) {
+        Stream stream = streams.get(streamKey);
+        return stream == null ? 0 : stream.refs;
+    }
+
+    /**
+     * Whether {@code streamKey} is open, including while it waits out its grace period.
+     */
+    public boolean isOpen(String streamKey) {
+        return streams.containsKey(streamKey);
+    }
+
+    public synchronized Map<String, Integer> getCounts() {
+        Map<String, Integer> counts = new HashMap<>();
+        streams.forEach((key, stream) -> counts.put(key, stream.refs));
+        return counts;
+    }
+
+    public synchronized int getSessionCount() {
+        return sessions.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * The relay topic, or topic pattern, a subscription is served from, whatever its wire format and update rate.
+     */
+    static String topicOf(String destination) {
+        return UpdateRate.baseDestination(WireFormat.canonicalDestination(destination));
+    }
+
+    private void unref(String streamKey) {
+        Stream stream = streams.get(streamKey);
+        if (stream == null || --stream.refs > 0) {
+            return;
+        }
+
+        if (config.getGracePeriod() <= 0) {
+            close(streamKey, stream);
+            return;
+        }
+
+        stream.pendingClose = scheduler.schedule(() -> closeIfUnused(streamKey, stream),
+                config.getGracePeriod(), TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void closeIfUnused(String streamKey, Stream stream) {
+        if (streams.get(streamKey) == stream && stream.refs == 0) {
+            close(streamKey, stream);
+        }
+    }
+
+    private void close(String streamKey, Stream stream) {
+        streams.remove(streamKey);
+        try {
+            stream.close.run();
+            log.info("Closed stream {} after its last subscriber left", streamKey);
+        } catch (Exception e) {
+            log.error("Failed to close stream {}", streamKey, e);
+        }
+    }
+
+    private static final class Stream {
+        private final String destination;
+        private final Runnable close;
+        private int refs;
+        private ScheduledFuture<?> pendingClose;
+
+        private Stream(String destination, Runnable close) {
+            this.destination = destination;
+            this.close = close;
+        }
+    }
+
+    private static final class Session {
+        private final Set<String> streams = new HashSet<>();
+        /**
+         * STOMP subscription id to destination.
+         */
+        private final Map<String, String> stompSubscriptions = new HashMap<>();
+
+        private boolean isEmpty() {
+            return streams.isEmpty() && stompSubscriptions.isEmpty();
+        }
+    }
+}
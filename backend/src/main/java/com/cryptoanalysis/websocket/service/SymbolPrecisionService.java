@@ -0,0 +1,56 @@
+package com.cryptoanalysis.websocket.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.cryptoanalysis.candle.repository.SymbolRepository;
+import com.cryptoanalysis.websocket.model.Symbol;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory view of each symbol's price and quantity precision from the
+ * {@code symbols} table, used as the scale of fixed-point values on the
+ * real-time path. Unknown symbols fall back to Binance's maximum of 8 decimals.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SymbolPrecisionService {
+
+    public static final int DEFAULT_SCALE = 8;
+
+    private final SymbolRepository symbolRepository;
+    private final Map<String, Integer> priceScales = new ConcurrentHashMap<>();
+    private final Map<String, Integer> quantityScales = new ConcurrentHashMap<>();
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${binance.websocket.precision-refresh-ms:3600000}")
+    public void refresh() {
+        try {
+            for (Symbol symbol : symbolRepository.findAll()) {
+                if (symbol.getPricePrecision() != null) {
+                    priceScales.put(symbol.getSymbol(), symbol.getPricePrecision());
+                }
+                if (symbol.getQuantityPrecision() != null) {
+                    quantityScales.put(symbol.getSymbol(), symbol.getQuantityPrecision());
+                }
+            }
+
+            log.debug("Loaded precision for {} symbols", priceScales.size());
+        } catch (Exception e) {
+            log.error("Failed to load symbol precision, using default scale {}", DEFAULT_SCALE, e);
+        }
+    }
+
+    public int getPriceScale(String symbol) {
+        return symbol == null ? DEFAULT_SCALE : priceScales.getOrDefault(symbol, DEFAULT_SCALE);
+    }
+
+    public int getQuantityScale(String symbol) {
+        return symbol == null ? DEFAULT_SCALE : quantityScales.getOrDefault(symbol, DEFAULT_SCALE);
+    }
+}
@@ -0,0 +1,158 @@
+package com.cryptoanalysis.websocket.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.websocket.config.TickerDeltaConfig;
+import com.cryptoanalysis.websocket.dto.TickerDeltaMessage;
+import com.cryptoanalysis.websocket.dto.TickerMessage;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Delta-encoded all-symbols ticker feed. Keeps the latest ticker of every
+ * symbol and, for each upstream batch, publishes only the symbols and fields
+ * that changed since the previous frame. A keyframe with the whole table goes
+ * out every keyframe interval instead of a delta, and a session gets a
+ * snapshot of the table when it subscribes or asks for one. Frames are
+ * numbered, and snapshots are taken under the same lock, so a client applies
+ * exactly the frames numbered after its snapshot.
+ */
+@Component
+@RequiredArgsConstructor
+public class TickerDeltaFeed {
+
+    public static final String DESTINATION = "/topic/ticker-delta";
+
+    static final String SNAPSHOT = "snapshot";
+    static final String KEYFRAME = "keyframe";
+    static final String DELTA = "delta";
+
+    private static final String TOPIC = "ticker_delta";
+
+    /**
+     * Ticker fields carried in the feed, by JSON name. The timestamp moves on
+     * every update, so it is sent with a changed symbol but never makes one.
+     */
+    private static final Map<String, Function<TickerMessage, Object>> FIELDS = fields();
+
+    private final TopicPublisher publisher;
+    private final TickerDeltaConfig config;
+
+    private final Map<String, TickerMessage> table = new LinkedHashMap<>();
+    private boolean running;
+    private long sequence;
+    private long lastKeyframeAt;
+
+    /**
+     * Start publishing; the table fills from the next upstream batches.
+     */
+    public synchronized void start() {
+        running = true;
+        lastKeyframeAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Stop publishing and forget the table, which would go stale without the upstream stream.
+     */
+    public synchronized void stop() {
+        running = false;
+        table.clear();
+    }
+
+    public synchronized void onTickers(List<TickerMessage> tickers) {
+        if (!running) {
+            return;
+        }
+
+        List<Map<String, Object>> changes = new ArrayList<>();
+        for (TickerMessage ticker : tickers) {
+            Map<String, Object> change = diff(table.get(ticker.getSymbol()), ticker);
+            if (change != null) {
+                changes.add(change);
+            }
+            table.put(ticker.getSymbol(), ticker);
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastKeyframeAt >= config.getKeyframeInterval()) {
+            lastKeyframeAt = now;
+            publish(KEYFRAME, fullTable(), now);
+        } else if (!changes.isEmpty()) {
+            publish(DELTA, changes, now);
+        }
+    }
+
+    /**
+     * The whole table, numbered with the last frame it includes.
+     */
+    public synchronized TickerDeltaMessage snapshot() {
+        return message(SNAPSHOT, sequence, fullTable(), System.currentTimeMillis());
+    }
+
+    private void publish(String type, List<Map<String, Object>> tickers, long now) {
+        sequence++;
+        publisher.send(DESTINATION, TOPIC, message(type, sequence, tickers, now));
+    }
+
+    private List<Map<String, Object>> fullTable() {
+        List<Map<String, Object>> tickers = new ArrayList<>(table.size());
+        for (TickerMessage ticker : table.values()) {
+            Map<String, Object> entry = diff(null, ticker);
+            if (entry != null) {
+                tickers.add(entry);
+            }
+        }
+        return tickers;
+    }
+
+    /**
+     * The symbol and the fields of {@code current} that differ from
+     * {@code previous} (all of them without one), or {@code null} if none do.
+     */
+    private static Map<String, Object> diff(TickerMessage previous, TickerMessage current) {
+        Map<String, Object> change = new LinkedHashMap<>();
+        change.put("symbol", current.getSymbol());
+
+        FIELDS.forEach((name, getter) -> {
+            Object value = getter.apply(current);
+            if (previous == null || !Objects.equals(value, getter.apply(previous))) {
+                change.put(name, value);
+            }
+        });
+
+        if (change.size() == 1) {
+            return null;
+        }
+        change.put("timestamp", current.getTimestamp());
+        return change;
+    }
+
+    private static TickerDeltaMessage message(String type, long sequence, List<Map<String, Object>> tickers,
+            long now) {
+        return TickerDeltaMessage.builder()
+                .type(type)
+                .sequence(sequence)
+                .timestamp(now)
+                .tickers(tickers)
+                .build();
+    }
+
+    private static Map<String, Function<TickerMessage, Object>> fields() {
+        Map<String, Function<TickerMessage, Object>> fields = new LinkedHashMap<>();
+        fields.put("price", TickerMessage::getPrice);
+        fields.put("priceChange", TickerMessage::getPriceChange);
+        fields.put("priceChangePercent", TickerMessage::getPriceChangePercent);
+        fields.put("high", TickerMessage::getHigh);
+        fields.put("low", TickerMessage::getLow);
+        fields.put("volume", TickerMessage::getVolume);
+        fields.put("quoteVolume", TickerMessage::getQuoteVolume);
+        return fields;
+    }
+}
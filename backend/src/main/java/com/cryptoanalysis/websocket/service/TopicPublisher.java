@@ -0,0 +1,174 @@
+package com.cryptoanalysis.websocket.service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import com.cryptoanalysis.websocket.config.WireFormatConfig;
+import com.cryptoanalysis.websocket.dto.KlineMessage;
+import com.cryptoanalysis.websocket.dto.WireStatsDto;
+import com.cryptoanalysis.websocket.routing.TopicTrieRegistry;
+import com.cryptoanalysis.websocket.wire.BinaryMarketDataEncoder;
+import com.cryptoanalysis.websocket.wire.WireFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Last step before the STOMP broker: serializes each relay message once per
+ * wire format and hands the bytes to the broker, which fans the same payload
+ * out to every session subscribed to the destination. The binary encoding is
+ * only produced while someone is subscribed to it, directly or through a
+ * pattern. Bytes are counted per topic and format as payload size times
+ * subscribers. Each message is numbered and kept by the {@link ReplayBuffer}
+ * for sessions that resume, and whole values also in the
+ * {@link LastValueCache} for sessions that subscribe later. A closed candle
+ * is marked {@value #FINAL_HEADER}, so no later update of the next candle
+ * replaces it in a slow session's send buffer.
+ */
+@Component
+@RequiredArgsConstructor
+public class TopicPublisher {
+
+    public static final String FINAL_HEADER = "final";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final BinaryMarketDataEncoder binaryEncoder;
+    private final TopicTrieRegistry brokerSubscriptions;
+    private final LastValueCache lastValues;
+    private final ReplayBuffer replay;
+    private final WireFormatConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, FormatCounters> counters = new ConcurrentHashMap<>();
+
+    public void send(String destination, String topic, Object payload) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize message for " + destination, e);
+        }
+        replay.publish(destination, payload, json, sequence -> lastValues.publish(destination, payload, json,
+                () -> broadcast(destination, topic, payload, json, sequence)));
+    }
+
+    /**
+     * Whether any session is subscribed to {@code destination}, in either wire format.
+     */
+    public boolean hasSubscribers(String destination) {
+        return brokerSubscriptions.countSubscriptions(destination) > 0
+                || brokerSubscriptions.countSubscriptions(WireFormat.binaryDestination(destination)) > 0;
+    }
+
+    /**
+     * Forget what was last sent to a destination whose stream has closed.
+     */
+    public void forget(String destination) {
+        lastValues.remove(destination);
+        replay.forget(destination);
+    }
+
+    private void broadcast(String destination, String topic, Object payload, byte[] json, long sequence) {
+        boolean closedCandle = payload instanceof KlineMessage candle && Boolean.TRUE.equals(candle.getIsClosed());
+        messagingTemplate.send(destination, message(json, MimeTypeUtils.APPLICATION_JSON, sequence, closedCandle));
+        counters(topic, WireFormat.JSON).record(json.length, brokerSubscriptions.countSubscriptions(destination));
+
+        if (!config.getBinaryEnabled() || !WireFormat.supportsBinary(destination)) {
+            return;
+        }
+
+        String binaryDestination = WireFormat.binaryDestination(destination);
+        int recipients = brokerSubscriptions.countSubscriptions(binaryDestination);
+        if (recipients > 0 && binaryEncoder.supports(payload)) {
+            byte[] binary = binaryEncoder.encode(payload);
+            messagingTemplate.send(binaryDestination,
+                    message(binary, MimeTypeUtils.APPLICATION_OCTET_STREAM, sequence, closedCandle));
+            counters(topic, WireFormat.BINARY).record(binary.length, recipients);
+        }
+    }
+
+    public WireStatsDto getStats() {
+        List<WireStatsDto.TopicBytes> topics = counters.values().stream()
+                .map(FormatCounters::toDto)
+                .sorted(Comparator.comparing(WireStatsDto.TopicBytes::getTopic)
+                        .thenComparing(WireStatsDto.TopicBytes::getFormat))
+                .toList();
+
+        return WireStatsDto.builder()
+                .binaryEnabled(config.getBinaryEnabled())
+                .perMessageDeflate(config.getPerMessageDeflate())
+                .topics(topics)
+                .lastValueDestinations(lastValues.size())
+                .lastValuesDelivered(lastValues.getDelivered())
+                .resumesReplayed(replay.getReplayed())
+                .resumeGaps(replay.getGaps())
+                .build();
+    }
+
+    private Message<byte[]> message(byte[] payload, MimeType contentType, long sequence, boolean closedCandle) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(contentType);
+        replay.stamp(accessor, sequence);
+        if (closedCandle) {
+            accessor.setNativeHeader(FINAL_HEADER, "true");
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private FormatCounters counters(String topic, String format) {
+        return counters.computeIfAbsent(topic + "/" + format, key -> register(topic, format));
+    }
+
+    private FormatCounters register(String topic, String format) {
+        FormatCounters formatCounters = new FormatCounters(topic, format);
+
+        FunctionCounter.builder("websocket.relay.bytes.sent", formatCounters.bytes, AtomicLong::get)
+                .tag("topic", topic).tag("format", format).baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("websocket.relay.messages.encoded", formatCounters.messages, AtomicLong::get)
+                .tag("topic", topic).tag("format", format).register(meterRegistry);
+
+        return formatCounters;
+    }
+
+    private static final class FormatCounters {
+        private final String topic;
+        private final String format;
+        private final AtomicLong messages = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private FormatCounters(String topic, String format) {
+            this.topic = topic;
+            this.format = format;
+        }
+
+        void record(int size, int recipients) {
+            messages.incrementAndGet();
+            bytes.addAndGet((long) size * recipients);
+        }
+
+        WireStatsDto.TopicBytes toDto() {
+            return WireStatsDto.TopicBytes.builder()
+                    .topic(topic)
+                    .format(format)
+                    .messagesEncoded(messages.get())
+                    .bytesSent(bytes.get())
+                    .build();
+        }
+    }
+}
@@ -2,155 +2,232 @@ package com.cryptoanalysis.websocket.service;
 
 import org.springframework.stereotype.Service;
 
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.websocket.aggregation.KlineRollupService;
+import com.cryptoanalysis.websocket.aggregation.TradeCandleService;
+import com.cryptoanalysis.websocket.bus.MarketDataBus;
+import com.cryptoanalysis.websocket.bus.MarketDataConsumer;
+import com.cryptoanalysis.websocket.bus.MarketDataEvent;
+import com.cryptoanalysis.websocket.config.RelayConflationConfig;
+import com.cryptoanalysis.websocket.config.RelaySubscriptionConfig;
 import com.cryptoanalysis.websocket.dto.KlineDto;
 import com.cryptoanalysis.websocket.dto.KlineMessage;
+import com.cryptoanalysis.websocket.dto.TickerDeltaMessage;
 import com.cryptoanalysis.websocket.dto.TickerDto;
 import com.cryptoanalysis.websocket.dto.TickerMessage;
 import com.cryptoanalysis.websocket.integration.BinanceWebSocketClient;
+import com.cryptoanalysis.websocket.routing.TopicPattern;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class WebSocketRelayService {
-    private final BinanceWebSocketClient binanceWebSocketClient;
-    private final SimpMessagingTemplate messageTemplate;
-    private final Map<String, Integer> subscriptionCounts = new ConcurrentHashMap<>();
+public class WebSocketRelayService implements MarketDataConsumer {
+    private static final String ALL_TICKERS_DESTINATION = "/topic/ticker/all";
+    private static final String MINI_TICKER_STREAM_KEY = "mini_ticker_all";
+    private static final String TICKER_DELTA_STREAM_KEY = "ticker_delta";
+    /**
+     * Holds the all-tickers stream on behalf of the delta feed, like a client session would.
+     */
+    private static final String TICKER_DELTA_HOLDER = "relay:ticker-delta";
+    private static final Pattern KLINE_DESTINATION = Pattern.compile("/topic/kline/([^/]+)/([^/]+)");
+    private static final Pattern TICKER_DESTINATION = Pattern.compile("/topic/ticker/([^/]+)");
 
-    public void subscribeKline(String symbol, String interval) {
-        String streamKey = buildStreamKey(symbol, interval, "kline");
+    private final BinanceWebSocketClient binanceWebSocketClient;
+    private final MarketDataBus marketDataBus;
+    private final ConflatingBroadcaster broadcaster;
+    private final TradeCandleService tradeCandleService;
+    private final KlineRollupService klineRollupService;
+    private final RelayConflationConfig conflationConfig;
+    private final RelaySubscriptionConfig subscriptionConfig;
+    private final SubscriptionRegistry subscriptionRegistry;
+    private final TickerDeltaFeed tickerDeltaFeed;
+    private final CandleMapper candleMapper;
+
+    @PostConstruct
+    public void registerConsumer() {
+        marketDataBus.addConsumer(this);
+    }
 
-        subscriptionCounts.merge(streamKey, 1, Integer::sum);
+    @Override
+    public String getConsumerName() {
+        return "relay";
+    }
 
-        if (subscriptionCounts.get(streamKey) == 1) {
-            log.info("Subscribing to kline stream: {}", streamKey);
-            binanceWebSocketClient.subscribeKline(symbol, interval, klineDto -> {
-                handleKlineData(klineDto);
-            });
-        } else {
-            log.info("Additional subscriber to kline stream: {} (total: {})", streamKey,
-                    subscriptionCounts.get(streamKey));
+    @Override
+    public void onEvent(MarketDataEvent event, long sequence) {
+        switch (event.getType()) {
+            case KLINE -> handleKlineData(event.getKline());
+            case TICKER -> handleTickerData(event.getTicker());
+            case MINI_TICKER -> handleMiniTickerData(event.getTickers());
+            default -> {
+            }
         }
     }
 
-    public void subscribeTicker(String symbol) {
-        String streamKey = buildStreamKey(symbol, null, "ticker");
-
-        subscriptionCounts.merge(streamKey, 1, Integer::sum);
-
-        if (subscriptionCounts.get(streamKey) == 1) {
-            log.info("Subscribing to ticker stream: {}", streamKey);
-            binanceWebSocketClient.subscribeIndividualTicker(symbol, tickerDto -> {
-                handleTickerData(tickerDto);
-            });
-        } else {
-            log.info("Additional subscriber to ticker stream: {} (total: {})", streamKey,
-                    subscriptionCounts.get(streamKey));
+    /**
+     * @return whether {@code interval} is one the relay serves: published by
+     *         Binance, or configured to be built from trades
+     */
+    public boolean subscribeKline(String sessionId, String symbol, String interval) {
+        if (!candleMapper.isExchangeInterval(interval) && !tradeCandleService.isTradeBuilt(interval)) {
+            log.warn("Session {} asked for unsupported kline interval {}", sessionId, interval);
+            return false;
         }
-    }
 
-    public void subscribeMiniTicker() {
-        String streamKey = "mini_ticker_all";
+        subscriptionRegistry.acquire(sessionId, buildStreamKey(symbol, interval, "kline"),
+                klineDestination(symbol, interval),
+                () -> openKline(symbol, interval),
+                () -> closeKline(symbol, interval));
+        return true;
+    }
 
-        subscriptionCounts.merge(streamKey, 1, Integer::sum);
+    public void subscribeTicker(String sessionId, String symbol) {
+        subscriptionRegistry.acquire(sessionId, buildStreamKey(symbol, null, "ticker"), tickerDestination(symbol),
+                () -> binanceWebSocketClient.subscribeIndividualTicker(symbol),
+                () -> {
+                    binanceWebSocketClient.unsubscribe(symbol.toLowerCase() + "@ticker");
+                    broadcaster.remove(tickerDestination(symbol));
+                });
+    }
 
-        if (subscriptionCounts.get(streamKey) == 1) {
-            log.info("Subscribing to mini ticker stream: {}", streamKey);
-            binanceWebSocketClient.subscribeMiniTicker(tickerDtoList -> {
-                handleMiniTickerData(tickerDtoList);
-            });
-        } else {
-            log.info("Additional subscriber to mini ticker stream: {} (total: {})", streamKey,
-                    subscriptionCounts.get(streamKey));
+    /**
+     * Open the stream behind each kline and ticker destination a STOMP
+     * pattern subscription spells out, e.g. every symbol of
+     * {@code /topic/ticker/{btc,eth}usdt}, held by the session until it
+     * unsubscribes from the pattern. Alternatives containing a wildcard open
+     * nothing; they get whatever is open anyway. A plain topic is its own
+     * only alternative, which is how a kline subscription asking for history
+     * opens its stream.
+     *
+     * @param destination the subscription's destination, in any wire format or update rate
+     * @return the number of destinations subscribed
+     */
+    public int subscribePattern(String sessionId, String destination) {
+        int subscribed = 0;
+        for (String topic : TopicPattern.expand(SubscriptionRegistry.topicOf(destination),
+                subscriptionConfig.getMaxPatternDestinations())) {
+            if (TopicPattern.hasWildcard(topic)) {
+                continue;
+            }
+
+            Matcher kline = KLINE_DESTINATION.matcher(topic);
+            Matcher ticker = TICKER_DESTINATION.matcher(topic);
+            if (kline.matches()) {
+                if (!subscribeKline(sessionId, kline.group(1).toUpperCase(), kline.group(2))) {
+                    continue;
+                }
+            } else if (ticker.matches() && !ALL_TICKERS_DESTINATION.equals(topic)) {
+                subscribeTicker(sessionId, ticker.group(1).toUpperCase());
+            } else {
+                continue;
+            }
+            subscribed++;
         }
+        return subscribed;
     }
 
-    public void unsubscribeKline(String symbol, String interval) {
-        String streamKey = buildStreamKey(symbol, interval, "kline");
-
-        Integer count = subscriptionCounts.get(streamKey);
+    public void subscribeMiniTicker(String sessionId) {
+        acquireMiniTicker(sessionId);
+    }
 
-        if (count == null || count <= 0) {
-            log.warn("No active subscriptions for {}", streamKey);
-            return;
-        }
+    /**
+     * Subscribe to the delta-encoded ticker feed.
+     *
+     * @return a snapshot for the session to apply the feed's later frames to
+     */
+    public TickerDeltaMessage subscribeTickerDelta(String sessionId) {
+        subscriptionRegistry.acquire(sessionId, TICKER_DELTA_STREAM_KEY, TickerDeltaFeed.DESTINATION,
+                () -> {
+                    tickerDeltaFeed.start();
+                    acquireMiniTicker(TICKER_DELTA_HOLDER);
+                },
+                () -> {
+                    release(TICKER_DELTA_HOLDER, MINI_TICKER_STREAM_KEY);
+                    tickerDeltaFeed.stop();
+                });
+        return tickerDeltaFeed.snapshot();
+    }
 
-        int newCount = subscriptionCounts.merge(streamKey, -1, Integer::sum);
+    public TickerDeltaMessage getTickerDeltaSnapshot() {
+        return tickerDeltaFeed.snapshot();
+    }
 
-        if (newCount <= 0) {
-            subscriptionCounts.remove(streamKey);
+    public void unsubscribeKline(String sessionId, String symbol, String interval) {
+        release(sessionId, buildStreamKey(symbol, interval, "kline"));
+    }
 
-            String binanceStreamName = symbol.toLowerCase() + "@kline_" + interval;
-            binanceWebSocketClient.unsubscribe(binanceStreamName);
+    public void unsubscribeTicker(String sessionId, String symbol) {
+        release(sessionId, buildStreamKey(symbol, null, "ticker"));
+    }
 
-            log.info("Last subscriber left {}, disconnected from Binance", streamKey);
-        } else {
-            log.info("Subscriber left {} (remaining: {})", streamKey, newCount);
-        }
+    public void unsubscribeMiniTicker(String sessionId) {
+        release(sessionId, MINI_TICKER_STREAM_KEY);
     }
 
-    public void unsubscribeTicker(String symbol) {
-        String streamKey = buildStreamKey(symbol, null, "ticker");
+    public void unsubscribeTickerDelta(String sessionId) {
+        release(sessionId, TICKER_DELTA_STREAM_KEY);
+    }
 
-        Integer count = subscriptionCounts.get(streamKey);
+    private void acquireMiniTicker(String sessionId) {
+        subscriptionRegistry.acquire(sessionId, MINI_TICKER_STREAM_KEY, ALL_TICKERS_DESTINATION,
+                binanceWebSocketClient::subscribeMiniTicker,
+                () -> {
+                    binanceWebSocketClient.unsubscribe("!miniTicker@arr");
+                    broadcaster.remove(ALL_TICKERS_DESTINATION);
+                });
+    }
 
-        if (count == null || count <= 0) {
-            log.warn("No active subscriptions for {}", streamKey);
-            return;
+    private void release(String sessionId, String streamKey) {
+        if (!subscriptionRegistry.release(sessionId, streamKey)) {
+            log.debug("Session {} held no subscription to {}", sessionId, streamKey);
         }
+    }
 
-        int newCount = subscriptionCounts.merge(streamKey, -1, Integer::sum);
-
-        if (newCount <= 0) {
-            subscriptionCounts.remove(streamKey);
-
-            String binanceStreamName = symbol.toLowerCase() + "@ticker";
-            binanceWebSocketClient.unsubscribe(binanceStreamName);
-
-            log.info("Last subscriber left {}, disconnected from Binance", streamKey);
+    private void openKline(String symbol, String interval) {
+        if (tradeCandleService.isTradeBuilt(interval)) {
+            tradeCandleService.subscribe(symbol, interval);
+        } else if (klineRollupService.usesMinuteStream(interval)) {
+            klineRollupService.subscribe(symbol, interval);
         } else {
-            log.info("Subscriber left {} (remaining: {})", streamKey, newCount);
+            binanceWebSocketClient.subscribeKline(symbol, interval);
         }
     }
 
-    public void unsubscribeMiniTicker() {
-        String streamKey = "mini_ticker_all";
-
-        Integer count = subscriptionCounts.get(streamKey);
-
-        if (count == null || count <= 0) {
-            log.warn("No active subscriptions for {}", streamKey);
-            return;
-        }
-
-        int newCount = subscriptionCounts.merge(streamKey, -1, Integer::sum);
-
-        if (newCount <= 0) {
-            subscriptionCounts.remove(streamKey);
-
-            binanceWebSocketClient.unsubscribe("!miniTicker@arr");
-
-            log.info("Last subscriber left {}, disconnected from Binance", streamKey);
+    private void closeKline(String symbol, String interval) {
+        if (tradeCandleService.isTradeBuilt(interval)) {
+            tradeCandleService.unsubscribe(symbol, interval);
+        } else if (klineRollupService.usesMinuteStream(interval)) {
+            klineRollupService.unsubscribe(symbol, interval);
         } else {
-            log.info("Subscriber left {} (remaining: {})", streamKey, newCount);
+            binanceWebSocketClient.unsubscribe(symbol.toLowerCase() + "@kline_" + interval);
         }
+        broadcaster.remove(klineDestination(symbol, interval));
     }
 
     private void handleKlineData(KlineDto klineDto) {
+        // A 1m stream may be open only to feed rollups
+        if (!subscriptionRegistry.isOpen(buildStreamKey(klineDto.getSymbol(), klineDto.getInterval(), "kline"))) {
+            return;
+        }
+
         try {
             KlineMessage message = convertToKlineMessage(klineDto);
 
-            String destination = String.format("/topic/kline/%s/%s", klineDto.getSymbol().toLowerCase(),
-                    klineDto.getInterval());
+            String destination = klineDestination(klineDto.getSymbol(), klineDto.getInterval());
 
-            messageTemplate.convertAndSend(destination, message);
+            // A closed candle is final and must not wait behind the cadence
+            broadcaster.publish(destination, "kline", conflationConfig.getKlineInterval(), message, message,
+                    Boolean.TRUE.equals(message.getIsClosed()));
 
             log.debug("Broadcasted kline: {} {} {}", message.getSymbol(), message.getInterval(), message.getClose());
         } catch (Exception e) {
@@ -162,9 +239,10 @@ public class WebSocketRelayService {
         try {
             TickerMessage message = convertToTickerMessage(tickerDto);
 
-            String destination = String.format("/topic/ticker/%s", tickerDto.getSymbol().toLowerCase());
+            String destination = tickerDestination(tickerDto.getSymbol());
 
-            messageTemplate.convertAndSend(destination, message);
+            broadcaster.publish(destination, "ticker", conflationConfig.getTickerInterval(), message,
+                    tickerContent(message), false);
 
             log.debug("Broadcasted ticker: {} {} {}", message.getSymbol(), message.getPrice(), message.getVolume());
         } catch (Exception e) {
@@ -178,9 +256,16 @@ public class WebSocketRelayService {
                     .map(this::convertToTickerMessage)
                     .toList();
 
-            String destination = "/topic/ticker/all";
+            tickerDeltaFeed.onTickers(messages);
+
+            // The delta feed's own hold on the stream does not need the full list
+            int feedHolds = subscriptionRegistry.isOpen(TICKER_DELTA_STREAM_KEY) ? 1 : 0;
+            if (subscriptionRegistry.getCount(MINI_TICKER_STREAM_KEY) <= feedHolds) {
+                return;
+            }
 
-            messageTemplate.convertAndSend(destination, messages);
+            broadcaster.publishMerged(ALL_TICKERS_DESTINATION, "ticker_all", conflationConfig.getTickerAllInterval(),
+                    messages, TickerMessage::getSymbol, this::tickerContent);
 
             log.debug("Broadcasted {} mini tickers", messages.size());
         } catch (Exception e) {
@@ -217,6 +302,23 @@ public class WebSocketRelayService {
                 .build();
     }
 
+    /**
+     * Ticker fields that identify a change; the event timestamp moves on every
+     * update and would defeat duplicate detection.
+     */
+    private Object tickerContent(TickerMessage message) {
+        return Arrays.asList(message.getPrice(), message.getPriceChange(), message.getPriceChangePercent(),
+                message.getHigh(), message.getLow(), message.getVolume(), message.getQuoteVolume());
+    }
+
+    private String klineDestination(String symbol, String interval) {
+        return String.format("/topic/kline/%s/%s", symbol.toLowerCase(), interval);
+    }
+
+    private String tickerDestination(String symbol) {
+        return String.format("/topic/ticker/%s", symbol.toLowerCase());
+    }
+
     private String buildStreamKey(String symbol, String interval, String type) {
         if (interval != null) {
             return String.format("%s_%s_%s", type, symbol.toUpperCase(), interval);
@@ -227,10 +329,10 @@ public class WebSocketRelayService {
 
     public int getSubscriptionCount(String symbol, String interval, String type) {
         String streamKey = buildStreamKey(symbol, interval, type);
-        return subscriptionCounts.getOrDefault(streamKey, 0);
+        return subscriptionRegistry.getCount(streamKey);
     }
 
     public Map<String, Integer> getAllSubscriptions() {
-        return new ConcurrentHashMap<>(subscriptionCounts);
+        return subscriptionRegistry.getCounts();
     }
 }
@@ -0,0 +1,283 @@
+package com.cryptoanalysis.websocket.session;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import com.cryptoanalysis.websocket.config.SessionBufferConfig;
+import com.cryptoanalysis.websocket.dto.SessionBufferDto;
+import com.cryptoanalysis.websocket.enums.OverflowPolicy;
+import com.cryptoanalysis.websocket.service.ReplayBuffer;
+import com.cryptoanalysis.websocket.service.TopicPublisher;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded send buffer of one WebSocket session. {@link #sendMessage} only
+ * queues the frame and returns; a drain task writes queued frames to the
+ * socket in order, so a slow client holds back nobody but itself. Under
+ * {@link OverflowPolicy#CONFLATE} a queued market-data frame is replaced in
+ * place by a newer frame for the same subscription, which bounds the queue by
+ * the session's subscriptions rather than by its lag. A session that stays
+ * over its message or byte limit for the send time limit is disconnected.
+ */
+@Slf4j
+class BufferedSessionDecorator extends WebSocketSessionDecorator {
+
+    private static final String DESTINATION_HEADER = "destination:";
+    private static final String SUBSCRIPTION_HEADER = "subscription:";
+    /**
+     * Marks a frame of a kline subscription's history, which no later frame replaces.
+     */
+    private static final String HISTORY_HEADER = "history:";
+    /**
+     * Marks a closed candle, whose final values the next candle's updates must not replace.
+     */
+    private static final String FINAL_HEADER = TopicPublisher.FINAL_HEADER + ":";
+    /**
+     * Marks a frame replayed to a resuming subscription, each of which has to arrive.
+     */
+    private static final String RESUME_HEADER = ReplayBuffer.RESUME_HEADER + ":";
+    /**
+     * STOMP headers of a MESSAGE frame fit well inside this many bytes.
+     */
+    private static final int HEADER_SCAN_LIMIT = 1024;
+
+    private final SessionBufferConfig config;
+    private final Executor executor;
+
+    private final Deque<Frame> queue = new ArrayDeque<>();
+    private final Map<String, Frame> queuedByKey = new HashMap<>();
+    private long queuedBytes;
+    private boolean draining;
+    private long overLimitSince = -1;
+    private boolean disconnecting;
+
+    private long sent;
+    private long conflated;
+
+    BufferedSessionDecorator(WebSocketSession delegate, SessionBufferConfig config, Executor executor) {
+        super(delegate);
+        this.config = config;
+        this.executor = executor;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        synchronized (queue) {
+            if (disconnecting) {
+                return;
+            }
+
+            // A frame joining an empty queue is written next anyway, so healthy sessions never parse headers
+            Conflation conflation = config.getOverflowPolicy() == OverflowPolicy.CONFLATE && !queue.isEmpty()
+                    ? conflation(message)
+                    : null;
+            String key = conflation == null || conflation.pinned() ? null : conflation.key();
+            if (conflation != null && conflation.pinned()) {
+                // Frames queued before a pinned one stay put, so a later update can never overtake it
+                queuedByKey.remove(conflation.key());
+            }
+            Frame queued = key == null ? null : queuedByKey.get(key);
+            if (queued != null) {
+                queuedBytes += message.getPayloadLength() - queued.message.getPayloadLength();
+                queued.message = message;
+                conflated++;
+            } else {
+                Frame frame = new Frame(key, message);
+                queue.addLast(frame);
+                queuedBytes += message.getPayloadLength();
+                if (key != null) {
+                    queuedByKey.put(key, frame);
+                }
+            }
+
+            if (checkLimit(System.currentTimeMillis())) {
+                return;
+            }
+
+            if (!draining) {
+                draining = true;
+                executor.execute(this::drain);
+            }
+        }
+    }
+
+    SessionBufferDto toStats() {
+        synchronized (queue) {
+            return SessionBufferDto.builder()
+                    .sessionId(getId())
+                    .queuedMessages(queue.size())
+                    .queuedBytes(queuedBytes)
+                    .sent(sent)
+                    .conflated(conflated)
+                    .overLimitMillis(overLimitSince < 0 ? 0 : System.currentTimeMillis() - overLimitSince)
+                    .build();
+        }
+    }
+
+    boolean isDisconnecting() {
+        synchronized (queue) {
+            return disconnecting;
+        }
+    }
+
+    long getConflated() {
+        synchronized (queue) {
+            return conflated;
+        }
+    }
+
+    int getQueuedMessages() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            WebSocketMessage<?> message;
+            synchronized (queue) {
+                Frame frame = queue.pollFirst();
+                if (frame == null || disconnecting) {
+                    draining = false;
+                    return;
+                }
+                if (frame.key != null) {
+                    queuedByKey.remove(frame.key, frame);
+                }
+                queuedBytes -= frame.message.getPayloadLength();
+                message = frame.message;
+            }
+
+            try {
+                getDelegate().sendMessage(message);
+            } catch (Exception e) {
+                log.debug("Failed to write to session {}; dropping its buffer", getId(), e);
+                synchronized (queue) {
+                    clear();
+                    draining = false;
+                }
+                return;
+            }
+
+            synchronized (queue) {
+                sent++;
+                checkLimit(System.currentTimeMillis());
+            }
+        }
+    }
+
+    /**
+     * Track how long the session has been over its limit and disconnect it
+     * once that exceeds the send time limit.
+     *
+     * @return whether the session is being disconnected
+     */
+    private boolean checkLimit(long now) {
+        boolean over = queue.size() > config.getMaxMessages() || queuedBytes > config.getMaxBytes();
+        if (!over) {
+            overLimitSince = -1;
+            return false;
+        }
+
+        if (overLimitSince < 0) {
+            overLimitSince = now;
+        }
+        if (now - overLimitSince < config.getSendTimeLimit()) {
+            return false;
+        }
+
+        log.warn("Disconnecting slow session {}: {} frames ({} bytes) waiting for {} ms",
+                getId(), queue.size(), queuedBytes, now - overLimitSince);
+        disconnecting = true;
+        clear();
+        executor.execute(() -> {
+            try {
+                getDelegate().close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Failed to close slow session {}", getId(), e);
+            }
+        });
+        return true;
+    }
+
+    private void clear() {
+        queue.clear();
+        queuedByKey.clear();
+        queuedBytes = 0;
+    }
+
+    /**
+     * Destination and subscription of a conflatable STOMP MESSAGE frame, or
+     * {@code null} for any other frame, frames of partial destinations
+     * included. History, closed-candle and resumed frames come back pinned:
+     * nothing replaces them.
+     */
+    private Conflation conflation(WebSocketMessage<?> message) {
+        String headers;
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            headers = payload.substring(0, Math.min(payload.length(), HEADER_SCAN_LIMIT));
+        } else if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().duplicate();
+            byte[] head = new byte[Math.min(payload.remaining(), HEADER_SCAN_LIMIT)];
+            payload.get(head);
+            headers = new String(head, StandardCharsets.UTF_8);
+        } else {
+            return null;
+        }
+
+        if (!headers.startsWith("MESSAGE\n")) {
+            return null;
+        }
+
+        String destination = null;
+        String subscription = null;
+        boolean pinned = false;
+        for (String line : headers.split("\n")) {
+            if (line.isEmpty()) {
+                break;
+            }
+            if (line.startsWith(HISTORY_HEADER) || line.startsWith(FINAL_HEADER) || line.startsWith(RESUME_HEADER)) {
+                pinned = true;
+            }
+            if (destination == null && line.startsWith(DESTINATION_HEADER)) {
+                destination = line.substring(DESTINATION_HEADER.length());
+            } else if (subscription == null && line.startsWith(SUBSCRIPTION_HEADER)) {
+                subscription = line.substring(SUBSCRIPTION_HEADER.length());
+            }
+        }
+
+        if (destination == null || config.getConflatablePrefixes().stream().noneMatch(destination::startsWith)
+                || config.getPartialDestinations().contains(destination)) {
+            return null;
+        }
+        return new Conflation(subscription + "|" + destination, pinned);
+    }
+
+    private record Conflation(String key, boolean pinned) {
+    }
+
+    private static final class Frame {
+        private final String key;
+        private WebSocketMessage<?> message;
+
+        private Frame(String key, WebSocketMessage<?> message) {
+            this.key = key;
+            this.message = message;
+        }
+    }
+}
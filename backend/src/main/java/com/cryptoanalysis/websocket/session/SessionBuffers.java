@@ -0,0 +1,107 @@
+package com.cryptoanalysis.websocket.session;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import com.cryptoanalysis.websocket.config.SessionBufferConfig;
+import com.cryptoanalysis.websocket.dto.SessionBufferDto;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Gives every WebSocket session its own bounded send buffer (see
+ * {@link BufferedSessionDecorator}) by decorating the STOMP handler, and
+ * keeps the live buffers for monitoring. Buffers drain on virtual threads, so
+ * a session blocked on a slow socket ties up no pool thread.
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionBuffers {
+
+    private final SessionBufferConfig config;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, BufferedSessionDecorator> buffers = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong closedConflated = new AtomicLong();
+    private final AtomicLong slowDisconnects = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("websocket.session.buffer.queued.max", this, SessionBuffers::maxQueued)
+                .register(meterRegistry);
+        FunctionCounter.builder("websocket.session.buffer.conflated", this, SessionBuffers::totalConflated)
+                .register(meterRegistry);
+        FunctionCounter.builder("websocket.session.slow.disconnects", slowDisconnects, AtomicLong::get)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Decorator factory for the STOMP endpoint's WebSocket handler.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                BufferedSessionDecorator buffered = new BufferedSessionDecorator(session, config, executor);
+                buffers.put(session.getId(), buffered);
+                super.afterConnectionEstablished(buffered);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                BufferedSessionDecorator buffered = buffers.remove(session.getId());
+                if (buffered != null) {
+                    closedConflated.addAndGet(buffered.getConflated());
+                    if (buffered.isDisconnecting()) {
+                        slowDisconnects.incrementAndGet();
+                    }
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Live sessions, deepest queue first.
+     */
+    public List<SessionBufferDto> getStats() {
+        return buffers.values().stream()
+                .map(BufferedSessionDecorator::toStats)
+                .sorted(Comparator.comparing(SessionBufferDto::getQueuedMessages).reversed())
+                .toList();
+    }
+
+    private double maxQueued() {
+        return buffers.values().stream()
+                .mapToInt(BufferedSessionDecorator::getQueuedMessages)
+                .max()
+                .orElse(0);
+    }
+
+    private double totalConflated() {
+        return closedConflated.get() + buffers.values().stream()
+                .mapToLong(BufferedSessionDecorator::getConflated)
+                .sum();
+    }
+}
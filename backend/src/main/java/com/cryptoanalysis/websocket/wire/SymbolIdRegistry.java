@@ -0,0 +1,58 @@
+package com.cryptoanalysis.websocket.wire;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Assigns the small numeric ids binary frames carry instead of symbol names.
+ * Ids are handed out on first use and stay fixed for the life of the process;
+ * clients fetch the table over REST and refetch it when a frame carries an id
+ * they do not know.
+ */
+@Component
+public class SymbolIdRegistry {
+
+    /**
+     * Ids are written as unsigned 16-bit values.
+     */
+    static final int MAX_SYMBOLS = 0xFFFF;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> symbols = new CopyOnWriteArrayList<>();
+
+    public int idOf(String symbol) {
+        Integer id = ids.get(symbol);
+        return id != null ? id : assign(symbol);
+    }
+
+    /**
+     * Every assigned id and its symbol, in id order.
+     */
+    public Map<Integer, String> getSymbols() {
+        Map<Integer, String> table = new LinkedHashMap<>();
+        for (int i = 0; i < symbols.size(); i++) {
+            table.put(i, symbols.get(i));
+        }
+        return table;
+    }
+
+    private synchronized int assign(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) {
+            return id;
+        }
+
+        if (symbols.size() >= MAX_SYMBOLS) {
+            throw new IllegalStateException("Symbol id space exhausted");
+        }
+
+        symbols.add(symbol);
+        ids.put(symbol, symbols.size() - 1);
+        return symbols.size() - 1;
+    }
+}
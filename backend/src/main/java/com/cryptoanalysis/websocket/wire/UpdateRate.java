@@ -0,0 +1,80 @@
+package com.cryptoanalysis.websocket.wire;
+
+import java.util.List;
+
+/**
+ * Update rates a client can ask for per STOMP subscription with the
+ * {@value #HEADER} header, in updates per second. A request is served from
+ * the first configured rate class at least that slow, on the derived
+ * destination {@code /topic/throttled/<interval ms>/<rest>}, which the relay
+ * conflates once per class for all of its subscribers. Rates the full stream
+ * already satisfies, i.e. above the fastest class, keep the original topic.
+ */
+public final class UpdateRate {
+
+    public static final String HEADER = "max-rate";
+
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    private static final String THROTTLED_PREFIX = "/topic/throttled/";
+
+    private UpdateRate() {
+    }
+
+    /**
+     * Whether {@code destination} can be throttled: kline and ticker topics.
+     */
+    public static boolean supportsThrottling(String destination) {
+        return destination.startsWith("/topic/kline/") || destination.startsWith("/topic/ticker/");
+    }
+
+    /**
+     * Interval of the rate class serving at most {@code maxRate} updates per
+     * second, or {@code null} when the full stream will do.
+     *
+     * @param classIntervals class intervals in milliseconds, fastest first
+     */
+    public static Integer classInterval(double maxRate, List<Integer> classIntervals) {
+        if (classIntervals.isEmpty() || !(maxRate > 0)) {
+            return null;
+        }
+
+        double minInterval = 1000 / maxRate;
+        if (minInterval < classIntervals.get(0)) {
+            return null;
+        }
+        for (Integer interval : classIntervals) {
+            if (interval >= minInterval) {
+                return interval;
+            }
+        }
+        return classIntervals.get(classIntervals.size() - 1);
+    }
+
+    public static String throttledDestination(String destination, int intervalMillis) {
+        return THROTTLED_PREFIX + intervalMillis + "/" + destination.substring(TOPIC_PREFIX.length());
+    }
+
+    public static boolean isThrottled(String destination) {
+        return destination.startsWith(THROTTLED_PREFIX);
+    }
+
+    /**
+     * Rate class interval of a throttled JSON destination, in milliseconds.
+     */
+    public static int intervalOf(String throttled) {
+        int start = THROTTLED_PREFIX.length();
+        return Integer.parseInt(throttled.substring(start, throttled.indexOf('/', start)));
+    }
+
+    /**
+     * The relay topic a (possibly throttled) JSON destination derives from.
+     */
+    public static String baseDestination(String destination) {
+        if (!isThrottled(destination)) {
+            return destination;
+        }
+        int rest = destination.indexOf('/', THROTTLED_PREFIX.length());
+        return rest < 0 ? destination : TOPIC_PREFIX + destination.substring(rest + 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.cryptoanalysis.websocket.wire;
+
+/**
+ * Wire formats a client can negotiate per STOMP subscription with the
+ * {@value #HEADER} header. A binary subscription to {@code /topic/<rest>} is
+ * served from the parallel destination {@code /topic/bin/<rest>}, so each
+ * message is encoded once per format and the broker fans the same bytes out
+ * to every session on it.
+ */
+public final class WireFormat {
+
+    public static final String HEADER = "x-wire-format";
+
+    public static final String JSON = "json";
+
+    public static final String BINARY = "binary";
+
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    private static final String BINARY_PREFIX = "/topic/bin/";
+
+    private WireFormat() {
+    }
+
+    /**
+     * Whether {@code destination} has a binary encoding: kline and ticker
+     * topics, including their throttled variants.
+     */
+    public static boolean supportsBinary(String destination) {
+        String base = UpdateRate.baseDestination(destination);
+        return base.startsWith("/topic/kline/") || base.startsWith("/topic/ticker/");
+    }
+
+    public static String binaryDestination(String destination) {
+        return BINARY_PREFIX + destination.substring(TOPIC_PREFIX.length());
+    }
+
+    /**
+     * The JSON destination a (possibly binary) destination was negotiated from.
+     */
+    public static String canonicalDestination(String destination) {
+        return destination.startsWith(BINARY_PREFIX)
+                ? TOPIC_PREFIX + destination.substring(BINARY_PREFIX.length())
+                : destination;
+    }
+}
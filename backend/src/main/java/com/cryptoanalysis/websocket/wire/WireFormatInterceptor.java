@@ -0,0 +1,154 @@
+package com.cryptoanalysis.websocket.wire;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import com.cryptoanalysis.websocket.config.RelayConflationConfig;
+import com.cryptoanalysis.websocket.config.RelaySubscriptionConfig;
+import com.cryptoanalysis.websocket.config.WireFormatConfig;
+import com.cryptoanalysis.websocket.routing.TopicPattern;
+import com.cryptoanalysis.websocket.service.KlineHistory;
+import com.cryptoanalysis.websocket.service.SubscriptionRegistry;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Inbound STOMP interceptor that negotiates the wire format and update rate
+ * of each subscription and keeps the {@link SubscriptionRegistry} informed. A
+ * SUBSCRIBE carrying {@code max-rate} is moved to the matching throttled
+ * destination (see {@link UpdateRate}), and one carrying
+ * {@code x-wire-format: binary} to a topic with a binary encoding is moved to
+ * that topic's binary destination, both before the broker sees it; the client
+ * still matches messages by subscription id, so it needs no other change.
+ * A {@link TopicPattern} is refused with an ERROR frame if it spells out too
+ * many destinations, or could match another session's queue or the relay's
+ * derived copies of a topic.
+ * A SUBSCRIBE to {@code /app/subscribe/kline/{symbol}/{interval}?history=N}
+ * becomes one to the kline topic with a {@value KlineHistory#HEADER} header
+ * of N, as if the client had sent that (see {@link KlineHistory}).
+ * UNSUBSCRIBE frames release whatever the subscription held.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WireFormatInterceptor implements ChannelInterceptor {
+
+    private final WireFormatConfig config;
+    private final RelayConflationConfig conflationConfig;
+    private final RelaySubscriptionConfig subscriptionConfig;
+    private final SubscriptionRegistry subscriptionRegistry;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        switch (accessor.getCommand()) {
+            case SUBSCRIBE -> {
+                return subscribe(message, accessor);
+            }
+            case UNSUBSCRIBE -> subscriptionRegistry.releaseStompSubscription(accessor.getSessionId(),
+                    accessor.getSubscriptionId());
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private Message<?> subscribe(Message<?> message, StompHeaderAccessor accessor) {
+        String requested = accessor.getDestination();
+        if (requested == null) {
+            return message;
+        }
+
+        if (TopicPattern.isPattern(requested)) {
+            checkPattern(message, requested);
+        }
+
+        String destination = requested;
+        String history = null;
+        KlineHistory.Request historyRequest = requested.startsWith(KlineHistory.SUBSCRIBE_PREFIX)
+                ? KlineHistory.parseSubscribe(requested)
+                : null;
+        if (historyRequest != null) {
+            destination = historyRequest.topic();
+            history = historyRequest.count() != null ? historyRequest.count()
+                    : Objects.requireNonNullElse(accessor.getFirstNativeHeader(KlineHistory.HEADER), "0");
+        }
+
+        String maxRate = accessor.getFirstNativeHeader(UpdateRate.HEADER);
+        if (maxRate != null && UpdateRate.supportsThrottling(destination)) {
+            Integer interval = UpdateRate.classInterval(parseRate(maxRate), conflationConfig.getRateClasses());
+            if (interval != null) {
+                destination = UpdateRate.throttledDestination(destination, interval);
+            }
+        }
+
+        if (config.getBinaryEnabled() && WireFormat.BINARY.equalsIgnoreCase(accessor.getFirstNativeHeader(WireFormat.HEADER))
+                && WireFormat.supportsBinary(destination)) {
+            destination = WireFormat.binaryDestination(destination);
+        }
+
+        Message<?> result = message;
+        if (!destination.equals(requested)) {
+            log.debug("Session {} subscribed to {} as {}", accessor.getSessionId(), requested, destination);
+
+            if (accessor.isMutable()) {
+                accessor.setDestination(destination);
+                if (history != null) {
+                    accessor.setNativeHeader(KlineHistory.HEADER, history);
+                }
+            } else {
+                StompHeaderAccessor copy = StompHeaderAccessor.wrap(message);
+                copy.setDestination(destination);
+                if (history != null) {
+                    copy.setNativeHeader(KlineHistory.HEADER, history);
+                }
+                result = MessageBuilder.createMessage(message.getPayload(), copy.getMessageHeaders());
+            }
+        }
+
+        subscriptionRegistry.trackStompSubscription(accessor.getSessionId(), accessor.getSubscriptionId(),
+                destination);
+        return result;
+    }
+
+    private void checkPattern(Message<?> message, String pattern) {
+        int max = subscriptionConfig.getMaxPatternDestinations();
+        List<String> alternatives = TopicPattern.expand(pattern, max);
+        if (alternatives.isEmpty()) {
+            throw new MessagingException(message, "Pattern " + pattern + " spells out more than " + max
+                    + " destinations");
+        }
+
+        for (String alternative : alternatives) {
+            // "", "topic", the topic's family, the rest
+            String[] segments = alternative.split("/", 4);
+            if (segments.length < 3 || !"topic".equals(segments[1]) || TopicPattern.hasWildcard(segments[2])) {
+                throw new MessagingException(message, "Pattern " + pattern
+                        + " must start with /topic/ and a literal topic name such as kline");
+            }
+        }
+    }
+
+    private static double parseRate(String maxRate) {
+        try {
+            return Double.parseDouble(maxRate.trim());
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring invalid {} header: {}", UpdateRate.HEADER, maxRate);
+            return Double.NaN;
+        }
+    }
+}
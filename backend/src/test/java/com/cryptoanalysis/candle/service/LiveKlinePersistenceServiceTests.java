@@ -0,0 +1,116 @@
+package com.cryptoanalysis.candle.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cryptoanalysis.candle.config.IngestionConfig;
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.candle.repository.KlineRepository;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.bus.MarketDataBus;
+import com.cryptoanalysis.websocket.bus.MarketDataEvent;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+import com.cryptoanalysis.websocket.model.Kline;
+
+class LiveKlinePersistenceServiceTests {
+
+    private static final long MINUTE = 60_000L;
+
+    private final IngestionConfig config = new IngestionConfig();
+    private final KlineRepository klineRepository = mock(KlineRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final LiveKlinePersistenceService service = new LiveKlinePersistenceService(config, klineRepository,
+            new CandleMapper(), mock(MarketDataBus.class), new TransactionTemplate(transactionManager));
+
+    @Test
+    void busThreadOnlyCollectsAndTheWriterStoresTheLatestVersionInBatches() {
+        config.setLivePersistenceBatchSize(2);
+        when(klineRepository.findBySymbolAndIntervalAndOpenTime(anyString(), anyString(), anyLong()))
+                .thenReturn(Optional.empty());
+
+        service.onEvent(event(kline(0, "42000", true)), 0);
+        service.onEvent(event(kline(MINUTE, "42100", true)), 1);
+        service.onEvent(event(kline(2 * MINUTE, "42200", false)), 2);
+        // Re-emitted with a late trade
+        service.onEvent(event(kline(0, "42050", true)), 3);
+        service.onEvent(event(kline(3 * MINUTE, "42300", true)), 4);
+
+        verifyNoInteractions(klineRepository);
+
+        service.flush();
+
+        ArgumentCaptor<Kline> saved = ArgumentCaptor.forClass(Kline.class);
+        verify(klineRepository, times(3)).save(saved.capture());
+        assertThat(saved.getAllValues()).extracting(Kline::getOpenTime)
+                .containsExactlyInAnyOrder(0L, MINUTE, 3 * MINUTE);
+        assertThat(saved.getAllValues()).filteredOn(k -> k.getOpenTime() == 0).extracting(Kline::getClosePrice)
+                .containsExactly(new BigDecimal("42050"));
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void klinesOfAFailedBatchAreKeptForTheNextWrite() {
+        when(klineRepository.findBySymbolAndIntervalAndOpenTime(anyString(), anyString(), anyLong()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(Optional.empty());
+
+        service.onEvent(event(kline(0, "42000", true)), 0);
+        service.flush();
+        verify(klineRepository, never()).save(any());
+
+        service.flush();
+        verify(klineRepository).save(any());
+    }
+
+    @Test
+    void newKlinesAreDroppedOnceTooManyAreWaiting() {
+        config.setLivePersistenceMaxPending(2);
+
+        service.onEvent(event(kline(0, "42000", true)), 0);
+        service.onEvent(event(kline(MINUTE, "42100", true)), 1);
+        service.onEvent(event(kline(2 * MINUTE, "42200", true)), 2);
+        // An amendment of a waiting candle still replaces it
+        service.onEvent(event(kline(0, "42050", true)), 3);
+
+        assertThat(service.getDropped()).isEqualTo(1);
+    }
+
+    private static MarketDataEvent event(KlineDto kline) {
+        MarketDataEvent event = mock(MarketDataEvent.class);
+        when(event.getType()).thenReturn(MarketDataEventType.KLINE);
+        when(event.getKline()).thenReturn(kline);
+        return event;
+    }
+
+    private static KlineDto kline(long openTime, String close, boolean closed) {
+        return KlineDto.builder()
+                .symbol("BTCUSDT")
+                .interval("1m")
+                .openTime(openTime)
+                .closeTime(openTime + MINUTE - 1)
+                .open(ScaledDecimal.parse("42000"))
+                .high(ScaledDecimal.parse("42400"))
+                .low(ScaledDecimal.parse("41900"))
+                .close(ScaledDecimal.parse(close))
+                .volume(ScaledDecimal.parse("12.5"))
+                .isClosed(closed)
+                .build();
+    }
+}
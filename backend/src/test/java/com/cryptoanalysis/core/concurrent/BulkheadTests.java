@@ -0,0 +1,148 @@
+package com.cryptoanalysis.core.concurrent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BulkheadTests {
+
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void shutdown() {
+        threads.shutdownNow();
+    }
+
+    @Test
+    void callersBeyondTheLimitWaitForAPermit() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 10, 5000);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        Future<String> first = threads.submit(() -> bulkhead.call(() -> {
+            running.countDown();
+            await(finish);
+            return "first";
+        }));
+        assertThat(running.await(1, TimeUnit.SECONDS)).isTrue();
+
+        Future<String> second = threads.submit(() -> bulkhead.call(() -> "second"));
+        waitUntil(() -> bulkhead.getQueued() == 1);
+        assertThat(bulkhead.getInFlight()).isEqualTo(1);
+
+        finish.countDown();
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo("second");
+        assertThat(bulkhead.getInFlight()).isZero();
+        assertThat(bulkhead.getQueued()).isZero();
+        assertThat(bulkhead.getRejected()).isZero();
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFullOrTheWaitTimesOut() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 100);
+        CountDownLatch finish = new CountDownLatch(1);
+        bulkhead.acquire();
+
+        Future<?> waiting = threads.submit(() -> bulkhead.run(() -> await(finish)));
+        waitUntil(() -> bulkhead.getQueued() == 1);
+
+        assertThatThrownBy(() -> bulkhead.run(() -> {
+        })).isInstanceOf(BulkheadFullException.class).hasMessageContaining("too many callers waiting");
+
+        assertThat(waiting).failsWithin(1, TimeUnit.SECONDS).withThrowableThat()
+                .withCauseInstanceOf(BulkheadFullException.class)
+                .withMessageContaining("no permit within 100 ms");
+        assertThat(bulkhead.getRejected()).isEqualTo(2);
+
+        bulkhead.release();
+        assertThat(bulkhead.call(() -> "after")).isEqualTo("after");
+    }
+
+    @Test
+    void wrappedExecutorRunsAtMostTheLimitAtOnce() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 2, 100, 5000);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(20);
+
+        for (int i = 0; i < 20; i++) {
+            bulkhead.wrap(threads).execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(10);
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(peak.get()).isEqualTo(2);
+    }
+
+    @Test
+    void wrappedExecutorRejectsOnTheSubmittingThreadAndCancelsATaskThatTimesOut() throws Exception {
+        Bulkhead bulkhead = new Bulkhead("test", 1, 1, 100);
+        Executor executor = bulkhead.wrap(threads);
+        AtomicInteger ran = new AtomicInteger();
+        bulkhead.acquire();
+
+        FutureTask<String> waiting = new FutureTask<>(() -> "waited");
+        executor.execute(waiting);
+        waitUntil(() -> bulkhead.getQueued() == 1);
+
+        assertThatThrownBy(() -> executor.execute(ran::incrementAndGet))
+                .isInstanceOf(RejectedExecutionException.class)
+                .hasMessageContaining("too many callers waiting");
+
+        // The waiting task times out on its own thread; its Future still completes
+        assertThat(waiting).failsWithin(1, TimeUnit.SECONDS).withThrowableThat()
+                .isInstanceOf(CancellationException.class);
+        assertThat(ran.get()).isZero();
+        assertThat(bulkhead.getRejected()).isEqualTo(2);
+        assertThat(bulkhead.getQueued()).isZero();
+
+        bulkhead.release();
+        FutureTask<String> after = new FutureTask<>(() -> "after");
+        executor.execute(after);
+        assertThat(after.get(1, TimeUnit.SECONDS)).isEqualTo("after");
+        waitUntil(() -> bulkhead.getInFlight() == 0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,60 @@
+package com.cryptoanalysis.core.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ScaledDecimalTests {
+
+    @Test
+    void parsesTowardsPreferredScale() {
+        char[] text = "43250.50000000".toCharArray();
+
+        ScaledDecimal price = ScaledDecimal.parse(text, 0, text.length, 2);
+
+        assertThat(price.mantissa()).isEqualTo(4325050L);
+        assertThat(price.scale()).isEqualTo(2);
+        assertThat(price.toString()).isEqualTo("43250.50");
+    }
+
+    @Test
+    void keepsSignificantDigitsBeyondPreferredScale() {
+        char[] text = "0.00012345".toCharArray();
+
+        ScaledDecimal value = ScaledDecimal.parse(text, 0, text.length, 2);
+
+        assertThat(value.scale()).isEqualTo(8);
+        assertThat(value.toBigDecimal()).isEqualByComparingTo("0.00012345");
+    }
+
+    @Test
+    void arithmeticIsExactAcrossScales() {
+        ScaledDecimal a = ScaledDecimal.parse("1.5");
+        ScaledDecimal b = ScaledDecimal.parse("-0.25");
+
+        assertThat(a.add(b)).isEqualTo(ScaledDecimal.parse("1.25"));
+        assertThat(a.subtract(b).toString()).isEqualTo("1.75");
+        assertThat(a.multiply(b, 3).toString()).isEqualTo("-0.375");
+        assertThat(a.multiply(b, 2).toString()).isEqualTo("-0.38");
+        assertThat(a.max(b)).isSameAs(a);
+        assertThat(ScaledDecimal.parse("1.50")).isEqualTo(a).hasSameHashCodeAs(a);
+        assertThatThrownBy(() -> ScaledDecimal.of(Long.MAX_VALUE, 0).add(ScaledDecimal.of(1, 0)))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void roundTripsThroughBigDecimalAndJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ScaledDecimal value = ScaledDecimal.valueOf(new BigDecimal("-0.00000001"));
+
+        assertThat(value.toString()).isEqualTo("-0.00000001");
+        assertThat(objectMapper.writeValueAsString(value)).isEqualTo("-0.00000001");
+        assertThat(objectMapper.readValue("\"2300.50\"", ScaledDecimal.class)).isEqualTo(ScaledDecimal.parse("2300.5"));
+        assertThat(objectMapper.readValue("1E+3", ScaledDecimal.class)).isEqualTo(ScaledDecimal.of(1000, 0));
+    }
+}
@@ -0,0 +1,185 @@
+package com.cryptoanalysis.websocket.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+
+class KlineRollupAggregatorTests {
+
+    private static final long MINUTE = 60_000L;
+    private static final long FIVE_MINUTES = 5 * MINUTE;
+    /**
+     * 2024-01-11T10:00:00Z
+     */
+    private static final long T0 = 1704967200000L;
+
+    private final List<KlineDto> emitted = new ArrayList<>();
+    private final KlineRollupAggregator aggregator = new KlineRollupAggregator("BTCUSDT", "5m", FIVE_MINUTES,
+            emitted::add);
+
+    @Test
+    void sumsClosedMinutesAndTheMinuteInProgress() {
+        start(T0, List.of());
+
+        aggregator.onMinute(minute(T0, "100", "103", "99", "102", "2", 10, true));
+        aggregator.onMinute(minute(T0 + MINUTE, "102", "105", "101", "104", "1.5", 4, false));
+
+        KlineDto candle = last();
+        assertThat(candle.getOpenTime()).isEqualTo(T0);
+        assertThat(candle.getCloseTime()).isEqualTo(T0 + FIVE_MINUTES - 1);
+        assertThat(candle.getOpen()).isEqualTo(ScaledDecimal.parse("100"));
+        assertThat(candle.getHigh()).isEqualTo(ScaledDecimal.parse("105"));
+        assertThat(candle.getLow()).isEqualTo(ScaledDecimal.parse("99"));
+        assertThat(candle.getClose()).isEqualTo(ScaledDecimal.parse("104"));
+        assertThat(candle.getVolume()).isEqualTo(ScaledDecimal.parse("3.5"));
+        assertThat(candle.getQuoteVolume()).isEqualTo(ScaledDecimal.parse("350"));
+        assertThat(candle.getTakerBuyVolume()).isEqualTo(ScaledDecimal.parse("1.75"));
+        assertThat(candle.getTradesCount()).isEqualTo(14);
+        assertThat(candle.getIsClosed()).isFalse();
+
+        // A newer update of the same minute replaces it rather than adding to it
+        aggregator.onMinute(minute(T0 + MINUTE, "102", "106", "101", "105", "1.6", 5, false));
+        assertThat(last().getVolume()).isEqualTo(ScaledDecimal.parse("3.6"));
+        assertThat(last().getTradesCount()).isEqualTo(15);
+    }
+
+    @Test
+    void finalMinuteClosesTheBucketAndTheNextUpdateOpensAnother() {
+        start(T0, List.of());
+
+        for (int i = 0; i < 5; i++) {
+            aggregator.onMinute(minute(T0 + i * MINUTE, "100", "101", "99", "100", "1", 1, true));
+        }
+
+        assertThat(emitted).filteredOn(KlineDto::getIsClosed).singleElement().satisfies(closed -> {
+            assertThat(closed.getOpenTime()).isEqualTo(T0);
+            assertThat(closed.getVolume()).isEqualTo(ScaledDecimal.parse("5"));
+            assertThat(closed.getTradesCount()).isEqualTo(5);
+        });
+
+        aggregator.onMinute(minute(T0 + FIVE_MINUTES, "100", "100", "100", "100", "0.1", 1, false));
+        assertThat(last().getOpenTime()).isEqualTo(T0 + FIVE_MINUTES);
+        assertThat(last().getVolume()).isEqualTo(ScaledDecimal.parse("0.1"));
+    }
+
+    @Test
+    void nextBucketsFirstUpdateWaitsForThePreviousFinalMinuteToClose() {
+        start(T0 + 4 * MINUTE, List.of(minute(T0, "100", "101", "99", "100", "4", 4, true)));
+
+        aggregator.onMinute(minute(T0 + FIVE_MINUTES, "110", "110", "110", "110", "1", 1, false));
+        assertThat(emitted).isEmpty();
+
+        aggregator.onMinute(minute(T0 + 4 * MINUTE, "100", "101", "99", "100", "1", 1, true));
+        assertThat(emitted).extracting(KlineDto::getOpenTime).containsExactly(T0, T0 + FIVE_MINUTES);
+        assertThat(emitted.get(0).getIsClosed()).isTrue();
+        assertThat(emitted.get(0).getVolume()).isEqualTo(ScaledDecimal.parse("5"));
+        assertThat(emitted.get(1).getOpen()).isEqualTo(ScaledDecimal.parse("110"));
+    }
+
+    @Test
+    void holdsLiveMinutesUntilSeededAndIgnoresReplayedCloses() {
+        KlineDto first = minute(T0 + 2 * MINUTE, "103", "104", "102", "103", "1", 1, false);
+        assertThat(aggregator.onMinute(first)).isTrue();
+        assertThat(aggregator.onMinute(minute(T0 + 2 * MINUTE, "103", "104", "102", "104", "1.5", 2, true)))
+                .isFalse();
+        assertThat(aggregator.seedCutoff()).isEqualTo(T0 + 2 * MINUTE);
+        assertThat(emitted).isEmpty();
+
+        // The seed may be a coarser kline followed by minutes
+        boolean reseed = aggregator.applySeed(T0 + 2 * MINUTE, List.of(
+                minute(T0, "100", "102", "98", "101", "2", 2, true),
+                minute(T0 + MINUTE, "101", "103", "100", "103", "1", 1, true)), List.of());
+
+        assertThat(reseed).isFalse();
+        assertThat(last().getOpen()).isEqualTo(ScaledDecimal.parse("100"));
+        assertThat(last().getLow()).isEqualTo(ScaledDecimal.parse("98"));
+        assertThat(last().getClose()).isEqualTo(ScaledDecimal.parse("104"));
+        assertThat(last().getVolume()).isEqualTo(ScaledDecimal.parse("4.5"));
+
+        emitted.clear();
+        aggregator.onMinute(minute(T0 + 2 * MINUTE, "103", "104", "102", "104", "1.5", 2, true));
+        assertThat(emitted).isEmpty();
+        assertThat(aggregator.stats().duplicates()).isEqualTo(1);
+    }
+
+    @Test
+    void missedCloseReseedsAndClosesTheLeftBucketFromTheExchange() {
+        start(T0, List.of());
+        aggregator.onMinute(minute(T0, "100", "101", "99", "100", "1", 1, true));
+
+        // Reconnected two minutes into the next bucket
+        KlineDto resumed = minute(T0 + FIVE_MINUTES + 2 * MINUTE, "120", "120", "120", "120", "1", 1, false);
+        assertThat(aggregator.onMinute(resumed)).isTrue();
+        assertThat(aggregator.seedCutoff()).isEqualTo(resumed.getOpenTime());
+        assertThat(aggregator.unclosedBucketOpen()).isEqualTo(T0);
+        emitted.clear();
+
+        KlineDto exchangeClose = minute(T0, "100", "115", "99", "114", "5", 5, true);
+        exchangeClose.setInterval("5m");
+        exchangeClose.setCloseTime(T0 + FIVE_MINUTES - 1);
+        aggregator.applySeed(resumed.getOpenTime(),
+                List.of(minute(T0 + FIVE_MINUTES, "114", "118", "114", "118", "2", 2, true),
+                        minute(T0 + FIVE_MINUTES + MINUTE, "118", "119", "117", "119", "2", 2, true)),
+                List.of(exchangeClose));
+
+        assertThat(emitted).extracting(KlineDto::getOpenTime).containsExactly(T0, T0 + FIVE_MINUTES);
+        assertThat(emitted.get(0)).isSameAs(exchangeClose);
+        assertThat(emitted.get(1).getOpen()).isEqualTo(ScaledDecimal.parse("114"));
+        assertThat(emitted.get(1).getClose()).isEqualTo(ScaledDecimal.parse("120"));
+        assertThat(emitted.get(1).getVolume()).isEqualTo(ScaledDecimal.parse("5"));
+    }
+
+    @Test
+    void alignsWeeksToMondayAndMonthsToTheCalendar() {
+        KlineRollupAggregator week = new KlineRollupAggregator("BTCUSDT", "1w", 7 * 24 * 60 * MINUTE, k -> {
+        });
+        KlineRollupAggregator month = new KlineRollupAggregator("BTCUSDT", "1M", 30 * 24 * 60 * MINUTE, k -> {
+        });
+
+        // 2024-01-08T00:00:00Z was a Monday
+        assertThat(week.alignedOpenTime(T0)).isEqualTo(1704672000000L);
+        // 2024-01-01T00:00:00Z
+        assertThat(month.alignedOpenTime(T0)).isEqualTo(1704067200000L);
+    }
+
+    /**
+     * Seed up to {@code cutoff} with a placeholder first minute, which the
+     * test's own update of that minute then replaces.
+     */
+    private void start(long cutoff, List<KlineDto> history) {
+        aggregator.onMinute(minute(cutoff, "0", "0", "0", "0", "0", 0, false));
+        aggregator.applySeed(cutoff, history, List.of());
+        emitted.clear();
+    }
+
+    private KlineDto last() {
+        return emitted.get(emitted.size() - 1);
+    }
+
+    private static KlineDto minute(long openTime, String open, String high, String low, String close,
+            String volume, int trades, boolean closed) {
+        ScaledDecimal v = ScaledDecimal.parse(volume);
+        return KlineDto.builder()
+                .symbol("BTCUSDT")
+                .interval("1m")
+                .openTime(openTime)
+                .closeTime(openTime + MINUTE - 1)
+                .open(ScaledDecimal.parse(open))
+                .high(ScaledDecimal.parse(high))
+                .low(ScaledDecimal.parse(low))
+                .close(ScaledDecimal.parse(close))
+                .volume(v)
+                .quoteVolume(v.multiply(100))
+                .tradesCount(trades)
+                .takerBuyVolume(ScaledDecimal.parse(volume).divide(2, 8))
+                .takerBuyQuoteVolume(v.multiply(50))
+                .isClosed(closed)
+                .build();
+    }
+}
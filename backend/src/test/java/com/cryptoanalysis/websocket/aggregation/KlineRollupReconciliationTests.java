@@ -0,0 +1,131 @@
+package com.cryptoanalysis.websocket.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.candle.repository.KlineRepository;
+import com.cryptoanalysis.candle.service.CandleService;
+import com.cryptoanalysis.config.ExecutionConfig;
+import com.cryptoanalysis.core.concurrent.Bulkheads;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Rolls a full UTC day of real 1m klines up into every interval that divides
+ * a day and compares each closed candle field by field with the klines
+ * Binance serves for that interval. Needs network access, so it only runs
+ * with {@code -Dbinance.reconciliation=true}, and is skipped when the
+ * exchange cannot be reached.
+ */
+@EnabledIfSystemProperty(named = "binance.reconciliation", matches = "true")
+class KlineRollupReconciliationTests {
+
+    private static final String SYMBOL = "BTCUSDT";
+    private static final long MINUTE = 60_000L;
+    private static final long DAY = 24 * 60 * MINUTE;
+    private static final List<String> INTERVALS = List.of("3m", "5m", "15m", "30m", "1h", "2h", "4h", "6h", "8h",
+            "12h", "1d");
+
+    private final CandleMapper candleMapper = new CandleMapper();
+    private final CandleService candleService = candleService();
+
+    /**
+     * Yesterday, which is closed for every interval up to a day.
+     */
+    private final long dayStart = Math.floorDiv(System.currentTimeMillis(), DAY) * DAY - DAY;
+
+    @BeforeEach
+    void exchangeReachable() {
+        // The client logs and swallows failures, so an unreachable exchange reads as no klines
+        assumeTrue(!candleService.fetchExchangeKlines(SYMBOL, "1m", dayStart, dayStart + MINUTE - 1, 1).isEmpty(),
+                "Binance REST API not reachable");
+    }
+
+    @Test
+    void rolledCandlesMatchTheExchangeExactly() {
+        List<KlineDto> minutes = fetch("1m", dayStart, dayStart + DAY - 1);
+        assertThat(minutes).hasSize(24 * 60);
+
+        for (String interval : INTERVALS) {
+            List<KlineDto> expected = fetch(interval, dayStart, dayStart + DAY - 1);
+            assertThat(expected).as(interval).hasSize((int) (DAY / candleMapper.getIntervalMillis(interval)));
+
+            List<KlineDto> rolled = rollUp(interval, dayStart, List.of(), minutes);
+
+            assertThat(rolled).as(interval).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void seedOfCoarserKlinesMatchesRollingUpEveryMinute() {
+        long cutoff = dayStart + 13 * 60 * MINUTE + 17 * MINUTE;
+        List<KlineDto> hours = fetch("1h", dayStart, dayStart + 13 * 60 * MINUTE - 1);
+        List<KlineDto> seedMinutes = fetch("1m", dayStart + 13 * 60 * MINUTE, cutoff - 1);
+        List<KlineDto> minutes = fetch("1m", cutoff, dayStart + DAY - 1);
+        List<KlineDto> expected = fetch("1d", dayStart, dayStart);
+        assertThat(hours).hasSize(13);
+        assertThat(seedMinutes).hasSize(17);
+        assertThat(minutes).hasSize(24 * 60 - 13 * 60 - 17);
+        assertThat(expected).hasSize(1);
+
+        List<KlineDto> seed = new ArrayList<>(hours);
+        seed.addAll(seedMinutes);
+        List<KlineDto> rolled = rollUp("1d", cutoff, seed, minutes);
+
+        assertThat(rolled).containsExactlyElementsOf(expected);
+    }
+
+    private List<KlineDto> rollUp(String interval, long cutoff, List<KlineDto> seed, List<KlineDto> minutes) {
+        List<KlineDto> closed = new ArrayList<>();
+        KlineRollupAggregator aggregator = new KlineRollupAggregator(SYMBOL, interval,
+                candleMapper.getIntervalMillis(interval), kline -> {
+                    if (kline.getIsClosed()) {
+                        closed.add(kline);
+                    }
+                });
+
+        for (KlineDto minute : minutes) {
+            aggregator.onMinute(minute);
+            if (aggregator.seedCutoff() != null) {
+                assertThat(aggregator.applySeed(cutoff, seed, List.of())).isFalse();
+            }
+        }
+        return closed;
+    }
+
+    private List<KlineDto> fetch(String interval, long startTime, long endTime) {
+        List<KlineDto> klines = new ArrayList<>();
+        long cursor = startTime;
+
+        while (cursor <= endTime) {
+            List<KlineDto> page = candleService.fetchExchangeKlines(SYMBOL, interval, cursor, endTime, 1000);
+            if (page.isEmpty()) {
+                break;
+            }
+            klines.addAll(page);
+            cursor = page.get(page.size() - 1).getCloseTime() + 1;
+        }
+        return klines;
+    }
+
+    private CandleService candleService() {
+        CandleService service = new CandleService(WebClient.builder(), new ObjectMapper(),
+                mock(KlineRepository.class), candleMapper,
+                new Bulkheads(new ExecutionConfig(), new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(service, "binanceApiUrl", "https://api.binance.com");
+        return service;
+    }
+}
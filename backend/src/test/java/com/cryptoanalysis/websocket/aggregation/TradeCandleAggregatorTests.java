@@ -0,0 +1,125 @@
+package com.cryptoanalysis.websocket.aggregation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+
+class TradeCandleAggregatorTests {
+
+    private static final long T0 = 1704967200000L;
+    private static final long FIVE_SECONDS = 5_000L;
+
+    private final List<KlineDto> emitted = new ArrayList<>();
+    private final TradeCandleAggregator aggregator = new TradeCandleAggregator("BTCUSDT", "5s", FIVE_SECONDS, 5,
+            T0 - 1, emitted::add);
+
+    private long nextAggTradeId = 1;
+
+    @Test
+    void buildsOhlcvTradeCountAndTakerVolume() {
+        aggregator.onTrade(trade(T0 + 100, "100.00", "1.00000", false, 3));
+        aggregator.onTrade(trade(T0 + 900, "102.00", "0.50000", true, 1));
+        aggregator.onTrade(trade(T0 + 4999, "99.00", "2.00000", false, 1));
+
+        KlineDto candle = emitted.get(emitted.size() - 1);
+        assertThat(candle.getOpenTime()).isEqualTo(T0);
+        assertThat(candle.getCloseTime()).isEqualTo(T0 + FIVE_SECONDS - 1);
+        assertThat(candle.getOpen()).isEqualTo(ScaledDecimal.parse("100"));
+        assertThat(candle.getHigh()).isEqualTo(ScaledDecimal.parse("102"));
+        assertThat(candle.getLow()).isEqualTo(ScaledDecimal.parse("99"));
+        assertThat(candle.getClose()).isEqualTo(ScaledDecimal.parse("99"));
+        assertThat(candle.getVolume()).isEqualTo(ScaledDecimal.parse("3.5"));
+        assertThat(candle.getQuoteVolume()).isEqualTo(ScaledDecimal.parse("349"));
+        assertThat(candle.getTakerBuyVolume()).isEqualTo(ScaledDecimal.parse("3"));
+        assertThat(candle.getTakerBuyQuoteVolume()).isEqualTo(ScaledDecimal.parse("298"));
+        assertThat(candle.getTradesCount()).isEqualTo(5);
+        assertThat(candle.getIsClosed()).isFalse();
+        assertThat(candle.getPartial()).isFalse();
+    }
+
+    @Test
+    void tradeOnTheBoundaryOpensTheNextCandleAndEmptyIntervalsCloseFlat() {
+        aggregator.onTrade(trade(T0 + 100, "100.00", "1.00000", false, 1));
+        aggregator.onTrade(trade(T0 + 3 * FIVE_SECONDS, "101.00", "1.00000", false, 1));
+
+        List<KlineDto> closed = emitted.stream().filter(KlineDto::getIsClosed).toList();
+        assertThat(closed).extracting(KlineDto::getOpenTime)
+                .containsExactly(T0, T0 + FIVE_SECONDS, T0 + 2 * FIVE_SECONDS);
+        assertThat(closed.get(1).getClose()).isEqualTo(ScaledDecimal.parse("100"));
+        assertThat(closed.get(1).getVolume().isZero()).isTrue();
+
+        KlineDto live = emitted.get(emitted.size() - 1);
+        assertThat(live.getOpenTime()).isEqualTo(T0 + 3 * FIVE_SECONDS);
+        assertThat(live.getOpen()).isEqualTo(ScaledDecimal.parse("101"));
+        assertThat(live.getIsClosed()).isFalse();
+    }
+
+    @Test
+    void quietMarketClosesOnTheClockAfterAllowedLateness() {
+        aggregator.onTrade(trade(T0 + 100, "100.00", "1.00000", false, 1));
+
+        aggregator.onTime(T0 + FIVE_SECONDS + 400, 500);
+        assertThat(emitted).noneMatch(KlineDto::getIsClosed);
+
+        aggregator.onTime(T0 + FIVE_SECONDS + 500, 500);
+        assertThat(emitted).filteredOn(KlineDto::getIsClosed).extracting(KlineDto::getOpenTime).containsExactly(T0);
+        assertThat(emitted.get(emitted.size() - 1).getOpenTime()).isEqualTo(T0 + FIVE_SECONDS);
+    }
+
+    @Test
+    void lateTradeAmendsTheLastClosedCandleAndOlderOnesAreDropped() {
+        aggregator.onTrade(trade(T0 + 100, "100.00", "1.00000", false, 1));
+        aggregator.onTrade(trade(T0 + FIVE_SECONDS + 100, "101.00", "1.00000", false, 1));
+        emitted.clear();
+
+        aggregator.onTrade(trade(T0 + 4900, "105.00", "1.00000", false, 1));
+
+        assertThat(emitted).hasSize(1);
+        assertThat(emitted.get(0).getOpenTime()).isEqualTo(T0);
+        assertThat(emitted.get(0).getIsClosed()).isTrue();
+        assertThat(emitted.get(0).getHigh()).isEqualTo(ScaledDecimal.parse("105"));
+        assertThat(emitted.get(0).getTradesCount()).isEqualTo(2);
+
+        aggregator.onTrade(trade(T0 - 100, "90.00", "1.00000", false, 1));
+        assertThat(emitted).hasSize(1);
+        assertThat(aggregator.stats().lateTrades()).isEqualTo(1);
+        assertThat(aggregator.stats().amendments()).isEqualTo(1);
+    }
+
+    @Test
+    void ignoresReplayedTradesAndMarksTheFirstCandlePartialWhenStartedMidInterval() {
+        TradeCandleAggregator late = new TradeCandleAggregator("BTCUSDT", "5s", FIVE_SECONDS, 5, T0 + 2000,
+                emitted::add);
+
+        TradeDto trade = trade(T0 + 2500, "100.00", "1.00000", false, 1);
+        late.onTrade(trade);
+        late.onTrade(trade);
+        late.onTrade(trade(T0 + FIVE_SECONDS, "100.00", "1.00000", false, 1));
+
+        assertThat(late.stats().duplicates()).isEqualTo(1);
+        assertThat(emitted.get(0).getPartial()).isTrue();
+        assertThat(emitted.get(emitted.size() - 1).getPartial()).isFalse();
+    }
+
+    private TradeDto trade(long time, String price, String quantity, boolean buyerMaker, int fills) {
+        long firstTradeId = nextAggTradeId * 10;
+        return TradeDto.builder()
+                .symbol("BTCUSDT")
+                .aggTradeId(nextAggTradeId++)
+                .price(ScaledDecimal.parse(price))
+                .quantity(ScaledDecimal.parse(quantity))
+                .firstTradeId(firstTradeId)
+                .lastTradeId(firstTradeId + fills - 1)
+                .tradeTime(time)
+                .eventTime(time + 5)
+                .buyerMaker(buyerMaker)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package com.cryptoanalysis.websocket.bus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.websocket.dto.MarketDataBusDto;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+
+class ConsumerProcessorTests {
+
+    private final List<Long> received = Collections.synchronizedList(new ArrayList<>());
+    private final List<ConsumerProcessor> processors = new ArrayList<>();
+
+    @AfterEach
+    void stopProcessors() {
+        processors.forEach(ConsumerProcessor::stop);
+    }
+
+    @Test
+    void deliversEveryEventInPublishOrder() throws Exception {
+        MarketDataRingBuffer ringBuffer = new MarketDataRingBuffer(1024);
+        ConsumerProcessor processor = start(ringBuffer, (event, sequence) -> received.add(sequence));
+
+        publish(ringBuffer, 100);
+
+        awaitCaughtUp(processor, ringBuffer);
+        assertThat(received).hasSize(100).isSorted().startsWith(0L).endsWith(99L);
+        assertThat(processor.toStats().getLost()).isZero();
+        assertThat(processor.toStats().getBacklog()).isZero();
+    }
+
+    @Test
+    void consumerAFullLapBehindSkipsToTheOldestEventStillBuffered() throws Exception {
+        MarketDataRingBuffer ringBuffer = new MarketDataRingBuffer(8);
+        ConsumerProcessor processor = new ConsumerProcessor(consumer((event, sequence) -> received.add(sequence)),
+                ringBuffer, "YIELDING");
+        processors.add(processor);
+
+        publish(ringBuffer, 20);
+        processor.start();
+
+        awaitCaughtUp(processor, ringBuffer);
+        assertThat(received).containsExactly(12L, 13L, 14L, 15L, 16L, 17L, 18L, 19L);
+        assertThat(processor.toStats().getLost()).isEqualTo(12);
+        assertThat(processor.toStats().getProcessed()).isEqualTo(8);
+    }
+
+    @Test
+    void slowConsumerCountsEverySkippedSequenceAsLost() throws Exception {
+        MarketDataRingBuffer ringBuffer = new MarketDataRingBuffer(8);
+        CountDownLatch inFirstEvent = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ConsumerProcessor processor = start(ringBuffer, (event, sequence) -> {
+            received.add(sequence);
+            if (sequence == 0) {
+                inFirstEvent.countDown();
+                await(release);
+            }
+        });
+
+        publish(ringBuffer, 1);
+        assertThat(inFirstEvent.await(10, TimeUnit.SECONDS)).isTrue();
+        publish(ringBuffer, 29);
+        release.countDown();
+
+        awaitCaughtUp(processor, ringBuffer);
+        MarketDataBusDto.ConsumerStats stats = processor.toStats();
+        assertThat(received).isSorted().doesNotHaveDuplicates().startsWith(0L).endsWith(29L);
+        assertThat(stats.getProcessed()).isEqualTo(received.size());
+        assertThat(stats.getProcessed() + stats.getLost()).isEqualTo(30);
+    }
+
+    @Test
+    void keepsFollowingWhilePublishersLapEachOther() throws Exception {
+        MarketDataRingBuffer ringBuffer = new MarketDataRingBuffer(4);
+        ConsumerProcessor processor = start(ringBuffer, (event, sequence) -> received.add(sequence));
+
+        MarketDataRingBufferTests.runProducers(ringBuffer, 8, 5_000);
+
+        // A slot set back to an older lap would leave the consumer waiting on it for good
+        awaitCaughtUp(processor, ringBuffer);
+        MarketDataBusDto.ConsumerStats stats = processor.toStats();
+        assertThat(received).isSorted().doesNotHaveDuplicates();
+        assertThat(stats.getProcessed() + stats.getLost()).isEqualTo(40_000);
+    }
+
+    private ConsumerProcessor start(MarketDataRingBuffer ringBuffer, Handler handler) {
+        ConsumerProcessor processor = new ConsumerProcessor(consumer(handler), ringBuffer, "YIELDING");
+        processors.add(processor);
+        processor.start();
+        return processor;
+    }
+
+    private static void publish(MarketDataRingBuffer ringBuffer, int count) {
+        for (int i = 0; i < count; i++) {
+            ringBuffer.publish(MarketDataEventType.TRADE, "btcusdt@aggTrade", System.nanoTime(), new TradeDto());
+        }
+    }
+
+    private static void awaitCaughtUp(ConsumerProcessor processor, MarketDataRingBuffer ringBuffer)
+            throws InterruptedException {
+        awaitTrue(() -> processor.toStats().getSequence() == ringBuffer.getCursor());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for the consumer").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static MarketDataConsumer consumer(Handler handler) {
+        return new MarketDataConsumer() {
+            @Override
+            public String getConsumerName() {
+                return "test";
+            }
+
+            @Override
+            public void onEvent(MarketDataEvent event, long sequence) {
+                handler.onEvent(event, sequence);
+            }
+        };
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void onEvent(MarketDataEvent event, long sequence);
+    }
+}
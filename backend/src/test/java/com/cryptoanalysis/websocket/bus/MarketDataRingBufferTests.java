@@ -0,0 +1,137 @@
+package com.cryptoanalysis.websocket.bus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.websocket.bus.MarketDataRingBuffer.ReadResult;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+
+class MarketDataRingBufferTests {
+
+    private final MarketDataEvent event = new MarketDataEvent();
+
+    @Test
+    void publishedEventsAreReadBackBySequence() {
+        MarketDataRingBuffer ringBuffer = new MarketDataRingBuffer(4);
+        TradeDto trade = TradeDto.builder().symbol("BTCUSDT").aggTradeId(7L).build();
+
+        assertThat(ringBuffer.getCursor()).isEqualTo(-1);
+        assertThat(ringBuffer.read(0, event)).isEqualTo(ReadResult.NOT_PUBLISHED);
+
+        assertThat(ringBuffer.publish(MarketDataEventType.TRADE, "btcusdt@aggTrade", 1, trade)).isZero();
+
+        assertThat(ringBuffer.getCursor()).isZero();
+        assertThat(ringBuffer.read(0, event)).isEqualTo(ReadResult.READ);
+        assertThat(event.getType()).isEqualTo(MarketDataEventType.TRADE);
+        assertThat(event.getStream()).isEqualTo("btcusdt@aggTrade");
+        assertThat(event.getTrade()).isSameAs(trade);
+        assertThat(event.getKline()).isNull();
+        assertThat(ringBuffer.read(1, event)).isEqualTo(ReadResult.NOT_PUBLISHED);
+    }
+
+    @Test
+    void aLappedSequenceReadsAsOverwritten() {
+        MarketDataRingBuffer ringBuffer = new MarketDataRingBuffer(4);
+        publish(ringBuffer, 6);
+
+        assertThat(ringBuffer.read(0, event)).isEqualTo(ReadResult.OVERWRITTEN);
+        assertThat(ringBuffer.read(1, event)).isEqualTo(ReadResult.OVERWRITTEN);
+        assertThat(ringBuffer.read(2, event)).isEqualTo(ReadResult.READ);
+        assertThat(event.getStream()).isEqualTo("s2");
+        assertThat(ringBuffer.read(5, event)).isEqualTo(ReadResult.READ);
+        assertThat(event.getStream()).isEqualTo("s5");
+        assertThat(ringBuffer.read(6, event)).isEqualTo(ReadResult.NOT_PUBLISHED);
+    }
+
+    @Test
+    void publisherFinishingALapLateNeverSetsTheSlotBack() {
+        MarketDataRingBuffer ringBuffer = new MarketDataRingBuffer(4);
+        publish(ringBuffer, 4);
+
+        // Sequences 4 and 8 share a slot; the publisher of 4 was descheduled until 8 was written
+        ringBuffer.write(8, MarketDataEventType.TRADE, "s8", 8, new TradeDto());
+        ringBuffer.write(4, MarketDataEventType.TRADE, "s4", 4, new TradeDto());
+
+        assertThat(ringBuffer.read(8, event)).isEqualTo(ReadResult.READ);
+        assertThat(event.getStream()).isEqualTo("s8");
+        assertThat(ringBuffer.read(4, event)).isEqualTo(ReadResult.OVERWRITTEN);
+    }
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThatThrownBy(() -> new MarketDataRingBuffer(6)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MarketDataRingBuffer(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentPublishersClaimEverySequenceOnceInTheirOwnOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 10_000;
+        MarketDataRingBuffer ringBuffer = new MarketDataRingBuffer(1 << 16);
+
+        runProducers(ringBuffer, producers, perProducer);
+
+        assertThat(ringBuffer.getCursor()).isEqualTo(producers * perProducer - 1);
+        Map<String, List<Integer>> byProducer = new HashMap<>();
+        for (long sequence = 0; sequence <= ringBuffer.getCursor(); sequence++) {
+            assertThat(ringBuffer.read(sequence, event)).isEqualTo(ReadResult.READ);
+            String[] parts = event.getStream().split("-");
+            byProducer.computeIfAbsent(parts[0], p -> new ArrayList<>()).add(Integer.parseInt(parts[1]));
+        }
+
+        assertThat(byProducer).hasSize(producers);
+        byProducer.values().forEach(published -> assertThat(published).hasSize(perProducer).isSorted());
+    }
+
+    @Test
+    void publishersLappingEachOtherLeaveEverySlotOnItsLatestLap() throws Exception {
+        MarketDataRingBuffer ringBuffer = new MarketDataRingBuffer(4);
+
+        runProducers(ringBuffer, 8, 5_000);
+
+        // An older lap finishing last would leave its slot reading as not yet published
+        for (long sequence = ringBuffer.getCursor() - 3; sequence <= ringBuffer.getCursor(); sequence++) {
+            assertThat(ringBuffer.read(sequence, event)).isEqualTo(ReadResult.READ);
+        }
+        assertThat(ringBuffer.read(ringBuffer.getCursor() - 4, event)).isEqualTo(ReadResult.OVERWRITTEN);
+    }
+
+    private static void publish(MarketDataRingBuffer ringBuffer, int count) {
+        for (int i = 0; i < count; i++) {
+            ringBuffer.publish(MarketDataEventType.TRADE, "s" + i, i, new TradeDto());
+        }
+    }
+
+    static void runProducers(MarketDataRingBuffer ringBuffer, int producers, int perProducer)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String name = "p" + p;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    ringBuffer.publish(MarketDataEventType.TRADE, name + "-" + i, System.nanoTime(), new TradeDto());
+                }
+            }));
+        }
+
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.cryptoanalysis.websocket.bus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.websocket.dto.DispatchLaneDto;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+
+class StreamDispatcherTests {
+
+    private static final String BTC = "btcusdt@aggTrade";
+    private static final String ETH = "ethusdt@aggTrade";
+
+    private final List<String> received = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+    /**
+     * Reused for every event, as a processor reuses its slot.
+     */
+    private final MarketDataEvent slot = new MarketDataEvent();
+    private StreamDispatcher dispatcher;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    void blockedStreamHoldsUpOnlyItsOwnLane() throws Exception {
+        CountDownLatch inBtc = new CountDownLatch(1);
+        dispatcher = dispatcher((event, sequence) -> {
+            if (event.getStream().equals(BTC) && sequence == 0) {
+                inBtc.countDown();
+                await(release);
+            }
+            received.add(event.getStream() + ":" + sequence);
+        });
+
+        dispatch(BTC, 0);
+        assertThat(inBtc.await(10, TimeUnit.SECONDS)).isTrue();
+        dispatch(BTC, 1);
+        dispatch(ETH, 2);
+        dispatch(ETH, 3);
+
+        awaitTrue(() -> received.size() == 2);
+        assertThat(received).containsExactly(ETH + ":2", ETH + ":3");
+        DispatchLaneDto btc = lane(BTC);
+        assertThat(btc.getConsumer()).isEqualTo("test");
+        assertThat(btc.getQueueDepth()).isEqualTo(1);
+        assertThat(btc.getCurrentLagMs()).isPositive();
+
+        release.countDown();
+        awaitTrue(() -> lane(BTC).getProcessed() == 2 && lane(ETH).getProcessed() == 2);
+        assertThat(received).containsSubsequence(BTC + ":0", BTC + ":1");
+        assertThat(lane(BTC).getQueueDepth()).isZero();
+    }
+
+    @Test
+    void eventsOfAStreamArriveInPublishOrder() throws Exception {
+        List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+        dispatcher = dispatcher((event, sequence) -> sequences.add(sequence));
+
+        for (int i = 0; i < 1000; i++) {
+            dispatch(BTC, i);
+        }
+
+        awaitTrue(() -> sequences.size() == 1000);
+        assertThat(sequences).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void failingEventIsCountedAndTheLaneCarriesOn() throws Exception {
+        dispatcher = dispatcher((event, sequence) -> {
+            if (sequence == 0) {
+                throw new IllegalStateException("boom");
+            }
+            received.add(event.getStream() + ":" + sequence);
+        });
+
+        dispatch(BTC, 0);
+        dispatch(BTC, 1);
+
+        awaitTrue(() -> lane(BTC).getProcessed() == 1);
+        assertThat(lane(BTC).getFailed()).isEqualTo(1);
+        assertThat(received).containsExactly(BTC + ":1");
+    }
+
+    private StreamDispatcher dispatcher(Handler handler) {
+        MarketDataConsumer consumer = new MarketDataConsumer() {
+            @Override
+            public String getConsumerName() {
+                return "test";
+            }
+
+            @Override
+            public void onEvent(MarketDataEvent event, long sequence) {
+                handler.onEvent(event, sequence);
+            }
+        };
+        return new StreamDispatcher(consumer, Executors.newVirtualThreadPerTaskExecutor(), 1000);
+    }
+
+    private void dispatch(String stream, long sequence) {
+        slot.set(MarketDataEventType.TRADE, stream, System.nanoTime(), new TradeDto());
+        dispatcher.dispatch(slot, sequence);
+    }
+
+    private DispatchLaneDto lane(String stream) {
+        return dispatcher.getLaneStats().stream()
+                .filter(lane -> lane.getStream().equals(stream))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("timed out waiting for the lanes").isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Handler {
+        void onEvent(MarketDataEvent event, long sequence);
+    }
+}
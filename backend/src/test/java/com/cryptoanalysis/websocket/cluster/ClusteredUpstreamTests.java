@@ -0,0 +1,227 @@
+package com.cryptoanalysis.websocket.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.config.RelayClusterConfig;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.TickerDto;
+import com.cryptoanalysis.websocket.enums.MarketDataEventType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class ClusteredUpstreamTests {
+
+    private static final String KLINE = "btcusdt@kline_1m";
+    private static final String TICKERS = "!miniTicker@arr";
+    private static final int TTL = 10_000;
+
+    private final InMemoryClusterStore store = new InMemoryClusterStore();
+    private final Node a = new Node("a");
+    private final Node b = new Node("b");
+
+    @AfterEach
+    void shutdown() {
+        a.cluster.shutdown();
+        b.cluster.shutdown();
+    }
+
+    @Test
+    void firstInterestedNodeOpensTheStreamAndTheOthersReceiveItsEvents() throws Exception {
+        a.want(KLINE);
+        b.want(KLINE);
+
+        assertThat(a.actions).containsExactly("open " + KLINE);
+        assertThat(b.actions).isEmpty();
+
+        KlineDto kline = KlineDto.builder()
+                .symbol("BTCUSDT")
+                .interval("1m")
+                .openTime(1704967200000L)
+                .close(ScaledDecimal.parse("42000.10"))
+                .isClosed(false)
+                .build();
+        a.cluster.forward(KLINE, MarketDataEventType.KLINE, kline);
+        // Only the owner forwards
+        b.cluster.forward(KLINE, MarketDataEventType.KLINE, kline);
+
+        assertThat(a.delivered).isEmpty();
+        assertThat(b.delivered).containsExactly(kline);
+        assertThat(b.cluster.getStats().getEventsReceived()).isEqualTo(1);
+    }
+
+    @Test
+    void eventListsSurviveTheRoundTrip() throws Exception {
+        a.want(TICKERS);
+        b.want(TICKERS);
+
+        List<TickerDto> tickers = List.of(
+                TickerDto.builder().symbol("BTCUSDT").price(ScaledDecimal.parse("42000.1")).build(),
+                TickerDto.builder().symbol("ETHUSDT").price(ScaledDecimal.parse("2500.55")).build());
+        a.cluster.forward(TICKERS, MarketDataEventType.MINI_TICKER, tickers);
+
+        assertThat(b.delivered).containsExactly(tickers);
+    }
+
+    @Test
+    void ownerKeepsTheStreamWhileAnotherNodeNeedsIt() throws Exception {
+        a.want(KLINE);
+        b.want(KLINE);
+
+        a.unwant(KLINE);
+        a.cluster.heartbeat();
+        assertThat(a.actions).containsExactly("open " + KLINE);
+
+        b.unwant(KLINE);
+        a.cluster.heartbeat();
+        assertThat(a.actions).containsExactly("open " + KLINE, "close " + KLINE);
+        assertThat(store.owner("market-data:lease:" + KLINE)).isNull();
+    }
+
+    @Test
+    void ownershipFailsOverOnceTheOwnersLeaseLapses() throws Exception {
+        a.want(KLINE);
+        b.want(KLINE);
+
+        // b keeps its heartbeat; a has died and stops renewing
+        store.advance(TTL / 2);
+        b.cluster.heartbeat();
+        assertThat(b.actions).isEmpty();
+
+        store.advance(TTL / 2);
+        b.cluster.heartbeat();
+        assertThat(b.actions).containsExactly("open " + KLINE);
+        assertThat(b.cluster.getStats().getTakeovers()).isEqualTo(1);
+        assertThat(store.owner("market-data:lease:" + KLINE)).isEqualTo("b");
+
+        // a was only paused; it finds its lease gone and closes its copy
+        a.cluster.heartbeat();
+        assertThat(a.actions).containsExactly("open " + KLINE, "close " + KLINE);
+        assertThat(a.cluster.getStats().getLeasesLost()).isEqualTo(1);
+    }
+
+    @Test
+    void wantReturnsWithoutWaitingForTheStore() throws Exception {
+        CountDownLatch storeReachable = new CountDownLatch(1);
+        Node c = new Node("c", unreachableUntil(storeReachable));
+
+        try {
+            assertThat(c.cluster.want(KLINE)).isTrue();
+            assertThat(c.cluster.want(KLINE)).isFalse();
+            assertThat(c.actions).isEmpty();
+
+            storeReachable.countDown();
+            c.cluster.awaitQueued();
+            assertThat(c.actions).containsExactly("open " + KLINE);
+        } finally {
+            storeReachable.countDown();
+            c.cluster.shutdown();
+        }
+    }
+
+    @Test
+    void streamUnwantedBeforeItsStoreWorkRanIsNeverOpened() throws Exception {
+        CountDownLatch storeReachable = new CountDownLatch(1);
+        Node c = new Node("c", unreachableUntil(storeReachable));
+
+        try {
+            // Holds up the store work queued behind it
+            c.cluster.want(TICKERS);
+            c.cluster.want(KLINE);
+            c.cluster.unwant(KLINE);
+
+            storeReachable.countDown();
+            c.cluster.awaitQueued();
+            assertThat(c.actions).containsExactly("open " + TICKERS);
+        } finally {
+            storeReachable.countDown();
+            c.cluster.shutdown();
+        }
+    }
+
+    @Test
+    void shutdownHandsTheLeaseOverWithoutWaitingForTheTtl() throws Exception {
+        a.want(KLINE);
+        b.want(KLINE);
+
+        a.cluster.shutdown();
+        b.cluster.heartbeat();
+
+        assertThat(b.actions).containsExactly("open " + KLINE);
+    }
+
+    /**
+     * A store whose interest writes hang until {@code reachable} opens.
+     */
+    private static ClusterStore unreachableUntil(CountDownLatch reachable) {
+        return new InMemoryClusterStore() {
+            @Override
+            public void touchInterest(String key, String member, long ttlMillis) {
+                try {
+                    reachable.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.touchInterest(key, member, ttlMillis);
+            }
+        };
+    }
+
+    private RelayClusterConfig config(String nodeId) {
+        RelayClusterConfig config = new RelayClusterConfig();
+        config.setEnabled(true);
+        config.setNodeId(nodeId);
+        config.setLeaseTtl(TTL);
+        // Heartbeats are driven by the tests
+        config.setHeartbeatInterval(Integer.MAX_VALUE);
+        return config;
+    }
+
+    private final class Node implements ClusteredUpstream.LocalUpstream {
+        private final List<String> actions = new ArrayList<>();
+        private final List<Object> delivered = new ArrayList<>();
+        private final ClusteredUpstream cluster;
+
+        private Node(String nodeId) {
+            this(nodeId, store);
+        }
+
+        private Node(String nodeId, ClusterStore nodeStore) {
+            cluster = new ClusteredUpstream(config(nodeId), nodeStore, new ObjectMapper());
+            cluster.attach(this);
+            cluster.init();
+        }
+
+        private void want(String stream) throws Exception {
+            cluster.want(stream);
+            cluster.awaitQueued();
+        }
+
+        private void unwant(String stream) throws Exception {
+            cluster.unwant(stream);
+            cluster.awaitQueued();
+        }
+
+        @Override
+        public void open(String stream) {
+            actions.add("open " + stream);
+        }
+
+        @Override
+        public void close(String stream) {
+            actions.add("close " + stream);
+        }
+
+        @Override
+        public void deliver(String stream, MarketDataEventType type, Object event) {
+            delivered.add(event);
+        }
+    }
+}
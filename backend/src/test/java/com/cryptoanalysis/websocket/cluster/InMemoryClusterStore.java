@@ -0,0 +1,88 @@
+package com.cryptoanalysis.websocket.cluster;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Local stand-in for Redis with the same lease, interest and pub/sub
+ * semantics, on a clock the test moves by hand. Published messages are
+ * delivered synchronously to every subscriber.
+ */
+class InMemoryClusterStore implements ClusterStore {
+
+    private long now;
+    private final Map<String, Entry> leases = new HashMap<>();
+    private final Map<String, Map<String, Long>> interest = new HashMap<>();
+    private final Map<String, List<Consumer<String>>> subscribers = new HashMap<>();
+
+    void advance(long millis) {
+        now += millis;
+    }
+
+    String owner(String key) {
+        Entry lease = leases.get(key);
+        return lease == null || lease.expiresAt <= now ? null : lease.owner;
+    }
+
+    @Override
+    public synchronized boolean tryAcquire(String key, String owner, long ttlMillis) {
+        if (owner(key) != null) {
+            return false;
+        }
+        leases.put(key, new Entry(owner, now + ttlMillis));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean renew(String key, String owner, long ttlMillis) {
+        if (!owner.equals(owner(key))) {
+            return false;
+        }
+        leases.put(key, new Entry(owner, now + ttlMillis));
+        return true;
+    }
+
+    @Override
+    public synchronized void release(String key, String owner) {
+        if (owner.equals(owner(key))) {
+            leases.remove(key);
+        }
+    }
+
+    @Override
+    public synchronized void touchInterest(String key, String member, long ttlMillis) {
+        interest.computeIfAbsent(key, k -> new HashMap<>()).put(member, now + ttlMillis);
+    }
+
+    @Override
+    public synchronized void dropInterest(String key, String member) {
+        interest.getOrDefault(key, Map.of()).remove(member);
+    }
+
+    @Override
+    public synchronized int countInterest(String key) {
+        return (int) interest.getOrDefault(key, Map.of()).values().stream()
+                .filter(expiresAt -> expiresAt > now)
+                .count();
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        List<Consumer<String>> listeners;
+        synchronized (this) {
+            listeners = new ArrayList<>(subscribers.getOrDefault(channel, List.of()));
+        }
+        listeners.forEach(listener -> listener.accept(message));
+    }
+
+    @Override
+    public synchronized void subscribe(String channel, Consumer<String> listener) {
+        subscribers.computeIfAbsent(channel, c -> new ArrayList<>()).add(listener);
+    }
+
+    private record Entry(String owner, long expiresAt) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.cryptoanalysis.websocket.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import com.cryptoanalysis.candle.repository.SymbolRepository;
+import com.cryptoanalysis.websocket.service.SymbolPrecisionService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bytes allocated per kline frame: the previous readTree path versus the
+ * streaming decoder. Takes a few seconds of warmup, so it only runs with
+ * {@code -Dbenchmarks=true}.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class BinanceFrameDecoderBenchmarkTests {
+
+    private static final String KLINE_FRAME = """
+            {"stream":"btcusdt@kline_1m","data":{"e":"kline","E":1704967230000,"s":"BTCUSDT","k":{\
+            "t":1704967200000,"T":1704967259999,"s":"BTCUSDT","i":"1m","f":100,"L":200,\
+            "o":"43250.50000000","c":"43280.75000000","h":"43300.00000000","l":"43200.00000000",\
+            "v":"150.50000000","n":100,"x":false,"q":"6513250.12500000","V":"75.2","Q":"3254100.1","B":"0"}}}""";
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 50_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinanceFrameDecoder decoder = new BinanceFrameDecoder(objectMapper.getFactory(),
+            new SymbolPrecisionService(mock(SymbolRepository.class)));
+
+    @Test
+    void streamingDecoderAllocatesLessThanTreeParsing() throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            decodeWithTree(KLINE_FRAME);
+            decoder.decode(KLINE_FRAME);
+        }
+
+        long treeBytes = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decodeWithTree(KLINE_FRAME);
+        }
+        treeBytes = (allocatedBytes() - treeBytes) / ITERATIONS;
+
+        long streamingBytes = allocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decoder.decode(KLINE_FRAME);
+        }
+        streamingBytes = (allocatedBytes() - streamingBytes) / ITERATIONS;
+
+        assertThat(streamingBytes).as("streaming B/msg against readTree %d B/msg", treeBytes)
+                .isLessThan(treeBytes);
+    }
+
+    /**
+     * The decode path used before the streaming decoder (readTree + BigDecimal),
+     * kept as the benchmark baseline.
+     */
+    private Object[] decodeWithTree(String payload) throws Exception {
+        JsonNode k = objectMapper.readTree(payload).path("data").path("k");
+
+        return new Object[] {
+                k.path("s").asText(),
+                k.path("i").asText(),
+                k.path("t").asLong(),
+                k.path("T").asLong(),
+                new BigDecimal(k.path("o").asText()),
+                new BigDecimal(k.path("h").asText()),
+                new BigDecimal(k.path("l").asText()),
+                new BigDecimal(k.path("c").asText()),
+                new BigDecimal(k.path("v").asText()),
+                new BigDecimal(k.path("q").asText()),
+                k.path("n").asInt(),
+                k.path("x").asBoolean()
+        };
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getCurrentThreadAllocatedBytes();
+    }
+}
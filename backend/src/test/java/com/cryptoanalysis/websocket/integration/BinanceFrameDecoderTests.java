@@ -0,0 +1,129 @@
+package com.cryptoanalysis.websocket.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.candle.repository.SymbolRepository;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.DepthUpdateDto;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+import com.cryptoanalysis.websocket.dto.TickerDto;
+import com.cryptoanalysis.websocket.dto.TradeDto;
+import com.cryptoanalysis.websocket.service.SymbolPrecisionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class BinanceFrameDecoderTests {
+
+    private static final String KLINE_FRAME = """
+            {"stream":"btcusdt@kline_1m","data":{"e":"kline","E":1704967230000,"s":"BTCUSDT","k":{\
+            "t":1704967200000,"T":1704967259999,"s":"BTCUSDT","i":"1m","f":100,"L":200,\
+            "o":"43250.50000000","c":"43280.75000000","h":"43300.00000000","l":"43200.00000000",\
+            "v":"150.50000000","n":100,"x":false,"q":"6513250.12500000","V":"75.2","Q":"3254100.1","B":"0"}}}""";
+
+    private static final String TICKER_FRAME = """
+            {"stream":"ethusdt@ticker","data":{"e":"24hrTicker","E":1704967200000,"s":"ETHUSDT",\
+            "p":"50.25000000","P":"2.230","w":"2290.1","x":"2250.25","c":"2300.50000000","Q":"0.5",\
+            "b":"2300.49","B":"1.2","a":"2300.51","A":"3.4","o":"2250.25000000","h":"2350.00000000",\
+            "l":"2250.00000000","v":"50000.50000000","q":"115000000.00000000","O":0,"C":1,"F":0,"L":1,"n":2}}""";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BinanceFrameDecoder decoder = new BinanceFrameDecoder(objectMapper.getFactory(),
+            new SymbolPrecisionService(mock(SymbolRepository.class)));
+
+    @Test
+    void decodesKlineFrame() throws Exception {
+        BinanceFrameDecoder.Frame frame = decoder.decode(KLINE_FRAME);
+
+        assertThat(frame.getStream()).isEqualTo("btcusdt@kline_1m");
+        KlineDto kline = (KlineDto) frame.getEvent();
+        assertThat(kline.getSymbol()).isEqualTo("BTCUSDT");
+        assertThat(kline.getInterval()).isEqualTo("1m");
+        assertThat(kline.getOpenTime()).isEqualTo(1704967200000L);
+        assertThat(kline.getClose()).isEqualTo(ScaledDecimal.parse("43280.75"));
+        assertThat(kline.getClose().scale()).isEqualTo(SymbolPrecisionService.DEFAULT_SCALE);
+        assertThat(kline.getQuoteVolume()).isEqualTo(ScaledDecimal.parse("6513250.125"));
+        assertThat(kline.getTradesCount()).isEqualTo(100);
+        assertThat(kline.getIsClosed()).isFalse();
+    }
+
+    @Test
+    void decodesTickerAndMiniTickerFrames() throws Exception {
+        TickerDto ticker = (TickerDto) decoder.decode(TICKER_FRAME).getEvent();
+        assertThat(ticker.getPrice()).isEqualTo(ScaledDecimal.parse("2300.5"));
+        assertThat(ticker.getPriceChangePercent()).isEqualTo(ScaledDecimal.parse("2.23"));
+        assertThat(ticker.getTimestamp()).isEqualTo(1704967200000L);
+
+        String miniFrame = """
+                {"stream":"!miniTicker@arr","data":[\
+                {"e":"24hrMiniTicker","E":1,"s":"BTCUSDT","c":"1.5","o":"1","h":"2","l":"1","v":"10","q":"15"},\
+                {"e":"24hrMiniTicker","E":1,"s":"ETHUSDT","c":"2.5","o":"2","h":"3","l":"2","v":"20","q":"50"}]}""";
+
+        @SuppressWarnings("unchecked")
+        List<TickerDto> tickers = (List<TickerDto>) decoder.decode(miniFrame).getEvent();
+        assertThat(tickers).extracting(TickerDto::getSymbol).containsExactly("BTCUSDT", "ETHUSDT");
+    }
+
+    @Test
+    void decodesDepthUpdateFrame() throws Exception {
+        String depthFrame = """
+                {"stream":"btcusdt@depth@100ms","data":{"e":"depthUpdate","E":1704967200100,"s":"BTCUSDT",\
+                "U":157,"u":160,"b":[["43250.50000000","1.25000000"],["43250.00000000","0.00000000"]],\
+                "a":[["43251.00000000","2.00000000"]]}}""";
+
+        DepthUpdateDto depth = (DepthUpdateDto) decoder.decode(depthFrame).getEvent();
+
+        assertThat(depth.getSymbol()).isEqualTo("BTCUSDT");
+        assertThat(depth.getFirstUpdateId()).isEqualTo(157);
+        assertThat(depth.getFinalUpdateId()).isEqualTo(160);
+        assertThat(depth.getPriceScale()).isEqualTo(SymbolPrecisionService.DEFAULT_SCALE);
+        assertThat(depth.getBids()).containsExactly(4325050000000L, 125000000L, 4325000000000L, 0L);
+        assertThat(depth.getAsks()).containsExactly(4325100000000L, 200000000L);
+    }
+
+    @Test
+    void decodesAggTradeFrame() throws Exception {
+        String tradeFrame = """
+                {"stream":"btcusdt@aggTrade","data":{"e":"aggTrade","E":1704967200105,"s":"BTCUSDT","a":26129,\
+                "p":"43250.50000000","q":"0.12500000","f":100,"l":105,"T":1704967200100,"m":true,"M":true}}""";
+
+        TradeDto trade = (TradeDto) decoder.decode(tradeFrame).getEvent();
+
+        assertThat(trade.getAggTradeId()).isEqualTo(26129);
+        assertThat(trade.getPrice()).isEqualTo(ScaledDecimal.parse("43250.5"));
+        assertThat(trade.getQuantity()).isEqualTo(ScaledDecimal.parse("0.125"));
+        assertThat(trade.getFirstTradeId()).isEqualTo(100);
+        assertThat(trade.getLastTradeId()).isEqualTo(105);
+        assertThat(trade.getTradeTime()).isEqualTo(1704967200100L);
+        assertThat(trade.getBuyerMaker()).isTrue();
+    }
+
+    @Test
+    void readsTradePriceAndQuantityAtTheirOwnScales() throws Exception {
+        SymbolPrecisionService precision = mock(SymbolPrecisionService.class);
+        when(precision.getPriceScale("DOGEUSDT")).thenReturn(5);
+        when(precision.getQuantityScale("DOGEUSDT")).thenReturn(0);
+        BinanceFrameDecoder dogeDecoder = new BinanceFrameDecoder(objectMapper.getFactory(), precision);
+        String tradeFrame = """
+                {"stream":"dogeusdt@aggTrade","data":{"e":"aggTrade","E":1704967200105,"s":"DOGEUSDT","a":7,                "p":"0.08123000","q":"1500.50000000","f":1,"l":1,"T":1704967200100,"m":false,"M":true}}""";
+
+        TradeDto trade = (TradeDto) dogeDecoder.decode(tradeFrame).getEvent();
+
+        assertThat(trade.getPrice().scale()).isEqualTo(5);
+        assertThat(trade.getPrice()).isEqualTo(ScaledDecimal.parse("0.08123"));
+        // Parsed at the quantity scale, never rounded to it
+        assertThat(trade.getQuantity()).isEqualTo(ScaledDecimal.parse("1500.5"));
+        assertThat(trade.getEventTime()).isEqualTo(1704967200105L);
+    }
+
+    @Test
+    void decodesControlReplies() throws Exception {
+        assertThat(decoder.decode("{\"result\":null,\"id\":1}").isControlReply()).isTrue();
+        assertThat(decoder.decode("{\"error\":{\"code\":2,\"msg\":\"Invalid request\"},\"id\":2}").getError())
+                .isEqualTo("2: Invalid request");
+    }
+}
@@ -0,0 +1,59 @@
+package com.cryptoanalysis.websocket.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FrameJournalTests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysCapturedFramesInOrderAcrossSegments() throws Exception {
+        List<String> captured = new ArrayList<>();
+
+        try (FrameJournal journal = new FrameJournal(directory, 64 * 1024)) {
+            for (int i = 0; i < 5000; i++) {
+                String frame = "{\"stream\":\"btcusdt@ticker\",\"data\":{\"n\":" + i + ",\"note\":\"\u00e9\u20ac\"}}";
+                captured.add(frame);
+                journal.append(1, frame);
+            }
+            assertThat(journal.getFramesWritten()).isEqualTo(5000);
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.count()).isGreaterThan(1);
+        }
+
+        List<String> replayed = new ArrayList<>();
+        FrameReplayer replayer = new FrameReplayer(directory, 0, replayed::add);
+        replayer.run();
+
+        assertThat(replayed).isEqualTo(captured);
+        assertThat(replayer.isFinished()).isTrue();
+        assertThat(replayer.getFramesReplayed()).isEqualTo(5000);
+    }
+
+    @Test
+    void pacesReplayByCapturedSpacing() throws Exception {
+        try (FrameJournal journal = new FrameJournal(directory, 64 * 1024)) {
+            journal.append(1, "first");
+            Thread.sleep(200);
+            journal.append(1, "second");
+        }
+
+        FrameReplayer replayer = new FrameReplayer(directory, 2.0, frame -> {
+        });
+        replayer.run();
+
+        assertThat(replayer.getElapsedMillis()).isBetween(90L, 1000L);
+    }
+}
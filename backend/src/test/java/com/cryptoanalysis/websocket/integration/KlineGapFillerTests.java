@@ -0,0 +1,114 @@
+package com.cryptoanalysis.websocket.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.candle.service.CandleService;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.KlineDto;
+
+class KlineGapFillerTests {
+
+    private static final String STREAM = "btcusdt@kline_1m";
+    private static final long MINUTE = 60_000L;
+    private static final long T0 = 1704967200000L;
+
+    private final CandleService candleService = mock(CandleService.class);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final List<KlineDto> emitted = new ArrayList<>();
+    private final KlineGapFiller filler = new KlineGapFiller(candleService, new CandleMapper(), executor,
+            (stream, kline) -> emitted.add(kline));
+
+    @Test
+    void fillsMissingCandlesBeforeReleasingHeldLiveCandle() throws Exception {
+        when(candleService.fetchExchangeKlines(eq("BTCUSDT"), eq("1m"), anyLong(), anyLong(), anyInt()))
+                .thenReturn(List.of(candle(T0), candle(T0 + MINUTE), candle(T0 + 2 * MINUTE)));
+
+        filler.onKline(STREAM, live(T0, false));
+        // Two candles are skipped on the live stream
+        filler.onKline(STREAM, live(T0 + 3 * MINUTE, false));
+        awaitFills();
+
+        assertThat(emitted).extracting(KlineDto::getOpenTime)
+                .containsExactly(T0, T0, T0 + MINUTE, T0 + 2 * MINUTE, T0 + 3 * MINUTE);
+        assertThat(emitted.get(1).getIsClosed()).isTrue();
+        assertThat(emitted.get(2).getClose()).isEqualTo(ScaledDecimal.parse("100.5"));
+        assertThat(emitted.get(2).getQuoteVolume()).isEqualTo(ScaledDecimal.parse("100.5"));
+        assertThat(emitted.get(2).getTradesCount()).isEqualTo(7);
+        assertThat(emitted.get(2).getTakerBuyVolume()).isEqualTo(ScaledDecimal.parse("0.4"));
+        assertThat(emitted.get(2).getTakerBuyQuoteVolume()).isEqualTo(ScaledDecimal.parse("40.2"));
+        assertThat(filler.getCandlesFilled()).isEqualTo(3);
+    }
+
+    @Test
+    void doesNotReEmitCandleWhoseCloseWasAlreadySeen() throws Exception {
+        when(candleService.fetchExchangeKlines(eq("BTCUSDT"), eq("1m"), anyLong(), anyLong(), anyInt()))
+                .thenReturn(List.of(candle(T0), candle(T0 + MINUTE)));
+
+        filler.onKline(STREAM, live(T0, true));
+        filler.onKline(STREAM, live(T0 + 2 * MINUTE, false));
+        awaitFills();
+
+        assertThat(emitted).extracting(KlineDto::getOpenTime)
+                .containsExactly(T0, T0 + MINUTE, T0 + 2 * MINUTE);
+    }
+
+    @Test
+    void contiguousCandlesPassStraightThrough() {
+        filler.onKline(STREAM, live(T0, false));
+        filler.onKline(STREAM, live(T0, true));
+        filler.onKline(STREAM, live(T0 + MINUTE, false));
+
+        assertThat(emitted).hasSize(3);
+        assertThat(filler.getFillsStarted()).isZero();
+    }
+
+    private void awaitFills() throws InterruptedException {
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static KlineDto live(long openTime, boolean closed) {
+        return KlineDto.builder()
+                .symbol("BTCUSDT")
+                .interval("1m")
+                .openTime(openTime)
+                .closeTime(openTime + MINUTE - 1)
+                .close(ScaledDecimal.parse("100"))
+                .isClosed(closed)
+                .build();
+    }
+
+    private static KlineDto candle(long openTime) {
+        ScaledDecimal price = ScaledDecimal.parse("100.5");
+        return KlineDto.builder()
+                .symbol("BTCUSDT")
+                .interval("1m")
+                .openTime(openTime)
+                .closeTime(openTime + MINUTE - 1)
+                .open(price)
+                .high(price)
+                .low(price)
+                .close(price)
+                .volume(ScaledDecimal.parse("1"))
+                .quoteVolume(price)
+                .tradesCount(7)
+                .takerBuyVolume(ScaledDecimal.parse("0.4"))
+                .takerBuyQuoteVolume(ScaledDecimal.parse("40.2"))
+                .isClosed(true)
+                .build();
+    }
+}
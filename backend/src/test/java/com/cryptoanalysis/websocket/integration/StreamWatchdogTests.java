@@ -0,0 +1,42 @@
+package com.cryptoanalysis.websocket.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.websocket.config.BinanceWebSocketConfig;
+import com.cryptoanalysis.websocket.dto.StreamFreshnessDto;
+
+class StreamWatchdogTests {
+
+    private static final String KLINE = "btcusdt@kline_1m";
+    private static final String AGG_TRADE = "dogeusdt@aggTrade";
+    private static final String DEPTH = "dogeusdt@depth@100ms";
+
+    private final BinanceWebSocketConfig config = new BinanceWebSocketConfig();
+
+    @Test
+    void quietEventDrivenStreamsAreNeverFlaggedStale() throws Exception {
+        config.setStaleCadenceMultiple(0.001);
+        config.setMinStaleThreshold(1);
+        StreamWatchdog watchdog = new StreamWatchdog(config);
+        watchdog.register(KLINE);
+        watchdog.register(AGG_TRADE);
+        watchdog.register(DEPTH);
+
+        Thread.sleep(20);
+
+        assertThat(watchdog.collectStale()).containsExactly(KLINE);
+
+        List<StreamFreshnessDto> freshness = watchdog.getFreshness(stream -> 1);
+        StreamFreshnessDto aggTrade = freshness.stream()
+                .filter(dto -> dto.getStream().equals(AGG_TRADE))
+                .findFirst()
+                .orElseThrow();
+        assertThat(aggTrade.getStale()).isFalse();
+        assertThat(aggTrade.getStaleThresholdMs()).isNull();
+        assertThat(aggTrade.getLastMessageAgeMs()).isGreaterThanOrEqualTo(20);
+    }
+}
@@ -0,0 +1,149 @@
+package com.cryptoanalysis.websocket.listener;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.cryptoanalysis.config.ExecutionConfig;
+import com.cryptoanalysis.core.concurrent.Bulkheads;
+import com.cryptoanalysis.websocket.service.KlineHistory;
+import com.cryptoanalysis.websocket.service.LastValueCache;
+import com.cryptoanalysis.websocket.service.ReplayBuffer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SubscriptionStartInterceptorTests {
+
+    private static final String KLINE = "/topic/kline/btcusdt/1m";
+
+    private final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+    private final SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(clientInbound,
+            mock(MessageChannel.class), new ExecutorSubscribableChannel(), List.of("/topic"));
+    private final ReplayBuffer replay = mock(ReplayBuffer.class);
+    private final LastValueCache lastValues = mock(LastValueCache.class);
+    private final KlineHistory history = mock(KlineHistory.class);
+    private final CountDownLatch historyLoaded = new CountDownLatch(1);
+
+    @BeforeEach
+    void startBroker() {
+        new SubscriptionStartInterceptor(clientInbound, replay, lastValues, history,
+                new Bulkheads(new ExecutionConfig(), new SimpleMeterRegistry())).register();
+        broker.start();
+
+        when(history.sendStored(any(), any(), any(), any())).thenAnswer(invocation -> {
+            historyLoaded.await(10, TimeUnit.SECONDS);
+            return 0L;
+        });
+    }
+
+    @AfterEach
+    void stopBroker() {
+        historyLoaded.countDown();
+        broker.stop();
+    }
+
+    @Test
+    void historyIsLoadedOffTheInboundThreadAndTheBrokerRegistersTheSubscriptionAfterIt() {
+        clientInbound.send(subscribe("sub-0", "500"));
+
+        // The send returned while the history is still loading, and nothing is live yet
+        verify(history, timeout(5000)).sendStored("s1", "sub-0", KLINE, "500");
+        assertThat(subscribers()).isEmpty();
+
+        historyLoaded.countDown();
+
+        verify(history, timeout(5000)).sendRecent("s1", "sub-0", KLINE, 0L);
+        assertThat(subscribers()).containsExactly("sub-0");
+        verify(replay).beginSubscribe(KLINE);
+        verify(replay).endSubscribe(KLINE);
+        verify(lastValues, never()).deliver(any(), any(), any());
+    }
+
+    @Test
+    void unsubscribeOvertakingTheHistoryCancelsTheSubscription() {
+        clientInbound.send(subscribe("sub-0", "500"));
+        verify(history, timeout(5000)).sendStored("s1", "sub-0", KLINE, "500");
+
+        clientInbound.send(control(StompCommand.UNSUBSCRIBE, "sub-0"));
+        historyLoaded.countDown();
+
+        verify(replay, after(300).never()).beginSubscribe(KLINE);
+        verify(history, never()).sendRecent(any(), any(), any(), anyLong());
+        assertThat(subscribers()).isEmpty();
+    }
+
+    @Test
+    void disconnectOvertakingTheHistoryCancelsTheSessionsSubscriptions() {
+        clientInbound.send(subscribe("sub-0", "500"));
+        verify(history, timeout(5000)).sendStored("s1", "sub-0", KLINE, "500");
+
+        clientInbound.send(control(StompCommand.DISCONNECT, null));
+        historyLoaded.countDown();
+
+        verify(replay, after(300).never()).beginSubscribe(KLINE);
+        assertThat(subscribers()).isEmpty();
+    }
+
+    @Test
+    void subscriptionWithoutHistoryIsRegisteredInline() {
+        clientInbound.send(subscribe("sub-0", null));
+
+        assertThat(subscribers()).containsExactly("sub-0");
+        verify(history, never()).sendStored(any(), any(), any(), any());
+        verify(lastValues).deliver("s1", "sub-0", KLINE);
+        verify(replay).endSubscribe(eq(KLINE));
+    }
+
+    private List<String> subscribers() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(KLINE);
+        List<String> subscriptions = broker.getSubscriptionRegistry()
+                .findSubscriptions(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()))
+                .get("s1");
+        return subscriptions == null ? List.of() : subscriptions;
+    }
+
+    private static Message<byte[]> subscribe(String subscriptionId, String historyCount) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setSessionId("s1");
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(KLINE);
+        if (historyCount != null) {
+            accessor.setNativeHeader(KlineHistory.HEADER, historyCount);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> control(StompCommand command, String subscriptionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setSessionId("s1");
+        if (subscriptionId != null) {
+            accessor.setSubscriptionId(subscriptionId);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
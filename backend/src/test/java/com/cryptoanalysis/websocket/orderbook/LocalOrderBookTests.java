@@ -0,0 +1,99 @@
+package com.cryptoanalysis.websocket.orderbook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.candle.dto.OrderBookDTO;
+import com.cryptoanalysis.websocket.dto.DepthUpdateDto;
+
+class LocalOrderBookTests {
+
+    private final LocalOrderBook book = new LocalOrderBook("BTCUSDT", 2, 3, 100, 1000);
+
+    @Test
+    void appliesBufferedEventsThatStraddleTheSnapshot() {
+        assertThat(book.apply(update(95, 99, new long[] { 10000, 1000 }, new long[0])))
+                .isEqualTo(LocalOrderBook.UpdateResult.BUFFERED);
+        book.apply(update(100, 103, new long[] { 10100, 2000 }, new long[] { 10200, 500 }));
+        book.apply(update(104, 104, new long[] { 10000, 0 }, new long[0]));
+
+        LocalOrderBook.SnapshotResult result = book.loadSnapshot(101,
+                new long[] { 10000, 4000, 9900, 1000 }, new long[] { 10200, 3000, 10300, 1000 });
+
+        assertThat(result).isEqualTo(LocalOrderBook.SnapshotResult.SYNCED);
+        assertThat(book.getLastUpdateId()).isEqualTo(104);
+
+        OrderBookDTO dto = book.toDto(10);
+        assertThat(dto.getBids()).extracting(OrderBookDTO.OrderBookEntry::getPrice)
+                .containsExactly(new BigDecimal("101.00"), new BigDecimal("99.00"));
+        assertThat(dto.getAsks()).extracting(OrderBookDTO.OrderBookEntry::getQty)
+                .containsExactly(new BigDecimal("0.500"), new BigDecimal("1.000"));
+    }
+
+    @Test
+    void snapshotFailuresInARowAreCountedUntilTheBookSyncs() {
+        assertThat(book.snapshotFailed()).isEqualTo(1);
+        assertThat(book.snapshotFailed()).isEqualTo(2);
+
+        assertThat(book.loadSnapshot(1, new long[0], new long[0])).isEqualTo(LocalOrderBook.SnapshotResult.SYNCED);
+
+        assertThat(book.snapshotFailed()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsSnapshotOlderThanBufferedEvents() {
+        book.apply(update(200, 205, new long[0], new long[0]));
+
+        assertThat(book.loadSnapshot(150, new long[0], new long[0]))
+                .isEqualTo(LocalOrderBook.SnapshotResult.TOO_OLD);
+        assertThat(book.isSynced()).isFalse();
+    }
+
+    @Test
+    void sequenceGapDesyncsAndKeepsTheOffendingEvent() {
+        book.loadSnapshot(10, new long[] { 10000, 1000 }, new long[] { 10100, 1000 });
+        assertThat(book.apply(update(9, 12, new long[0], new long[0])))
+                .isEqualTo(LocalOrderBook.UpdateResult.APPLIED);
+        assertThat(book.apply(update(12, 12, new long[0], new long[0])))
+                .isEqualTo(LocalOrderBook.UpdateResult.IGNORED);
+
+        assertThat(book.apply(update(15, 16, new long[0], new long[0])))
+                .isEqualTo(LocalOrderBook.UpdateResult.GAP);
+        assertThat(book.isSynced()).isFalse();
+        assertThat(book.toDto(10)).isNull();
+
+        assertThat(book.loadSnapshot(14, new long[] { 10000, 1000 }, new long[0]))
+                .isEqualTo(LocalOrderBook.SnapshotResult.SYNCED);
+        assertThat(book.getLastUpdateId()).isEqualTo(16);
+        assertThat(book.toStats().getResyncs()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsLevelsSortedBestFirstAndTruncatesTheFarEnd() {
+        LocalOrderBook small = new LocalOrderBook("BTCUSDT", 2, 3, 3, 1000);
+        small.loadSnapshot(1, new long[0], new long[0]);
+        small.apply(update(2, 2, new long[] { 100, 1, 300, 1, 200, 1, 400, 1, 50, 1 },
+                new long[] { 900, 1, 700, 1, 800, 1, 600, 1 }));
+
+        OrderBookDTO dto = small.toDto(10);
+        assertThat(dto.getBids()).extracting(OrderBookDTO.OrderBookEntry::getPrice)
+                .containsExactly(new BigDecimal("4.00"), new BigDecimal("3.00"), new BigDecimal("2.00"));
+        assertThat(dto.getAsks()).extracting(OrderBookDTO.OrderBookEntry::getPrice)
+                .containsExactly(new BigDecimal("6.00"), new BigDecimal("7.00"), new BigDecimal("8.00"));
+    }
+
+    private static DepthUpdateDto update(long first, long last, long[] bids, long[] asks) {
+        DepthUpdateDto update = new DepthUpdateDto();
+        update.setSymbol("BTCUSDT");
+        update.setFirstUpdateId(first);
+        update.setFinalUpdateId(last);
+        update.setPriceScale(2);
+        update.setQuantityScale(3);
+        update.setBids(bids);
+        update.setAsks(asks);
+        return update;
+    }
+}
@@ -0,0 +1,94 @@
+package com.cryptoanalysis.websocket.orderbook;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import com.cryptoanalysis.candle.dto.ExchangeInfoDTO;
+import com.cryptoanalysis.candle.service.ExchangeInfoService;
+import com.cryptoanalysis.candle.service.MarketDataService;
+import com.cryptoanalysis.websocket.bus.MarketDataBus;
+import com.cryptoanalysis.websocket.config.FrameJournalConfig;
+import com.cryptoanalysis.websocket.config.OrderBookConfig;
+import com.cryptoanalysis.websocket.dto.OrderBookStatsDto;
+import com.cryptoanalysis.websocket.enums.JournalMode;
+import com.cryptoanalysis.websocket.integration.BinanceWebSocketClient;
+import com.cryptoanalysis.websocket.service.SubscriptionRegistry;
+import com.cryptoanalysis.websocket.service.SymbolPrecisionService;
+
+class OrderBookServiceTests {
+
+    private final OrderBookConfig config = new OrderBookConfig();
+    private final FrameJournalConfig journalConfig = new FrameJournalConfig();
+    private final BinanceWebSocketClient client = mock(BinanceWebSocketClient.class);
+    private final MarketDataService marketDataService = mock(MarketDataService.class);
+    private final ExchangeInfoService exchangeInfoService = mock(ExchangeInfoService.class);
+    private final OrderBookService service = new OrderBookService(config, journalConfig, client, marketDataService,
+            exchangeInfoService, mock(MarketDataBus.class), mock(SymbolPrecisionService.class),
+            mock(SimpMessagingTemplate.class), mock(SubscriptionRegistry.class));
+
+    @BeforeEach
+    void exchangeInfo() {
+        when(exchangeInfoService.getExchangeInfo()).thenReturn(ExchangeInfoDTO.builder()
+                .symbols(List.of(symbol("BTCUSDT", "TRADING"), symbol("ETHUSDT", "TRADING"),
+                        symbol("LUNAUSDT", "BREAK")))
+                .build());
+        when(marketDataService.fetchOrderBook(any(), anyInt())).thenThrow(new IllegalStateException("offline"));
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void onlySymbolsTradingOnTheExchangeGetABook() {
+        assertThat(service.getOrderBook("NOTACOIN", 100)).isEmpty();
+        assertThat(service.getOrderBook("LUNAUSDT", 100)).isEmpty();
+        assertThat(service.getOrderBook("BTCUSDT", 100)).isEmpty();
+
+        verify(client, never()).subscribeDepth("NOTACOIN");
+        verify(client, never()).subscribeDepth("LUNAUSDT");
+        verify(client).subscribeDepth("BTCUSDT");
+        assertThat(service.getStats()).extracting(OrderBookStatsDto::getSymbol).containsExactly("BTCUSDT");
+    }
+
+    @Test
+    void booksBeyondTheLimitAreNotStarted() {
+        config.setMaxBooks(1);
+
+        service.getOrderBook("BTCUSDT", 100);
+        service.getOrderBook("ETHUSDT", 100);
+        service.getOrderBook("BTCUSDT", 100);
+
+        verify(client).subscribeDepth("BTCUSDT");
+        verify(client, never()).subscribeDepth("ETHUSDT");
+        assertThat(service.getStats()).hasSize(1);
+    }
+
+    @Test
+    void noBookIsKeptWhileReplayingAJournal() {
+        journalConfig.setMode(JournalMode.REPLAY);
+
+        assertThat(service.getOrderBook("BTCUSDT", 100)).isEmpty();
+
+        verifyNoInteractions(exchangeInfoService, marketDataService, client);
+        assertThat(service.getStats()).isEmpty();
+    }
+
+    private static ExchangeInfoDTO.ExchangeSymbolDTO symbol(String symbol, String status) {
+        return ExchangeInfoDTO.ExchangeSymbolDTO.builder().symbol(symbol).status(status).build();
+    }
+}
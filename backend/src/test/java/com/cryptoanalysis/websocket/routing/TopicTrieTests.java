@@ -0,0 +1,70 @@
+package com.cryptoanalysis.websocket.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TopicTrieTests {
+
+    private final TopicTrie<String> trie = new TopicTrie<>();
+
+    @Test
+    void matchesLiteralWildcardAndTrailingSegments() {
+        trie.add("/topic/kline/btcusdt/1m", "exact");
+        trie.add("/topic/kline/*/1m", "any-symbol");
+        trie.add("/topic/kline/**", "all-klines");
+        trie.add("/topic/kline/*/5m", "other-interval");
+
+        assertThat(trie.match("/topic/kline/btcusdt/1m")).containsExactlyInAnyOrder("exact", "any-symbol",
+                "all-klines");
+        assertThat(trie.match("/topic/kline/ethusdt/1m")).containsExactlyInAnyOrder("any-symbol", "all-klines");
+        assertThat(trie.match("/topic/ticker/btcusdt")).isEmpty();
+        assertThat(trie.match("/topic/kline/btcusdt/1m/extra")).containsExactly("all-klines");
+    }
+
+    @Test
+    void removingPrunesEmptyBranches() {
+        trie.add("/topic/kline/*/1m", "a");
+        trie.add("/topic/kline/*/1m", "b");
+
+        assertThat(trie.remove("/topic/kline/*/1m", "a")).isTrue();
+        assertThat(trie.remove("/topic/kline/*/1m", "a")).isFalse();
+        assertThat(trie.match("/topic/kline/btcusdt/1m")).containsExactly("b");
+
+        trie.remove("/topic/kline/*/1m", "b");
+        assertThat(trie.isEmpty()).isTrue();
+    }
+
+    @Test
+    void alternativesExpandToBraceFreePatternsUpToTheLimit() {
+        assertThat(TopicPattern.expand("/topic/ticker/{btc,eth,sol}usdt", 10))
+                .containsExactly("/topic/ticker/btcusdt", "/topic/ticker/ethusdt", "/topic/ticker/solusdt");
+        assertThat(TopicPattern.expand("/topic/{kline/btcusdt/1m,ticker/*}", 10))
+                .containsExactly("/topic/kline/btcusdt/1m", "/topic/ticker/*");
+        assertThat(TopicPattern.expand("/topic/kline/{a,b}usdt/{1m,5m}", 3)).isEmpty();
+        assertThat(TopicPattern.expand("/topic/ticker/btcusdt", 1)).containsExactly("/topic/ticker/btcusdt");
+    }
+
+    @Test
+    void patternMatchingAgreesWithTheTrie() {
+        List<String> patterns = List.of("/topic/ticker/{btc,eth}usdt", "/topic/kline/*/1m", "/topic/kline/**",
+                "/topic/kline/btc*/1m");
+        List<String> destinations = List.of("/topic/ticker/btcusdt", "/topic/ticker/solusdt",
+                "/topic/kline/btcusdt/1m", "/topic/kline/btcusdt/1h", "/topic/kline", "/topic/kline/btc*/1m");
+
+        for (String pattern : patterns) {
+            TopicPattern.expand(pattern, 10).forEach(expanded -> trie.add(expanded, pattern));
+        }
+        for (String destination : destinations) {
+            for (String pattern : patterns) {
+                assertThat(trie.match(destination).contains(pattern))
+                        .as("%s matches %s", pattern, destination)
+                        .isEqualTo(TopicPattern.matches(pattern, destination));
+            }
+        }
+        assertThat(TopicPattern.matches("/topic/kline/btc*/1m", "/topic/kline/btcusdt/1m")).isFalse();
+        assertThat(TopicPattern.matches("/topic/ticker/{btc,eth}usdt", "/topic/ticker/ethusdt")).isTrue();
+    }
+}
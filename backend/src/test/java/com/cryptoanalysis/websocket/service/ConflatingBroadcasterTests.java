@@ -0,0 +1,115 @@
+package com.cryptoanalysis.websocket.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.cryptoanalysis.websocket.config.RelayConflationConfig;
+import com.cryptoanalysis.websocket.dto.ConflationStatsDto;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ConflatingBroadcasterTests {
+
+    private static final String KLINE = "/topic/kline/btcusdt/1m";
+    private static final String ALL = "/topic/ticker/all";
+
+    private final TopicPublisher publisher = mock(TopicPublisher.class);
+    private final ConflatingBroadcaster broadcaster = new ConflatingBroadcaster(publisher, new RelayConflationConfig(),
+            new SimpleMeterRegistry());
+
+    @Test
+    void sendsFirstUpdateAndHoldsOnlyTheLatestUntilDue() throws Exception {
+        broadcaster.publish(KLINE, "kline", 50, "a", "a", false);
+        broadcaster.publish(KLINE, "kline", 50, "b", "b", false);
+        broadcaster.publish(KLINE, "kline", 50, "c", "c", false);
+
+        verify(publisher).send(KLINE, "kline", "a");
+        verify(publisher, never()).send(KLINE, "kline", "b");
+
+        broadcaster.flushDue();
+        verify(publisher, never()).send(KLINE, "kline", "c");
+
+        Thread.sleep(60);
+        broadcaster.flushDue();
+        verify(publisher).send(KLINE, "kline", "c");
+        verify(publisher, never()).send(KLINE, "kline", "b");
+
+        ConflationStatsDto.TopicStats stats = broadcaster.getStats().getTopics().get(0);
+        assertThat(stats.getReceived()).isEqualTo(3);
+        assertThat(stats.getPublished()).isEqualTo(2);
+        assertThat(stats.getCollapsed()).isEqualTo(1);
+    }
+
+    @Test
+    void urgentUpdateBypassesCadenceAndReplacesPending() {
+        broadcaster.publish(KLINE, "kline", 60_000, "open", "open", false);
+        broadcaster.publish(KLINE, "kline", 60_000, "update", "update", false);
+        broadcaster.publish(KLINE, "kline", 60_000, "closed", "closed", true);
+
+        verify(publisher).send(KLINE, "kline", "closed");
+        assertThat(broadcaster.getStats().getPendingDestinations()).isZero();
+    }
+
+    @Test
+    void dropsUpdatesEqualToTheLastSentValue() {
+        broadcaster.publish(KLINE, "kline", 0, "x", "same", false);
+        broadcaster.publish(KLINE, "kline", 0, "y", "same", false);
+
+        verify(publisher, times(1)).send(eq(KLINE), eq("kline"), any(Object.class));
+        assertThat(broadcaster.getStats().getTopics().get(0).getDuplicates()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void mergedTopicKeepsLatestValuePerKey() throws Exception {
+        broadcaster.publishMerged(ALL, "ticker_all", 50, List.of("BTC:1", "ETH:1"), this::key, s -> s);
+        broadcaster.publishMerged(ALL, "ticker_all", 50, List.of("BTC:2"), this::key, s -> s);
+        broadcaster.publishMerged(ALL, "ticker_all", 50, List.of("BTC:3", "SOL:1", "ETH:1"), this::key, s -> s);
+
+        Thread.sleep(60);
+        broadcaster.flushDue();
+
+        ArgumentCaptor<Object> sent = ArgumentCaptor.forClass(Object.class);
+        verify(publisher, times(2)).send(eq(ALL), eq("ticker_all"), sent.capture());
+        assertThat((List<String>) sent.getAllValues().get(0)).containsExactly("BTC:1", "ETH:1");
+        assertThat((List<String>) sent.getAllValues().get(1)).containsExactly("BTC:3", "SOL:1");
+    }
+
+    @Test
+    void throttledStreamIsConflatedOnceForItsRateClass() {
+        String throttled = "/topic/throttled/1000/kline/btcusdt/1m";
+        when(publisher.hasSubscribers(throttled)).thenReturn(true);
+
+        broadcaster.publish(KLINE, "kline", 0, "a", "a", false);
+        broadcaster.publish(KLINE, "kline", 0, "b", "b", false);
+        broadcaster.publish(KLINE, "kline", 0, "c", "c", false);
+
+        verify(publisher).send(KLINE, "kline", "c");
+        verify(publisher).send(throttled, "kline@1000ms", "a");
+        verify(publisher, never()).send(throttled, "kline@1000ms", "b");
+        verify(publisher, never()).send(eq("/topic/throttled/5000/kline/btcusdt/1m"), any(), any());
+        assertThat(broadcaster.getStats().getPendingDestinations()).isEqualTo(1);
+
+        // The last subscriber of the class left
+        when(publisher.hasSubscribers(throttled)).thenReturn(false);
+        broadcaster.publish(KLINE, "kline", 0, "d", "d", false);
+
+        verify(publisher).forget(throttled);
+        assertThat(broadcaster.getStats().getPendingDestinations()).isZero();
+    }
+
+    private String key(String item) {
+        return item.substring(0, item.indexOf(':'));
+    }
+}
@@ -0,0 +1,161 @@
+package com.cryptoanalysis.websocket.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+import com.cryptoanalysis.candle.mapper.CandleMapper;
+import com.cryptoanalysis.candle.repository.KlineRepository;
+import com.cryptoanalysis.candle.service.CandleService;
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.config.KlineHistoryConfig;
+import com.cryptoanalysis.websocket.config.LastValueConfig;
+import com.cryptoanalysis.websocket.config.ReplayConfig;
+import com.cryptoanalysis.websocket.dto.KlineMessage;
+import com.cryptoanalysis.websocket.model.Kline;
+import com.cryptoanalysis.websocket.wire.BinaryMarketDataEncoder;
+import com.cryptoanalysis.websocket.wire.SymbolIdRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class KlineHistoryTests {
+
+    private static final String KLINE = "/topic/kline/btcusdt/1m";
+    private static final long MINUTE = 60_000L;
+
+    private final MessageChannel outbound = mock(MessageChannel.class);
+    private final KlineRepository klineRepository = mock(KlineRepository.class);
+    private final CandleService candleService = mock(CandleService.class);
+    private final BinaryMarketDataEncoder encoder = new BinaryMarketDataEncoder(new SymbolIdRegistry());
+    private final ReplayBuffer replay = new ReplayBuffer(outbound, encoder, new ReplayConfig(),
+            new SimpleMeterRegistry());
+    private final LastValueCache lastValues = new LastValueCache(outbound, encoder, new LastValueConfig(),
+            new SimpleMeterRegistry());
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final KlineHistoryConfig config = new KlineHistoryConfig();
+    private final KlineHistory history = new KlineHistory(outbound, klineRepository, candleService,
+            new CandleMapper(), replay, lastValues, objectMapper, config, new SimpleMeterRegistry());
+
+    /**
+     * Open time of the candle in progress.
+     */
+    private final long current = System.currentTimeMillis() / MINUTE * MINUTE;
+
+    @Test
+    void storedCandlesAreChunkedAndTheRecentOnesFollowWithoutOverlap() throws Exception {
+        config.setChunkSize(2);
+        // The database is one candle behind: the newest it has closed two minutes ago
+        when(klineRepository.findLatestCandles(eq("BTCUSDT"), eq("1m"), any())).thenReturn(
+                IntStream.rangeClosed(2, 6).mapToObj(age -> stored(current - age * MINUTE)).toList());
+
+        long sent = history.sendStored("s1", "sub-0", KLINE, "5");
+        publish(live(current - 2 * MINUTE, true));
+        publish(live(current - MINUTE, true));
+        publish(live(current, false));
+        history.sendRecent("s1", "sub-0", KLINE, sent);
+
+        assertThat(sent).isEqualTo(current - 2 * MINUTE);
+        verify(candleService).fetchExchangeKlines(eq("BTCUSDT"), eq("1m"), eq(current - 2 * MINUTE + 1), anyLong(),
+                anyInt());
+
+        List<Message<?>> messages = sent(5);
+        assertThat(messages).extracting(m -> SimpMessageHeaderAccessor.wrap(m)
+                .getFirstNativeHeader(KlineHistory.HEADER))
+                .containsExactly(KlineHistory.CHUNK, KlineHistory.CHUNK, KlineHistory.CHUNK, KlineHistory.END, null);
+        assertThat(openTimes(messages.get(0))).containsExactly(current - 6 * MINUTE, current - 5 * MINUTE);
+        assertThat(openTimes(messages.get(2))).containsExactly(current - 2 * MINUTE);
+        assertThat(openTimes(messages.get(3))).containsExactly(current - MINUTE);
+        assertThat(objectMapper.readTree((byte[]) messages.get(4).getPayload()).get("openTime").asLong())
+                .isEqualTo(current);
+        assertThat(messages).extracting(m -> SimpMessageHeaderAccessor.wrap(m).getSubscriptionId())
+                .containsOnly("sub-0");
+        assertThat(history.getCandlesSent()).isEqualTo(6);
+    }
+
+    @Test
+    void onlyKlineSubscriptionsThatAskGetHistory() {
+        assertThat(history.sendStored("s1", "sub-0", KLINE, null)).isEqualTo(KlineHistory.NOT_REQUESTED);
+        assertThat(history.sendStored("s1", "sub-1", "/topic/ticker/btcusdt", "500"))
+                .isEqualTo(KlineHistory.NOT_REQUESTED);
+        assertThat(history.sendStored("s1", "sub-2", KLINE, "lots")).isEqualTo(KlineHistory.NOT_REQUESTED);
+        config.setEnabled(false);
+        assertThat(history.sendStored("s1", "sub-3", KLINE, "500")).isEqualTo(KlineHistory.NOT_REQUESTED);
+
+        verify(outbound, never()).send(any());
+    }
+
+    @Test
+    void parsesTheSubscribeDestination() {
+        KlineHistory.Request request = KlineHistory.parseSubscribe("/app/subscribe/kline/BTCUSDT/1h?history=500");
+
+        assertThat(request.topic()).isEqualTo("/topic/kline/btcusdt/1h");
+        assertThat(request.count()).isEqualTo("500");
+        assertThat(KlineHistory.parseSubscribe("/app/subscribe/kline/BTCUSDT/1h").count()).isNull();
+        assertThat(KlineHistory.parseSubscribe("/app/subscribe/ticker/BTCUSDT")).isNull();
+    }
+
+    private void publish(KlineMessage candle) {
+        replay.publish(KLINE, candle, new byte[] { '{', '}' }, sequence -> lastValues.publish(KLINE, candle,
+                ("{\"openTime\":" + candle.getOpenTime() + "}").getBytes(), () -> {
+                }));
+    }
+
+    private List<Message<?>> sent(int count) {
+        ArgumentCaptor<Message<?>> messages = ArgumentCaptor.forClass(Message.class);
+        verify(outbound, times(count)).send(messages.capture());
+        return messages.getAllValues();
+    }
+
+    private List<Long> openTimes(Message<?> message) throws Exception {
+        JsonNode candles = objectMapper.readTree((byte[]) message.getPayload());
+        return IntStream.range(0, candles.size()).mapToObj(i -> candles.get(i).get("openTime").asLong()).toList();
+    }
+
+    private static Kline stored(long openTime) {
+        return Kline.builder()
+                .symbol("BTCUSDT")
+                .interval("1m")
+                .openTime(openTime)
+                .closeTime(openTime + MINUTE - 1)
+                .openPrice(new BigDecimal("42000.10"))
+                .highPrice(new BigDecimal("42100"))
+                .lowPrice(new BigDecimal("41900.5"))
+                .closePrice(new BigDecimal("42050.25"))
+                .volume(new BigDecimal("12.34567"))
+                .build();
+    }
+
+    private static KlineMessage live(long openTime, boolean closed) {
+        return KlineMessage.builder()
+                .symbol("BTCUSDT")
+                .interval("1m")
+                .openTime(openTime)
+                .closeTime(openTime + MINUTE - 1)
+                .open(ScaledDecimal.parse("42000.10"))
+                .high(ScaledDecimal.parse("42100"))
+                .low(ScaledDecimal.parse("41900.5"))
+                .close(ScaledDecimal.parse("42050.25"))
+                .volume(ScaledDecimal.parse("12.34567"))
+                .isClosed(closed)
+                .build();
+    }
+}
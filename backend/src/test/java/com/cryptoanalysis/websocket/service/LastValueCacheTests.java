@@ -0,0 +1,128 @@
+package com.cryptoanalysis.websocket.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.util.MimeTypeUtils;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.config.LastValueConfig;
+import com.cryptoanalysis.websocket.dto.KlineMessage;
+import com.cryptoanalysis.websocket.dto.TickerMessage;
+import com.cryptoanalysis.websocket.wire.BinaryMarketDataEncoder;
+import com.cryptoanalysis.websocket.wire.SymbolIdRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class LastValueCacheTests {
+
+    private static final String KLINE = "/topic/kline/btcusdt/1d";
+    private static final String BINARY_KLINE = "/topic/bin/kline/btcusdt/1d";
+
+    private final MessageChannel outbound = mock(MessageChannel.class);
+    private final BinaryMarketDataEncoder encoder = new BinaryMarketDataEncoder(new SymbolIdRegistry());
+    private final LastValueConfig config = new LastValueConfig();
+    private final LastValueCache cache = new LastValueCache(outbound, encoder, config, new SimpleMeterRegistry());
+    private final List<String> broadcasts = new ArrayList<>();
+
+    @Test
+    void sendsTheCandleInProgressToTheNewSubscriptionOnly() {
+        KlineMessage candle = candle(false);
+        cache.publish(KLINE, candle, "{\"close\":\"42050.25\"}".getBytes(), () -> broadcasts.add("kline"));
+
+        assertThat(broadcasts).containsExactly("kline");
+        assertThat(cache.deliver("s1", "sub-0", KLINE)).isTrue();
+
+        SimpMessageHeaderAccessor headers = sent();
+        assertThat(headers.getSessionId()).isEqualTo("s1");
+        assertThat(headers.getSubscriptionId()).isEqualTo("sub-0");
+        assertThat(headers.getDestination()).isEqualTo(KLINE);
+        assertThat(headers.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_JSON);
+        assertThat(cache.getDelivered()).isEqualTo(1);
+    }
+
+    @Test
+    void binarySubscriptionGetsTheBinaryEncoding() {
+        KlineMessage candle = candle(false);
+        cache.publish(KLINE, candle, new byte[] { '{', '}' }, () -> {
+        });
+
+        assertThat(cache.deliver("s1", "sub-0", BINARY_KLINE)).isTrue();
+
+        ArgumentCaptor<Message<?>> message = ArgumentCaptor.forClass(Message.class);
+        verify(outbound).send(message.capture());
+        assertThat(message.getValue().getPayload()).isEqualTo(encoder.encode(candle));
+        assertThat(SimpMessageHeaderAccessor.wrap(message.getValue()).getDestination()).isEqualTo(BINARY_KLINE);
+    }
+
+    @Test
+    void patternSubscriptionGetsEveryMatchingValueUnderItsOwnDestination() {
+        cache.publish(KLINE, candle(false), new byte[] { '{', '}' }, () -> {
+        });
+        cache.publish("/topic/kline/btcusdt/1m", candle(false), new byte[] { '{', '}' }, () -> {
+        });
+
+        assertThat(cache.deliver("s1", "sub-0", "/topic/bin/kline/{btc,eth}usdt/1d")).isTrue();
+
+        SimpMessageHeaderAccessor headers = sent();
+        assertThat(headers.getSubscriptionId()).isEqualTo("sub-0");
+        assertThat(headers.getDestination()).isEqualTo(BINARY_KLINE);
+        assertThat(headers.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        assertThat(cache.deliver("s1", "sub-1", "/topic/kline/*/4h")).isFalse();
+    }
+
+    @Test
+    void keepsOnlyWholeValuesAndForgetsClosedStreams() {
+        cache.publish("/topic/ticker/all", List.of(TickerMessage.builder().symbol("BTCUSDT").build()),
+                new byte[0], () -> broadcasts.add("batch"));
+        cache.publish(KLINE, candle(true), new byte[0], () -> broadcasts.add("kline"));
+        cache.remove(KLINE);
+
+        assertThat(broadcasts).containsExactly("batch", "kline");
+        assertThat(cache.deliver("s1", "sub-0", "/topic/ticker/all")).isFalse();
+        assertThat(cache.deliver("s1", "sub-1", KLINE)).isFalse();
+        verify(outbound, never()).send(any());
+    }
+
+    @Test
+    void disabledCacheOnlyBroadcasts() {
+        config.setEnabled(false);
+        cache.publish(KLINE, candle(false), new byte[0], () -> broadcasts.add("kline"));
+
+        assertThat(broadcasts).containsExactly("kline");
+        assertThat(cache.size()).isZero();
+        assertThat(cache.deliver("s1", "sub-0", KLINE)).isFalse();
+    }
+
+    private SimpMessageHeaderAccessor sent() {
+        ArgumentCaptor<Message<?>> message = ArgumentCaptor.forClass(Message.class);
+        verify(outbound).send(message.capture());
+        return SimpMessageHeaderAccessor.wrap(message.getValue());
+    }
+
+    private static KlineMessage candle(boolean closed) {
+        return KlineMessage.builder()
+                .symbol("BTCUSDT")
+                .interval("1d")
+                .openTime(1704931200000L)
+                .closeTime(1705017599999L)
+                .open(ScaledDecimal.parse("42000.10"))
+                .high(ScaledDecimal.parse("42100"))
+                .low(ScaledDecimal.parse("41900.5"))
+                .close(ScaledDecimal.parse("42050.25"))
+                .volume(ScaledDecimal.parse("12.34567"))
+                .isClosed(closed)
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.cryptoanalysis.websocket.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+
+import com.cryptoanalysis.websocket.config.ReplayConfig;
+import com.cryptoanalysis.websocket.dto.TickerMessage;
+import com.cryptoanalysis.websocket.wire.BinaryMarketDataEncoder;
+import com.cryptoanalysis.websocket.wire.SymbolIdRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ReplayBufferTests {
+
+    private static final String TICKER = "/topic/ticker/btcusdt";
+    private static final String TICKER_ALL = "/topic/ticker/all";
+
+    private final MessageChannel outbound = mock(MessageChannel.class);
+    private final ReplayConfig config = new ReplayConfig();
+    private final ReplayBuffer replay = new ReplayBuffer(outbound,
+            new BinaryMarketDataEncoder(new SymbolIdRegistry()), config, new SimpleMeterRegistry());
+    private final List<Long> broadcast = new ArrayList<>();
+
+    @Test
+    void resumingClientGetsOnlyWhatItMissed() {
+        publish("a", "b", "c");
+        assertThat(broadcast).containsExactly(1L, 2L, 3L);
+
+        assertThat(replay.resume("s1", "sub-0", TICKER, "1", epoch())).isTrue();
+
+        List<SimpMessageHeaderAccessor> sent = sent(2);
+        assertThat(sent).extracting(h -> h.getFirstNativeHeader(ReplayBuffer.SEQ_HEADER)).containsExactly("2", "3");
+        assertThat(sent).extracting(h -> h.getFirstNativeHeader(ReplayBuffer.RESUME_HEADER))
+                .containsOnly(ReplayBuffer.REPLAY);
+        assertThat(sent.get(0).getSessionId()).isEqualTo("s1");
+        assertThat(sent.get(0).getSubscriptionId()).isEqualTo("sub-0");
+        assertThat(sent.get(0).getDestination()).isEqualTo(TICKER);
+        assertThat(replay.getReplayed()).isEqualTo(1);
+    }
+
+    @Test
+    void clientTooFarBehindOrFromAnotherRelayGetsTheLatestAsAGap() {
+        config.setCapacity(2);
+        publish("a", "b", "c", "d");
+
+        assertThat(replay.resume("s1", "sub-0", TICKER, "1", epoch())).isTrue();
+        assertThat(replay.resume("s2", "sub-0", TICKER, "3", "another-relay")).isTrue();
+
+        List<SimpMessageHeaderAccessor> sent = sent(2);
+        assertThat(sent).extracting(h -> h.getFirstNativeHeader(ReplayBuffer.SEQ_HEADER)).containsOnly("4");
+        assertThat(sent).extracting(h -> h.getFirstNativeHeader(ReplayBuffer.RESUME_HEADER))
+                .containsOnly(ReplayBuffer.GAP);
+        assertThat(replay.getGaps()).isEqualTo(2);
+    }
+
+    @Test
+    void numberingCarriesOnAfterAStreamIsForgotten() {
+        publish("a", "b");
+        replay.forget(TICKER);
+
+        assertThat(replay.resume("s1", "sub-0", TICKER, "1", epoch())).isFalse();
+        verify(outbound, never()).send(any());
+
+        publish("c");
+        assertThat(broadcast).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void batchedTopicsAreNumberedButNeverResumed() {
+        for (String batch : List.of("a", "b", "c")) {
+            replay.publish(TICKER_ALL, List.of(batch), batch.getBytes(), broadcast::add);
+        }
+        assertThat(broadcast).containsExactly(1L, 2L, 3L);
+
+        assertThat(replay.resume("s1", "sub-0", TICKER_ALL, "1", epoch())).isFalse();
+        assertThat(replay.held(TICKER_ALL)).isEmpty();
+        verify(outbound, never()).send(any());
+    }
+
+    @Test
+    void disabledBufferOnlyBroadcasts() {
+        config.setEnabled(false);
+        publish("a");
+
+        assertThat(broadcast).containsExactly(ReplayBuffer.NO_SEQUENCE);
+        assertThat(replay.resume("s1", "sub-0", TICKER, "0", epoch())).isFalse();
+    }
+
+    private void publish(String... prices) {
+        for (String price : prices) {
+            TickerMessage ticker = TickerMessage.builder().symbol("BTCUSDT").timestamp(1L).build();
+            replay.publish(TICKER, ticker, price.getBytes(), broadcast::add);
+        }
+    }
+
+    private String epoch() {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        replay.stamp(accessor, 1);
+        return accessor.getFirstNativeHeader(ReplayBuffer.EPOCH_HEADER);
+    }
+
+    private List<SimpMessageHeaderAccessor> sent(int count) {
+        ArgumentCaptor<Message<?>> messages = ArgumentCaptor.forClass(Message.class);
+        verify(outbound, times(count)).send(messages.capture());
+        return messages.getAllValues().stream().map(SimpMessageHeaderAccessor::wrap).toList();
+    }
+}
@@ -0,0 +1,160 @@
+package com.cryptoanalysis.websocket.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.websocket.config.RelaySubscriptionConfig;
+
+class SubscriptionRegistryTests {
+
+    private static final String KEY = "kline_BTCUSDT_1m";
+    private static final String DESTINATION = "/topic/kline/btcusdt/1m";
+
+    private final List<String> actions = new ArrayList<>();
+    private SubscriptionRegistry registry = registry(0);
+
+    @AfterEach
+    void shutdown() {
+        registry.shutdown();
+    }
+
+    @Test
+    void opensOnFirstHolderAndClosesAfterLast() {
+        assertThat(acquire("s1")).isTrue();
+        assertThat(acquire("s2")).isTrue();
+        assertThat(actions).containsExactly("open");
+        assertThat(registry.getCount(KEY)).isEqualTo(2);
+
+        registry.release("s1", KEY);
+        assertThat(actions).containsExactly("open");
+
+        registry.release("s2", KEY);
+        assertThat(actions).containsExactly("open", "close");
+        assertThat(registry.isOpen(KEY)).isFalse();
+    }
+
+    @Test
+    void repeatedSubscribeAndUnsubscribeFromOneSessionCountOnce() {
+        acquire("s1");
+        assertThat(acquire("s1")).isFalse();
+        acquire("s2");
+        assertThat(registry.getCount(KEY)).isEqualTo(2);
+
+        assertThat(registry.release("s1", KEY)).isTrue();
+        assertThat(registry.release("s1", KEY)).isFalse();
+        assertThat(registry.getCount(KEY)).isEqualTo(1);
+        assertThat(actions).containsExactly("open");
+    }
+
+    @Test
+    void disconnectReleasesEverythingAndLateSubscribesAreIgnored() {
+        acquire("s1");
+        registry.acquire("s1", "ticker_BTCUSDT", "/topic/ticker/btcusdt", () -> actions.add("open ticker"),
+                () -> actions.add("close ticker"));
+
+        registry.releaseSession("s1");
+        registry.releaseSession("s1");
+
+        assertThat(actions).containsExactlyInAnyOrder("open", "open ticker", "close", "close ticker");
+        assertThat(acquire("s1")).isFalse();
+        assertThat(registry.getSessionCount()).isZero();
+    }
+
+    @Test
+    void stompUnsubscribeReleasesOnceNoSubscriptionToTheDestinationRemains() {
+        registry.trackStompSubscription("s1", "sub-0", DESTINATION);
+        registry.trackStompSubscription("s1", "sub-1", DESTINATION);
+        acquire("s1");
+
+        registry.releaseStompSubscription("s1", "sub-0");
+        assertThat(registry.getCount(KEY)).isEqualTo(1);
+
+        registry.releaseStompSubscription("s1", "sub-1");
+        assertThat(registry.getCount(KEY)).isZero();
+        assertThat(actions).containsExactly("open", "close");
+    }
+
+    @Test
+    void patternUnsubscribeReleasesWhatNoOtherSubscriptionCovers() {
+        List<String> closed = new ArrayList<>();
+        for (String symbol : List.of("btcusdt", "ethusdt")) {
+            registry.acquire("s1", "ticker_" + symbol, "/topic/ticker/" + symbol, () -> {
+            }, () -> closed.add(symbol));
+        }
+        registry.trackStompSubscription("s1", "sub-0", "/topic/bin/ticker/{btc,eth}usdt");
+        registry.trackStompSubscription("s1", "sub-1", "/topic/ticker/btcusdt");
+
+        registry.releaseStompSubscription("s1", "sub-0");
+        assertThat(closed).containsExactly("ethusdt");
+        assertThat(registry.getCount("ticker_btcusdt")).isEqualTo(1);
+
+        registry.releaseStompSubscription("s1", "sub-1");
+        assertThat(closed).containsExactly("ethusdt", "btcusdt");
+    }
+
+    @Test
+    void resubscribeWithinGracePeriodKeepsTheStreamOpen() throws Exception {
+        registry.shutdown();
+        registry = registry(200);
+
+        acquire("s1");
+        registry.releaseSession("s1");
+        assertThat(registry.isOpen(KEY)).isTrue();
+
+        // The same browser reconnects under a new session
+        acquire("s2");
+        Thread.sleep(400);
+        assertThat(actions).containsExactly("open");
+
+        registry.release("s2", KEY);
+        Thread.sleep(400);
+        assertThat(actions).containsExactly("open", "close");
+    }
+
+    @Test
+    void concurrentSubscribersOpenAndCloseExactlyOnce() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+
+        for (int i = 0; i < 64; i++) {
+            String session = "s" + i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    acquire(session);
+                    registry.release(session, KEY);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(registry.getCount(KEY)).isZero();
+        assertThat(actions.stream().filter("open"::equals).count())
+                .isEqualTo(actions.stream().filter("close"::equals).count());
+        assertThat(registry.isOpen(KEY)).isFalse();
+    }
+
+    private boolean acquire(String sessionId) {
+        return registry.acquire(sessionId, KEY, DESTINATION, () -> actions.add("open"), () -> actions.add("close"));
+    }
+
+    private static SubscriptionRegistry registry(int gracePeriod) {
+        RelaySubscriptionConfig config = new RelaySubscriptionConfig();
+        config.setGracePeriod(gracePeriod);
+        return new SubscriptionRegistry(config);
+    }
+}
@@ -0,0 +1,103 @@
+package com.cryptoanalysis.websocket.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.config.TickerDeltaConfig;
+import com.cryptoanalysis.websocket.dto.TickerDeltaMessage;
+import com.cryptoanalysis.websocket.dto.TickerMessage;
+
+class TickerDeltaFeedTests {
+
+    private final TopicPublisher publisher = mock(TopicPublisher.class);
+    private final TickerDeltaConfig config = new TickerDeltaConfig();
+    private final TickerDeltaFeed feed = new TickerDeltaFeed(publisher, config);
+
+    @Test
+    void sendsOnlyChangedSymbolsAndFields() {
+        feed.start();
+        feed.onTickers(List.of(ticker("BTCUSDT", "42000", "10", 1), ticker("ETHUSDT", "2500", "20", 1)));
+        feed.onTickers(List.of(ticker("BTCUSDT", "42001", "10", 2), ticker("ETHUSDT", "2500", "20", 2)));
+
+        List<TickerDeltaMessage> frames = published(2);
+        assertThat(frames).extracting(TickerDeltaMessage::getType).containsExactly("delta", "delta");
+        assertThat(frames).extracting(TickerDeltaMessage::getSequence).containsExactly(1L, 2L);
+        assertThat(frames.get(0).getTickers()).hasSize(2);
+
+        // Only the price moved, and ETHUSDT's new timestamp alone is no change
+        assertThat(frames.get(1).getTickers()).containsExactly(Map.of(
+                "symbol", "BTCUSDT", "price", ScaledDecimal.parse("42001"), "timestamp", 2L));
+    }
+
+    @Test
+    void snapshotHoldsTheWholeTableAndTheLastSequence() {
+        feed.start();
+        feed.onTickers(List.of(ticker("BTCUSDT", "42000", "10", 1)));
+        feed.onTickers(List.of(ticker("ETHUSDT", "2500", "20", 2)));
+
+        TickerDeltaMessage snapshot = feed.snapshot();
+
+        assertThat(snapshot.getType()).isEqualTo("snapshot");
+        assertThat(snapshot.getSequence()).isEqualTo(2L);
+        assertThat(snapshot.getTickers()).extracting(entry -> entry.get("symbol"))
+                .containsExactly("BTCUSDT", "ETHUSDT");
+        assertThat(snapshot.getTickers().get(0)).containsEntry("volume", ScaledDecimal.parse("10"));
+    }
+
+    @Test
+    void sendsTheFullTableAsAKeyframeOnceTheIntervalHasPassed() {
+        config.setKeyframeInterval(0);
+        feed.start();
+        feed.onTickers(List.of(ticker("BTCUSDT", "42000", "10", 1), ticker("ETHUSDT", "2500", "20", 1)));
+        feed.onTickers(List.of(ticker("BTCUSDT", "42001", "10", 2)));
+
+        TickerDeltaMessage keyframe = published(2).get(1);
+        assertThat(keyframe.getType()).isEqualTo("keyframe");
+        assertThat(keyframe.getSequence()).isEqualTo(2L);
+        assertThat(keyframe.getTickers()).hasSize(2);
+        assertThat(keyframe.getTickers().get(0)).containsEntry("price", ScaledDecimal.parse("42001"));
+    }
+
+    @Test
+    void publishesNothingUntilStartedAndForgetsTheTableWhenStopped() {
+        feed.onTickers(List.of(ticker("BTCUSDT", "42000", "10", 1)));
+        verifyNoInteractions(publisher);
+
+        feed.start();
+        feed.onTickers(List.of(ticker("BTCUSDT", "42000", "10", 1)));
+        feed.stop();
+
+        assertThat(feed.snapshot().getTickers()).isEmpty();
+    }
+
+    private List<TickerDeltaMessage> published(int count) {
+        ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+        verify(publisher, times(count)).send(eq(TickerDeltaFeed.DESTINATION), eq("ticker_delta"), captor.capture());
+        return captor.getAllValues().stream().map(TickerDeltaMessage.class::cast).toList();
+    }
+
+    private static TickerMessage ticker(String symbol, String price, String volume, long timestamp) {
+        return TickerMessage.builder()
+                .symbol(symbol)
+                .price(ScaledDecimal.parse(price))
+                .priceChange(ScaledDecimal.parse("1"))
+                .priceChangePercent(ScaledDecimal.parse("0.01"))
+                .high(ScaledDecimal.parse("50000"))
+                .low(ScaledDecimal.parse("1"))
+                .volume(ScaledDecimal.parse(volume))
+                .quoteVolume(ScaledDecimal.parse(volume).multiply(100))
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.cryptoanalysis.websocket.session;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import com.cryptoanalysis.websocket.config.SessionBufferConfig;
+import com.cryptoanalysis.websocket.enums.OverflowPolicy;
+
+class BufferedSessionDecoratorTests {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final WebSocketSession socket = mock(WebSocketSession.class);
+    private final List<String> written = new CopyOnWriteArrayList<>();
+    private final CountDownLatch socketBlocked = new CountDownLatch(1);
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private final SessionBufferConfig config = new SessionBufferConfig();
+
+    @AfterEach
+    void shutdown() {
+        unblock.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void slowSessionKeepsOnlyTheLatestFramePerMarketDataSubscription() throws Exception {
+        BufferedSessionDecorator session = blockingSession();
+
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "first"));
+        assertThat(socketBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        session.sendMessage(frame("/topic/orderbook/btcusdt", "sub-1", "delta-1"));
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "a"));
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "b"));
+        session.sendMessage(frame("/topic/orderbook/btcusdt", "sub-1", "delta-2"));
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "c"));
+
+        assertThat(session.getQueuedMessages()).isEqualTo(3);
+        assertThat(session.getConflated()).isEqualTo(2);
+
+        unblock.countDown();
+        verify(socket, timeout(5000).times(4)).sendMessage(any());
+        assertThat(written).containsExactly("first", "delta-1", "c", "delta-2");
+    }
+
+    @Test
+    void mergedAllTickerBatchesAreNeverReplaced() throws Exception {
+        BufferedSessionDecorator session = blockingSession();
+
+        session.sendMessage(frame("/topic/ticker/all", "sub-0", "first"));
+        assertThat(socketBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        session.sendMessage(frame("/topic/ticker/all", "sub-0", "btc"));
+        session.sendMessage(frame("/topic/ticker/all", "sub-0", "eth"));
+        session.sendMessage(frame("/topic/bin/ticker/all", "sub-1", "sol"));
+        session.sendMessage(frame("/topic/bin/ticker/all", "sub-1", "xrp"));
+
+        assertThat(session.getConflated()).isZero();
+
+        unblock.countDown();
+        verify(socket, timeout(5000).times(5)).sendMessage(any());
+        assertThat(written).containsExactly("first", "btc", "eth", "sol", "xrp");
+    }
+
+    @Test
+    void closedCandlesAndReplayedFramesAreNeverReplaced() throws Exception {
+        BufferedSessionDecorator session = blockingSession();
+
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "first"));
+        assertThat(socketBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "n-update"));
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "n-closed", "final:true"));
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "n1-update-1"));
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "n1-update-2"));
+        session.sendMessage(frame("/topic/ticker/btcusdt", "sub-1", "replayed-1", "resume:replay"));
+        session.sendMessage(frame("/topic/ticker/btcusdt", "sub-1", "replayed-2", "resume:replay"));
+
+        assertThat(session.getConflated()).isEqualTo(1);
+
+        unblock.countDown();
+        verify(socket, timeout(5000).times(6)).sendMessage(any());
+        assertThat(written).containsExactly("first", "n-update", "n-closed", "n1-update-2", "replayed-1", "replayed-2");
+    }
+
+    @Test
+    void disconnectPolicyKeepsEveryFrameAndDropsASessionStuckOverItsLimit() throws Exception {
+        config.setOverflowPolicy(OverflowPolicy.DISCONNECT);
+        config.setMaxMessages(2);
+        config.setSendTimeLimit(100);
+        BufferedSessionDecorator session = blockingSession();
+
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "first"));
+        assertThat(socketBlocked.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 3; i++) {
+            session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "update-" + i));
+        }
+        assertThat(session.getQueuedMessages()).isEqualTo(3);
+        assertThat(session.isDisconnecting()).isFalse();
+
+        Thread.sleep(150);
+        session.sendMessage(frame("/topic/kline/btcusdt/1m", "sub-0", "late"));
+
+        assertThat(session.isDisconnecting()).isTrue();
+        assertThat(session.getQueuedMessages()).isZero();
+        verify(socket, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private BufferedSessionDecorator blockingSession() throws Exception {
+        when(socket.getId()).thenReturn("s1");
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            String payload = (String) message.getPayload();
+            if (written.isEmpty()) {
+                socketBlocked.countDown();
+                unblock.await();
+            }
+            written.add(payload.substring(payload.indexOf("\n\n") + 2, payload.length() - 1));
+            return null;
+        }).when(socket).sendMessage(any());
+        return new BufferedSessionDecorator(socket, config, executor);
+    }
+
+    private static TextMessage frame(String destination, String subscription, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\ncontent-type:application/json\n"
+                + "subscription:" + subscription + "\nmessage-id:1\n\n" + body + "\0");
+    }
+
+    private static TextMessage frame(String destination, String subscription, String body, String header) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\ncontent-type:application/json\n"
+                + header + "\nsubscription:" + subscription + "\nmessage-id:1\n\n" + body + "\0");
+    }
+}
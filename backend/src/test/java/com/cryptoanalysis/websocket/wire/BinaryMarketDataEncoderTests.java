@@ -0,0 +1,112 @@
+package com.cryptoanalysis.websocket.wire;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.cryptoanalysis.core.model.ScaledDecimal;
+import com.cryptoanalysis.websocket.dto.KlineMessage;
+import com.cryptoanalysis.websocket.dto.TickerMessage;
+
+class BinaryMarketDataEncoderTests {
+
+    private final SymbolIdRegistry symbolIds = new SymbolIdRegistry();
+    private final BinaryMarketDataEncoder encoder = new BinaryMarketDataEncoder(symbolIds);
+
+    @Test
+    void encodesKlineFieldsInOrder() {
+        symbolIds.idOf("ETHUSDT");
+
+        ByteBuffer frame = ByteBuffer.wrap(encoder.encode(KlineMessage.builder()
+                .symbol("BTCUSDT")
+                .interval("15m")
+                .openTime(1704967200000L)
+                .closeTime(1704968099999L)
+                .open(ScaledDecimal.parse("42000.10"))
+                .high(ScaledDecimal.parse("42100"))
+                .low(ScaledDecimal.parse("41900.5"))
+                .close(ScaledDecimal.parse("42050.25"))
+                .volume(ScaledDecimal.parse("12.34567"))
+                .isClosed(true)
+                .build()));
+
+        assertThat(frame.get()).isEqualTo(BinaryMarketDataEncoder.VERSION);
+        assertThat(frame.get()).isEqualTo(BinaryMarketDataEncoder.TYPE_KLINE);
+        assertThat(frame.getShort()).isEqualTo((short) 1);
+        byte[] interval = new byte[frame.get()];
+        frame.get(interval);
+        assertThat(new String(interval, StandardCharsets.US_ASCII)).isEqualTo("15m");
+        assertThat(frame.getLong()).isEqualTo(1704967200000L);
+        assertThat(frame.getLong()).isEqualTo(1704968099999L);
+        assertThat(frame.get()).isEqualTo((byte) 1);
+        assertThat(readDecimal(frame)).isEqualTo(ScaledDecimal.parse("42000.10"));
+        assertThat(readDecimal(frame)).isEqualTo(ScaledDecimal.parse("42100"));
+        assertThat(readDecimal(frame)).isEqualTo(ScaledDecimal.parse("41900.5"));
+        assertThat(readDecimal(frame)).isEqualTo(ScaledDecimal.parse("42050.25"));
+        assertThat(readDecimal(frame)).isEqualTo(ScaledDecimal.parse("12.34567"));
+        assertThat(frame.hasRemaining()).isFalse();
+    }
+
+    @Test
+    void tickerListIsCompactAndAbsentDecimalsTakeOneByte() {
+        List<TickerMessage> tickers = List.of(ticker("BTCUSDT", "42000.1"), ticker("ETHUSDT", "2500.55"));
+        tickers.get(1).setQuoteVolume(null);
+
+        ByteBuffer frame = ByteBuffer.wrap(encoder.encode(tickers));
+
+        assertThat(frame.remaining()).isEqualTo(4 + 2 * 73 - 8);
+        assertThat(frame.get()).isEqualTo(BinaryMarketDataEncoder.VERSION);
+        assertThat(frame.get()).isEqualTo(BinaryMarketDataEncoder.TYPE_TICKER_LIST);
+        assertThat(frame.getShort()).isEqualTo((short) 2);
+
+        assertThat(frame.getShort()).isEqualTo((short) 0);
+        assertThat(frame.getLong()).isEqualTo(1704967200000L);
+        assertThat(readDecimal(frame)).isEqualTo(ScaledDecimal.parse("42000.1"));
+
+        frame.position(4 + 73);
+        assertThat(frame.getShort()).isEqualTo((short) 1);
+        frame.getLong();
+        assertThat(readDecimal(frame)).isEqualTo(ScaledDecimal.parse("2500.55"));
+        for (int i = 0; i < 5; i++) {
+            readDecimal(frame);
+        }
+        assertThat(frame.get()).isEqualTo((byte) 0xFF);
+        assertThat(frame.hasRemaining()).isFalse();
+
+        assertThat(symbolIds.getSymbols()).containsExactly(
+                Map.entry(0, "BTCUSDT"), Map.entry(1, "ETHUSDT"));
+    }
+
+    @Test
+    void supportsOnlyKlinesAndTickers() {
+        assertThat(encoder.supports(new KlineMessage())).isTrue();
+        assertThat(encoder.supports(List.of(new TickerMessage()))).isTrue();
+        assertThat(encoder.supports(List.of("depth"))).isFalse();
+        assertThat(encoder.supports("depth")).isFalse();
+    }
+
+    private static TickerMessage ticker(String symbol, String price) {
+        ScaledDecimal value = ScaledDecimal.parse(price);
+        return TickerMessage.builder()
+                .symbol(symbol)
+                .price(value)
+                .priceChange(ScaledDecimal.parse("1.5"))
+                .priceChangePercent(ScaledDecimal.parse("0.036"))
+                .high(value)
+                .low(value)
+                .volume(ScaledDecimal.parse("100"))
+                .quoteVolume(ScaledDecimal.parse("4200000"))
+                .timestamp(1704967200000L)
+                .build();
+    }
+
+    private static ScaledDecimal readDecimal(ByteBuffer frame) {
+        int scale = frame.get();
+        return ScaledDecimal.of(frame.getLong(), scale);
+    }
+}
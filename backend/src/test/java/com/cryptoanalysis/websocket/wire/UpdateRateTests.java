@@ -0,0 +1,44 @@
+package com.cryptoanalysis.websocket.wire;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class UpdateRateTests {
+
+    private static final List<Integer> CLASSES = List.of(1000, 5000, 15000);
+
+    @Test
+    void picksTheFastestClassNoFasterThanRequested() {
+        assertThat(UpdateRate.classInterval(1, CLASSES)).isEqualTo(1000);
+        assertThat(UpdateRate.classInterval(0.5, CLASSES)).isEqualTo(5000);
+        assertThat(UpdateRate.classInterval(0.2, CLASSES)).isEqualTo(5000);
+        assertThat(UpdateRate.classInterval(0.01, CLASSES)).isEqualTo(15000);
+    }
+
+    @Test
+    void fastOrInvalidRatesKeepTheFullStream() {
+        assertThat(UpdateRate.classInterval(4, CLASSES)).isNull();
+        assertThat(UpdateRate.classInterval(0, CLASSES)).isNull();
+        assertThat(UpdateRate.classInterval(-1, CLASSES)).isNull();
+        assertThat(UpdateRate.classInterval(Double.NaN, CLASSES)).isNull();
+        assertThat(UpdateRate.classInterval(1, List.of())).isNull();
+    }
+
+    @Test
+    void throttledDestinationsMapBackToTheirTopicInEitherFormat() {
+        String throttled = UpdateRate.throttledDestination("/topic/kline/btcusdt/1m", 5000);
+
+        assertThat(throttled).isEqualTo("/topic/throttled/5000/kline/btcusdt/1m");
+        assertThat(UpdateRate.baseDestination(throttled)).isEqualTo("/topic/kline/btcusdt/1m");
+        assertThat(WireFormat.supportsBinary(throttled)).isTrue();
+
+        String binary = WireFormat.binaryDestination(throttled);
+        assertThat(binary).isEqualTo("/topic/bin/throttled/5000/kline/btcusdt/1m");
+        assertThat(UpdateRate.baseDestination(WireFormat.canonicalDestination(binary)))
+                .isEqualTo("/topic/kline/btcusdt/1m");
+        assertThat(UpdateRate.baseDestination("/topic/ticker/all")).isEqualTo("/topic/ticker/all");
+    }
+}
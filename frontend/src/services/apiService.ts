@@ -166,7 +166,20 @@ class ApiService {
 		ApiResponse<{
 			status: string;
 			totalStreams: number;
-			totalSubscribers: number;
+			staleStreams: number;
+			streams: Array<{
+				stream: string;
+				connectionId: number;
+				expectedIntervalMs: number;
+				observedIntervalMs: number;
+				staleThresholdMs: number;
+				lastMessageAgeMs: number;
+				messages: number;
+				stale: boolean;
+				staleCount: number;
+			}>;
+			gapFillsStarted: number;
+			candlesGapFilled: number;
 		}>
 	> {
 		return this.request(API_ENDPOINTS.WS_HEALTH);